@@ -1,5 +1,8 @@
 package com.webank.wecube.platform.core.commons;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 @ConfigurationProperties(prefix = "wecube.core")
@@ -291,6 +294,675 @@ public class ApplicationProperties {
         }
     }
 
+    @ConfigurationProperties(prefix = "wecube.core.plugin-invocation")
+    public class PluginInvocationProperties {
+        private int chunkSize = 0;
+        private int chunkParallelism = 4;
+        private int chunkMaxRetryTimes = 2;
+        private long chunkRetryIntervalMillis = 1000;
+        private boolean circuitBreakerEnabled = false;
+        private int circuitBreakerWindowSize = 20;
+        private int circuitBreakerMinimumCalls = 10;
+        private int circuitBreakerFailureRateThreshold = 50;
+        private long circuitBreakerSlowCallDurationMillis = 300000;
+        private long circuitBreakerOpenDurationMillis = 30000;
+        private int circuitBreakerHalfOpenPermittedCalls = 3;
+        private boolean concurrencyLimitEnabled = false;
+        private int concurrencyLimitInitial = 200;
+        private int concurrencyLimitMin = 1;
+        private int concurrencyLimitMax = 200;
+        private long concurrencyLimitLatencyThresholdMillis = 60000;
+        private double concurrencyLimitBackoffRatio = 0.9;
+        private long concurrencyLimitAcquireTimeoutMillis = 10000;
+        private boolean compressionEnabled = false;
+        private int compressionMinBytes = 65536;
+        private int compressionLevel = 1;
+        private List<String> compressionPlugins = new ArrayList<>();
+        private List<String> directCompressionPlugins = new ArrayList<>();
+        private boolean directInvocationEnabled = false;
+        private String loadBalanceStrategy = "round-robin";
+        private int instanceEjectionConsecutiveFailures = 5;
+        private long instanceEjectionDurationMillis = 30000;
+        private boolean hedgeEnabled = false;
+        private int hedgeDelayPercentile = 95;
+        private long hedgeMinDelayMillis = 200;
+        private int hedgeWindowSize = 100;
+        private int hedgeMinSamples = 20;
+        private double hedgeBudgetRatio = 0.05;
+        private double hedgeBudgetMaxTokens = 10;
+        private int invocationWorkers = 100;
+        private int invocationQueueCapacity = 10000;
+        private int priorityWeightHigh = 8;
+        private int priorityWeightNormal = 4;
+        private int priorityWeightLow = 1;
+        private String batchExecutionPriority = "low";
+        private long batchExecutionQueueTimeoutMillis = 600000;
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public int getChunkParallelism() {
+            return chunkParallelism;
+        }
+
+        public int getChunkMaxRetryTimes() {
+            return chunkMaxRetryTimes;
+        }
+
+        public long getChunkRetryIntervalMillis() {
+            return chunkRetryIntervalMillis;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public void setChunkParallelism(int chunkParallelism) {
+            this.chunkParallelism = chunkParallelism;
+        }
+
+        public void setChunkMaxRetryTimes(int chunkMaxRetryTimes) {
+            this.chunkMaxRetryTimes = chunkMaxRetryTimes;
+        }
+
+        public void setChunkRetryIntervalMillis(long chunkRetryIntervalMillis) {
+            this.chunkRetryIntervalMillis = chunkRetryIntervalMillis;
+        }
+
+        public boolean isCircuitBreakerEnabled() {
+            return circuitBreakerEnabled;
+        }
+
+        public int getCircuitBreakerWindowSize() {
+            return circuitBreakerWindowSize;
+        }
+
+        public int getCircuitBreakerMinimumCalls() {
+            return circuitBreakerMinimumCalls;
+        }
+
+        public int getCircuitBreakerFailureRateThreshold() {
+            return circuitBreakerFailureRateThreshold;
+        }
+
+        public long getCircuitBreakerSlowCallDurationMillis() {
+            return circuitBreakerSlowCallDurationMillis;
+        }
+
+        public long getCircuitBreakerOpenDurationMillis() {
+            return circuitBreakerOpenDurationMillis;
+        }
+
+        public int getCircuitBreakerHalfOpenPermittedCalls() {
+            return circuitBreakerHalfOpenPermittedCalls;
+        }
+
+        public boolean isConcurrencyLimitEnabled() {
+            return concurrencyLimitEnabled;
+        }
+
+        public int getConcurrencyLimitInitial() {
+            return concurrencyLimitInitial;
+        }
+
+        public int getConcurrencyLimitMin() {
+            return concurrencyLimitMin;
+        }
+
+        public int getConcurrencyLimitMax() {
+            return concurrencyLimitMax;
+        }
+
+        public long getConcurrencyLimitLatencyThresholdMillis() {
+            return concurrencyLimitLatencyThresholdMillis;
+        }
+
+        public double getConcurrencyLimitBackoffRatio() {
+            return concurrencyLimitBackoffRatio;
+        }
+
+        public long getConcurrencyLimitAcquireTimeoutMillis() {
+            return concurrencyLimitAcquireTimeoutMillis;
+        }
+
+        public boolean isCompressionEnabled() {
+            return compressionEnabled;
+        }
+
+        public int getCompressionMinBytes() {
+            return compressionMinBytes;
+        }
+
+        public int getCompressionLevel() {
+            return compressionLevel;
+        }
+
+        public List<String> getCompressionPlugins() {
+            return compressionPlugins;
+        }
+
+        public List<String> getDirectCompressionPlugins() {
+            return directCompressionPlugins;
+        }
+
+        public boolean isDirectInvocationEnabled() {
+            return directInvocationEnabled;
+        }
+
+        public String getLoadBalanceStrategy() {
+            return loadBalanceStrategy;
+        }
+
+        public int getInstanceEjectionConsecutiveFailures() {
+            return instanceEjectionConsecutiveFailures;
+        }
+
+        public long getInstanceEjectionDurationMillis() {
+            return instanceEjectionDurationMillis;
+        }
+
+        public boolean isHedgeEnabled() {
+            return hedgeEnabled;
+        }
+
+        public int getHedgeDelayPercentile() {
+            return hedgeDelayPercentile;
+        }
+
+        public long getHedgeMinDelayMillis() {
+            return hedgeMinDelayMillis;
+        }
+
+        public int getHedgeWindowSize() {
+            return hedgeWindowSize;
+        }
+
+        public int getHedgeMinSamples() {
+            return hedgeMinSamples;
+        }
+
+        public double getHedgeBudgetRatio() {
+            return hedgeBudgetRatio;
+        }
+
+        public double getHedgeBudgetMaxTokens() {
+            return hedgeBudgetMaxTokens;
+        }
+
+        public int getInvocationWorkers() {
+            return invocationWorkers;
+        }
+
+        public int getInvocationQueueCapacity() {
+            return invocationQueueCapacity;
+        }
+
+        public int getPriorityWeightHigh() {
+            return priorityWeightHigh;
+        }
+
+        public int getPriorityWeightNormal() {
+            return priorityWeightNormal;
+        }
+
+        public int getPriorityWeightLow() {
+            return priorityWeightLow;
+        }
+
+        public String getBatchExecutionPriority() {
+            return batchExecutionPriority;
+        }
+
+        public long getBatchExecutionQueueTimeoutMillis() {
+            return batchExecutionQueueTimeoutMillis;
+        }
+
+        public void setCircuitBreakerEnabled(boolean circuitBreakerEnabled) {
+            this.circuitBreakerEnabled = circuitBreakerEnabled;
+        }
+
+        public void setCircuitBreakerWindowSize(int circuitBreakerWindowSize) {
+            this.circuitBreakerWindowSize = circuitBreakerWindowSize;
+        }
+
+        public void setCircuitBreakerMinimumCalls(int circuitBreakerMinimumCalls) {
+            this.circuitBreakerMinimumCalls = circuitBreakerMinimumCalls;
+        }
+
+        public void setCircuitBreakerFailureRateThreshold(int circuitBreakerFailureRateThreshold) {
+            this.circuitBreakerFailureRateThreshold = circuitBreakerFailureRateThreshold;
+        }
+
+        public void setCircuitBreakerSlowCallDurationMillis(long circuitBreakerSlowCallDurationMillis) {
+            this.circuitBreakerSlowCallDurationMillis = circuitBreakerSlowCallDurationMillis;
+        }
+
+        public void setCircuitBreakerOpenDurationMillis(long circuitBreakerOpenDurationMillis) {
+            this.circuitBreakerOpenDurationMillis = circuitBreakerOpenDurationMillis;
+        }
+
+        public void setCircuitBreakerHalfOpenPermittedCalls(int circuitBreakerHalfOpenPermittedCalls) {
+            this.circuitBreakerHalfOpenPermittedCalls = circuitBreakerHalfOpenPermittedCalls;
+        }
+
+        public void setConcurrencyLimitEnabled(boolean concurrencyLimitEnabled) {
+            this.concurrencyLimitEnabled = concurrencyLimitEnabled;
+        }
+
+        public void setConcurrencyLimitInitial(int concurrencyLimitInitial) {
+            this.concurrencyLimitInitial = concurrencyLimitInitial;
+        }
+
+        public void setConcurrencyLimitMin(int concurrencyLimitMin) {
+            this.concurrencyLimitMin = concurrencyLimitMin;
+        }
+
+        public void setConcurrencyLimitMax(int concurrencyLimitMax) {
+            this.concurrencyLimitMax = concurrencyLimitMax;
+        }
+
+        public void setConcurrencyLimitLatencyThresholdMillis(long concurrencyLimitLatencyThresholdMillis) {
+            this.concurrencyLimitLatencyThresholdMillis = concurrencyLimitLatencyThresholdMillis;
+        }
+
+        public void setConcurrencyLimitBackoffRatio(double concurrencyLimitBackoffRatio) {
+            this.concurrencyLimitBackoffRatio = concurrencyLimitBackoffRatio;
+        }
+
+        public void setConcurrencyLimitAcquireTimeoutMillis(long concurrencyLimitAcquireTimeoutMillis) {
+            this.concurrencyLimitAcquireTimeoutMillis = concurrencyLimitAcquireTimeoutMillis;
+        }
+
+        public void setCompressionEnabled(boolean compressionEnabled) {
+            this.compressionEnabled = compressionEnabled;
+        }
+
+        public void setCompressionMinBytes(int compressionMinBytes) {
+            this.compressionMinBytes = compressionMinBytes;
+        }
+
+        public void setCompressionLevel(int compressionLevel) {
+            this.compressionLevel = compressionLevel;
+        }
+
+        public void setCompressionPlugins(List<String> compressionPlugins) {
+            this.compressionPlugins = compressionPlugins;
+        }
+
+        public void setDirectCompressionPlugins(List<String> directCompressionPlugins) {
+            this.directCompressionPlugins = directCompressionPlugins;
+        }
+
+        public void setDirectInvocationEnabled(boolean directInvocationEnabled) {
+            this.directInvocationEnabled = directInvocationEnabled;
+        }
+
+        public void setLoadBalanceStrategy(String loadBalanceStrategy) {
+            this.loadBalanceStrategy = loadBalanceStrategy;
+        }
+
+        public void setInstanceEjectionConsecutiveFailures(int instanceEjectionConsecutiveFailures) {
+            this.instanceEjectionConsecutiveFailures = instanceEjectionConsecutiveFailures;
+        }
+
+        public void setInstanceEjectionDurationMillis(long instanceEjectionDurationMillis) {
+            this.instanceEjectionDurationMillis = instanceEjectionDurationMillis;
+        }
+
+        public void setHedgeEnabled(boolean hedgeEnabled) {
+            this.hedgeEnabled = hedgeEnabled;
+        }
+
+        public void setHedgeDelayPercentile(int hedgeDelayPercentile) {
+            this.hedgeDelayPercentile = hedgeDelayPercentile;
+        }
+
+        public void setHedgeMinDelayMillis(long hedgeMinDelayMillis) {
+            this.hedgeMinDelayMillis = hedgeMinDelayMillis;
+        }
+
+        public void setHedgeWindowSize(int hedgeWindowSize) {
+            this.hedgeWindowSize = hedgeWindowSize;
+        }
+
+        public void setHedgeMinSamples(int hedgeMinSamples) {
+            this.hedgeMinSamples = hedgeMinSamples;
+        }
+
+        public void setHedgeBudgetRatio(double hedgeBudgetRatio) {
+            this.hedgeBudgetRatio = hedgeBudgetRatio;
+        }
+
+        public void setHedgeBudgetMaxTokens(double hedgeBudgetMaxTokens) {
+            this.hedgeBudgetMaxTokens = hedgeBudgetMaxTokens;
+        }
+
+        public void setInvocationWorkers(int invocationWorkers) {
+            this.invocationWorkers = invocationWorkers;
+        }
+
+        public void setInvocationQueueCapacity(int invocationQueueCapacity) {
+            this.invocationQueueCapacity = invocationQueueCapacity;
+        }
+
+        public void setPriorityWeightHigh(int priorityWeightHigh) {
+            this.priorityWeightHigh = priorityWeightHigh;
+        }
+
+        public void setPriorityWeightNormal(int priorityWeightNormal) {
+            this.priorityWeightNormal = priorityWeightNormal;
+        }
+
+        public void setPriorityWeightLow(int priorityWeightLow) {
+            this.priorityWeightLow = priorityWeightLow;
+        }
+
+        public void setBatchExecutionPriority(String batchExecutionPriority) {
+            this.batchExecutionPriority = batchExecutionPriority;
+        }
+
+        public void setBatchExecutionQueueTimeoutMillis(long batchExecutionQueueTimeoutMillis) {
+            this.batchExecutionQueueTimeoutMillis = batchExecutionQueueTimeoutMillis;
+        }
+
+    }
+
+    @ConfigurationProperties(prefix = "wecube.core.workflow")
+    public class WorkflowProperties {
+        private boolean paramOffloadEnabled = true;
+        private int paramOffloadThreshold = 2048;
+        private int paramOffloadMaxSize = 8 * 1024 * 1024;
+        private int paramPreviewSize = 256;
+        private boolean paramMigrationEnabled = true;
+        private int paramMigrationBatchSize = 200;
+        private long callbackProcessingTimeoutMillis = 600000;
+        private boolean statusWriteBehindEnabled = true;
+        private long statusFlushIntervalMillis = 200;
+        private int statusFlushMaxPending = 1000;
+        private int outlineCacheMaxSize = 1000;
+        private boolean archiveEnabled = false;
+        private int archiveAfterDays = 365;
+        private long archiveIntervalMillis = 3600000;
+        private int archiveBatchSize = 50;
+        private int archiveMaxPerRun = 5000;
+        private long archivePauseMillis = 500;
+        private int previewParallelism = 8;
+        private boolean previewSweepEnabled = true;
+        private int previewSessionTtlMinutes = 1440;
+        private long previewSweepIntervalMillis = 600000;
+        private int previewSweepBatchSize = 500;
+        private long statusStreamTimeoutMillis = 1800000;
+        private int statusStreamQueueCapacity = 256;
+        private String statusStreamBackpressurePolicy = "resync";
+        private int statusStreamRetainedEvents = 200;
+        private int statusStreamMaxInstances = 10000;
+        private int statusStreamSenderThreads = 4;
+        private long statusStreamPollIntervalMillis = 2000;
+
+        private int bulkLaunchParallelism = 4;
+
+        private int bulkLaunchMaxInstances = 500;
+
+        private int procDefImportChunkSize = 50;
+
+        public boolean isParamOffloadEnabled() {
+            return paramOffloadEnabled;
+        }
+
+        public int getParamOffloadThreshold() {
+            return paramOffloadThreshold;
+        }
+
+        public int getParamOffloadMaxSize() {
+            return paramOffloadMaxSize;
+        }
+
+        public int getParamPreviewSize() {
+            return paramPreviewSize;
+        }
+
+        public boolean isParamMigrationEnabled() {
+            return paramMigrationEnabled;
+        }
+
+        public int getParamMigrationBatchSize() {
+            return paramMigrationBatchSize;
+        }
+
+        public long getCallbackProcessingTimeoutMillis() {
+            return callbackProcessingTimeoutMillis;
+        }
+
+        public boolean isStatusWriteBehindEnabled() {
+            return statusWriteBehindEnabled;
+        }
+
+        public long getStatusFlushIntervalMillis() {
+            return statusFlushIntervalMillis;
+        }
+
+        public int getStatusFlushMaxPending() {
+            return statusFlushMaxPending;
+        }
+
+        public int getOutlineCacheMaxSize() {
+            return outlineCacheMaxSize;
+        }
+
+        public boolean isArchiveEnabled() {
+            return archiveEnabled;
+        }
+
+        public int getArchiveAfterDays() {
+            return archiveAfterDays;
+        }
+
+        public long getArchiveIntervalMillis() {
+            return archiveIntervalMillis;
+        }
+
+        public int getArchiveBatchSize() {
+            return archiveBatchSize;
+        }
+
+        public int getArchiveMaxPerRun() {
+            return archiveMaxPerRun;
+        }
+
+        public long getArchivePauseMillis() {
+            return archivePauseMillis;
+        }
+
+        public int getPreviewParallelism() {
+            return previewParallelism;
+        }
+
+        public boolean isPreviewSweepEnabled() {
+            return previewSweepEnabled;
+        }
+
+        public int getPreviewSessionTtlMinutes() {
+            return previewSessionTtlMinutes;
+        }
+
+        public long getPreviewSweepIntervalMillis() {
+            return previewSweepIntervalMillis;
+        }
+
+        public int getPreviewSweepBatchSize() {
+            return previewSweepBatchSize;
+        }
+
+        public long getStatusStreamTimeoutMillis() {
+            return statusStreamTimeoutMillis;
+        }
+
+        public int getStatusStreamQueueCapacity() {
+            return statusStreamQueueCapacity;
+        }
+
+        public String getStatusStreamBackpressurePolicy() {
+            return statusStreamBackpressurePolicy;
+        }
+
+        public int getStatusStreamRetainedEvents() {
+            return statusStreamRetainedEvents;
+        }
+
+        public int getStatusStreamMaxInstances() {
+            return statusStreamMaxInstances;
+        }
+
+        public int getStatusStreamSenderThreads() {
+            return statusStreamSenderThreads;
+        }
+
+        public long getStatusStreamPollIntervalMillis() {
+            return statusStreamPollIntervalMillis;
+        }
+
+        public int getBulkLaunchParallelism() {
+            return bulkLaunchParallelism;
+        }
+
+        public int getBulkLaunchMaxInstances() {
+            return bulkLaunchMaxInstances;
+        }
+
+        public int getProcDefImportChunkSize() {
+            return procDefImportChunkSize;
+        }
+
+        public void setParamOffloadEnabled(boolean paramOffloadEnabled) {
+            this.paramOffloadEnabled = paramOffloadEnabled;
+        }
+
+        public void setParamOffloadThreshold(int paramOffloadThreshold) {
+            this.paramOffloadThreshold = paramOffloadThreshold;
+        }
+
+        public void setParamOffloadMaxSize(int paramOffloadMaxSize) {
+            this.paramOffloadMaxSize = paramOffloadMaxSize;
+        }
+
+        public void setParamPreviewSize(int paramPreviewSize) {
+            this.paramPreviewSize = paramPreviewSize;
+        }
+
+        public void setParamMigrationEnabled(boolean paramMigrationEnabled) {
+            this.paramMigrationEnabled = paramMigrationEnabled;
+        }
+
+        public void setParamMigrationBatchSize(int paramMigrationBatchSize) {
+            this.paramMigrationBatchSize = paramMigrationBatchSize;
+        }
+
+        public void setCallbackProcessingTimeoutMillis(long callbackProcessingTimeoutMillis) {
+            this.callbackProcessingTimeoutMillis = callbackProcessingTimeoutMillis;
+        }
+
+        public void setStatusWriteBehindEnabled(boolean statusWriteBehindEnabled) {
+            this.statusWriteBehindEnabled = statusWriteBehindEnabled;
+        }
+
+        public void setStatusFlushIntervalMillis(long statusFlushIntervalMillis) {
+            this.statusFlushIntervalMillis = statusFlushIntervalMillis;
+        }
+
+        public void setStatusFlushMaxPending(int statusFlushMaxPending) {
+            this.statusFlushMaxPending = statusFlushMaxPending;
+        }
+
+        public void setOutlineCacheMaxSize(int outlineCacheMaxSize) {
+            this.outlineCacheMaxSize = outlineCacheMaxSize;
+        }
+
+        public void setArchiveEnabled(boolean archiveEnabled) {
+            this.archiveEnabled = archiveEnabled;
+        }
+
+        public void setArchiveAfterDays(int archiveAfterDays) {
+            this.archiveAfterDays = archiveAfterDays;
+        }
+
+        public void setArchiveIntervalMillis(long archiveIntervalMillis) {
+            this.archiveIntervalMillis = archiveIntervalMillis;
+        }
+
+        public void setArchiveBatchSize(int archiveBatchSize) {
+            this.archiveBatchSize = archiveBatchSize;
+        }
+
+        public void setArchiveMaxPerRun(int archiveMaxPerRun) {
+            this.archiveMaxPerRun = archiveMaxPerRun;
+        }
+
+        public void setArchivePauseMillis(long archivePauseMillis) {
+            this.archivePauseMillis = archivePauseMillis;
+        }
+
+        public void setPreviewParallelism(int previewParallelism) {
+            this.previewParallelism = previewParallelism;
+        }
+
+        public void setPreviewSweepEnabled(boolean previewSweepEnabled) {
+            this.previewSweepEnabled = previewSweepEnabled;
+        }
+
+        public void setPreviewSessionTtlMinutes(int previewSessionTtlMinutes) {
+            this.previewSessionTtlMinutes = previewSessionTtlMinutes;
+        }
+
+        public void setPreviewSweepIntervalMillis(long previewSweepIntervalMillis) {
+            this.previewSweepIntervalMillis = previewSweepIntervalMillis;
+        }
+
+        public void setPreviewSweepBatchSize(int previewSweepBatchSize) {
+            this.previewSweepBatchSize = previewSweepBatchSize;
+        }
+
+        public void setStatusStreamTimeoutMillis(long statusStreamTimeoutMillis) {
+            this.statusStreamTimeoutMillis = statusStreamTimeoutMillis;
+        }
+
+        public void setStatusStreamQueueCapacity(int statusStreamQueueCapacity) {
+            this.statusStreamQueueCapacity = statusStreamQueueCapacity;
+        }
+
+        public void setStatusStreamBackpressurePolicy(String statusStreamBackpressurePolicy) {
+            this.statusStreamBackpressurePolicy = statusStreamBackpressurePolicy;
+        }
+
+        public void setStatusStreamRetainedEvents(int statusStreamRetainedEvents) {
+            this.statusStreamRetainedEvents = statusStreamRetainedEvents;
+        }
+
+        public void setStatusStreamMaxInstances(int statusStreamMaxInstances) {
+            this.statusStreamMaxInstances = statusStreamMaxInstances;
+        }
+
+        public void setStatusStreamSenderThreads(int statusStreamSenderThreads) {
+            this.statusStreamSenderThreads = statusStreamSenderThreads;
+        }
+
+        public void setStatusStreamPollIntervalMillis(long statusStreamPollIntervalMillis) {
+            this.statusStreamPollIntervalMillis = statusStreamPollIntervalMillis;
+        }
+
+        public void setBulkLaunchParallelism(int bulkLaunchParallelism) {
+            this.bulkLaunchParallelism = bulkLaunchParallelism;
+        }
+
+        public void setBulkLaunchMaxInstances(int bulkLaunchMaxInstances) {
+            this.bulkLaunchMaxInstances = bulkLaunchMaxInstances;
+        }
+
+        public void setProcDefImportChunkSize(int procDefImportChunkSize) {
+            this.procDefImportChunkSize = procDefImportChunkSize;
+        }
+    }
+
     public String getGatewayUrl() {
         return gatewayUrl;
     }
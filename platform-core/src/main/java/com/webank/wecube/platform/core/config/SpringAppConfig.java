@@ -14,10 +14,12 @@ import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 
 import com.webank.wecube.platform.core.commons.ApplicationProperties;
 import com.webank.wecube.platform.core.commons.ApplicationProperties.HttpClientProperties;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.PluginInvocationProperties;
 import com.webank.wecube.platform.core.commons.ApplicationProperties.PluginProperties;
 import com.webank.wecube.platform.core.commons.ApplicationProperties.ResourceProperties;
 import com.webank.wecube.platform.core.commons.ApplicationProperties.S3Properties;
 import com.webank.wecube.platform.core.commons.ApplicationProperties.DockerRemoteProperties;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.WorkflowProperties;
 import com.webank.wecube.platform.workflow.EnablePlatformWorkflowApplication;
 
 @Configuration
@@ -27,7 +29,9 @@ import com.webank.wecube.platform.workflow.EnablePlatformWorkflowApplication;
         PluginProperties.class,
         S3Properties.class,
         ResourceProperties.class,
-        DockerRemoteProperties.class
+        DockerRemoteProperties.class,
+        PluginInvocationProperties.class,
+        WorkflowProperties.class
 })
 @ComponentScan({ "com.webank.wecube.platform.core.service" })
 @EntityScan(basePackages = { "com.webank.wecube.platform.core" })
@@ -0,0 +1,48 @@
+package com.webank.wecube.platform.core.controller;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.webank.wecube.platform.core.dto.CommonResponseDto;
+import com.webank.wecube.platform.core.dto.PluginInvocationGuardStateDto;
+import com.webank.wecube.platform.core.dto.PluginInvocationGuardStateDto.StateChangeDto;
+import com.webank.wecube.platform.core.support.plugin.PluginInvocationGuard;
+
+@RestController
+@RequestMapping("/v1")
+public class PluginInvocationGuardController {
+    private static final Logger log = LoggerFactory.getLogger(PluginInvocationGuardController.class);
+
+    @Autowired
+    private PluginInvocationGuard pluginInvocationGuard;
+
+    @GetMapping("/plugin-invocation/guards")
+    public CommonResponseDto getGuardStates() {
+        List<PluginInvocationGuardStateDto> states = pluginInvocationGuard.getStates();
+        return CommonResponseDto.okayWithData(states);
+    }
+
+    @GetMapping("/plugin-invocation/guards/state-changes")
+    public CommonResponseDto getGuardStateChanges() {
+        List<StateChangeDto> stateChanges = pluginInvocationGuard.getStateChanges();
+        return CommonResponseDto.okayWithData(stateChanges);
+    }
+
+    @PostMapping("/plugin-invocation/guards/reset")
+    public CommonResponseDto resetCircuitBreaker(@RequestParam(name = "key") String key) {
+        log.info("reset circuit breaker {}", key);
+        if (!pluginInvocationGuard.resetCircuitBreaker(key)) {
+            return CommonResponseDto.error(String.format("Circuit breaker [%s] does not exist.", key));
+        }
+
+        return CommonResponseDto.okay();
+    }
+}
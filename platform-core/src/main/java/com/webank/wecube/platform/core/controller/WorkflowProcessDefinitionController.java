@@ -4,6 +4,8 @@ import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.nio.charset.Charset;
+import java.text.SimpleDateFormat;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
@@ -26,6 +28,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -34,12 +37,14 @@ import com.webank.wecube.platform.core.commons.AuthenticationContextHolder;
 import com.webank.wecube.platform.core.commons.WecubeCoreException;
 import com.webank.wecube.platform.core.dto.CommonResponseDto;
 import com.webank.wecube.platform.core.dto.workflow.InterfaceParameterDto;
+import com.webank.wecube.platform.core.dto.workflow.ProcDefArchiveImportResultDto;
 import com.webank.wecube.platform.core.dto.workflow.ProcDefInfoDto;
 import com.webank.wecube.platform.core.dto.workflow.ProcDefInfoExportImportDto;
 import com.webank.wecube.platform.core.dto.workflow.ProcDefOutlineDto;
 import com.webank.wecube.platform.core.dto.workflow.ProcRoleRequestDto;
 import com.webank.wecube.platform.core.dto.workflow.ProcessDataPreviewDto;
 import com.webank.wecube.platform.core.dto.workflow.TaskNodeDefBriefDto;
+import com.webank.wecube.platform.core.service.workflow.ProcDefArchiveService;
 import com.webank.wecube.platform.core.service.workflow.ProcessRoleServiceImpl;
 import com.webank.wecube.platform.core.service.workflow.WorkflowDataService;
 import com.webank.wecube.platform.core.service.workflow.WorkflowProcDefService;
@@ -58,6 +63,9 @@ public class WorkflowProcessDefinitionController {
     @Autowired
     private ProcessRoleServiceImpl processRoleService;
 
+    @Autowired
+    private ProcDefArchiveService procDefArchiveService;
+
     private ObjectMapper objectMapper = new ObjectMapper();
 
     @PostMapping("/process/definitions/deploy")
@@ -220,6 +228,47 @@ public class WorkflowProcessDefinitionController {
 
     }
 
+    @GetMapping(value = "/process/definitions/export-archive", produces = {MediaType.ALL_VALUE})
+    public ResponseEntity<StreamingResponseBody> exportProcessDefinitionArchive(
+            @RequestParam(value = "procDefIds", required = false) List<String> procDefIds) {
+        List<String> exportProcDefIds = procDefArchiveService.resolveExportProcDefIds(procDefIds);
+        String filename = String.format("proc-archive-%s.pds",
+                new SimpleDateFormat("yyyyMMddHHmmss").format(new Date()));
+
+        if (log.isInfoEnabled()) {
+            log.info("About to export process definition archive,count={},filename={}", exportProcDefIds.size(),
+                    filename);
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("Content-Disposition", String.format("attachment;filename=%s", filename));
+        StreamingResponseBody body = out -> procDefArchiveService.exportProcessDefinitions(exportProcDefIds, out);
+        return ResponseEntity.ok().headers(headers).contentType(MediaType.APPLICATION_OCTET_STREAM).body(body);
+    }
+
+    @PostMapping(value = "/process/definitions/import-archive", consumes = {MediaType.MULTIPART_FORM_DATA_VALUE})
+    public CommonResponseDto importProcessDefinitionArchive(@RequestParam("uploadFile") MultipartFile file,
+            @RequestParam(value = "dryRun", required = false, defaultValue = "false") boolean dryRun) {
+        if (file == null || file.getSize() <= 0) {
+            log.error("invalid file content uploaded");
+            throw new WecubeCoreException("Invalid file content uploaded.");
+        }
+
+        if (log.isInfoEnabled()) {
+            log.info("About to import process definition archive,filename={},size={},dryRun={}",
+                    file.getOriginalFilename(), file.getSize(), dryRun);
+        }
+
+        try {
+            ProcDefArchiveImportResultDto result = procDefArchiveService
+                    .importProcessDefinitions(file.getInputStream(), dryRun);
+            return CommonResponseDto.okayWithData(result);
+        } catch (IOException e) {
+            log.error("errors while reading upload file", e);
+            throw new WecubeCoreException("Failed to import process definition archive.");
+        }
+    }
+
     private ProcDefInfoExportImportDto convertImportData(String jsonData) {
         ProcDefInfoExportImportDto dto = null;
         try {
@@ -8,17 +8,25 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.webank.wecube.platform.core.dto.CommonResponseDto;
+import com.webank.wecube.platform.core.dto.QueryResponse;
+import com.webank.wecube.platform.core.dto.workflow.BatchStartProcInstRequestDto;
+import com.webank.wecube.platform.core.dto.workflow.BatchStartProcInstResultDto;
 import com.webank.wecube.platform.core.dto.workflow.ProcInstInfoDto;
+import com.webank.wecube.platform.core.dto.workflow.ProcInstQueryRequestDto;
 import com.webank.wecube.platform.core.dto.workflow.ProceedProcInstRequestDto;
 import com.webank.wecube.platform.core.dto.workflow.ProcessDataPreviewDto;
 import com.webank.wecube.platform.core.dto.workflow.StartProcInstRequestDto;
 import com.webank.wecube.platform.core.dto.workflow.TaskNodeDefObjectBindInfoDto;
 import com.webank.wecube.platform.core.dto.workflow.TaskNodeExecContextDto;
+import com.webank.wecube.platform.core.service.workflow.ProcInstStatusStreamService;
 import com.webank.wecube.platform.core.service.workflow.WorkflowDataService;
 import com.webank.wecube.platform.core.service.workflow.WorkflowProcInstService;
 
@@ -32,18 +40,33 @@ public class WorkflowProcessInstanceController {
 	@Autowired
 	private WorkflowDataService workflowDataService;
 
+	@Autowired
+	private ProcInstStatusStreamService procInstStatusStreamService;
+
 	@PostMapping("/process/instances")
 	public CommonResponseDto createProcessInstance(@RequestBody StartProcInstRequestDto requestDto) {
 		ProcInstInfoDto result = procInstService.createProcessInstance(requestDto);
 		return CommonResponseDto.okayWithData(result);
 	}
 
+	@PostMapping("/process/instances/batch")
+	public CommonResponseDto createProcessInstances(@RequestBody BatchStartProcInstRequestDto requestDto) {
+		BatchStartProcInstResultDto result = procInstService.createProcessInstances(requestDto);
+		return CommonResponseDto.okayWithData(result);
+	}
+
 	@GetMapping("/process/instances")
 	public CommonResponseDto getProcessInstances() {
 		List<ProcInstInfoDto> result = procInstService.getProcessInstances();
 		return CommonResponseDto.okayWithData(result);
 	}
 
+	@PostMapping("/process/instances/retrieve")
+	public CommonResponseDto retrieveProcessInstances(@RequestBody ProcInstQueryRequestDto queryDto) {
+		QueryResponse<ProcInstInfoDto> result = procInstService.getProcessInstances(queryDto);
+		return CommonResponseDto.okayWithData(result);
+	}
+
 	@GetMapping("/process/instances/{id}")
 	public CommonResponseDto getProcessInstance(@PathVariable(name = "id") Integer procInstId) {
 		ProcInstInfoDto result = procInstService.getProcessInstanceById(procInstId);
@@ -54,6 +77,13 @@ public class WorkflowProcessInstanceController {
 		return CommonResponseDto.okayWithData(result);
 	}
 
+	@GetMapping(value = "/process/instances/{id}/status-stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter streamProcessInstanceStatus(@PathVariable(name = "id") Integer procInstId,
+			@RequestParam(name = "lastEventId", required = false) String lastEventIdParam,
+			@RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+		return procInstStatusStreamService.subscribe(procInstId, lastEventId != null ? lastEventId : lastEventIdParam);
+	}
+
 	@PostMapping("/process/instances/proceed")
 	public CommonResponseDto proceedProcessInstance(@RequestBody ProceedProcInstRequestDto requestDto) {
 		procInstService.proceedProcessInstance(requestDto);
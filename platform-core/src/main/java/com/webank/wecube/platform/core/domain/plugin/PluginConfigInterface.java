@@ -19,6 +19,7 @@ import static com.webank.wecube.platform.core.utils.Constants.*;
 public class PluginConfigInterface {
     public static final String DEFAULT_INTERFACE_TYPE = "EXECUTION";
     public static final String DEFAULT_IS_ASYNC_PROCESSING_VALUE = "N";
+    public static final String DEFAULT_IS_IDEMPOTENT_VALUE = "N";
 
     @Id
     private String id;
@@ -41,6 +42,8 @@ public class PluginConfigInterface {
     @Column
     private String isAsyncProcessing;
     @Column
+    private String isIdempotent = DEFAULT_IS_IDEMPOTENT_VALUE;
+    @Column
     private String type;
     @Column
     private String filterRule = "";
@@ -176,6 +179,14 @@ public class PluginConfigInterface {
         this.isAsyncProcessing = isAsyncProcessing;
     }
 
+    public String getIsIdempotent() {
+        return isIdempotent;
+    }
+
+    public void setIsIdempotent(String isIdempotent) {
+        this.isIdempotent = isIdempotent;
+    }
+
     public String getType() {
         return type;
     }
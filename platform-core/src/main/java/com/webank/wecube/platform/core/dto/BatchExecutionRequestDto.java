@@ -13,6 +13,7 @@ public class BatchExecutionRequestDto {
     private List<InputParameterDefinition> inputParameterDefinitions;
     private BusinessKeyAttributeDto businessKeyAttribute;
     private List<ResourceDataDto> resourceDatas;
+    private String priority;
 
     public BatchExecutionRequestDto() {
     }
@@ -65,4 +66,11 @@ public class BatchExecutionRequestDto {
         this.resourceDatas = resourceDatas;
     }
 
+    public String getPriority() {
+        return priority;
+    }
+
+    public void setPriority(String priority) {
+        this.priority = priority;
+    }
 }
@@ -20,6 +20,7 @@ public class PluginConfigInterfaceDto {
     private String path;
     private String httpMethod;
     private String isAsyncProcessing;
+    private String isIdempotent;
     private List<PluginConfigInterfaceParameterDto> inputParameters;
     private List<PluginConfigInterfaceParameterDto> outputParameters;
     private String filterRule;
@@ -142,6 +143,9 @@ public class PluginConfigInterfaceDto {
         }
         pluginConfigInterface.setOutputParameters(pluginConfigInterfaceOutputParameters);
         pluginConfigInterface.setIsAsyncProcessing(getIsAsyncProcessing());
+        if (getIsIdempotent() != null) {
+            pluginConfigInterface.setIsIdempotent(getIsIdempotent());
+        }
 
         return pluginConfigInterface;
     }
@@ -157,6 +161,7 @@ public class PluginConfigInterfaceDto {
         pluginConfigInterfaceDto.setAction(pluginConfigInterface.getAction());
         pluginConfigInterfaceDto.setHttpMethod(pluginConfigInterface.getHttpMethod());
         pluginConfigInterfaceDto.setIsAsyncProcessing(pluginConfigInterface.getIsAsyncProcessing());
+        pluginConfigInterfaceDto.setIsIdempotent(pluginConfigInterface.getIsIdempotent());
         pluginConfigInterfaceDto.setFilterRule(pluginConfigInterface.getFilterRule());
 
         List<PluginConfigInterfaceParameterDto> interfaceInputParameterDtos = newArrayList();
@@ -186,6 +191,14 @@ public class PluginConfigInterfaceDto {
         this.isAsyncProcessing = isAsyncProcessing;
     }
 
+    public String getIsIdempotent() {
+        return isIdempotent;
+    }
+
+    public void setIsIdempotent(String isIdempotent) {
+        this.isIdempotent = isIdempotent;
+    }
+
     public String getFilterRule() {
         return filterRule;
     }
@@ -0,0 +1,143 @@
+package com.webank.wecube.platform.core.dto;
+
+public class PluginInvocationGuardStateDto {
+    private String key;
+    private String circuitBreakerState;
+    private int failureRate;
+    private long openedTime;
+    private long totalCalls;
+    private long totalFailures;
+    private long circuitBreakerRejections;
+    private int concurrencyLimit;
+    private int inFlight;
+    private long concurrencyLimitRejections;
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getCircuitBreakerState() {
+        return circuitBreakerState;
+    }
+
+    public void setCircuitBreakerState(String circuitBreakerState) {
+        this.circuitBreakerState = circuitBreakerState;
+    }
+
+    public int getFailureRate() {
+        return failureRate;
+    }
+
+    public void setFailureRate(int failureRate) {
+        this.failureRate = failureRate;
+    }
+
+    public long getOpenedTime() {
+        return openedTime;
+    }
+
+    public void setOpenedTime(long openedTime) {
+        this.openedTime = openedTime;
+    }
+
+    public long getTotalCalls() {
+        return totalCalls;
+    }
+
+    public void setTotalCalls(long totalCalls) {
+        this.totalCalls = totalCalls;
+    }
+
+    public long getTotalFailures() {
+        return totalFailures;
+    }
+
+    public void setTotalFailures(long totalFailures) {
+        this.totalFailures = totalFailures;
+    }
+
+    public long getCircuitBreakerRejections() {
+        return circuitBreakerRejections;
+    }
+
+    public void setCircuitBreakerRejections(long circuitBreakerRejections) {
+        this.circuitBreakerRejections = circuitBreakerRejections;
+    }
+
+    public int getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    public void setConcurrencyLimit(int concurrencyLimit) {
+        this.concurrencyLimit = concurrencyLimit;
+    }
+
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    public void setInFlight(int inFlight) {
+        this.inFlight = inFlight;
+    }
+
+    public long getConcurrencyLimitRejections() {
+        return concurrencyLimitRejections;
+    }
+
+    public void setConcurrencyLimitRejections(long concurrencyLimitRejections) {
+        this.concurrencyLimitRejections = concurrencyLimitRejections;
+    }
+
+    public static class StateChangeDto {
+        private String key;
+        private String fromState;
+        private String toState;
+        private long changedTime;
+
+        public StateChangeDto() {
+        }
+
+        public StateChangeDto(String key, String fromState, String toState, long changedTime) {
+            this.key = key;
+            this.fromState = fromState;
+            this.toState = toState;
+            this.changedTime = changedTime;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public void setKey(String key) {
+            this.key = key;
+        }
+
+        public String getFromState() {
+            return fromState;
+        }
+
+        public void setFromState(String fromState) {
+            this.fromState = fromState;
+        }
+
+        public String getToState() {
+            return toState;
+        }
+
+        public void setToState(String toState) {
+            this.toState = toState;
+        }
+
+        public long getChangedTime() {
+            return changedTime;
+        }
+
+        public void setChangedTime(long changedTime) {
+            this.changedTime = changedTime;
+        }
+    }
+}
@@ -12,6 +12,7 @@ public abstract class BaseProcDefDto {
 
     private String procDefData;
     private String rootEntity;
+    private String priority;
 
     private String createdTime;
 
@@ -88,4 +89,12 @@ public abstract class BaseProcDefDto {
     public void setPermissionToRole(Map<String, List<String>> permissionToRole) {
         this.permissionToRole = permissionToRole;
     }
+
+    public String getPriority() {
+        return priority;
+    }
+
+    public void setPriority(String priority) {
+        this.priority = priority;
+    }
 }
@@ -0,0 +1,95 @@
+package com.webank.wecube.platform.core.dto.workflow;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchStartProcInstItemResultDto {
+    public static final String STATUS_STARTED = "started";
+    public static final String STATUS_FAILED = "failed";
+
+    /**
+     * Position of the instance in the request.
+     */
+    private int index;
+
+    private String entityTypeId;
+
+    private String entityDataId;
+
+    private String processSessionId;
+
+    private String status;
+
+    private String errorMessage;
+
+    /**
+     * Set once the process instance is created, even if it failed to start.
+     */
+    private Integer procInstId;
+
+    private ProcInstInfoDto procInstance;
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public String getEntityTypeId() {
+        return entityTypeId;
+    }
+
+    public void setEntityTypeId(String entityTypeId) {
+        this.entityTypeId = entityTypeId;
+    }
+
+    public String getEntityDataId() {
+        return entityDataId;
+    }
+
+    public void setEntityDataId(String entityDataId) {
+        this.entityDataId = entityDataId;
+    }
+
+    public String getProcessSessionId() {
+        return processSessionId;
+    }
+
+    public void setProcessSessionId(String processSessionId) {
+        this.processSessionId = processSessionId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public Integer getProcInstId() {
+        return procInstId;
+    }
+
+    public void setProcInstId(Integer procInstId) {
+        this.procInstId = procInstId;
+    }
+
+    public ProcInstInfoDto getProcInstance() {
+        return procInstance;
+    }
+
+    public void setProcInstance(ProcInstInfoDto procInstance) {
+        this.procInstance = procInstance;
+    }
+}
@@ -0,0 +1,44 @@
+package com.webank.wecube.platform.core.dto.workflow;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchStartProcInstRequestDto {
+    private String procDefId;
+
+    /**
+     * Used for the instances without a priority of their own.
+     */
+    private String priority;
+
+    /**
+     * One per process instance to start, each with either a root entity and
+     * task node bindings or a process data preview session. The process
+     * definition ID of the request is used for all of them.
+     */
+    private List<StartProcInstRequestDto> instances = new ArrayList<>();
+
+    public String getProcDefId() {
+        return procDefId;
+    }
+
+    public void setProcDefId(String procDefId) {
+        this.procDefId = procDefId;
+    }
+
+    public String getPriority() {
+        return priority;
+    }
+
+    public void setPriority(String priority) {
+        this.priority = priority;
+    }
+
+    public List<StartProcInstRequestDto> getInstances() {
+        return instances;
+    }
+
+    public void setInstances(List<StartProcInstRequestDto> instances) {
+        this.instances = instances;
+    }
+}
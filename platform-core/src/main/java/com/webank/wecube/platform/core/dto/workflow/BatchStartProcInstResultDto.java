@@ -0,0 +1,50 @@
+package com.webank.wecube.platform.core.dto.workflow;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchStartProcInstResultDto {
+    private int total;
+
+    private int started;
+
+    private int failed;
+
+    private List<BatchStartProcInstItemResultDto> items = new ArrayList<>();
+
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public int getStarted() {
+        return started;
+    }
+
+    public void setStarted(int started) {
+        this.started = started;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public List<BatchStartProcInstItemResultDto> getItems() {
+        return items;
+    }
+
+    public void setItems(List<BatchStartProcInstItemResultDto> items) {
+        this.items = items;
+    }
+
+    public void addItem(BatchStartProcInstItemResultDto item) {
+        this.items.add(item);
+    }
+}
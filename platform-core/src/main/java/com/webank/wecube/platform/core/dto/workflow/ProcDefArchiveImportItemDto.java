@@ -0,0 +1,97 @@
+package com.webank.wecube.platform.core.dto.workflow;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProcDefArchiveImportItemDto {
+    public static final String STATUS_VALID = "valid";
+    public static final String STATUS_IMPORTED = "imported";
+    public static final String STATUS_INVALID = "invalid";
+    public static final String STATUS_FAILED = "failed";
+
+    /**
+     * Position of the definition in the archive.
+     */
+    private int index;
+
+    private String procDefKey;
+
+    private String procDefName;
+
+    private String status;
+
+    private String errorMessage;
+
+    /**
+     * Id of the imported draft definition.
+     */
+    private String procDefId;
+
+    private int taskNodeCount;
+
+    private int paramCount;
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public String getProcDefKey() {
+        return procDefKey;
+    }
+
+    public void setProcDefKey(String procDefKey) {
+        this.procDefKey = procDefKey;
+    }
+
+    public String getProcDefName() {
+        return procDefName;
+    }
+
+    public void setProcDefName(String procDefName) {
+        this.procDefName = procDefName;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public String getProcDefId() {
+        return procDefId;
+    }
+
+    public void setProcDefId(String procDefId) {
+        this.procDefId = procDefId;
+    }
+
+    public int getTaskNodeCount() {
+        return taskNodeCount;
+    }
+
+    public void setTaskNodeCount(int taskNodeCount) {
+        this.taskNodeCount = taskNodeCount;
+    }
+
+    public int getParamCount() {
+        return paramCount;
+    }
+
+    public void setParamCount(int paramCount) {
+        this.paramCount = paramCount;
+    }
+}
@@ -0,0 +1,99 @@
+package com.webank.wecube.platform.core.dto.workflow;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProcDefArchiveImportResultDto {
+    private boolean dryRun;
+
+    private int total;
+
+    /**
+     * Definitions that passed validation, whether imported or not.
+     */
+    private int valid;
+
+    private int imported;
+
+    private int invalid;
+
+    private int failed;
+
+    /**
+     * Set when the archive itself could not be read to the end.
+     */
+    private String errorMessage;
+
+    private List<ProcDefArchiveImportItemDto> items = new ArrayList<>();
+
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    public void setDryRun(boolean dryRun) {
+        this.dryRun = dryRun;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public int getValid() {
+        return valid;
+    }
+
+    public void setValid(int valid) {
+        this.valid = valid;
+    }
+
+    public int getImported() {
+        return imported;
+    }
+
+    public void setImported(int imported) {
+        this.imported = imported;
+    }
+
+    public int getInvalid() {
+        return invalid;
+    }
+
+    public void setInvalid(int invalid) {
+        this.invalid = invalid;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public List<ProcDefArchiveImportItemDto> getItems() {
+        return items;
+    }
+
+    public void setItems(List<ProcDefArchiveImportItemDto> items) {
+        this.items = items;
+    }
+
+    public void addItem(ProcDefArchiveImportItemDto item) {
+        this.items.add(item);
+    }
+}
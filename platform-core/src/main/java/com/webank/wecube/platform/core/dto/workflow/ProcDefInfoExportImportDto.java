@@ -13,6 +13,7 @@ public class ProcDefInfoExportImportDto {
 
     private String procDefData;
     private String rootEntity;
+    private String priority;
 
     private String createdTime;
 
@@ -112,4 +113,11 @@ public class ProcDefInfoExportImportDto {
         return this;
     }
 
+    public String getPriority() {
+        return priority;
+    }
+
+    public void setPriority(String priority) {
+        this.priority = priority;
+    }
 }
@@ -0,0 +1,46 @@
+package com.webank.wecube.platform.core.dto.workflow;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProcInstArchiveDto {
+    private ProcInstInfoDto procInst;
+    private List<TaskNodeDefObjectBindInfoDto> execBindings = new ArrayList<>();
+    private List<TaskNodeExecContextDto> taskNodeContexts = new ArrayList<>();
+
+    public ProcInstInfoDto getProcInst() {
+        return procInst;
+    }
+
+    public void setProcInst(ProcInstInfoDto procInst) {
+        this.procInst = procInst;
+    }
+
+    public List<TaskNodeDefObjectBindInfoDto> getExecBindings() {
+        return execBindings;
+    }
+
+    public void setExecBindings(List<TaskNodeDefObjectBindInfoDto> execBindings) {
+        this.execBindings = execBindings;
+    }
+
+    public List<TaskNodeExecContextDto> getTaskNodeContexts() {
+        return taskNodeContexts;
+    }
+
+    public void setTaskNodeContexts(List<TaskNodeExecContextDto> taskNodeContexts) {
+        this.taskNodeContexts = taskNodeContexts;
+    }
+
+    public TaskNodeExecContextDto findTaskNodeContext(Integer nodeInstId) {
+        for (TaskNodeExecContextDto taskNodeContext : taskNodeContexts) {
+            if (nodeInstId.equals(taskNodeContext.getNodeInstId())) {
+                return taskNodeContext;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,71 @@
+package com.webank.wecube.platform.core.dto.workflow;
+
+import com.webank.wecube.platform.core.dto.Pageable;
+
+public class ProcInstQueryRequestDto {
+    private String status;
+
+    private String procDefId;
+
+    private String operator;
+
+    /**
+     * yyyy-MM-dd HH:mm:ss, inclusive
+     */
+    private String startTime;
+
+    /**
+     * yyyy-MM-dd HH:mm:ss, exclusive
+     */
+    private String endTime;
+
+    private Pageable pageable = new Pageable();
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getProcDefId() {
+        return procDefId;
+    }
+
+    public void setProcDefId(String procDefId) {
+        this.procDefId = procDefId;
+    }
+
+    public String getOperator() {
+        return operator;
+    }
+
+    public void setOperator(String operator) {
+        this.operator = operator;
+    }
+
+    public String getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(String startTime) {
+        this.startTime = startTime;
+    }
+
+    public String getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(String endTime) {
+        this.endTime = endTime;
+    }
+
+    public Pageable getPageable() {
+        return pageable;
+    }
+
+    public void setPageable(Pageable pageable) {
+        this.pageable = pageable;
+    }
+}
@@ -0,0 +1,120 @@
+package com.webank.wecube.platform.core.dto.workflow;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProcInstStatusEventDto {
+    public static final String TYPE_SNAPSHOT = "snapshot";
+    public static final String TYPE_PROC_INST = "procInst";
+    public static final String TYPE_TASK_NODE = "taskNode";
+
+    private String type;
+
+    private Integer procInstId;
+
+    private long version;
+
+    private String eventId;
+
+    private Integer nodeInstId;
+
+    private String nodeId;
+
+    private String status;
+
+    private String errorMessage;
+
+    private String updatedTime;
+
+    private List<ProcInstStatusEventDto> taskNodes;
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Integer getProcInstId() {
+        return procInstId;
+    }
+
+    public void setProcInstId(Integer procInstId) {
+        this.procInstId = procInstId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(String eventId) {
+        this.eventId = eventId;
+    }
+
+    public Integer getNodeInstId() {
+        return nodeInstId;
+    }
+
+    public void setNodeInstId(Integer nodeInstId) {
+        this.nodeInstId = nodeInstId;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public String getUpdatedTime() {
+        return updatedTime;
+    }
+
+    public void setUpdatedTime(String updatedTime) {
+        this.updatedTime = updatedTime;
+    }
+
+    public List<ProcInstStatusEventDto> getTaskNodes() {
+        return taskNodes;
+    }
+
+    public void setTaskNodes(List<ProcInstStatusEventDto> taskNodes) {
+        this.taskNodes = taskNodes;
+    }
+
+    public void addTaskNode(ProcInstStatusEventDto taskNode) {
+        if (this.taskNodes == null) {
+            this.taskNodes = new ArrayList<>();
+        }
+        this.taskNodes.add(taskNode);
+    }
+}
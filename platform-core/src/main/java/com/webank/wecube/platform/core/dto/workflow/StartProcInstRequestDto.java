@@ -9,6 +9,7 @@ public class StartProcInstRequestDto {
     private String entityDataId;
     private String entityDisplayName;
     private String processSessionId;
+    private String priority;
     private List<TaskNodeDefObjectBindInfoDto> taskNodeBinds = new ArrayList<>();
     
     public String getEntityDisplayName() {
@@ -82,6 +83,12 @@ public class StartProcInstRequestDto {
 	public void setProcessSessionId(String processSessionId) {
 		this.processSessionId = processSessionId;
 	}
-    
-    
+
+    public String getPriority() {
+        return priority;
+    }
+
+    public void setPriority(String priority) {
+        this.priority = priority;
+    }
 }
@@ -60,6 +60,9 @@ public class ProcDefInfoEntity extends BaseStatusFeaturedEntity {
     @Column(name = "IS_DELETED")
     private boolean deleted = false;
 
+    @Column(name = "PRIORITY")
+    private String priority;
+
     public String getId() {
         return id;
     }
@@ -155,4 +158,12 @@ public class ProcDefInfoEntity extends BaseStatusFeaturedEntity {
 //    public void setRootEntityName(String rootEntityName) {
 //        this.rootEntityName = rootEntityName;
 //    }
+
+    public String getPriority() {
+        return priority;
+    }
+
+    public void setPriority(String priority) {
+        this.priority = priority;
+    }
 }
@@ -0,0 +1,178 @@
+package com.webank.wecube.platform.core.entity.workflow;
+
+import java.util.Date;
+
+import javax.persistence.Basic;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+
+/**
+ * Compressed details of a completed process instance which has been removed
+ * from the runtime tables, kept under the id the instance had there.
+ */
+@Entity
+@Table(name = "CORE_AR_PROC_INST")
+public class ProcInstArchiveEntity {
+    public static final String COMPRESS_TYPE_GZIP = "gzip";
+
+    @Id
+    @Column(name = "ID")
+    private Integer id;
+
+    @Column(name = "PROC_INST_KEY")
+    private String procInstKey;
+
+    @Column(name = "PROC_INST_KERNEL_ID")
+    private String procInstKernelId;
+
+    @Column(name = "PROC_DEF_ID")
+    private String procDefId;
+
+    @Column(name = "PROC_DEF_KEY")
+    private String procDefKey;
+
+    @Column(name = "PROC_DEF_NAME")
+    private String procDefName;
+
+    @Column(name = "STATUS")
+    private String status;
+
+    @Column(name = "CREATED_TIME")
+    private Date createdTime;
+
+    @Column(name = "COMPLETED_TIME")
+    private Date completedTime;
+
+    @Column(name = "ARCHIVED_TIME")
+    private Date archivedTime;
+
+    @Column(name = "COMPRESS_TYPE")
+    private String compressType;
+
+    @Column(name = "RAW_SIZE")
+    private Integer rawSize;
+
+    @Column(name = "STORED_SIZE")
+    private Integer storedSize;
+
+    @Lob
+    @Basic(fetch = FetchType.LAZY)
+    @Column(name = "DATA", columnDefinition = "longblob")
+    private byte[] data;
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public String getProcInstKey() {
+        return procInstKey;
+    }
+
+    public void setProcInstKey(String procInstKey) {
+        this.procInstKey = procInstKey;
+    }
+
+    public String getProcInstKernelId() {
+        return procInstKernelId;
+    }
+
+    public void setProcInstKernelId(String procInstKernelId) {
+        this.procInstKernelId = procInstKernelId;
+    }
+
+    public String getProcDefId() {
+        return procDefId;
+    }
+
+    public void setProcDefId(String procDefId) {
+        this.procDefId = procDefId;
+    }
+
+    public String getProcDefKey() {
+        return procDefKey;
+    }
+
+    public void setProcDefKey(String procDefKey) {
+        this.procDefKey = procDefKey;
+    }
+
+    public String getProcDefName() {
+        return procDefName;
+    }
+
+    public void setProcDefName(String procDefName) {
+        this.procDefName = procDefName;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Date getCreatedTime() {
+        return createdTime;
+    }
+
+    public void setCreatedTime(Date createdTime) {
+        this.createdTime = createdTime;
+    }
+
+    public Date getCompletedTime() {
+        return completedTime;
+    }
+
+    public void setCompletedTime(Date completedTime) {
+        this.completedTime = completedTime;
+    }
+
+    public Date getArchivedTime() {
+        return archivedTime;
+    }
+
+    public void setArchivedTime(Date archivedTime) {
+        this.archivedTime = archivedTime;
+    }
+
+    public String getCompressType() {
+        return compressType;
+    }
+
+    public void setCompressType(String compressType) {
+        this.compressType = compressType;
+    }
+
+    public Integer getRawSize() {
+        return rawSize;
+    }
+
+    public void setRawSize(Integer rawSize) {
+        this.rawSize = rawSize;
+    }
+
+    public Integer getStoredSize() {
+        return storedSize;
+    }
+
+    public void setStoredSize(Integer storedSize) {
+        this.storedSize = storedSize;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public void setData(byte[] data) {
+        this.data = data;
+    }
+}
@@ -23,6 +23,9 @@ public class ProcInstInfoEntity extends BaseInstanceStatusEntity {
     @Column(name = "PROC_DEF_NAME")
     private String procDefName;
 
+    @Column(name = "PRIORITY")
+    private String priority;
+
     public String getProcInstKey() {
         return procInstKey;
     }
@@ -63,4 +66,11 @@ public class ProcInstInfoEntity extends BaseInstanceStatusEntity {
         this.procDefName = procDefName;
     }
 
+    public String getPriority() {
+        return priority;
+    }
+
+    public void setPriority(String priority) {
+        this.priority = priority;
+    }
 }
@@ -0,0 +1,94 @@
+package com.webank.wecube.platform.core.entity.workflow;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+import com.webank.wecube.platform.core.entity.BaseTraceableEntity;
+
+/**
+ * Receipt of an asynchronous plugin callback, keyed by the request id sent to
+ * the plugin, so that repeated callbacks are only processed once.
+ */
+@Entity
+@Table(name = "CORE_RU_TASK_NODE_EXEC_CALLBACK", uniqueConstraints = {
+        @UniqueConstraint(columnNames = { "REQ_ID" }) })
+public class TaskNodeExecCallbackEntity extends BaseTraceableEntity {
+    public static final String STATUS_PROCESSING = "PROCESSING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+
+    @Id
+    @Column(name = "ID")
+    @GeneratedValue
+    private Integer id;
+
+    @Column(name = "REQ_ID")
+    private String requestId;
+
+    @Column(name = "STATUS")
+    private String status;
+
+    @Column(name = "RESULT_CODE")
+    private String resultCode;
+
+    @Column(name = "PAYLOAD_HASH")
+    private String payloadHash;
+
+    @Column(name = "REPLAY_TIMES")
+    private Integer replayTimes = 0;
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public void setRequestId(String requestId) {
+        this.requestId = requestId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getResultCode() {
+        return resultCode;
+    }
+
+    public void setResultCode(String resultCode) {
+        this.resultCode = resultCode;
+    }
+
+    public String getPayloadHash() {
+        return payloadHash;
+    }
+
+    public void setPayloadHash(String payloadHash) {
+        this.payloadHash = payloadHash;
+    }
+
+    public Integer getReplayTimes() {
+        return replayTimes;
+    }
+
+    public void setReplayTimes(Integer replayTimes) {
+        this.replayTimes = replayTimes;
+    }
+
+    public boolean isCompleted() {
+        return STATUS_COMPLETED.equals(status);
+    }
+}
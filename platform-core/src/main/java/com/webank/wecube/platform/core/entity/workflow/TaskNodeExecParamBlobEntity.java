@@ -0,0 +1,92 @@
+package com.webank.wecube.platform.core.entity.workflow;
+
+import javax.persistence.Basic;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+
+import com.webank.wecube.platform.core.entity.BaseTraceableEntity;
+
+/**
+ * Compressed value of a task node parameter which is too large to be kept in
+ * CORE_RU_TASK_NODE_EXEC_PARAM.
+ */
+@Entity
+@Table(name = "CORE_RU_TASK_NODE_EXEC_PARAM_BLOB")
+public class TaskNodeExecParamBlobEntity extends BaseTraceableEntity {
+    public static final String COMPRESS_TYPE_GZIP = "gzip";
+
+    @Id
+    @Column(name = "ID")
+    @GeneratedValue
+    private Integer id;
+
+    @Column(name = "CONTENT_HASH")
+    private String contentHash;
+
+    @Column(name = "COMPRESS_TYPE")
+    private String compressType;
+
+    @Column(name = "RAW_SIZE")
+    private Integer rawSize;
+
+    @Column(name = "STORED_SIZE")
+    private Integer storedSize;
+
+    @Lob
+    @Basic(fetch = FetchType.LAZY)
+    @Column(name = "DATA", columnDefinition = "longblob")
+    private byte[] data;
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public String getCompressType() {
+        return compressType;
+    }
+
+    public void setCompressType(String compressType) {
+        this.compressType = compressType;
+    }
+
+    public Integer getRawSize() {
+        return rawSize;
+    }
+
+    public void setRawSize(Integer rawSize) {
+        this.rawSize = rawSize;
+    }
+
+    public Integer getStoredSize() {
+        return storedSize;
+    }
+
+    public void setStoredSize(Integer storedSize) {
+        this.storedSize = storedSize;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public void setData(byte[] data) {
+        this.data = data;
+    }
+}
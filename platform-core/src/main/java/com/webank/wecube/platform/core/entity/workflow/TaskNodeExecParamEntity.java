@@ -52,6 +52,15 @@ public class TaskNodeExecParamEntity extends BaseTraceableEntity {
     @Column(name = "IS_SENSITIVE")
     private Boolean sensitive;
 
+    @Column(name = "PARAM_DATA_REF")
+    private Integer paramDataRef;
+
+    @Column(name = "PARAM_DATA_HASH")
+    private String paramDataHash;
+
+    @Column(name = "PARAM_DATA_SIZE")
+    private Integer paramDataSize;
+
     public Integer getId() {
         return id;
     }
@@ -131,4 +140,36 @@ public class TaskNodeExecParamEntity extends BaseTraceableEntity {
     public void setSensitive(Boolean sensitive) {
         this.sensitive = sensitive;
     }
+
+    public Integer getParamDataRef() {
+        return paramDataRef;
+    }
+
+    public void setParamDataRef(Integer paramDataRef) {
+        this.paramDataRef = paramDataRef;
+    }
+
+    public String getParamDataHash() {
+        return paramDataHash;
+    }
+
+    public void setParamDataHash(String paramDataHash) {
+        this.paramDataHash = paramDataHash;
+    }
+
+    public Integer getParamDataSize() {
+        return paramDataSize;
+    }
+
+    public void setParamDataSize(Integer paramDataSize) {
+        this.paramDataSize = paramDataSize;
+    }
+
+    /**
+     * True if paramDataValue only holds a preview and the full value is kept
+     * in CORE_RU_TASK_NODE_EXEC_PARAM_BLOB.
+     */
+    public boolean isParamDataOffloaded() {
+        return paramDataRef != null;
+    }
 }
@@ -0,0 +1,41 @@
+package com.webank.wecube.platform.core.job;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.webank.wecube.platform.core.commons.ApplicationProperties.WorkflowProperties;
+import com.webank.wecube.platform.core.service.workflow.WorkflowProcInstService;
+
+/**
+ * Archives process instances completed long ago, if archiving is enabled.
+ */
+@Component
+public class ProcInstArchiveJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ProcInstArchiveJob.class);
+
+    @Autowired
+    private WorkflowProperties workflowProperties;
+
+    @Autowired
+    private WorkflowProcInstService workflowProcInstService;
+
+    @Scheduled(initialDelay = 300000, fixedDelayString = "${wecube.core.workflow.archive-interval-millis:3600000}")
+    public void archiveCompletedProcessInstances() {
+        if (!workflowProperties.isArchiveEnabled()) {
+            return;
+        }
+
+        try {
+            int archived = workflowProcInstService.archiveCompletedProcessInstances();
+            if (archived > 0) {
+                log.info("archived {} completed process instances", archived);
+            }
+        } catch (Exception e) {
+            log.error("process instance archiving errors", e);
+        }
+    }
+}
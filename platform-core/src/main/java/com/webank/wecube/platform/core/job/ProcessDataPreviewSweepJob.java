@@ -0,0 +1,41 @@
+package com.webank.wecube.platform.core.job;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.webank.wecube.platform.core.commons.ApplicationProperties.WorkflowProperties;
+import com.webank.wecube.platform.core.service.workflow.ProcessDataPreviewSessionService;
+
+/**
+ * Deletes expired process data preview sessions, if sweeping is enabled.
+ */
+@Component
+public class ProcessDataPreviewSweepJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ProcessDataPreviewSweepJob.class);
+
+    @Autowired
+    private WorkflowProperties workflowProperties;
+
+    @Autowired
+    private ProcessDataPreviewSessionService processDataPreviewSessionService;
+
+    @Scheduled(initialDelay = 120000, fixedDelayString = "${wecube.core.workflow.preview-sweep-interval-millis:600000}")
+    public void sweepExpiredSessions() {
+        if (!workflowProperties.isPreviewSweepEnabled()) {
+            return;
+        }
+
+        try {
+            int swept = processDataPreviewSessionService.sweepExpiredSessions();
+            if (swept > 0) {
+                log.info("deleted {} expired process data preview sessions", swept);
+            }
+        } catch (Exception e) {
+            log.error("process data preview sweeping errors", e);
+        }
+    }
+}
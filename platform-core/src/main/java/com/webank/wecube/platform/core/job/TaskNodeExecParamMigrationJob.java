@@ -0,0 +1,52 @@
+package com.webank.wecube.platform.core.job;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.webank.wecube.platform.core.commons.ApplicationProperties.WorkflowProperties;
+import com.webank.wecube.platform.core.service.workflow.TaskNodeExecParamStorageService;
+
+/**
+ * Moves oversized parameter values stored inline by earlier versions into the
+ * blob table, one batch per transaction, and stops once none is left.
+ */
+@Component
+public class TaskNodeExecParamMigrationJob {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskNodeExecParamMigrationJob.class);
+
+    @Autowired
+    private WorkflowProperties workflowProperties;
+
+    @Autowired
+    private TaskNodeExecParamStorageService taskNodeExecParamStorageService;
+
+    private volatile boolean completed = false;
+
+    @Scheduled(initialDelay = 60000, fixedDelay = 600000)
+    public void migrateOversizedParamValues() {
+        if (completed || !workflowProperties.isParamMigrationEnabled()) {
+            return;
+        }
+
+        int totalMigrated = 0;
+        try {
+            int migrated;
+            do {
+                migrated = taskNodeExecParamStorageService.migrateOversizedParamValues();
+                totalMigrated += migrated;
+            } while (migrated > 0);
+
+            completed = true;
+        } catch (Exception e) {
+            log.error("parameter value migration errors", e);
+        }
+
+        if (totalMigrated > 0) {
+            log.info("moved {} oversized parameter values out of row", totalMigrated);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.webank.wecube.platform.core.job;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.webank.wecube.platform.core.service.workflow.WorkflowStatusWriteBehindService;
+
+/**
+ * Writes the buffered status changes of process and task node instances.
+ */
+@Component
+public class WorkflowStatusFlushJob {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkflowStatusFlushJob.class);
+
+    @Autowired
+    private WorkflowStatusWriteBehindService workflowStatusWriteBehindService;
+
+    @Scheduled(fixedDelayString = "${wecube.core.workflow.status-flush-interval-millis:200}")
+    public void flushPendingStatuses() {
+        try {
+            workflowStatusWriteBehindService.flushAll();
+        } catch (Exception e) {
+            log.error("status flush errors", e);
+        }
+    }
+}
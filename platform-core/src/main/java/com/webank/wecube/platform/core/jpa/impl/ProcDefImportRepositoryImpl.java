@@ -0,0 +1,125 @@
+package com.webank.wecube.platform.core.jpa.impl;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.webank.wecube.platform.core.entity.workflow.ProcDefInfoEntity;
+import com.webank.wecube.platform.core.entity.workflow.TaskNodeDefInfoEntity;
+import com.webank.wecube.platform.core.entity.workflow.TaskNodeParamEntity;
+import com.webank.wecube.platform.core.jpa.workflow.ProcDefImportRepository;
+
+/**
+ * The tables use assigned ids, for which saving through Spring Data merges
+ * and so selects every row before inserting it, hence the plain JDBC batches.
+ */
+@Repository
+public class ProcDefImportRepositoryImpl implements ProcDefImportRepository {
+    private static final int INSERT_BATCH_SIZE = 500;
+
+    private static final String INSERT_PROC_DEF_SQL = "insert into core_re_proc_def_info (id, created_by, "
+            + "created_time, updated_by, updated_time, active, rev, status, proc_def_key, proc_def_name, "
+            + "root_entity, proc_def_data, proc_def_data_fmt, is_deleted, priority) "
+            + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_TASK_NODE_DEF_SQL = "insert into core_re_task_node_def_info (id, "
+            + "created_by, created_time, updated_by, updated_time, active, rev, status, node_id, node_name, "
+            + "proc_def_id, proc_def_key, service_id, service_name, routine_exp, routine_raw, description, "
+            + "timeout_exp, task_category) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_TASK_NODE_PARAM_SQL = "insert into core_re_task_node_param (id, "
+            + "created_by, created_time, updated_by, updated_time, active, rev, status, proc_def_id, node_id, "
+            + "task_node_def_id, param_name, bind_node_id, bind_param_type, bind_param_name, bind_type, bind_val) "
+            + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public ProcDefImportRepositoryImpl(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    @Transactional
+    public void insertAll(List<ProcDefInfoEntity> procDefs, List<TaskNodeDefInfoEntity> taskNodeDefs,
+            List<TaskNodeParamEntity> taskNodeParams) {
+        if (!procDefs.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_PROC_DEF_SQL, procDefs, INSERT_BATCH_SIZE, (ps, d) -> {
+                ps.setString(1, d.getId());
+                ps.setString(2, d.getCreatedBy());
+                setTimestamp(ps, 3, d.getCreatedTime());
+                ps.setString(4, d.getUpdatedBy());
+                setTimestamp(ps, 5, d.getUpdatedTime());
+                ps.setBoolean(6, d.isActive());
+                ps.setInt(7, d.getRevision());
+                ps.setString(8, d.getStatus());
+                ps.setString(9, d.getProcDefKey());
+                ps.setString(10, d.getProcDefName());
+                ps.setString(11, d.getRootEntity());
+                ps.setString(12, d.getProcDefData());
+                ps.setString(13, d.getProcDefDataFormat());
+                ps.setBoolean(14, d.isDeleted());
+                ps.setString(15, d.getPriority());
+            });
+        }
+
+        if (!taskNodeDefs.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_TASK_NODE_DEF_SQL, taskNodeDefs, INSERT_BATCH_SIZE, (ps, n) -> {
+                ps.setString(1, n.getId());
+                ps.setString(2, n.getCreatedBy());
+                setTimestamp(ps, 3, n.getCreatedTime());
+                ps.setString(4, n.getUpdatedBy());
+                setTimestamp(ps, 5, n.getUpdatedTime());
+                ps.setBoolean(6, n.isActive());
+                ps.setInt(7, n.getRevision());
+                ps.setString(8, n.getStatus());
+                ps.setString(9, n.getNodeId());
+                ps.setString(10, n.getNodeName());
+                ps.setString(11, n.getProcDefId());
+                ps.setString(12, n.getProcDefKey());
+                ps.setString(13, n.getServiceId());
+                ps.setString(14, n.getServiceName());
+                ps.setString(15, n.getRoutineExpression());
+                ps.setString(16, n.getRoutineRaw());
+                ps.setString(17, n.getDescription());
+                ps.setString(18, n.getTimeoutExpression());
+                ps.setString(19, n.getTaskCategory());
+            });
+        }
+
+        if (!taskNodeParams.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_TASK_NODE_PARAM_SQL, taskNodeParams, INSERT_BATCH_SIZE, (ps, p) -> {
+                ps.setString(1, p.getId());
+                ps.setString(2, p.getCreatedBy());
+                setTimestamp(ps, 3, p.getCreatedTime());
+                ps.setString(4, p.getUpdatedBy());
+                setTimestamp(ps, 5, p.getUpdatedTime());
+                ps.setBoolean(6, p.isActive());
+                ps.setInt(7, p.getRevision());
+                ps.setString(8, p.getStatus());
+                ps.setString(9, p.getProcDefId());
+                ps.setString(10, p.getNodeId());
+                ps.setString(11, p.getTaskNodeDefId());
+                ps.setString(12, p.getParamName());
+                ps.setString(13, p.getBindNodeId());
+                ps.setString(14, p.getBindParamType());
+                ps.setString(15, p.getBindParamName());
+                ps.setString(16, p.getBindType());
+                ps.setString(17, p.getBindValue());
+            });
+        }
+    }
+
+    private void setTimestamp(PreparedStatement ps, int index, Date date) throws SQLException {
+        ps.setTimestamp(index, date == null ? null : new Timestamp(date.getTime()));
+    }
+}
@@ -0,0 +1,74 @@
+package com.webank.wecube.platform.core.jpa.impl;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Date;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.webank.wecube.platform.core.entity.workflow.ProcExecBindingEntity;
+import com.webank.wecube.platform.core.jpa.workflow.ProcExecBindingBatchRepository;
+
+/**
+ * The table uses auto increment ids, for which Hibernate does not batch
+ * inserts, hence the plain JDBC batches.
+ */
+@Repository
+public class ProcExecBindingBatchRepositoryImpl implements ProcExecBindingBatchRepository {
+    private static final int INSERT_BATCH_SIZE = 500;
+
+    private static final String INSERT_BINDING_SQL = "insert into core_ru_proc_exec_binding (created_by, "
+            + "created_time, updated_by, updated_time, bind_type, entity_data_id, entity_type_id, entity_data_name, "
+            + "node_def_id, proc_def_id, proc_inst_id, task_node_inst_id) "
+            + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public ProcExecBindingBatchRepositoryImpl(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    @Transactional
+    public void insertAll(List<ProcExecBindingEntity> bindings) {
+        if (bindings.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_BINDING_SQL, bindings, INSERT_BATCH_SIZE, (ps, b) -> {
+            ps.setString(1, b.getCreatedBy());
+            setTimestamp(ps, 2, b.getCreatedTime());
+            ps.setString(3, b.getUpdatedBy());
+            setTimestamp(ps, 4, b.getUpdatedTime());
+            ps.setString(5, b.getBindType());
+            ps.setString(6, b.getEntityDataId());
+            ps.setString(7, b.getEntityTypeId());
+            ps.setString(8, b.getEntityDataName());
+            ps.setString(9, b.getNodeDefId());
+            ps.setString(10, b.getProcDefId());
+            setInteger(ps, 11, b.getProcInstId());
+            setInteger(ps, 12, b.getTaskNodeInstId());
+        });
+    }
+
+    private void setTimestamp(PreparedStatement ps, int index, Date date) throws SQLException {
+        ps.setTimestamp(index, date == null ? null : new Timestamp(date.getTime()));
+    }
+
+    private void setInteger(PreparedStatement ps, int index, Integer value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.INTEGER);
+        } else {
+            ps.setInt(index, value);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.webank.wecube.platform.core.jpa.impl;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Date;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.webank.wecube.platform.core.entity.workflow.GraphNodeEntity;
+import com.webank.wecube.platform.core.entity.workflow.ProcExecBindingTmpEntity;
+import com.webank.wecube.platform.core.jpa.workflow.ProcessDataPreviewRepository;
+
+/**
+ * Both tables use auto increment ids, for which Hibernate does not batch
+ * inserts, hence the plain JDBC batches.
+ */
+@Repository
+public class ProcessDataPreviewRepositoryImpl implements ProcessDataPreviewRepository {
+    private static final int INSERT_BATCH_SIZE = 500;
+
+    private static final String INSERT_GRAPH_NODE_SQL = "insert into core_ru_graph_node (created_by, created_time, "
+            + "updated_by, updated_time, data_id, display_name, entity_name, g_node_id, pkg_name, prev_ids, "
+            + "proc_inst_id, proc_sess_id, succ_ids) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_BINDING_TMP_SQL = "insert into core_ru_proc_exec_binding_tmp (created_by, "
+            + "created_time, updated_by, updated_time, bind_type, is_bound, entity_data_id, entity_type_id, "
+            + "node_def_id, ordered_no, proc_def_id, proc_session_id, entity_data_name) "
+            + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public ProcessDataPreviewRepositoryImpl(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    @Transactional
+    public void insertPreview(List<GraphNodeEntity> graphNodes, List<ProcExecBindingTmpEntity> bindingTmps) {
+        if (!graphNodes.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_GRAPH_NODE_SQL, graphNodes, INSERT_BATCH_SIZE, (ps, n) -> {
+                ps.setString(1, n.getCreatedBy());
+                setTimestamp(ps, 2, n.getCreatedTime());
+                ps.setString(3, n.getUpdatedBy());
+                setTimestamp(ps, 4, n.getUpdatedTime());
+                ps.setString(5, n.getDataId());
+                ps.setString(6, n.getDisplayName());
+                ps.setString(7, n.getEntityName());
+                ps.setString(8, n.getGraphNodeId());
+                ps.setString(9, n.getPackageName());
+                ps.setString(10, n.getPreviousIds());
+                if (n.getProcInstId() == null) {
+                    ps.setNull(11, Types.INTEGER);
+                } else {
+                    ps.setInt(11, n.getProcInstId());
+                }
+                ps.setString(12, n.getProcessSessionId());
+                ps.setString(13, n.getSucceedingIds());
+            });
+        }
+
+        if (!bindingTmps.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_BINDING_TMP_SQL, bindingTmps, INSERT_BATCH_SIZE, (ps, b) -> {
+                ps.setString(1, b.getCreatedBy());
+                setTimestamp(ps, 2, b.getCreatedTime());
+                ps.setString(3, b.getUpdatedBy());
+                setTimestamp(ps, 4, b.getUpdatedTime());
+                ps.setString(5, b.getBindType());
+                ps.setString(6, b.getBound());
+                ps.setString(7, b.getEntityDataId());
+                ps.setString(8, b.getEntityTypeId());
+                ps.setString(9, b.getNodeDefId());
+                ps.setString(10, b.getOrderedNo());
+                ps.setString(11, b.getProcDefId());
+                ps.setString(12, b.getProcSessionId());
+                ps.setString(13, b.getEntityDataName());
+            });
+        }
+    }
+
+    private void setTimestamp(PreparedStatement ps, int index, Date date) throws SQLException {
+        ps.setTimestamp(index, date == null ? null : new Timestamp(date.getTime()));
+    }
+}
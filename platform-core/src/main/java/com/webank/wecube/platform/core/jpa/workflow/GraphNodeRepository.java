@@ -1,8 +1,11 @@
 package com.webank.wecube.platform.core.jpa.workflow;
 
+import java.util.Date;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -15,4 +18,13 @@ public interface GraphNodeRepository extends JpaRepository<GraphNodeEntity, Inte
 	
 	@Query("select t from GraphNodeEntity t where t.procInstId = :procInstId")
 	List<GraphNodeEntity> findAllByProcInstId(@Param("procInstId")Integer procInstId);
+
+	@Query("select t from GraphNodeEntity t "
+			+ " where t.createdTime < :createdBefore and t.procInstId is null and t.id > :afterId order by t.id")
+	List<GraphNodeEntity> findAllUnlinkedCreatedBefore(@Param("createdBefore") Date createdBefore,
+			@Param("afterId") Integer afterId, Pageable pageable);
+
+	@Modifying
+	@Query("delete from GraphNodeEntity t where t.processSessionId in :processSessionIds and t.procInstId is null")
+	int deleteUnlinkedBySessionIds(@Param("processSessionIds") List<String> processSessionIds);
 }
@@ -0,0 +1,17 @@
+package com.webank.wecube.platform.core.jpa.workflow;
+
+import java.util.List;
+
+import com.webank.wecube.platform.core.entity.workflow.ProcDefInfoEntity;
+import com.webank.wecube.platform.core.entity.workflow.TaskNodeDefInfoEntity;
+import com.webank.wecube.platform.core.entity.workflow.TaskNodeParamEntity;
+
+public interface ProcDefImportRepository {
+    /**
+     * Inserts the imported process definitions, nodes and params with batched
+     * statements, joining the current transaction if any. The entities must
+     * carry their assigned ids.
+     */
+    void insertAll(List<ProcDefInfoEntity> procDefs, List<TaskNodeDefInfoEntity> taskNodeDefs,
+            List<TaskNodeParamEntity> taskNodeParams);
+}
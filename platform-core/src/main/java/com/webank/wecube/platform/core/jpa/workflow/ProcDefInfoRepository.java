@@ -22,6 +22,12 @@ public interface ProcDefInfoRepository extends JpaRepository<ProcDefInfoEntity,
     @Query("select t from ProcDefInfoEntity t " + " where t.active = true and t.status = 'deployed' ")
     List<ProcDefInfoEntity> findAllDeployedProcDefs();
 
+    @Query("select t.id from ProcDefInfoEntity t " + " where t.active = true and t.status = 'deployed' ")
+    List<String> findAllDeployedProcDefIds();
+
+    @Query("select t.status from ProcDefInfoEntity t where t.id = :procId")
+    String findStatusById(@Param("procId") String procId);
+
     @Query("select t from ProcDefInfoEntity t " + " where t.id=:procId and t.active = true and t.status = 'deployed'")
     Optional<ProcDefInfoEntity> findAllDeployedProcDefsByProcId(@Param("procId") String procId);
 
@@ -0,0 +1,13 @@
+package com.webank.wecube.platform.core.jpa.workflow;
+
+import java.util.List;
+
+import com.webank.wecube.platform.core.entity.workflow.ProcExecBindingEntity;
+
+public interface ProcExecBindingBatchRepository {
+    /**
+     * Inserts the bindings with batched statements, joining the current
+     * transaction if any. The generated ids are not set back on the entities.
+     */
+    void insertAll(List<ProcExecBindingEntity> bindings);
+}
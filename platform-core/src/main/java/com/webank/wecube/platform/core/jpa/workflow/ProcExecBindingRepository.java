@@ -20,4 +20,10 @@ public interface ProcExecBindingRepository extends JpaRepository<ProcExecBinding
     
     @Query("select t from ProcExecBindingEntity t " + " where t.procInstId = :procInstId and t.bindType = 'taskNode'")
     List<ProcExecBindingEntity> findAllTaskNodeBindingsByProcInstId(@Param("procInstId") Integer procInstId);
+
+    @Query("select t from ProcExecBindingEntity t " + " where t.procInstId = :procInstId")
+    List<ProcExecBindingEntity> findAllByProcInstId(@Param("procInstId") Integer procInstId);
+
+    @Query("select t from ProcExecBindingEntity t " + " where t.procInstId in :procInstIds and t.bindType = 'process'")
+    List<ProcExecBindingEntity> findAllProcInstBindingsByProcInstIds(@Param("procInstIds") List<Integer> procInstIds);
 }
@@ -1,8 +1,11 @@
 package com.webank.wecube.platform.core.jpa.workflow;
 
+import java.util.Date;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -22,4 +25,16 @@ public interface ProcExecBindingTmpRepository extends JpaRepository<ProcExecBind
 	@Query("select t from ProcExecBindingTmpEntity t "
             + " where t.procSessionId = :processSessionId and t.bindType = 'process' ")
 	List<ProcExecBindingTmpEntity> findAllRootBindingsBySession(@Param("processSessionId") String processSessionId);
+
+	@Query("select t from ProcExecBindingTmpEntity t "
+			+ " where t.createdTime < :createdBefore and t.id > :afterId order by t.id")
+	List<ProcExecBindingTmpEntity> findAllCreatedBefore(@Param("createdBefore") Date createdBefore,
+			@Param("afterId") Integer afterId, Pageable pageable);
+
+	@Query("select count(distinct t.procSessionId) from ProcExecBindingTmpEntity t")
+	long countSessions();
+
+	@Modifying
+	@Query("delete from ProcExecBindingTmpEntity t where t.procSessionId in :processSessionIds")
+	int deleteBySessionIds(@Param("processSessionIds") List<String> processSessionIds);
 }
@@ -0,0 +1,9 @@
+package com.webank.wecube.platform.core.jpa.workflow;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.webank.wecube.platform.core.entity.workflow.ProcInstArchiveEntity;
+
+public interface ProcInstArchiveRepository extends JpaRepository<ProcInstArchiveEntity, Integer> {
+
+}
@@ -1,12 +1,17 @@
 package com.webank.wecube.platform.core.jpa.workflow;
 
+import java.util.Date;
 import java.util.List;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import com.webank.wecube.platform.core.entity.workflow.ProcInstInfoEntity;
+import com.webank.wecube.platform.core.entity.workflow.ProcRoleBindingEntity;
 
 public interface ProcInstInfoRepository extends JpaRepository<ProcInstInfoEntity, Integer> {
     
@@ -17,4 +22,33 @@ public interface ProcInstInfoRepository extends JpaRepository<ProcInstInfoEntity
     
     @Query("select t from ProcInstInfoEntity t " + " where t.procDefId = :procDefId ")
     List<ProcInstInfoEntity> findAllByProcDefId(@Param("procDefId") String procDefId);
+
+    String USABLE_BY_ROLES_AND_FILTERED = " from ProcInstInfoEntity t where exists "
+            + " (select r.id from ProcRoleBindingEntity r where r.procId = t.procDefId "
+            + " and r.roleId in :roleIds and r.permission = :permission) "
+            + " and (:status is null or t.status = :status) and (:procDefId is null or t.procDefId = :procDefId) "
+            + " and (:operator is null or t.operator = :operator) "
+            + " and (:createdFrom is null or t.createdTime >= :createdFrom) "
+            + " and (:createdTo is null or t.createdTime < :createdTo) ";
+
+    @Query(value = "select t " + USABLE_BY_ROLES_AND_FILTERED + " order by t.id desc",
+            countQuery = "select count(t) " + USABLE_BY_ROLES_AND_FILTERED)
+    Page<ProcInstInfoEntity> findAllUsableByRoles(@Param("roleIds") List<String> roleIds,
+            @Param("permission") ProcRoleBindingEntity.permissionEnum permission, @Param("status") String status,
+            @Param("procDefId") String procDefId, @Param("operator") String operator,
+            @Param("createdFrom") Date createdFrom, @Param("createdTo") Date createdTo, Pageable pageable);
+
+    @Modifying
+    @Query("update ProcInstInfoEntity t set t.status = :status, t.updatedTime = :updatedTime where t.id in :ids")
+    int updateStatusByIds(@Param("status") String status, @Param("updatedTime") Date updatedTime,
+            @Param("ids") List<Integer> ids);
+
+    @Query("select t.id from ProcInstInfoEntity t where t.status = :status and t.updatedTime < :updatedBefore "
+            + " and t.id > :afterId order by t.id")
+    List<Integer> findIdsByStatusAndUpdatedBefore(@Param("status") String status,
+            @Param("updatedBefore") Date updatedBefore, @Param("afterId") Integer afterId, Pageable pageable);
+
+    @Modifying
+    @Query("delete from ProcInstInfoEntity t where t.id = :id and t.status = :status")
+    int deleteOneByIdAndStatus(@Param("id") Integer id, @Param("status") String status);
 }
@@ -0,0 +1,15 @@
+package com.webank.wecube.platform.core.jpa.workflow;
+
+import java.util.List;
+
+import com.webank.wecube.platform.core.entity.workflow.GraphNodeEntity;
+import com.webank.wecube.platform.core.entity.workflow.ProcExecBindingTmpEntity;
+
+public interface ProcessDataPreviewRepository {
+    /**
+     * Inserts the graph nodes and temporary bindings of a process data
+     * preview in one transaction, with batched statements. The generated ids
+     * are not set back on the entities.
+     */
+    void insertPreview(List<GraphNodeEntity> graphNodes, List<ProcExecBindingTmpEntity> bindingTmps);
+}
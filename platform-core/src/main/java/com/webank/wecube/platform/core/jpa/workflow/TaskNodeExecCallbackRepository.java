@@ -0,0 +1,41 @@
+package com.webank.wecube.platform.core.jpa.workflow;
+
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.webank.wecube.platform.core.entity.workflow.TaskNodeExecCallbackEntity;
+
+public interface TaskNodeExecCallbackRepository extends JpaRepository<TaskNodeExecCallbackEntity, Integer> {
+
+    @Query("select t from TaskNodeExecCallbackEntity t where t.requestId = :requestId")
+    TaskNodeExecCallbackEntity findOneByRequestId(@Param("requestId") String requestId);
+
+    @Modifying
+    @Query("update TaskNodeExecCallbackEntity t set t.updatedTime = :now, t.payloadHash = :payloadHash "
+            + " where t.requestId = :requestId and t.status = 'PROCESSING' and t.updatedTime < :deadline")
+    int claimStaleProcessing(@Param("requestId") String requestId, @Param("payloadHash") String payloadHash,
+            @Param("now") Date now, @Param("deadline") Date deadline);
+
+    @Modifying
+    @Query("update TaskNodeExecCallbackEntity t set t.status = 'COMPLETED', t.resultCode = :resultCode, "
+            + " t.updatedTime = :now where t.requestId = :requestId")
+    int complete(@Param("requestId") String requestId, @Param("resultCode") String resultCode,
+            @Param("now") Date now);
+
+    @Modifying
+    @Query("update TaskNodeExecCallbackEntity t set t.replayTimes = t.replayTimes + 1 where t.requestId = :requestId")
+    int incrementReplayTimes(@Param("requestId") String requestId);
+
+    @Modifying
+    @Query("delete from TaskNodeExecCallbackEntity t where t.requestId = :requestId and t.status = 'PROCESSING'")
+    int deleteProcessingByRequestId(@Param("requestId") String requestId);
+
+    @Modifying
+    @Query("delete from TaskNodeExecCallbackEntity t where t.requestId in :requestIds")
+    int deleteByRequestIds(@Param("requestIds") List<String> requestIds);
+}
@@ -0,0 +1,17 @@
+package com.webank.wecube.platform.core.jpa.workflow;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.webank.wecube.platform.core.entity.workflow.TaskNodeExecParamBlobEntity;
+
+public interface TaskNodeExecParamBlobRepository extends JpaRepository<TaskNodeExecParamBlobEntity, Integer> {
+
+    @Modifying
+    @Query("delete from TaskNodeExecParamBlobEntity t where t.id in :ids")
+    int deleteByIds(@Param("ids") List<Integer> ids);
+}
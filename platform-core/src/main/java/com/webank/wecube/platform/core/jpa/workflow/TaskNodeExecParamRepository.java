@@ -2,6 +2,7 @@ package com.webank.wecube.platform.core.jpa.workflow;
 
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -30,4 +31,13 @@ public interface TaskNodeExecParamRepository extends JpaRepository<TaskNodeExecP
             @Param("paramType") String paramType, @Param("paramName") String paramName,
             @Param("paramDataValue") String paramDataValue);
 
+    // char_length, as the threshold counts characters and length counts bytes
+    // on MySQL
+    @Query("select t from TaskNodeExecParamEntity t "
+            + " where t.paramDataRef is null and char_length(t.paramDataValue) > :threshold order by t.id")
+    List<TaskNodeExecParamEntity> findAllOversizedInlineParams(@Param("threshold") int threshold, Pageable pageable);
+
+    @Query("select t from TaskNodeExecParamEntity t " + " where t.requestId in :requestIds")
+    List<TaskNodeExecParamEntity> findAllByRequestIdIn(@Param("requestIds") List<String> requestIds);
+
 }
@@ -1,5 +1,7 @@
 package com.webank.wecube.platform.core.jpa.workflow;
 
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -12,4 +14,7 @@ public interface TaskNodeExecRequestRepository extends JpaRepository<TaskNodeExe
 
     @Query("select t from TaskNodeExecRequestEntity t " + " where t.nodeInstId = :nodeInstId and t.current = true")
     TaskNodeExecRequestEntity findCurrentEntityByNodeInstId(@Param("nodeInstId") Integer nodeInstId);
+
+    @Query("select t from TaskNodeExecRequestEntity t " + " where t.nodeInstId in :nodeInstIds")
+    List<TaskNodeExecRequestEntity> findAllByNodeInstIdIn(@Param("nodeInstIds") List<Integer> nodeInstIds);
 }
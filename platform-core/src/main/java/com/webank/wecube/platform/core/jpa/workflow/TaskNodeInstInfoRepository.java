@@ -1,15 +1,28 @@
 package com.webank.wecube.platform.core.jpa.workflow;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.webank.wecube.platform.core.entity.workflow.TaskNodeInstInfoEntity;
 
 public interface TaskNodeInstInfoRepository extends JpaRepository<TaskNodeInstInfoEntity, Integer> {
     
     List<TaskNodeInstInfoEntity> findAllByProcInstId(Integer procInstId);
+
+    List<TaskNodeInstInfoEntity> findAllByProcInstIdIn(Collection<Integer> procInstIds);
     
     TaskNodeInstInfoEntity findOneByProcInstIdAndNodeId(Integer procInstId, String nodeId);
+
+    @Modifying
+    @Query("update TaskNodeInstInfoEntity t set t.status = :status, t.errorMessage = :errorMessage, "
+            + " t.updatedTime = :updatedTime where t.id in :ids")
+    int updateStatusByIds(@Param("status") String status, @Param("errorMessage") String errorMessage,
+            @Param("updatedTime") Date updatedTime, @Param("ids") List<Integer> ids);
     
 }
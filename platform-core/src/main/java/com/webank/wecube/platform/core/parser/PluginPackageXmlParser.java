@@ -463,6 +463,12 @@ public class PluginPackageXmlParser {
             } else {
                 pluginConfigInterface.setIsAsyncProcessing(PluginConfigInterface.DEFAULT_IS_ASYNC_PROCESSING_VALUE);
             }
+            String isIdempotent = getStringAttribute(interfaceNode, "./@isIdempotent");
+            if (StringUtils.isNotEmpty(isIdempotent)) {
+                pluginConfigInterface.setIsIdempotent(isIdempotent);
+            } else {
+                pluginConfigInterface.setIsIdempotent(PluginConfigInterface.DEFAULT_IS_IDEMPOTENT_VALUE);
+            }
             String filterRule = getStringAttribute(interfaceNode, "./@filterRule");
 
             if (StringUtils.isNotBlank(filterRule)) {
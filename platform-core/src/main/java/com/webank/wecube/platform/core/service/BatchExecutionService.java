@@ -17,6 +17,11 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -28,6 +33,8 @@ import org.springframework.transaction.annotation.Transactional;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.TypeReference;
 import com.google.common.collect.Lists;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.HttpClientProperties;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.PluginInvocationProperties;
 import com.webank.wecube.platform.core.commons.WecubeCoreException;
 import com.webank.wecube.platform.core.domain.BatchExecutionJob;
 import com.webank.wecube.platform.core.domain.ExecutionJob;
@@ -43,6 +50,7 @@ import com.webank.wecube.platform.core.jpa.BatchExecutionJobRepository;
 import com.webank.wecube.platform.core.jpa.PluginConfigInterfaceRepository;
 import com.webank.wecube.platform.core.service.dme.EntityOperationRootCondition;
 import com.webank.wecube.platform.core.service.dme.StandardEntityOperationService;
+import com.webank.wecube.platform.core.support.plugin.PluginInvocationScheduler;
 import com.webank.wecube.platform.core.support.plugin.PluginServiceStub;
 import com.webank.wecube.platform.core.support.plugin.dto.PluginResponse.ResultData;
 import com.webank.wecube.platform.core.support.plugin.dto.PluginResponseStationaryOutput;
@@ -67,6 +75,13 @@ public class BatchExecutionService {
     private PluginConfigInterfaceRepository pluginConfigInterfaceRepository;
     @Autowired
     protected StandardEntityOperationService standardEntityOperationService;
+    @Autowired
+    private PluginInvocationScheduler pluginInvocationScheduler;
+    @Autowired
+    private PluginInvocationProperties pluginInvocationProperties;
+
+    @Autowired
+    private HttpClientProperties httpClientProperties;
 
     public Map<String, ExecutionJobResponseDto> handleBatchExecutionJob(BatchExecutionRequestDto batchExecutionRequest)
             throws IOException {
@@ -75,7 +90,7 @@ public class BatchExecutionService {
 
         Map<String, ExecutionJobResponseDto> executionResults = new HashMap<>();
         for (ExecutionJob job : batchExecutionJob.getJobs()) {
-            ResultData<?> executionResult = runExecutionJob(job);
+            ResultData<?> executionResult = runExecutionJob(job, batchExecutionRequest.getPriority());
             Object resultObject = executionResult.getOutputs().get(0);
             executionResults.put(job.getBusinessKey(), new ExecutionJobResponseDto(
                     job.getErrorCode() == null ? RESULT_CODE_ERROR : job.getErrorCode(), resultObject));
@@ -145,6 +160,14 @@ public class BatchExecutionService {
     }
 
     public ResultData<?> runExecutionJob(ExecutionJob executionJob) throws IOException {
+        return runExecutionJob(executionJob, null);
+    }
+
+    /**
+     * The plugin call waits in the invocation queue of the given priority,
+     * or of batchExecutionPriority if none is given.
+     */
+    public ResultData<?> runExecutionJob(ExecutionJob executionJob, String priority) throws IOException {
         if (log.isInfoEnabled()) {
             log.info("run batch execution with:{}", executionJob);
         }
@@ -181,10 +204,12 @@ public class BatchExecutionService {
                 .getRunningPluginInstance(pluginConfigInterface.getPluginConfig().getPluginPackage().getName());
         ResultData<Object> responseData = new ResultData<Object>();
         try {
-            responseData = pluginServiceStub.callPluginInterface(
-                    String.format("%s:%s", pluginInstance.getHost(), pluginInstance.getPort()),
-                    pluginConfigInterface.getPath(), Lists.newArrayList(callInterfaceParameterMap),
-                    "RequestId-" + Long.toString(System.currentTimeMillis()));
+            String instanceAddress = String.format("%s:%s", pluginInstance.getHost(), pluginInstance.getPort());
+            String requestId = "RequestId-" + Long.toString(System.currentTimeMillis());
+            responseData = callWithPriority(
+                    StringUtils.isBlank(priority) ? pluginInvocationProperties.getBatchExecutionPriority() : priority,
+                    () -> pluginServiceStub.callPluginInterface(instanceAddress, pluginConfigInterface.getPath(),
+                            Lists.newArrayList(callInterfaceParameterMap), requestId));
         } catch (Exception e) {
             errorMessage = e.getMessage();
             log.error(errorMessage);
@@ -213,6 +238,29 @@ public class BatchExecutionService {
         return responseData;
     }
 
+    /**
+     * Waits for the queue timeout plus the http client timeouts at most, the
+     * call is cancelled afterwards so a stuck invocation releases the caller.
+     */
+    private <T> T callWithPriority(String priority, Callable<T> call) throws Exception {
+        long timeoutMillis = pluginInvocationProperties.getBatchExecutionQueueTimeoutMillis()
+                + httpClientProperties.getRequestTimeout() + httpClientProperties.getConnectTimeout()
+                + httpClientProperties.getSocketTimeout();
+        Future<T> future = pluginInvocationScheduler.submit(priority, call);
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new TimeoutException(
+                    String.format("Plugin interface call did not complete within %s ms.", timeoutMillis));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
     private ResultData<PluginResponseStationaryOutput> buildResultDataWithError(String errorMessage) {
         ResultData<PluginResponseStationaryOutput> errorReultData = new ResultData<PluginResponseStationaryOutput>();
         errorReultData.setOutputs(Lists.newArrayList(new PluginResponseStationaryOutput(
@@ -14,6 +14,7 @@ import com.webank.wecube.platform.core.commons.ApplicationProperties;
 import com.webank.wecube.platform.core.commons.WecubeCoreException;
 import com.webank.wecube.platform.core.domain.plugin.PluginConfigInterfaceParameter;
 import com.webank.wecube.platform.core.entity.workflow.TaskNodeDefInfoEntity;
+import com.webank.wecube.platform.core.entity.workflow.TaskNodeExecParamEntity;
 import com.webank.wecube.platform.core.entity.workflow.TaskNodeInstInfoEntity;
 import com.webank.wecube.platform.core.jpa.workflow.TaskNodeDefInfoRepository;
 import com.webank.wecube.platform.core.jpa.workflow.TaskNodeExecParamRepository;
@@ -59,6 +60,12 @@ public abstract class AbstractPluginInvocationService extends AbstractWorkflowSe
     @Autowired
     protected TaskNodeExecParamRepository taskNodeExecParamRepository;
 
+    @Autowired
+    protected TaskNodeExecParamStorageService taskNodeExecParamStorageService;
+
+    @Autowired
+    protected WorkflowStatusWriteBehindService workflowStatusWriteBehindService;
+
     @Autowired
     protected PluginConfigService pluginConfigService;
 
@@ -126,6 +133,18 @@ public abstract class AbstractPluginInvocationService extends AbstractWorkflowSe
         return val;
     }
 
+    /**
+     * Large values are kept out of row when offloading is enabled, and
+     * trimmed to MAX_PARAM_VAL_SIZE otherwise.
+     */
+    protected void storeParamDataValue(TaskNodeExecParamEntity paramEntity, String val) {
+        if (val != null && !taskNodeExecParamStorageService.isOffloadEnabled()) {
+            val = trimExceedParamValue(val, MAX_PARAM_VAL_SIZE);
+        }
+
+        taskNodeExecParamStorageService.storeParamDataValue(paramEntity, val);
+    }
+
     protected Object fromString(String val, String sType) {
         if (DATA_TYPE_STRING.equals(sType)) {
             return val;
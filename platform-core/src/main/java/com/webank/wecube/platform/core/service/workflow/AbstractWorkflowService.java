@@ -1,6 +1,7 @@
 package com.webank.wecube.platform.core.service.workflow;
 
 import java.text.DateFormat;
+import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -9,6 +10,8 @@ import java.util.List;
 
 import org.apache.commons.lang3.StringUtils;
 
+import com.webank.wecube.platform.core.commons.WecubeCoreException;
+
 /**
  * 
  * @author gavin
@@ -41,4 +44,17 @@ public abstract class AbstractWorkflowService {
         DateFormat df = new SimpleDateFormat(PROC_DATETIME_PATTERN);
         return df.format(date);
     }
+
+    protected Date parseDate(String dateAsString) {
+        if (StringUtils.isBlank(dateAsString)) {
+            return null;
+        }
+        DateFormat df = new SimpleDateFormat(PROC_DATETIME_PATTERN);
+        try {
+            return df.parse(dateAsString.trim());
+        } catch (ParseException e) {
+            throw new WecubeCoreException(String.format("Date {%s} must be in format {%s}.", dateAsString,
+                    PROC_DATETIME_PATTERN));
+        }
+    }
 }
@@ -6,7 +6,9 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.webank.wecube.platform.core.commons.WecubeCoreException;
@@ -14,6 +16,7 @@ import com.webank.wecube.platform.core.domain.plugin.PluginConfigInterface;
 import com.webank.wecube.platform.core.domain.plugin.PluginConfigInterfaceParameter;
 import com.webank.wecube.platform.core.dto.workflow.PluginAsyncInvocationResultDto;
 import com.webank.wecube.platform.core.entity.workflow.TaskNodeDefInfoEntity;
+import com.webank.wecube.platform.core.entity.workflow.TaskNodeExecCallbackEntity;
 import com.webank.wecube.platform.core.entity.workflow.TaskNodeExecParamEntity;
 import com.webank.wecube.platform.core.entity.workflow.TaskNodeExecRequestEntity;
 import com.webank.wecube.platform.core.entity.workflow.TaskNodeInstInfoEntity;
@@ -25,9 +28,46 @@ import com.webank.wecube.platform.core.service.workflow.PluginInvocationProcesso
 @Service
 public class AsyncPluginInvocationService extends AbstractPluginInvocationService {
 
+    @Autowired
+    private TaskNodeExecCallbackService taskNodeExecCallbackService;
+
+    /**
+     * Handles the callback of an asynchronous plugin invocation. Callbacks
+     * are deduplicated on the request id sent with the invocation.
+     */
     public void handleAsyncInvocationResult(PluginAsyncInvocationResultDto asyncResultDto) {
         validate(asyncResultDto);
 
+        String requestId = asyncResultDto.getResultData().getRequestId();
+        TaskNodeExecCallbackEntity receipt = taskNodeExecCallbackService.tryAcquire(requestId,
+                DigestUtils.sha256Hex(asyncResultDto.toString()));
+        if (receipt != null) {
+            handleRepeatedAsyncInvocationResult(receipt);
+            return;
+        }
+
+        try {
+            processAsyncInvocationResult(asyncResultDto);
+        } catch (RuntimeException e) {
+            taskNodeExecCallbackService.release(requestId);
+            throw e;
+        }
+
+        taskNodeExecCallbackService.complete(requestId, asyncResultDto.getResultCode());
+    }
+
+    private void handleRepeatedAsyncInvocationResult(TaskNodeExecCallbackEntity receipt) {
+        if (receipt.isCompleted()) {
+            log.info("callback of request {} has been processed with result code {}, ignored",
+                    receipt.getRequestId(), receipt.getResultCode());
+            return;
+        }
+
+        log.warn("callback of request {} is being processed, rejected", receipt.getRequestId());
+        throw new WecubeCoreException("Callback of this request is being processed.");
+    }
+
+    private void processAsyncInvocationResult(PluginAsyncInvocationResultDto asyncResultDto) {
         String resultCode = asyncResultDto.getResultCode();
         String resultMessage = asyncResultDto.getResultMessage();
         String requestId = asyncResultDto.getResultData().getRequestId();
@@ -249,7 +289,7 @@ public class AsyncPluginInvocationService extends AbstractPluginInvocationServic
             nodeInstEntity.setUpdatedTime(now);
             nodeInstEntity.setStatus(TaskNodeInstInfoEntity.FAULTED_STATUS);
 
-            taskNodeInstInfoRepository.save(nodeInstEntity);
+            workflowStatusWriteBehindService.saveTaskNodeStatus(nodeInstEntity);
         }
 
     }
@@ -283,7 +323,7 @@ public class AsyncPluginInvocationService extends AbstractPluginInvocationServic
             nodeInstEntity.setStatus(TaskNodeInstInfoEntity.COMPLETED_STATUS);
             nodeInstEntity.setErrorMessage("");
 
-            taskNodeInstInfoRepository.save(nodeInstEntity);
+            workflowStatusWriteBehindService.saveTaskNodeStatus(nodeInstEntity);
         }
     }
 
@@ -416,8 +456,7 @@ public class AsyncPluginInvocationService extends AbstractPluginInvocationServic
             paramEntity.setParamType(TaskNodeExecParamEntity.PARAM_TYPE_RESPONSE);
             paramEntity.setParamName(entry.getKey());
             paramEntity.setParamDataType(paramDataType);
-            paramEntity.setParamDataValue(
-                    trimExceedParamValue(asString(entry.getValue(), paramDataType), MAX_PARAM_VAL_SIZE));
+            storeParamDataValue(paramEntity, asString(entry.getValue(), paramDataType));
             paramEntity.setRequestId(requestId);
 
             taskNodeExecParamRepository.save(paramEntity);
@@ -511,7 +550,7 @@ public class AsyncPluginInvocationService extends AbstractPluginInvocationServic
             nodeInstEntity.setStatus(TaskNodeInstInfoEntity.FAULTED_STATUS);
             nodeInstEntity.setErrorMessage(errorMsg);
 
-            taskNodeInstInfoRepository.save(nodeInstEntity);
+            workflowStatusWriteBehindService.saveTaskNodeStatus(nodeInstEntity);
         }
 
     }
@@ -1,13 +1,27 @@
 package com.webank.wecube.platform.core.service.workflow;
 
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.webank.wecube.platform.core.domain.plugin.PluginConfigInterface;
@@ -17,7 +31,14 @@ import com.webank.wecube.platform.core.entity.workflow.TaskNodeDefInfoEntity;
 import com.webank.wecube.platform.core.entity.workflow.TaskNodeExecRequestEntity;
 import com.webank.wecube.platform.core.entity.workflow.TaskNodeInstInfoEntity;
 import com.webank.wecube.platform.core.model.workflow.PluginInvocationCommand;
+import com.webank.wecube.platform.core.support.plugin.PluginInstanceLoadBalancer;
+import com.webank.wecube.platform.core.support.plugin.PluginInvocationGuard;
+import com.webank.wecube.platform.core.support.plugin.PluginInvocationGuard.Permit;
+import com.webank.wecube.platform.core.support.plugin.PluginInvocationHedgingPolicy;
+import com.webank.wecube.platform.core.support.plugin.PluginInvocationMetrics;
+import com.webank.wecube.platform.core.support.plugin.PluginInvocationRejectedException;
 import com.webank.wecube.platform.core.support.plugin.PluginInvocationRestClient;
+import com.webank.wecube.platform.core.support.plugin.PluginInvocationScheduler;
 import com.webank.wecube.platform.core.support.plugin.dto.PluginResponse;
 import com.webank.wecube.platform.core.support.plugin.dto.PluginResponse.ResultData;
 
@@ -31,11 +52,15 @@ public class PluginInvocationProcessor {
 
     private static final Logger log = LoggerFactory.getLogger(PluginInvocationProcessor.class);
 
-    private ExecutorService executorService = Executors.newCachedThreadPool();
+    @Autowired
+    private PluginInvocationScheduler pluginInvocationScheduler;
+
+    private ExecutorService sliceExecutorService = Executors.newCachedThreadPool();
 
     public void process(PluginInvocationOperation operation) {
+        operation.setSliceExecutorService(sliceExecutorService);
 
-        executorService.execute(new Runnable() {
+        pluginInvocationScheduler.submit(operation.getPriority(), new Runnable() {
 
             @Override
             public void run() {
@@ -56,6 +81,28 @@ public class PluginInvocationProcessor {
 
         private PluginInterfaceInvocationContext pluginInterfaceInvocationContext;
 
+        private int chunkSize;
+        private int chunkParallelism = 1;
+        private int chunkMaxRetryTimes;
+        private long chunkRetryIntervalMillis;
+
+        private ExecutorService sliceExecutorService;
+
+        private PluginInvocationGuard pluginInvocationGuard;
+        private String pluginPackageName;
+
+        private PluginInvocationMetrics pluginInvocationMetrics;
+        private String interfaceName;
+
+        private PluginInstanceLoadBalancer pluginInstanceLoadBalancer;
+
+        private PluginInvocationHedgingPolicy pluginInvocationHedgingPolicy;
+        private String hedgeInstanceHost;
+
+        private String priority;
+
+        private boolean idempotent;
+
         public String getRequestId() {
             return requestId;
         }
@@ -142,43 +189,405 @@ public class PluginInvocationProcessor {
             return this;
         }
 
+        public PluginInvocationOperation withPluginInvocationGuard(PluginInvocationGuard pluginInvocationGuard) {
+            this.pluginInvocationGuard = pluginInvocationGuard;
+            return this;
+        }
+
+        public PluginInvocationOperation withPluginPackageName(String pluginPackageName) {
+            this.pluginPackageName = pluginPackageName;
+            return this;
+        }
+
+        public PluginInvocationOperation withPluginInvocationMetrics(PluginInvocationMetrics pluginInvocationMetrics) {
+            this.pluginInvocationMetrics = pluginInvocationMetrics;
+            return this;
+        }
+
+        public PluginInvocationOperation withInterfaceName(String interfaceName) {
+            this.interfaceName = interfaceName;
+            return this;
+        }
+
+        public PluginInvocationOperation withPluginInstanceLoadBalancer(
+                PluginInstanceLoadBalancer pluginInstanceLoadBalancer) {
+            this.pluginInstanceLoadBalancer = pluginInstanceLoadBalancer;
+            return this;
+        }
+
+        public PluginInvocationOperation withPluginInvocationHedgingPolicy(
+                PluginInvocationHedgingPolicy pluginInvocationHedgingPolicy) {
+            this.pluginInvocationHedgingPolicy = pluginInvocationHedgingPolicy;
+            return this;
+        }
+
+        public PluginInvocationOperation withHedgeInstanceHost(String hedgeInstanceHost) {
+            this.hedgeInstanceHost = hedgeInstanceHost;
+            return this;
+        }
+
+        public PluginInvocationOperation withIdempotent(boolean idempotent) {
+            this.idempotent = idempotent;
+            return this;
+        }
+
+        public PluginInvocationOperation withPriority(String priority) {
+            this.priority = priority;
+            return this;
+        }
+
+        public String getPriority() {
+            return priority;
+        }
+
+        public PluginInvocationOperation withChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        public PluginInvocationOperation withChunkParallelism(int chunkParallelism) {
+            this.chunkParallelism = chunkParallelism;
+            return this;
+        }
+
+        public PluginInvocationOperation withChunkMaxRetryTimes(int chunkMaxRetryTimes) {
+            this.chunkMaxRetryTimes = chunkMaxRetryTimes;
+            return this;
+        }
+
+        public PluginInvocationOperation withChunkRetryIntervalMillis(long chunkRetryIntervalMillis) {
+            this.chunkRetryIntervalMillis = chunkRetryIntervalMillis;
+            return this;
+        }
+
         @Override
         public void operate() {
+            List<List<Map<String, Object>>> slices = sliceParameters();
+
+            PluginInterfaceInvocationResult result = null;
+            if (slices.size() <= 1) {
+                result = invokePluginService(getPluginParameters());
+            } else {
+                result = invokeSlices(slices);
+            }
+
+            handleResult(result);
+        }
+
+        /**
+         * Splits plugin parameters into slices of at most chunkSize objects.
+         * Chunking is disabled when chunkSize is not positive.
+         */
+        protected List<List<Map<String, Object>>> sliceParameters() {
+            List<List<Map<String, Object>>> slices = new ArrayList<>();
+            List<Map<String, Object>> parameters = getPluginParameters();
+            if (chunkSize <= 0 || parameters == null || parameters.size() <= chunkSize) {
+                slices.add(parameters);
+                return slices;
+            }
+
+            for (int from = 0; from < parameters.size(); from += chunkSize) {
+                int to = Math.min(from + chunkSize, parameters.size());
+                slices.add(new ArrayList<>(parameters.subList(from, to)));
+            }
+
+            return slices;
+        }
+
+        protected PluginInterfaceInvocationResult invokeSlices(List<List<Map<String, Object>>> slices) {
+            log.info("call {} {} with {} slices of at most {} objects,request:{}", getInstanceHost(),
+                    getInterfacePath(), slices.size(), chunkSize, requestId);
+
+            final PluginInterfaceInvocationResult[] sliceResults = new PluginInterfaceInvocationResult[slices.size()];
+            final AtomicInteger nextSlice = new AtomicInteger(0);
+
+            Runnable sliceWorker = () -> {
+                int sliceIndex;
+                while ((sliceIndex = nextSlice.getAndIncrement()) < slices.size()) {
+                    sliceResults[sliceIndex] = invokeSliceWithRetry(sliceIndex, slices.size(),
+                            slices.get(sliceIndex));
+                }
+            };
+
+            if (sliceExecutorService == null) {
+                sliceWorker.run();
+                return mergeSliceResults(sliceResults);
+            }
+
+            int workers = Math.max(1, Math.min(chunkParallelism, slices.size()));
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                futures.add(sliceExecutorService.submit(sliceWorker));
+            }
+
+            for (Future<?> f : futures) {
+                try {
+                    f.get();
+                } catch (InterruptedException e) {
+                    log.error("interrupted while waiting for slices of request {}", requestId);
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    log.error("errors while invoking slices of request {}", requestId, e);
+                }
+            }
+
+            return mergeSliceResults(sliceResults);
+        }
+
+        /**
+         * A slice the plugin may have received already is only sent again to
+         * idempotent interfaces, since the retry carries the same request id
+         * and a read timeout does not tell whether the plugin has applied it.
+         */
+        protected PluginInterfaceInvocationResult invokeSliceWithRetry(int sliceIndex, int sliceCount,
+                List<Map<String, Object>> sliceParameters) {
+            int tryTimes = 0;
+            while (true) {
+                PluginInterfaceInvocationResult result = invokePluginService(sliceParameters);
+                if (result.isSuccess() || !result.isRetryable() || tryTimes >= chunkMaxRetryTimes) {
+                    return result;
+                }
+
+                if (result.isRequestSent() && !idempotent) {
+                    log.warn("slice {}/{} of request {} failed after it was sent to a non idempotent interface:{}",
+                            sliceIndex + 1, sliceCount, requestId, result.getErrMsg());
+                    return result;
+                }
+
+                tryTimes++;
+                log.warn("slice {}/{} of request {} failed,retry {} of {}:{}", sliceIndex + 1, sliceCount, requestId,
+                        tryTimes, chunkMaxRetryTimes, result.getErrMsg());
+
+                try {
+                    Thread.sleep(chunkRetryIntervalMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return result;
+                }
+            }
+        }
+
+        protected PluginInterfaceInvocationResult mergeSliceResults(PluginInterfaceInvocationResult[] sliceResults) {
+            PluginInterfaceInvocationResult mergedResult = new PluginInterfaceInvocationResult();
+            List<Object> mergedResultData = new ArrayList<>();
+            boolean hasResultData = false;
+            boolean success = true;
+            String resultCode = PluginResponse.RESULT_CODE_OK;
+            StringBuilder errMsg = new StringBuilder();
+
+            for (int i = 0; i < sliceResults.length; i++) {
+                PluginInterfaceInvocationResult sliceResult = sliceResults[i];
+                if (sliceResult == null) {
+                    success = false;
+                    appendSliceErrMsg(errMsg, i, sliceResults.length, "slice was not processed.");
+                    continue;
+                }
+
+                if (sliceResult.getResultData() != null) {
+                    hasResultData = true;
+                    mergedResultData.addAll(sliceResult.getResultData());
+                }
+
+                if (!sliceResult.isSuccess()) {
+                    success = false;
+                    appendSliceErrMsg(errMsg, i, sliceResults.length, sliceResult.getErrMsg());
+                } else if (sliceResult.getResultCode() != null) {
+                    resultCode = sliceResult.getResultCode();
+                }
+            }
+
+            mergedResult.setSuccess(success);
+            mergedResult.setResultCode(success ? resultCode : PluginResponse.RESULT_CODE_FAIL);
+            mergedResult.setResultData(hasResultData ? mergedResultData : null);
+            mergedResult.setErrMsg(success ? null : errMsg.toString());
+
+            return mergedResult;
+        }
+
+        private void appendSliceErrMsg(StringBuilder errMsg, int sliceIndex, int sliceCount, String msg) {
+            if (errMsg.length() > 0) {
+                errMsg.append("; ");
+            }
+            errMsg.append("slice ").append(sliceIndex + 1).append("/").append(sliceCount).append(":").append(msg);
+        }
+
+        protected PluginInterfaceInvocationResult invokePluginService(List<Map<String, Object>> parameters) {
+            if (pluginInvocationHedgingPolicy == null || hedgeInstanceHost == null || sliceExecutorService == null) {
+                return invokePluginInstance(getInstanceHost(), parameters);
+            }
+
+            return invokePluginServiceWithHedging(parameters);
+        }
+
+        /**
+         * Sends a duplicate to hedgeInstanceHost when the primary call is
+         * slower than the hedge delay. The first non retryable result wins
+         * and the other call is cancelled.
+         */
+        private PluginInterfaceInvocationResult invokePluginServiceWithHedging(
+                List<Map<String, Object>> parameters) {
+            pluginInvocationHedgingPolicy.onPrimaryCall();
+            long hedgeDelayMillis = pluginInvocationHedgingPolicy.getHedgeDelayMillis(getHedgeKey());
+            if (hedgeDelayMillis < 0) {
+                return invokePluginInstance(getInstanceHost(), parameters);
+            }
+
+            CompletionService<PluginInterfaceInvocationResult> completionService = new ExecutorCompletionService<>(
+                    sliceExecutorService);
+            List<Future<PluginInterfaceInvocationResult>> futures = new ArrayList<>();
+            futures.add(completionService.submit(() -> invokePluginInstance(getInstanceHost(), parameters)));
+            try {
+                Future<PluginInterfaceInvocationResult> primaryFuture = completionService.poll(hedgeDelayMillis,
+                        TimeUnit.MILLISECONDS);
+                if (primaryFuture != null) {
+                    return primaryFuture.get();
+                }
+
+                if (!pluginInvocationHedgingPolicy.tryAcquireHedge()) {
+                    return completionService.take().get();
+                }
+
+                log.info("hedge {} {} to {} after {} ms,request:{}", getInstanceHost(), getInterfacePath(),
+                        hedgeInstanceHost, hedgeDelayMillis, requestId);
+                futures.add(completionService.submit(() -> invokePluginInstance(hedgeInstanceHost, parameters)));
+
+                PluginInterfaceInvocationResult result = null;
+                for (int i = 0; i < futures.size(); i++) {
+                    result = completionService.take().get();
+                    if (!result.isRetryable()) {
+                        break;
+                    }
+                }
+                return result;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return newRetryableErrResult("Plugin call interrupted.");
+            } catch (ExecutionException e) {
+                log.error("errors while operating {} {}", getInstanceHost(), getInterfacePath(), e);
+                return newRetryableErrResult(e.getCause() == null ? e.getMessage() : e.getCause().getMessage());
+            } finally {
+                for (Future<PluginInterfaceInvocationResult> f : futures) {
+                    f.cancel(true);
+                }
+            }
+        }
+
+        private String getHedgeKey() {
+            return pluginPackageName + "/" + interfaceName;
+        }
+
+        private PluginInterfaceInvocationResult newRetryableErrResult(String errMsg) {
+            PluginInterfaceInvocationResult errResult = new PluginInterfaceInvocationResult();
+            errResult.setErrMsg(errMsg);
+            errResult.setSuccess(false);
+            errResult.setRetryable(true);
+            errResult.setRequestSent(true);
+            errResult.setResultData(null);
+            errResult.setResultCode(PluginResponse.RESULT_CODE_FAIL);
+            return errResult;
+        }
+
+        private PluginInterfaceInvocationResult invokePluginInstance(String targetInstanceHost,
+                List<Map<String, Object>> parameters) {
+            long startTime = System.nanoTime();
+            if (pluginInstanceLoadBalancer != null) {
+                pluginInstanceLoadBalancer.onStart(targetInstanceHost);
+            }
+            PluginInterfaceInvocationResult result = doInvokePluginService(targetInstanceHost, parameters);
+            if (pluginInstanceLoadBalancer != null) {
+                pluginInstanceLoadBalancer.onComplete(targetInstanceHost, !result.isRetryable());
+            }
+            long durationNanos = System.nanoTime() - startTime;
+            if (pluginInvocationHedgingPolicy != null && !result.isRetryable()) {
+                pluginInvocationHedgingPolicy.recordLatency(getHedgeKey(),
+                        TimeUnit.NANOSECONDS.toMillis(durationNanos));
+            }
+            recordHttpCall(result, durationNanos);
+            return result;
+        }
+
+        private void recordHttpCall(PluginInterfaceInvocationResult result, long durationNanos) {
+            if (pluginInvocationMetrics == null) {
+                return;
+            }
+
+            String outcome = PluginInvocationMetrics.OUTCOME_SUCCESS;
+            if (result.isRejected()) {
+                outcome = PluginInvocationMetrics.OUTCOME_REJECTED;
+            } else if (result.isRetryable()) {
+                outcome = PluginInvocationMetrics.OUTCOME_ERROR;
+            } else if (!result.isSuccess()) {
+                outcome = PluginInvocationMetrics.OUTCOME_FAIL;
+            }
+
+            pluginInvocationMetrics.record(PluginInvocationMetrics.STAGE_HTTP_CALL, pluginPackageName, interfaceName,
+                    outcome, durationNanos);
+        }
+
+        private PluginInterfaceInvocationResult doInvokePluginService(String targetInstanceHost,
+                List<Map<String, Object>> parameters) {
             if (log.isDebugEnabled()) {
-                log.debug("call {} {} - {}", getInstanceHost(), getInterfacePath(), Thread.currentThread().getName());
+                log.debug("call {} {} - {}", targetInstanceHost, getInterfacePath(), Thread.currentThread().getName());
+            }
+
+            Permit permit = null;
+            if (pluginInvocationGuard != null) {
+                try {
+                    permit = pluginInvocationGuard.acquire(pluginPackageName, targetInstanceHost);
+                } catch (PluginInvocationRejectedException e) {
+                    PluginInterfaceInvocationResult errResult = new PluginInterfaceInvocationResult();
+                    errResult.setErrMsg(e.getMessage());
+                    errResult.setSuccess(false);
+                    errResult.setRetryable(true);
+                    errResult.setRejected(true);
+                    errResult.setResultData(null);
+                    errResult.setResultCode(PluginResponse.RESULT_CODE_FAIL);
+
+                    return errResult;
+                }
             }
 
             PluginResponse<Object> response = null;
 
             try {
-                response = getPluginInvocationRestClient().callPluginService(getInstanceHost(), getInterfacePath(),
-                        getPluginParameters(), this.requestId);
+                response = getPluginInvocationRestClient().callPluginService(targetInstanceHost, getInterfacePath(),
+                        parameters, this.requestId);
             } catch (Exception e) {
-                log.error("errors while operating {} {}", getInstanceHost(), getInterfacePath(), e);
+                log.error("errors while operating {} {}", targetInstanceHost, getInterfacePath(), e);
+                if (permit != null) {
+                    permit.onFailure();
+                }
                 PluginInterfaceInvocationResult errResult = new PluginInterfaceInvocationResult();
                 errResult.setErrMsg(e.getMessage());
                 errResult.setSuccess(false);
+                errResult.setRetryable(true);
+                errResult.setRequestSent(!isConnectFailure(e));
                 errResult.setResultData(null);
                 errResult.setResultCode(PluginResponse.RESULT_CODE_FAIL);
 
-                handleResult(errResult);
-
-                return;
+                return errResult;
             }
             
             if(response == null){
                 log.error("Plugin call failure due to no response.");
+                if (permit != null) {
+                    permit.onFailure();
+                }
                 PluginInterfaceInvocationResult errResult = new PluginInterfaceInvocationResult();
                 errResult.setErrMsg("Plugin call failure due to no response.");
                 errResult.setSuccess(false);
+                errResult.setRetryable(true);
+                errResult.setRequestSent(true);
                 errResult.setResultData(null);
                 errResult.setResultCode(PluginResponse.RESULT_CODE_FAIL);
 
-                handleResult(errResult);
-
-                return;
+                return errResult;
             }
             
+            if (permit != null) {
+                permit.onSuccess();
+            }
+
             ResultData<Object> responseData = response.getResultData();
             String resultCode = response.getResultCode();
             
@@ -190,22 +599,19 @@ public class PluginInvocationProcessor {
                 errResult.setResultData(responseData == null ? null : responseData.getOutputs());
                 errResult.setResultCode(PluginResponse.RESULT_CODE_FAIL);
 
-                handleResult(errResult);
-
-                return;
+                return errResult;
             }
             
 
             if (responseData == null) {
-                log.error("response data is null, {} {}", getInstanceHost(), getInterfacePath());
+                log.error("response data is null, {} {}", targetInstanceHost, getInterfacePath());
                 PluginInterfaceInvocationResult nullResult = new PluginInterfaceInvocationResult();
                 nullResult.setErrMsg("response data is null.");
                 nullResult.setSuccess(true);
                 nullResult.setResultData(null);
                 nullResult.setResultCode(resultCode);
-                handleResult(nullResult);
 
-                return;
+                return nullResult;
             }
 
             List<Object> resultData = responseData.getOutputs();
@@ -216,10 +622,25 @@ public class PluginInvocationProcessor {
             result.setSuccess(true);
             result.setResultCode(resultCode);
 
-            handleResult(result);
+            return result;
 
         }
 
+        /**
+         * Failures to obtain or open a connection mean the plugin has not
+         * received the request.
+         */
+        private boolean isConnectFailure(Exception e) {
+            for (Throwable t : ExceptionUtils.getThrowableList(e)) {
+                if (t instanceof ConnectException || t instanceof NoRouteToHostException
+                        || t instanceof UnknownHostException || t instanceof ConnectTimeoutException
+                        || t instanceof ConnectionPoolTimeoutException) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
         private void handleResult(PluginInterfaceInvocationResult result) {
             if (getCallback() != null) {
                 getCallback().accept(result, pluginInterfaceInvocationContext);
@@ -234,6 +655,14 @@ public class PluginInvocationProcessor {
             this.pluginInvocationRestClient = pluginInvocationRestClient;
         }
 
+        public ExecutorService getSliceExecutorService() {
+            return sliceExecutorService;
+        }
+
+        public void setSliceExecutorService(ExecutorService sliceExecutorService) {
+            this.sliceExecutorService = sliceExecutorService;
+        }
+
     }
 
     public static class PluginInterfaceInvocationContext {
@@ -251,6 +680,8 @@ public class PluginInvocationProcessor {
         private TaskNodeDefInfoEntity taskNodeDefEntity;
         private PluginInvocationCommand pluginInvocationCommand;
 
+        private long persistenceNanos;
+
         public ProcInstInfoEntity getProcInstEntity() {
             return procInstEntity;
         }
@@ -339,6 +770,14 @@ public class PluginInvocationProcessor {
             this.pluginInvocationCommand = pluginInvocationCommand;
         }
 
+        public long getPersistenceNanos() {
+            return persistenceNanos;
+        }
+
+        public void addPersistenceNanos(long nanos) {
+            this.persistenceNanos += nanos;
+        }
+
         public PluginInterfaceInvocationContext withNodeObjectBindings(List<ProcExecBindingEntity> nodeObjectBindings) {
             this.nodeObjectBindings = nodeObjectBindings;
             return this;
@@ -389,6 +828,9 @@ public class PluginInvocationProcessor {
         private String errMsg;
         private String resultCode;
         private Exception error;
+        private boolean retryable;
+        private boolean rejected;
+        private boolean requestSent;
 
         public List<Object> getResultData() {
             return resultData;
@@ -433,6 +875,30 @@ public class PluginInvocationProcessor {
         public void setResultCode(String resultCode) {
             this.resultCode = resultCode;
         }
+
+        public boolean isRetryable() {
+            return retryable;
+        }
+
+        public void setRetryable(boolean retryable) {
+            this.retryable = retryable;
+        }
+
+        public boolean isRejected() {
+            return rejected;
+        }
+
+        public void setRejected(boolean rejected) {
+            this.rejected = rejected;
+        }
+
+        public boolean isRequestSent() {
+            return requestSent;
+        }
+
+        public void setRequestSent(boolean requestSent) {
+            this.requestSent = requestSent;
+        }
     }
 
 }
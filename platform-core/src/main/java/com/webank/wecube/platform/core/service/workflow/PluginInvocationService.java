@@ -20,6 +20,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.webank.wecube.platform.core.commons.ApplicationProperties.PluginInvocationProperties;
 import com.webank.wecube.platform.core.commons.WecubeCoreException;
 import com.webank.wecube.platform.core.domain.SystemVariable;
 import com.webank.wecube.platform.core.domain.plugin.PluginConfig;
@@ -49,6 +50,10 @@ import com.webank.wecube.platform.core.service.dme.EntityOperationRootCondition;
 import com.webank.wecube.platform.core.service.workflow.PluginInvocationProcessor.PluginInterfaceInvocationContext;
 import com.webank.wecube.platform.core.service.workflow.PluginInvocationProcessor.PluginInterfaceInvocationResult;
 import com.webank.wecube.platform.core.service.workflow.PluginInvocationProcessor.PluginInvocationOperation;
+import com.webank.wecube.platform.core.support.plugin.PluginInstanceLoadBalancer;
+import com.webank.wecube.platform.core.support.plugin.PluginInvocationGuard;
+import com.webank.wecube.platform.core.support.plugin.PluginInvocationHedgingPolicy;
+import com.webank.wecube.platform.core.support.plugin.PluginInvocationMetrics;
 import com.webank.wecube.platform.core.support.plugin.PluginInvocationRestClient;
 
 /**
@@ -86,6 +91,21 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 	@Autowired
 	private WorkflowProcInstEndEventNotifier workflowProcInstEndEventNotifier;
 
+	@Autowired
+	private PluginInvocationProperties pluginInvocationProperties;
+
+	@Autowired
+	private PluginInvocationGuard pluginInvocationGuard;
+
+	@Autowired
+	private PluginInvocationMetrics pluginInvocationMetrics;
+
+	@Autowired
+	private PluginInstanceLoadBalancer pluginInstanceLoadBalancer;
+
+	@Autowired
+	private PluginInvocationHedgingPolicy pluginInvocationHedgingPolicy;
+
 	public void handleProcessInstanceEndEvent(PluginInvocationCommand cmd) {
 		if (log.isInfoEnabled()) {
 			log.info("handle end event:{}", cmd);
@@ -96,7 +116,7 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 		ProcInstInfoEntity procInstEntity = procInstInfoRepository.findOneByProcInstKernelId(cmd.getProcInstId());
 		procInstEntity.setUpdatedTime(currTime);
 		procInstEntity.setStatus(ProcInstInfoEntity.COMPLETED_STATUS);
-		procInstInfoRepository.save(procInstEntity);
+		workflowStatusWriteBehindService.saveProcInstStatus(procInstEntity);
 
 		log.info("updated process instance {} to {}", procInstEntity.getId(), ProcInstInfoEntity.COMPLETED_STATUS);
 
@@ -113,7 +133,7 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 				n.setUpdatedTime(currTime);
 				n.setStatus(TaskNodeInstInfoEntity.COMPLETED_STATUS);
 
-				taskNodeInstInfoRepository.save(n);
+				workflowStatusWriteBehindService.saveTaskNodeStatus(n);
 
 				log.info("updated node {} to {}", n.getId(), TaskNodeInstInfoEntity.COMPLETED_STATUS);
 			}
@@ -137,7 +157,7 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 					prevNodeInst.setUpdatedTime(new Date());
 					prevNodeInst.setStatus(TaskNodeInstInfoEntity.COMPLETED_STATUS);
 
-					taskNodeInstInfoRepository.save(prevNodeInst);
+					workflowStatusWriteBehindService.saveTaskNodeStatus(prevNodeInst);
 				}
 			}
 		}
@@ -170,7 +190,7 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 				taskNodeInstEntity.setUpdatedTime(new Date());
 				taskNodeInstEntity.setErrorMessage(trimWithMaxLength(e == null ? "errors" : e.getMessage()));
 
-				taskNodeInstInfoRepository.save(taskNodeInstEntity);
+				workflowStatusWriteBehindService.saveTaskNodeStatus(taskNodeInstEntity);
 			}
 
 		}
@@ -178,32 +198,43 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 
 	protected void doInvokePluginInterface(ProcInstInfoEntity procInstEntity, TaskNodeInstInfoEntity taskNodeInstEntity,
 			PluginInvocationCommand cmd) {
+		long resolutionStartTime = System.nanoTime();
 		TaskNodeDefInfoEntity taskNodeDefEntity = retrieveTaskNodeDefInfoEntity(procInstEntity.getProcDefId(),
 				cmd.getNodeId());
 		List<ProcExecBindingEntity> nodeObjectBindings = retrieveProcExecBindingEntities(taskNodeInstEntity);
 		PluginConfigInterface pluginConfigInterface = retrievePluginConfigInterface(taskNodeDefEntity, cmd.getNodeId());
 
-		List<InputParamObject> inputParamObjs = calculateInputParamObjects(procInstEntity, taskNodeInstEntity,
-				taskNodeDefEntity, nodeObjectBindings, pluginConfigInterface);
-
-		if (inputParamObjs == null || inputParamObjs.isEmpty()) {
-			inputParamObjs = tryCalculateInputParamObjectsFromSystem(procInstEntity, taskNodeInstEntity,
+		PluginInterfaceInvocationContext ctx = null;
+		List<Map<String, Object>> pluginParameters = null;
+		try {
+			List<InputParamObject> inputParamObjs = calculateInputParamObjects(procInstEntity, taskNodeInstEntity,
 					taskNodeDefEntity, nodeObjectBindings, pluginConfigInterface);
-		}
-
-		PluginInterfaceInvocationContext ctx = new PluginInterfaceInvocationContext() //
-				.withNodeObjectBindings(nodeObjectBindings) //
-				.withPluginConfigInterface(pluginConfigInterface) //
-				.withProcInstEntity(procInstEntity) //
-				.withTaskNodeInstEntity(taskNodeInstEntity)//
-				.withTaskNodeDefEntity(taskNodeDefEntity)//
-				.withPluginInvocationCommand(cmd);
 
-		parsePluginInstance(ctx);
+			if (inputParamObjs == null || inputParamObjs.isEmpty()) {
+				inputParamObjs = tryCalculateInputParamObjectsFromSystem(procInstEntity, taskNodeInstEntity,
+						taskNodeDefEntity, nodeObjectBindings, pluginConfigInterface);
+			}
 
-		buildTaskNodeExecRequestEntity(ctx);
-		List<Map<String, Object>> pluginParameters = calculateInputParameters(ctx, inputParamObjs, ctx.getRequestId(),
-				procInstEntity.getOperator());
+			ctx = new PluginInterfaceInvocationContext() //
+					.withNodeObjectBindings(nodeObjectBindings) //
+					.withPluginConfigInterface(pluginConfigInterface) //
+					.withProcInstEntity(procInstEntity) //
+					.withTaskNodeInstEntity(taskNodeInstEntity)//
+					.withTaskNodeDefEntity(taskNodeDefEntity)//
+					.withPluginInvocationCommand(cmd);
+
+			parsePluginInstance(ctx);
+
+			buildTaskNodeExecRequestEntity(ctx);
+			pluginParameters = calculateInputParameters(ctx, inputParamObjs, ctx.getRequestId(),
+					procInstEntity.getOperator());
+		} catch (RuntimeException e) {
+			recordStage(PluginInvocationMetrics.STAGE_PARAMETER_RESOLUTION, pluginConfigInterface,
+					PluginInvocationMetrics.OUTCOME_ERROR, System.nanoTime() - resolutionStartTime);
+			throw e;
+		}
+		recordStage(PluginInvocationMetrics.STAGE_PARAMETER_RESOLUTION, pluginConfigInterface,
+				PluginInvocationMetrics.OUTCOME_SUCCESS, System.nanoTime() - resolutionStartTime);
 
 		PluginInvocationOperation operation = new PluginInvocationOperation() //
 				.withCallback(this::handlePluginInterfaceInvocationResult) //
@@ -212,11 +243,86 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 				.withInstanceHost(ctx.getInstanceHost()) //
 				.withInterfacePath(ctx.getInterfacePath()) //
 				.withPluginInterfaceInvocationContext(ctx) //
-				.withRequestId(ctx.getRequestId());
+				.withRequestId(ctx.getRequestId()) //
+				.withChunkSize(calculateChunkSize(pluginConfigInterface)) //
+				.withChunkParallelism(pluginInvocationProperties.getChunkParallelism()) //
+				.withChunkMaxRetryTimes(pluginInvocationProperties.getChunkMaxRetryTimes()) //
+				.withChunkRetryIntervalMillis(pluginInvocationProperties.getChunkRetryIntervalMillis()) //
+				.withPluginInvocationGuard(pluginInvocationGuard) //
+				.withPluginPackageName(pluginConfigInterface.getPluginConfig().getPluginPackage().getName()) //
+				.withPluginInvocationMetrics(pluginInvocationMetrics) //
+				.withInterfaceName(pluginConfigInterface.getServiceName()) //
+				.withPluginInstanceLoadBalancer(
+						pluginInvocationProperties.isDirectInvocationEnabled() ? pluginInstanceLoadBalancer : null) //
+				.withPluginInvocationHedgingPolicy(pluginInvocationHedgingPolicy) //
+				.withHedgeInstanceHost(calculateHedgeInstanceHost(pluginConfigInterface, ctx.getInstanceHost())) //
+				.withIdempotent("Y".equalsIgnoreCase(pluginConfigInterface.getIsIdempotent())) //
+				.withPriority(procInstEntity.getPriority());
 
 		pluginInvocationProcessor.process(operation);
 	}
 
+	private void recordStage(String stage, PluginConfigInterface pluginConfigInterface, String outcome,
+			long durationNanos) {
+		String pluginPackageName = null;
+		String interfaceName = null;
+		if (pluginConfigInterface != null) {
+			interfaceName = pluginConfigInterface.getServiceName();
+			PluginConfig pluginConfig = pluginConfigInterface.getPluginConfig();
+			if (pluginConfig != null && pluginConfig.getPluginPackage() != null) {
+				pluginPackageName = pluginConfig.getPluginPackage().getName();
+			}
+		}
+
+		pluginInvocationMetrics.record(stage, pluginPackageName, interfaceName, outcome, durationNanos);
+	}
+
+	/**
+	 * Only idempotent synchronous interfaces are hedged. Without direct
+	 * invocation the duplicate goes through the gateway again, which starts
+	 * from another route item.
+	 */
+	private String calculateHedgeInstanceHost(PluginConfigInterface pluginConfigInterface, String primaryInstanceHost) {
+		if (!pluginInvocationProperties.isHedgeEnabled()) {
+			return null;
+		}
+
+		if (!"Y".equalsIgnoreCase(pluginConfigInterface.getIsIdempotent())
+				|| ASYNC_SERVICE_SYMBOL.equalsIgnoreCase(pluginConfigInterface.getIsAsyncProcessing())) {
+			return null;
+		}
+
+		if (!pluginInvocationProperties.isDirectInvocationEnabled()) {
+			return applicationProperties.getGatewayUrl();
+		}
+
+		String pluginName = pluginConfigInterface.getPluginConfig().getPluginPackage().getName();
+		List<PluginInstance> otherInstances = new ArrayList<>();
+		for (PluginInstance instance : pluginInstanceService.getRunningPluginInstances(pluginName)) {
+			if (!pluginInstanceLoadBalancer.asInstanceAddress(instance).equals(primaryInstanceHost)) {
+				otherInstances.add(instance);
+			}
+		}
+
+		PluginInstance hedgeInstance = pluginInstanceLoadBalancer.choose(pluginName, otherInstances);
+		if (hedgeInstance == null) {
+			return null;
+		}
+		return pluginInstanceLoadBalancer.asInstanceAddress(hedgeInstance);
+	}
+
+	/**
+	 * Asynchronous interfaces report back once per request id, so their
+	 * inputs are never split into slices.
+	 */
+	private int calculateChunkSize(PluginConfigInterface pluginConfigInterface) {
+		if (ASYNC_SERVICE_SYMBOL.equalsIgnoreCase(pluginConfigInterface.getIsAsyncProcessing())) {
+			return 0;
+		}
+
+		return pluginInvocationProperties.getChunkSize();
+	}
+
 	private List<InputParamObject> tryCalculateInputParamObjectsFromSystem(ProcInstInfoEntity procInstEntity,
 			TaskNodeInstInfoEntity taskNodeInstEntity, TaskNodeDefInfoEntity taskNodeDefEntity,
 			List<ProcExecBindingEntity> nodeObjectBindings, PluginConfigInterface pluginConfigInterface) {
@@ -332,9 +438,10 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 			log.error("cannot find an available plugin instance for {}", pluginConfigInterface.getServiceName());
 			throw new WecubeCoreException("Cannot find an available plugin instance.");
 		}
-		// String instanceHostAndPort = String.format("%s:%s",
-		// pluginInstance.getHost(), pluginInstance.getPort());
 		String instanceHostAndPort = applicationProperties.getGatewayUrl();
+		if (pluginInvocationProperties.isDirectInvocationEnabled()) {
+			instanceHostAndPort = pluginInstanceLoadBalancer.asInstanceAddress(pluginInstance);
+		}
 		ctx.setInstanceHost(instanceHostAndPort);
 		ctx.setInterfacePath(interfacePath);
 	}
@@ -551,7 +658,8 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 		}
 
 		for (TaskNodeExecParamEntity e : execParamEntities) {
-			retDataValues.add(fromString(e.getParamDataValue(), e.getParamDataType()));
+			String paramDataValue = taskNodeExecParamStorageService.getParamDataValue(e);
+			retDataValues.add(fromString(paramDataValue, e.getParamDataType()));
 		}
 
 		return retDataValues;
@@ -617,7 +725,7 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 
 		taskNodeInstEntity.setUpdatedTime(currTime);
 		taskNodeInstEntity.setErrorMessage("");
-		taskNodeInstEntity = taskNodeInstInfoRepository.save(taskNodeInstEntity);
+		workflowStatusWriteBehindService.bufferTaskNodeStatus(taskNodeInstEntity);
 
 		TaskNodeExecRequestEntity formerRequestEntity = taskNodeExecRequestRepository
 				.findCurrentEntityByNodeInstId(taskNodeInstEntity.getId());
@@ -684,7 +792,7 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 						ProcInstInfoEntity.IN_PROGRESS_STATUS);
 			}
 
-			procInstInfoRepository.save(procInstEntity);
+			workflowStatusWriteBehindService.bufferProcInstStatus(procInstEntity);
 		}
 
 		return procInstEntity;
@@ -728,7 +836,7 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 				e.setParamType(TaskNodeExecParamEntity.PARAM_TYPE_REQUEST);
 				e.setParamDataType(attr.getType());
 				e.setObjectId(sObjectId);
-				e.setParamDataValue(attr.getExpectedValue() == null ? null : attr.getExpectedValue().toString());
+				storeParamDataValue(e, attr.getExpectedValue() == null ? null : attr.getExpectedValue().toString());
 				e.setEntityDataId(entityDataId);
 				e.setEntityTypeId(entityTypeId);
 
@@ -754,12 +862,33 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 
 		List<PluginInstance> instances = pluginInstanceService.getRunningPluginInstances(pluginName);
 
-		return instances.get(0);
+		if (!pluginInvocationProperties.isDirectInvocationEnabled()) {
+			return instances.get(0);
+		}
+
+		return pluginInstanceLoadBalancer.choose(pluginName, instances);
 
 	}
 
 	public void handlePluginInterfaceInvocationResult(PluginInterfaceInvocationResult pluginInvocationResult,
 			PluginInterfaceInvocationContext ctx) {
+		long startTime = System.nanoTime();
+		String outcome = pluginInvocationResult.isSuccess() ? PluginInvocationMetrics.OUTCOME_SUCCESS
+				: PluginInvocationMetrics.OUTCOME_FAIL;
+		try {
+			doHandlePluginInterfaceInvocationResult(pluginInvocationResult, ctx);
+		} catch (RuntimeException e) {
+			outcome = PluginInvocationMetrics.OUTCOME_ERROR;
+			throw e;
+		} finally {
+			PluginConfigInterface pci = ctx.getPluginConfigInterface();
+			recordStage(PluginInvocationMetrics.STAGE_RESULT_HANDLING, pci, outcome, System.nanoTime() - startTime);
+			recordStage(PluginInvocationMetrics.STAGE_PERSISTENCE, pci, outcome, ctx.getPersistenceNanos());
+		}
+	}
+
+	private void doHandlePluginInterfaceInvocationResult(PluginInterfaceInvocationResult pluginInvocationResult,
+			PluginInterfaceInvocationContext ctx) {
 		if (log.isDebugEnabled()) {
 			log.debug("handle plugin interface invocation result");
 		}
@@ -883,12 +1012,14 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 
 	private void storeOutputParameterMaps(PluginInterfaceInvocationContext ctx,
 			List<Map<String, Object>> outputParameterMaps) {
+		long startTime = System.nanoTime();
 		int count = 0;
 		for (Map<String, Object> outputParameterMap : outputParameterMaps) {
 			String objectId = String.valueOf(count);
 			storeSingleOutputParameterMap(ctx, outputParameterMap, objectId);
 			count++;
 		}
+		ctx.addPersistenceNanos(System.nanoTime() - startTime);
 	}
 
 	private void storeSingleOutputParameterMap(PluginInterfaceInvocationContext ctx,
@@ -936,8 +1067,7 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 			paramEntity.setParamType(TaskNodeExecParamEntity.PARAM_TYPE_RESPONSE);
 			paramEntity.setParamName(entry.getKey());
 			paramEntity.setParamDataType(paramDataType);
-			paramEntity.setParamDataValue(
-					trimExceedParamValue(asString(entry.getValue(), paramDataType), MAX_PARAM_VAL_SIZE));
+			storeParamDataValue(paramEntity, asString(entry.getValue(), paramDataType));
 			paramEntity.setRequestId(requestId);
 			paramEntity.setSensitive(isSensitiveData);
 
@@ -1004,6 +1134,7 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 
 	private void handlePluginInterfaceInvocationSuccess(PluginInterfaceInvocationResult pluginInvocationResult,
 			PluginInterfaceInvocationContext ctx) {
+		long startTime = System.nanoTime();
 		Date now = new Date();
 		TaskNodeExecRequestEntity requestEntity = ctx.getTaskNodeExecRequestEntity();
 		Optional<TaskNodeExecRequestEntity> requestEntityOpt = taskNodeExecRequestRepository
@@ -1032,13 +1163,14 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 			nodeInstEntity.setStatus(TaskNodeInstInfoEntity.COMPLETED_STATUS);
 			nodeInstEntity.setErrorMessage("");
 
-			taskNodeInstInfoRepository.save(nodeInstEntity);
+			workflowStatusWriteBehindService.saveTaskNodeStatus(nodeInstEntity);
 		}
+		ctx.addPersistenceNanos(System.nanoTime() - startTime);
 	}
 
 	private void handlePluginInterfaceInvocationFailure(PluginInterfaceInvocationResult pluginInvocationResult,
 			PluginInterfaceInvocationContext ctx, String errorCode, String errorMsg) {
-
+		long startTime = System.nanoTime();
 		Date now = new Date();
 		TaskNodeExecRequestEntity requestEntity = ctx.getTaskNodeExecRequestEntity();
 		Optional<TaskNodeExecRequestEntity> requestEntityOpt = taskNodeExecRequestRepository
@@ -1105,9 +1237,9 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 			nodeInstEntity.setStatus(TaskNodeInstInfoEntity.FAULTED_STATUS);
 			nodeInstEntity.setErrorMessage(errorMsg);
 
-			taskNodeInstInfoRepository.save(nodeInstEntity);
+			workflowStatusWriteBehindService.saveTaskNodeStatus(nodeInstEntity);
 		}
-
+		ctx.addPersistenceNanos(System.nanoTime() - startTime);
 	}
 
 }
@@ -0,0 +1,349 @@
+package com.webank.wecube.platform.core.service.workflow;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StreamUtils;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.WorkflowProperties;
+import com.webank.wecube.platform.core.commons.AuthenticationContextHolder;
+import com.webank.wecube.platform.core.commons.WecubeCoreException;
+import com.webank.wecube.platform.core.dto.user.RoleDto;
+import com.webank.wecube.platform.core.dto.workflow.ProcDefArchiveImportItemDto;
+import com.webank.wecube.platform.core.dto.workflow.ProcDefArchiveImportResultDto;
+import com.webank.wecube.platform.core.dto.workflow.ProcDefInfoExportImportDto;
+import com.webank.wecube.platform.core.dto.workflow.ProcRoleDto;
+import com.webank.wecube.platform.core.dto.workflow.TaskNodeDefInfoDto;
+import com.webank.wecube.platform.core.dto.workflow.TaskNodeDefParamDto;
+import com.webank.wecube.platform.core.entity.workflow.ProcDefInfoEntity;
+import com.webank.wecube.platform.core.entity.workflow.ProcRoleBindingEntity;
+import com.webank.wecube.platform.core.entity.workflow.TaskNodeDefInfoEntity;
+import com.webank.wecube.platform.core.entity.workflow.TaskNodeParamEntity;
+import com.webank.wecube.platform.core.jpa.workflow.ProcDefImportRepository;
+import com.webank.wecube.platform.core.jpa.workflow.ProcDefInfoRepository;
+import com.webank.wecube.platform.core.jpa.workflow.ProcRoleBindingRepository;
+import com.webank.wecube.platform.core.service.user.UserManagementServiceImpl;
+
+/**
+ * Exports and imports many process definitions as one archive. The archive is
+ * base64 encoded like the single definition export, and holds
+ * <code>{"formatVersion":1,"procDefs":[...]}</code> where every element has
+ * the single definition export layout. Both directions stream the archive, so
+ * that at most one chunk of definitions is held in memory.
+ */
+@Service
+public class ProcDefArchiveService {
+    private static final Logger log = LoggerFactory.getLogger(ProcDefArchiveService.class);
+
+    public static final int FORMAT_VERSION = 1;
+
+    private static final String FIELD_FORMAT_VERSION = "formatVersion";
+    private static final String FIELD_PROC_DEFS = "procDefs";
+
+    @Autowired
+    private WorkflowProcDefService workflowProcDefService;
+
+    @Autowired
+    private ProcDefInfoRepository processDefInfoRepo;
+
+    @Autowired
+    private ProcDefImportRepository procDefImportRepository;
+
+    @Autowired
+    private ProcRoleBindingRepository procRoleBindingRepository;
+
+    @Autowired
+    private UserManagementServiceImpl userManagementService;
+
+    @Autowired
+    private WorkflowProperties workflowProperties;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Checks the definitions to export before anything is written, as errors
+     * can no longer be reported once the archive is streaming. No ids means
+     * all the deployed definitions.
+     */
+    public List<String> resolveExportProcDefIds(List<String> procDefIds) {
+        List<String> deployedProcDefIds = processDefInfoRepo.findAllDeployedProcDefIds();
+        if (procDefIds == null || procDefIds.isEmpty()) {
+            if (deployedProcDefIds.isEmpty()) {
+                throw new WecubeCoreException("There is no deployed process definition to export.");
+            }
+            return deployedProcDefIds;
+        }
+
+        Set<String> deployedProcDefIdSet = new HashSet<>(deployedProcDefIds);
+        Set<String> resolvedProcDefIds = new LinkedHashSet<>();
+        for (String procDefId : procDefIds) {
+            if (!deployedProcDefIdSet.contains(procDefId)) {
+                log.error("process definition {} does not exist or is not deployed", procDefId);
+                throw new WecubeCoreException(String.format(
+                        "Process definition %s does not exist or is not deployed.Only deployed status meets.",
+                        procDefId));
+            }
+            resolvedProcDefIds.add(procDefId);
+        }
+
+        return new ArrayList<>(resolvedProcDefIds);
+    }
+
+    public void exportProcessDefinitions(List<String> procDefIds, OutputStream out) throws IOException {
+        // closing the encoder writes the padding, but the target stays open
+        OutputStream encodedOut = Base64.getEncoder().wrap(StreamUtils.nonClosing(out));
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(encodedOut, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeNumberField(FIELD_FORMAT_VERSION, FORMAT_VERSION);
+            generator.writeArrayFieldStart(FIELD_PROC_DEFS);
+            for (String procDefId : procDefIds) {
+                objectMapper.writeValue(generator, workflowProcDefService.exportProcessDefinition(procDefId));
+                generator.flush();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+
+        log.info("finished export of {} process definitions", procDefIds.size());
+    }
+
+    /**
+     * Imports the definitions of the archive as drafts, committing them in
+     * chunks of {@link WorkflowProperties#getProcDefImportChunkSize()}. A
+     * definition failing validation is skipped, a chunk failing to save fails
+     * as a whole, and the other chunks are imported regardless. A dry run
+     * validates the archive without saving anything.
+     */
+    public ProcDefArchiveImportResultDto importProcessDefinitions(InputStream in, boolean dryRun) throws IOException {
+        List<RoleDto> mgmtRoles = null;
+        if (!dryRun) {
+            mgmtRoles = userManagementService
+                    .getGrantedRolesByUsername(AuthenticationContextHolder.getCurrentUsername());
+            if (mgmtRoles == null || mgmtRoles.isEmpty()) {
+                throw new WecubeCoreException("At least one role with MGMT role should be declared.");
+            }
+        }
+
+        ProcDefArchiveImportResultDto result = new ProcDefArchiveImportResultDto();
+        result.setDryRun(dryRun);
+
+        int chunkSize = Math.max(1, workflowProperties.getProcDefImportChunkSize());
+        List<PendingProcDef> chunk = new ArrayList<>(chunkSize);
+
+        InputStream decodedIn = Base64.getMimeDecoder().wrap(in);
+        try (JsonParser parser = objectMapper.getFactory().createParser(decodedIn)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new WecubeCoreException("Invalid process definition archive.");
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                JsonToken valueToken = parser.nextToken();
+                if (FIELD_FORMAT_VERSION.equals(fieldName)) {
+                    if (parser.getIntValue() > FORMAT_VERSION) {
+                        throw new WecubeCoreException(String.format(
+                                "Unsupported process definition archive version %s.", parser.getText()));
+                    }
+                } else if (FIELD_PROC_DEFS.equals(fieldName) && valueToken == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        ProcDefInfoExportImportDto procDef = objectMapper.readValue(parser,
+                                ProcDefInfoExportImportDto.class);
+                        ProcDefArchiveImportItemDto item = validateProcessDefinition(result.getTotal(), procDef);
+                        result.setTotal(result.getTotal() + 1);
+                        result.addItem(item);
+
+                        if (!ProcDefArchiveImportItemDto.STATUS_VALID.equals(item.getStatus())) {
+                            result.setInvalid(result.getInvalid() + 1);
+                            continue;
+                        }
+
+                        result.setValid(result.getValid() + 1);
+                        if (dryRun) {
+                            continue;
+                        }
+
+                        chunk.add(new PendingProcDef(item, procDef));
+                        if (chunk.size() >= chunkSize) {
+                            importChunk(chunk, mgmtRoles, result);
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (JsonProcessingException e) {
+            // the chunks before are already committed, so report them along
+            // with the error rather than failing the whole request
+            log.error("errors while reading process definition archive after {} definitions", result.getTotal(), e);
+            result.setErrorMessage(String.format("Malformed process definition archive after %s definitions: %s",
+                    result.getTotal(), e.getOriginalMessage()));
+            for (PendingProcDef pending : chunk) {
+                pending.item.setStatus(ProcDefArchiveImportItemDto.STATUS_FAILED);
+                pending.item.setErrorMessage("Not imported as the archive is malformed.");
+            }
+            result.setFailed(result.getFailed() + chunk.size());
+            return result;
+        }
+
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, mgmtRoles, result);
+        }
+
+        log.info("finished import of process definition archive,dryRun={},total={},imported={},invalid={},failed={}",
+                dryRun, result.getTotal(), result.getImported(), result.getInvalid(), result.getFailed());
+
+        return result;
+    }
+
+    private ProcDefArchiveImportItemDto validateProcessDefinition(int index, ProcDefInfoExportImportDto procDef) {
+        ProcDefArchiveImportItemDto item = new ProcDefArchiveImportItemDto();
+        item.setIndex(index);
+
+        if (procDef == null) {
+            item.setStatus(ProcDefArchiveImportItemDto.STATUS_INVALID);
+            item.setErrorMessage("Process definition is empty.");
+            return item;
+        }
+
+        item.setProcDefKey(procDef.getProcDefKey());
+        item.setProcDefName(procDef.getProcDefName());
+
+        List<String> errors = new ArrayList<>();
+        if (StringUtils.isBlank(procDef.getProcDefName())) {
+            errors.add("Process definition name is blank.");
+        }
+        if (StringUtils.isBlank(procDef.getProcDefData())) {
+            errors.add("Process definition data is blank.");
+        }
+
+        int paramCount = 0;
+        List<TaskNodeDefInfoDto> nodeDtos = procDef.getTaskNodeInfos();
+        if (nodeDtos != null) {
+            Set<String> nodeIds = new HashSet<>();
+            for (TaskNodeDefInfoDto nodeDto : nodeDtos) {
+                if (StringUtils.isBlank(nodeDto.getNodeId())) {
+                    errors.add(String.format("Task node %s has no node id.", nodeDto.getNodeName()));
+                    continue;
+                }
+                if (!nodeIds.add(nodeDto.getNodeId())) {
+                    errors.add(String.format("Task node id %s is duplicated.", nodeDto.getNodeId()));
+                }
+                if (nodeDto.getParamInfos() == null) {
+                    continue;
+                }
+                for (TaskNodeDefParamDto paramDto : nodeDto.getParamInfos()) {
+                    if (StringUtils.isBlank(paramDto.getParamName())) {
+                        errors.add(String.format("A param of task node %s has no name.", nodeDto.getNodeId()));
+                    }
+                    paramCount++;
+                }
+            }
+            item.setTaskNodeCount(nodeDtos.size());
+        }
+        item.setParamCount(paramCount);
+
+        if (errors.isEmpty()) {
+            item.setStatus(ProcDefArchiveImportItemDto.STATUS_VALID);
+        } else {
+            item.setStatus(ProcDefArchiveImportItemDto.STATUS_INVALID);
+            item.setErrorMessage(String.join(" ", errors));
+        }
+
+        return item;
+    }
+
+    private void importChunk(List<PendingProcDef> chunk, List<RoleDto> mgmtRoles,
+            ProcDefArchiveImportResultDto result) {
+        Date currTime = new Date();
+        List<ProcDefInfoEntity> draftEntities = new ArrayList<>(chunk.size());
+        List<TaskNodeDefInfoEntity> draftNodeEntities = new ArrayList<>();
+        List<TaskNodeParamEntity> draftNodeParamEntities = new ArrayList<>();
+        List<ProcRoleBindingEntity> roleBindings = new ArrayList<>();
+
+        for (PendingProcDef pending : chunk) {
+            ProcDefInfoEntity draftEntity = workflowProcDefService.buildDraftProcDefInfoEntity(pending.procDef,
+                    currTime);
+            draftEntities.add(draftEntity);
+
+            if (pending.procDef.getTaskNodeInfos() != null) {
+                for (TaskNodeDefInfoDto nodeDto : pending.procDef.getTaskNodeInfos()) {
+                    TaskNodeDefInfoEntity draftNodeEntity = workflowProcDefService
+                            .buildDraftTaskNodeDefInfoEntity(draftEntity, nodeDto, currTime);
+                    draftNodeEntities.add(draftNodeEntity);
+
+                    if (nodeDto.getParamInfos() == null) {
+                        continue;
+                    }
+                    for (TaskNodeDefParamDto nodeParamDto : nodeDto.getParamInfos()) {
+                        draftNodeParamEntities.add(workflowProcDefService
+                                .buildDraftTaskNodeParamEntity(draftNodeEntity, nodeParamDto, currTime));
+                    }
+                }
+            }
+
+            for (RoleDto role : mgmtRoles) {
+                roleBindings.add(ProcRoleDto.toDomain(draftEntity.getId(), role.getId(),
+                        ProcRoleBindingEntity.permissionEnum.MGMT, role.getName()));
+            }
+        }
+
+        try {
+            new TransactionTemplate(transactionManager).execute(status -> {
+                procDefImportRepository.insertAll(draftEntities, draftNodeEntities, draftNodeParamEntities);
+                procRoleBindingRepository.saveAll(roleBindings);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.error("failed to import chunk of {} process definitions", chunk.size(), e);
+            for (PendingProcDef pending : chunk) {
+                pending.item.setStatus(ProcDefArchiveImportItemDto.STATUS_FAILED);
+                pending.item.setErrorMessage(e.getMessage());
+            }
+            result.setFailed(result.getFailed() + chunk.size());
+            chunk.clear();
+            return;
+        }
+
+        for (int i = 0; i < chunk.size(); i++) {
+            ProcDefArchiveImportItemDto item = chunk.get(i).item;
+            item.setStatus(ProcDefArchiveImportItemDto.STATUS_IMPORTED);
+            item.setProcDefId(draftEntities.get(i).getId());
+        }
+        result.setImported(result.getImported() + chunk.size());
+        chunk.clear();
+    }
+
+    private static class PendingProcDef {
+        final ProcDefArchiveImportItemDto item;
+        final ProcDefInfoExportImportDto procDef;
+
+        PendingProcDef(ProcDefArchiveImportItemDto item, ProcDefInfoExportImportDto procDef) {
+            this.item = item;
+            this.procDef = procDef;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.webank.wecube.platform.core.service.workflow;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.webank.wecube.platform.core.commons.ApplicationProperties.WorkflowProperties;
+import com.webank.wecube.platform.core.dto.workflow.FlowNodeDefDto;
+import com.webank.wecube.platform.core.dto.workflow.ProcDefOutlineDto;
+import com.webank.wecube.platform.workflow.model.ProcDefOutline;
+import com.webank.wecube.platform.workflow.model.ProcFlowNode;
+import com.webank.wecube.platform.workflow.model.ProcFlowNodeInst;
+import com.webank.wecube.platform.workflow.model.ProcInstOutline;
+
+/**
+ * Caches the outlines of deployed process definitions.
+ *
+ * <p>
+ * A deployed process definition never changes, so its flow graph read from
+ * the BPMN model is kept by kernel process definition id, and its outline
+ * with the task node configurations by process definition id, until it is
+ * removed or outline-cache-max-size newer ones have been used. Cached
+ * outlines are immutable; callers get a fresh copy on every lookup which
+ * they may change freely.
+ * </p>
+ * <p>
+ * Eviction only reaches the cache of the node removing a process definition,
+ * so the status of a cached outline is checked against the database before
+ * it is served.
+ * </p>
+ *
+ */
+@Service
+public class ProcDefOutlineCache {
+
+    @Autowired
+    private WorkflowProperties workflowProperties;
+
+    private Map<String, FlowGraph> flowGraphs;
+
+    private Map<String, ProcDefOutlineDto> procDefOutlines;
+
+    @PostConstruct
+    public void init() {
+        flowGraphs = newLruMap();
+        procDefOutlines = newLruMap();
+    }
+
+    /**
+     * @return the flow graph of the kernel process definition, or null if not
+     *         cached
+     */
+    public FlowGraph getFlowGraph(String procDefKernelId) {
+        return flowGraphs.get(procDefKernelId);
+    }
+
+    public FlowGraph putFlowGraph(ProcDefOutline outline) {
+        FlowGraph flowGraph = new FlowGraph(outline);
+        flowGraphs.put(flowGraph.getProcDefKernelId(), flowGraph);
+        return flowGraph;
+    }
+
+    /**
+     * @return a copy of the outline of the process definition, or null if not
+     *         cached
+     */
+    public ProcDefOutlineDto getProcDefOutline(String procDefId) {
+        ProcDefOutlineDto outline = procDefOutlines.get(procDefId);
+        return outline == null ? null : copyOf(outline);
+    }
+
+    public void putProcDefOutline(ProcDefOutlineDto outline) {
+        procDefOutlines.put(outline.getProcDefId(), copyOf(outline));
+    }
+
+    /**
+     * Removes the outlines of a process definition, at once and again after
+     * the current transaction commits, so that no outline read in between
+     * outlives the change.
+     */
+    public void evict(String procDefId, String procDefKernelId) {
+        doEvict(procDefId, procDefKernelId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    doEvict(procDefId, procDefKernelId);
+                }
+            });
+        }
+    }
+
+    private void doEvict(String procDefId, String procDefKernelId) {
+        if (procDefId != null) {
+            procDefOutlines.remove(procDefId);
+        }
+        if (procDefKernelId != null) {
+            flowGraphs.remove(procDefKernelId);
+        }
+    }
+
+    private <V> Map<String, V> newLruMap() {
+        int maxSize = Math.max(1, workflowProperties.getOutlineCacheMaxSize());
+        return Collections.synchronizedMap(new LinkedHashMap<String, V>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    private static ProcDefOutlineDto copyOf(ProcDefOutlineDto outline) {
+        ProcDefOutlineDto copy = new ProcDefOutlineDto();
+        copy.setProcDefId(outline.getProcDefId());
+        copy.setProcDefKey(outline.getProcDefKey());
+        copy.setProcDefName(outline.getProcDefName());
+        copy.setProcDefVersion(outline.getProcDefVersion());
+        copy.setRootEntity(outline.getRootEntity());
+        copy.setPriority(outline.getPriority());
+        copy.setStatus(outline.getStatus());
+
+        for (FlowNodeDefDto node : outline.getFlowNodes()) {
+            FlowNodeDefDto nodeCopy = new FlowNodeDefDto();
+            nodeCopy.setProcDefId(node.getProcDefId());
+            nodeCopy.setProcDefKey(node.getProcDefKey());
+            nodeCopy.setNodeId(node.getNodeId());
+            nodeCopy.setNodeName(node.getNodeName());
+            nodeCopy.setNodeType(node.getNodeType());
+            nodeCopy.setNodeDefId(node.getNodeDefId());
+            nodeCopy.setStatus(node.getStatus());
+            nodeCopy.setOrderedNo(node.getOrderedNo());
+            nodeCopy.setRoutineExpression(node.getRoutineExpression());
+            nodeCopy.setServiceId(node.getServiceId());
+            nodeCopy.setPreviousNodeIds(new ArrayList<>(node.getPreviousNodeIds()));
+            nodeCopy.setSucceedingNodeIds(new ArrayList<>(node.getSucceedingNodeIds()));
+
+            copy.addFlowNodes(nodeCopy);
+        }
+
+        return copy;
+    }
+
+    /**
+     * The flow nodes of a kernel process definition and their links, in the
+     * order of the BPMN model.
+     */
+    public static final class FlowGraph {
+        private final String procDefKernelId;
+        private final String procDefKey;
+        private final String procDefName;
+        private final List<Node> nodes;
+
+        FlowGraph(ProcDefOutline outline) {
+            this.procDefKernelId = outline.getId();
+            this.procDefKey = outline.getProcDefKey();
+            this.procDefName = outline.getProcDefName();
+
+            List<Node> nodes = new ArrayList<>();
+            for (ProcFlowNode pfn : outline.getFlowNodes()) {
+                nodes.add(new Node(pfn));
+            }
+            this.nodes = Collections.unmodifiableList(nodes);
+        }
+
+        public String getProcDefKernelId() {
+            return procDefKernelId;
+        }
+
+        public String getProcDefKey() {
+            return procDefKey;
+        }
+
+        public String getProcDefName() {
+            return procDefName;
+        }
+
+        public ProcDefOutline toProcDefOutline() {
+            ProcDefOutline outline = new ProcDefOutline();
+            outline.setId(procDefKernelId);
+            outline.setProcDefKey(procDefKey);
+            outline.setProcDefName(procDefName);
+
+            Map<String, ProcFlowNode> flowNodes = new HashMap<>();
+            for (Node node : nodes) {
+                ProcFlowNode pfn = new ProcFlowNode();
+                node.populate(pfn);
+                flowNodes.put(node.id, pfn);
+                outline.addFlowNodes(pfn);
+            }
+            link(flowNodes);
+
+            return outline;
+        }
+
+        public ProcInstOutline toProcInstOutline() {
+            ProcInstOutline outline = new ProcInstOutline();
+            outline.setProcDefKernelId(procDefKernelId);
+            outline.setProcDefKey(procDefKey);
+            outline.setProcDefName(procDefName);
+
+            Map<String, ProcFlowNode> flowNodes = new HashMap<>();
+            for (Node node : nodes) {
+                ProcFlowNodeInst pfni = new ProcFlowNodeInst();
+                node.populate(pfni);
+                flowNodes.put(node.id, pfni);
+                outline.addNodeInsts(pfni);
+            }
+            link(flowNodes);
+
+            return outline;
+        }
+
+        private void link(Map<String, ProcFlowNode> flowNodes) {
+            for (Node node : nodes) {
+                ProcFlowNode pfn = flowNodes.get(node.id);
+                for (String previousNodeId : node.previousNodeIds) {
+                    pfn.getPreviousFlowNodes().add(flowNodes.get(previousNodeId));
+                }
+                for (String succeedingNodeId : node.succeedingNodeIds) {
+                    pfn.getSucceedingFlowNodes().add(flowNodes.get(succeedingNodeId));
+                }
+            }
+        }
+    }
+
+    private static final class Node {
+        private final String id;
+        private final String nodeType;
+        private final String nodeName;
+        private final List<String> previousNodeIds;
+        private final List<String> succeedingNodeIds;
+
+        Node(ProcFlowNode pfn) {
+            this.id = pfn.getId();
+            this.nodeType = pfn.getNodeType();
+            this.nodeName = pfn.getNodeName();
+            this.previousNodeIds = nodeIds(pfn.getPreviousFlowNodes());
+            this.succeedingNodeIds = nodeIds(pfn.getSucceedingFlowNodes());
+        }
+
+        void populate(ProcFlowNode pfn) {
+            pfn.setId(id);
+            pfn.setNodeType(nodeType);
+            pfn.setNodeName(nodeName);
+        }
+
+        private static List<String> nodeIds(List<ProcFlowNode> flowNodes) {
+            List<String> nodeIds = new ArrayList<>();
+            for (ProcFlowNode f : flowNodes) {
+                nodeIds.add(f.getId());
+            }
+            return Collections.unmodifiableList(nodeIds);
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.webank.wecube.platform.core.service.workflow;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.camunda.bpm.engine.HistoryService;
+import org.camunda.bpm.engine.history.HistoricProcessInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StreamUtils;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.WorkflowProperties;
+import com.webank.wecube.platform.core.commons.WecubeCoreException;
+import com.webank.wecube.platform.core.dto.workflow.ProcInstArchiveDto;
+import com.webank.wecube.platform.core.entity.workflow.ProcInstArchiveEntity;
+import com.webank.wecube.platform.core.entity.workflow.ProcInstInfoEntity;
+import com.webank.wecube.platform.core.entity.workflow.TaskNodeExecParamEntity;
+import com.webank.wecube.platform.core.entity.workflow.TaskNodeExecRequestEntity;
+import com.webank.wecube.platform.core.entity.workflow.TaskNodeInstInfoEntity;
+import com.webank.wecube.platform.core.jpa.workflow.GraphNodeRepository;
+import com.webank.wecube.platform.core.jpa.workflow.ProcExecBindingRepository;
+import com.webank.wecube.platform.core.jpa.workflow.ProcInstArchiveRepository;
+import com.webank.wecube.platform.core.jpa.workflow.ProcInstInfoRepository;
+import com.webank.wecube.platform.core.jpa.workflow.TaskNodeExecCallbackRepository;
+import com.webank.wecube.platform.core.jpa.workflow.TaskNodeExecParamBlobRepository;
+import com.webank.wecube.platform.core.jpa.workflow.TaskNodeExecParamRepository;
+import com.webank.wecube.platform.core.jpa.workflow.TaskNodeExecRequestRepository;
+import com.webank.wecube.platform.core.jpa.workflow.TaskNodeInstInfoRepository;
+import com.webank.wecube.platform.workflow.entity.ProcessInstanceStatusEntity;
+import com.webank.wecube.platform.workflow.repository.ProcessInstanceStatusRepository;
+import com.webank.wecube.platform.workflow.repository.ServiceNodeStatusRepository;
+
+/**
+ * Keeps completed process instances out of the runtime tables.
+ *
+ * <p>
+ * The details of an instance, as returned for it while it was still in the
+ * runtime tables, are gzip compressed into CORE_AR_PROC_INST. In the same
+ * transaction the instance, its task node instances, execution requests,
+ * parameters and their blobs, callbacks, bindings and graph nodes, its
+ * statuses and its engine history are deleted, in chunks of at most
+ * MAX_IDS_PER_DELETE rows. An instance is only archived by the node which
+ * manages to delete its CORE_RU_PROC_INST_INFO row.
+ * </p>
+ *
+ */
+@Service
+public class ProcInstArchiveService {
+    private static final Logger log = LoggerFactory.getLogger(ProcInstArchiveService.class);
+
+    private static final int MAX_IDS_PER_DELETE = 500;
+
+    @Autowired
+    private WorkflowProperties workflowProperties;
+
+    @Autowired
+    private ProcInstArchiveRepository procInstArchiveRepository;
+
+    @Autowired
+    private ProcInstInfoRepository procInstInfoRepository;
+
+    @Autowired
+    private TaskNodeInstInfoRepository taskNodeInstInfoRepository;
+
+    @Autowired
+    private TaskNodeExecRequestRepository taskNodeExecRequestRepository;
+
+    @Autowired
+    private TaskNodeExecParamRepository taskNodeExecParamRepository;
+
+    @Autowired
+    private TaskNodeExecParamBlobRepository taskNodeExecParamBlobRepository;
+
+    @Autowired
+    private TaskNodeExecCallbackRepository taskNodeExecCallbackRepository;
+
+    @Autowired
+    private ProcExecBindingRepository procExecBindingRepository;
+
+    @Autowired
+    private GraphNodeRepository graphNodeRepository;
+
+    @Autowired
+    private ProcessInstanceStatusRepository processInstanceStatusRepository;
+
+    @Autowired
+    private ServiceNodeStatusRepository serviceNodeStatusRepository;
+
+    @Autowired
+    private HistoryService historyService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    /**
+     * @return the ids, greater than afterId and in ascending order, of at most
+     *         maxCount process instances completed more than
+     *         archiveAfterDays ago
+     */
+    public List<Integer> findArchivableProcInstIds(Integer afterId, int maxCount) {
+        Date completedBefore = new Date(
+                System.currentTimeMillis() - TimeUnit.DAYS.toMillis(workflowProperties.getArchiveAfterDays()));
+        return procInstInfoRepository.findIdsByStatusAndUpdatedBefore(ProcInstInfoEntity.COMPLETED_STATUS,
+                completedBefore, afterId, PageRequest.of(0, Math.max(1, maxCount)));
+    }
+
+    /**
+     * Stores the details of a completed process instance and removes it from
+     * the runtime tables.
+     *
+     * @return false if the instance is no longer completed or has been
+     *         archived meanwhile
+     */
+    @Transactional
+    public boolean archiveProcInst(ProcInstArchiveDto archive) {
+        Integer procInstId = archive.getProcInst().getId();
+        Optional<ProcInstInfoEntity> procInstEntityOpt = procInstInfoRepository.findById(procInstId);
+        if (!procInstEntityOpt.isPresent()
+                || procInstInfoRepository.deleteOneByIdAndStatus(procInstId, ProcInstInfoEntity.COMPLETED_STATUS) != 1) {
+            return false;
+        }
+
+        ProcInstInfoEntity procInstEntity = procInstEntityOpt.get();
+        byte[] raw = toJson(archive);
+        byte[] compressed = gzip(raw);
+
+        ProcInstArchiveEntity archiveEntity = new ProcInstArchiveEntity();
+        archiveEntity.setId(procInstId);
+        archiveEntity.setProcInstKey(procInstEntity.getProcInstKey());
+        archiveEntity.setProcInstKernelId(procInstEntity.getProcInstKernelId());
+        archiveEntity.setProcDefId(procInstEntity.getProcDefId());
+        archiveEntity.setProcDefKey(procInstEntity.getProcDefKey());
+        archiveEntity.setProcDefName(procInstEntity.getProcDefName());
+        archiveEntity.setStatus(procInstEntity.getStatus());
+        archiveEntity.setCreatedTime(procInstEntity.getCreatedTime());
+        archiveEntity.setCompletedTime(procInstEntity.getUpdatedTime());
+        archiveEntity.setArchivedTime(new Date());
+        archiveEntity.setCompressType(ProcInstArchiveEntity.COMPRESS_TYPE_GZIP);
+        archiveEntity.setRawSize(raw.length);
+        archiveEntity.setStoredSize(compressed.length);
+        archiveEntity.setData(compressed);
+        procInstArchiveRepository.save(archiveEntity);
+
+        deleteRuntimeRows(procInstId);
+        deleteKernelRows(procInstEntity.getProcInstKernelId());
+
+        if (log.isDebugEnabled()) {
+            log.debug("archived process instance {}, {} bytes compressed to {}", procInstId, raw.length,
+                    compressed.length);
+        }
+        return true;
+    }
+
+    /**
+     * @return the details of an archived process instance, or null if it has
+     *         not been archived
+     */
+    public ProcInstArchiveDto getArchivedProcInst(Integer procInstId) {
+        Optional<ProcInstArchiveEntity> archiveEntityOpt = procInstArchiveRepository.findById(procInstId);
+        if (!archiveEntityOpt.isPresent()) {
+            return null;
+        }
+
+        try {
+            return objectMapper.readValue(gunzip(archiveEntityOpt.get().getData()), ProcInstArchiveDto.class);
+        } catch (IOException e) {
+            log.error("failed to read archive of process instance {}", procInstId, e);
+            throw new WecubeCoreException(
+                    String.format("Archive of process instance {%s} is corrupted.", procInstId));
+        }
+    }
+
+    private void deleteRuntimeRows(Integer procInstId) {
+        List<TaskNodeInstInfoEntity> nodeInstEntities = taskNodeInstInfoRepository.findAllByProcInstId(procInstId);
+        List<Integer> nodeInstIds = new ArrayList<>();
+        nodeInstEntities.forEach(n -> nodeInstIds.add(n.getId()));
+
+        List<TaskNodeExecRequestEntity> requestEntities = new ArrayList<>();
+        inChunks(nodeInstIds, ids -> requestEntities.addAll(taskNodeExecRequestRepository.findAllByNodeInstIdIn(ids)));
+        List<String> requestIds = new ArrayList<>();
+        requestEntities.forEach(r -> requestIds.add(r.getRequestId()));
+
+        List<TaskNodeExecParamEntity> paramEntities = new ArrayList<>();
+        inChunks(requestIds, ids -> paramEntities.addAll(taskNodeExecParamRepository.findAllByRequestIdIn(ids)));
+        List<Integer> blobIds = new ArrayList<>();
+        paramEntities.stream().filter(TaskNodeExecParamEntity::isParamDataOffloaded)
+                .forEach(p -> blobIds.add(p.getParamDataRef()));
+
+        inChunks(blobIds, taskNodeExecParamBlobRepository::deleteByIds);
+        inChunks(paramEntities, taskNodeExecParamRepository::deleteInBatch);
+        inChunks(requestIds, taskNodeExecCallbackRepository::deleteByRequestIds);
+        inChunks(requestEntities, taskNodeExecRequestRepository::deleteInBatch);
+        inChunks(nodeInstEntities, taskNodeInstInfoRepository::deleteInBatch);
+        inChunks(procExecBindingRepository.findAllByProcInstId(procInstId), procExecBindingRepository::deleteInBatch);
+        inChunks(graphNodeRepository.findAllByProcInstId(procInstId), graphNodeRepository::deleteInBatch);
+    }
+
+    private void deleteKernelRows(String procInstKernelId) {
+        if (procInstKernelId == null) {
+            return;
+        }
+
+        ProcessInstanceStatusEntity procInstStatus = processInstanceStatusRepository
+                .findOneByprocInstanceId(procInstKernelId);
+        if (procInstStatus != null) {
+            processInstanceStatusRepository.delete(procInstStatus);
+        }
+        inChunks(serviceNodeStatusRepository.findByProcInstanceId(procInstKernelId),
+                serviceNodeStatusRepository::deleteInBatch);
+
+        HistoricProcessInstance historicProcInst = historyService.createHistoricProcessInstanceQuery()
+                .processInstanceId(procInstKernelId).singleResult();
+        if (historicProcInst != null && historicProcInst.getEndTime() != null) {
+            historyService.deleteHistoricProcessInstance(procInstKernelId);
+        }
+    }
+
+    private <T> void inChunks(List<T> items, Consumer<List<T>> action) {
+        for (int from = 0; from < items.size(); from += MAX_IDS_PER_DELETE) {
+            action.accept(items.subList(from, Math.min(items.size(), from + MAX_IDS_PER_DELETE)));
+        }
+    }
+
+    private byte[] toJson(ProcInstArchiveDto archive) {
+        try {
+            return objectMapper.writeValueAsBytes(archive);
+        } catch (IOException e) {
+            throw new WecubeCoreException("Failed to serialize process instance archive.", e);
+        }
+    }
+
+    private byte[] gzip(byte[] data) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(Math.max(512, data.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bos)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new WecubeCoreException("Failed to compress process instance archive.", e);
+        }
+        return bos.toByteArray();
+    }
+
+    private byte[] gunzip(byte[] data) throws IOException {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return StreamUtils.copyToByteArray(gzip);
+        }
+    }
+}
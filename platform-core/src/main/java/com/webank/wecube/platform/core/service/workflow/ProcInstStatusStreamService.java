@@ -0,0 +1,527 @@
+package com.webank.wecube.platform.core.service.workflow;
+
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.lang3.RandomStringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.webank.wecube.platform.core.commons.ApplicationProperties.WorkflowProperties;
+import com.webank.wecube.platform.core.dto.workflow.ProcInstStatusEventDto;
+import com.webank.wecube.platform.core.entity.workflow.ProcInstInfoEntity;
+import com.webank.wecube.platform.core.entity.workflow.TaskNodeInstInfoEntity;
+import com.webank.wecube.platform.core.jpa.workflow.ProcInstInfoRepository;
+import com.webank.wecube.platform.core.jpa.workflow.TaskNodeInstInfoRepository;
+
+/**
+ * Pushes status changes of process and task node instances to subscribers as
+ * server-sent events.
+ *
+ * <p>
+ * Changes made on this node are published after the transaction making them
+ * commits. Changes made on other nodes are found by reading the statuses of
+ * the instances watched here from the database every
+ * statusStreamPollIntervalMillis, and while building a snapshot, so that the
+ * subscribers already connected receive them as well. A status already
+ * published is not published again.
+ * </p>
+ * <p>
+ * Each change gets a version from a sequence of this node, shared by all
+ * instances. The event id is the version prefixed with an id of this node's
+ * stream, so that a client reconnecting to another node, or to this node after
+ * a restart, is not resumed from a version which means nothing there. A
+ * process instance watched by anyone keeps its last statusStreamRetainedEvents
+ * changes, so a subscriber resuming from an event id of this node still
+ * retained receives only the changes after it. Any other subscriber is first
+ * sent a snapshot of the current statuses, read from the database.
+ * </p>
+ * <p>
+ * Events are sent by statusStreamSenderThreads shared threads, so a slow
+ * subscriber never holds up the publisher. A subscriber with more than
+ * statusStreamQueueCapacity events waiting has them replaced by a new
+ * snapshot (resync), or is disconnected (disconnect).
+ * </p>
+ *
+ */
+@Service
+public class ProcInstStatusStreamService {
+    private static final Logger log = LoggerFactory.getLogger(ProcInstStatusStreamService.class);
+
+    public static final String BACKPRESSURE_RESYNC = "resync";
+    public static final String BACKPRESSURE_DISCONNECT = "disconnect";
+
+    private static final int POLL_BATCH_SIZE = 500;
+
+    @Autowired
+    private WorkflowProperties workflowProperties;
+
+    @Autowired
+    private ProcInstInfoRepository procInstInfoRepository;
+
+    @Autowired
+    private TaskNodeInstInfoRepository taskNodeInstInfoRepository;
+
+    @Autowired
+    private WorkflowStatusWriteBehindService workflowStatusWriteBehindService;
+
+    private final String streamId = RandomStringUtils.randomAlphanumeric(8);
+
+    private final AtomicLong versionSequence = new AtomicLong(System.currentTimeMillis() * 1000);
+
+    private final Map<Integer, StatusChannel> channels = new LinkedHashMap<Integer, StatusChannel>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, StatusChannel> eldest) {
+            return size() > workflowProperties.getStatusStreamMaxInstances() && !eldest.getValue().hasSubscribers();
+        }
+    };
+
+    private ExecutorService senderExecutorService;
+
+    private ScheduledExecutorService pollerExecutorService;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        senderExecutorService = Executors.newFixedThreadPool(
+                Math.max(1, workflowProperties.getStatusStreamSenderThreads()), r -> {
+                    Thread t = new Thread(r, "status-stream-sender-" + threadIndex.getAndIncrement());
+                    t.setDaemon(true);
+                    return t;
+                });
+
+        long pollIntervalMillis = workflowProperties.getStatusStreamPollIntervalMillis();
+        if (pollIntervalMillis > 0) {
+            pollerExecutorService = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "status-stream-poller");
+                t.setDaemon(true);
+                return t;
+            });
+            pollerExecutorService.scheduleWithFixedDelay(this::pollWatchedInstancesQuietly, pollIntervalMillis,
+                    pollIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (pollerExecutorService != null) {
+            pollerExecutorService.shutdownNow();
+        }
+        senderExecutorService.shutdownNow();
+        List<StatusChannel> allChannels;
+        synchronized (channels) {
+            allChannels = new ArrayList<>(channels.values());
+        }
+        allChannels.forEach(StatusChannel::closeAll);
+    }
+
+    /**
+     * Subscribes to the status changes of a process instance.
+     *
+     * @param lastEventId
+     *            the id of the last event received before, or null
+     */
+    public SseEmitter subscribe(Integer procInstId, String lastEventId) {
+        SseEmitter emitter = newEmitter(workflowProperties.getStatusStreamTimeoutMillis());
+        StatusChannel channel;
+        synchronized (channels) {
+            channel = channels.computeIfAbsent(procInstId, StatusChannel::new);
+        }
+        StatusSubscriber subscriber = channel.subscribe(emitter, parseVersion(lastEventId));
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        return emitter;
+    }
+
+    public void publishProcInstStatus(ProcInstInfoEntity procInstEntity) {
+        publishAfterCommit(toEvent(procInstEntity));
+    }
+
+    public void publishTaskNodeStatus(TaskNodeInstInfoEntity nodeInstEntity) {
+        publishAfterCommit(toEvent(nodeInstEntity));
+    }
+
+    /**
+     * Reads the statuses of the instances watched on this node from the
+     * database and publishes the ones which changed, on any node, since they
+     * were last published.
+     *
+     * @return the number of changes published
+     */
+    public int pollWatchedInstances() {
+        Map<Integer, StatusChannel> watchedChannels = new HashMap<>();
+        synchronized (channels) {
+            for (StatusChannel channel : channels.values()) {
+                if (channel.hasSubscribers()) {
+                    watchedChannels.put(channel.procInstId, channel);
+                }
+            }
+        }
+
+        int published = 0;
+        List<Integer> procInstIds = new ArrayList<>(watchedChannels.keySet());
+        for (int from = 0; from < procInstIds.size(); from += POLL_BATCH_SIZE) {
+            List<Integer> batchIds = procInstIds.subList(from, Math.min(from + POLL_BATCH_SIZE, procInstIds.size()));
+            // a status still buffered here would otherwise be taken back by the older one in the database
+            batchIds.forEach(workflowStatusWriteBehindService::flushProcInst);
+
+            for (ProcInstInfoEntity procInstEntity : procInstInfoRepository.findAllById(batchIds)) {
+                if (watchedChannels.get(procInstEntity.getId()).publish(toEvent(procInstEntity))) {
+                    published++;
+                }
+            }
+            for (TaskNodeInstInfoEntity nodeInstEntity : taskNodeInstInfoRepository.findAllByProcInstIdIn(batchIds)) {
+                if (watchedChannels.get(nodeInstEntity.getProcInstId()).publish(toEvent(nodeInstEntity))) {
+                    published++;
+                }
+            }
+        }
+        return published;
+    }
+
+    public int getSubscriberCount(Integer procInstId) {
+        StatusChannel channel;
+        synchronized (channels) {
+            channel = channels.get(procInstId);
+        }
+        return channel == null ? 0 : channel.subscribers.size();
+    }
+
+    protected SseEmitter newEmitter(long timeoutMillis) {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    private void pollWatchedInstancesQuietly() {
+        try {
+            pollWatchedInstances();
+        } catch (Exception e) {
+            log.error("failed to read the statuses of watched process instances", e);
+        }
+    }
+
+    private Long parseVersion(String lastEventId) {
+        String prefix = streamId + "-";
+        // issued by another node or a previous run, where versions are counted apart
+        if (lastEventId == null || !lastEventId.startsWith(prefix)) {
+            return null;
+        }
+
+        try {
+            return Long.valueOf(lastEventId.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private String toEventId(long version) {
+        return streamId + "-" + version;
+    }
+
+    private void publishAfterCommit(ProcInstStatusEventDto event) {
+        if (event.getProcInstId() == null) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    publish(event);
+                }
+            });
+        } else {
+            publish(event);
+        }
+    }
+
+    private void publish(ProcInstStatusEventDto event) {
+        StatusChannel channel;
+        synchronized (channels) {
+            channel = channels.get(event.getProcInstId());
+        }
+        // nobody watches the instance, later subscribers get a snapshot
+        if (channel != null) {
+            channel.publish(event);
+        }
+    }
+
+    private ProcInstStatusEventDto buildSnapshot(StatusSubscriber subscriber) {
+        StatusChannel channel = subscriber.channel;
+        Integer procInstId = channel.procInstId;
+        workflowStatusWriteBehindService.flushProcInst(procInstId);
+        long version = channel.getLastVersion();
+
+        ProcInstStatusEventDto snapshot = new ProcInstStatusEventDto();
+        snapshot.setType(ProcInstStatusEventDto.TYPE_SNAPSHOT);
+        snapshot.setProcInstId(procInstId);
+
+        // a status changed on another node since the last poll is published
+        // too, so that the subscribers already connected get it as well
+        Optional<ProcInstInfoEntity> procInstEntityOpt = procInstInfoRepository.findById(procInstId);
+        if (procInstEntityOpt.isPresent()) {
+            snapshot.setStatus(procInstEntityOpt.get().getStatus());
+            snapshot.setUpdatedTime(formatDate(procInstEntityOpt.get().getUpdatedTime()));
+            version = publishFound(subscriber, toEvent(procInstEntityOpt.get()), version);
+        }
+
+        for (TaskNodeInstInfoEntity nodeInstEntity : taskNodeInstInfoRepository.findAllByProcInstId(procInstId)) {
+            snapshot.addTaskNode(toEvent(nodeInstEntity));
+            version = publishFound(subscriber, toEvent(nodeInstEntity), version);
+        }
+
+        // resuming from the snapshot skips the changes it already shows
+        snapshot.setVersion(version);
+        snapshot.setEventId(toEventId(version));
+        if (snapshot.getTaskNodes() != null) {
+            for (ProcInstStatusEventDto taskNode : snapshot.getTaskNodes()) {
+                taskNode.setVersion(version);
+            }
+        }
+        return snapshot;
+    }
+
+    private long publishFound(StatusSubscriber snapshotSubscriber, ProcInstStatusEventDto event, long version) {
+        if (!snapshotSubscriber.channel.publish(event, snapshotSubscriber)) {
+            return version;
+        }
+        return Math.max(version, event.getVersion());
+    }
+
+    private ProcInstStatusEventDto toEvent(ProcInstInfoEntity procInstEntity) {
+        ProcInstStatusEventDto event = new ProcInstStatusEventDto();
+        event.setType(ProcInstStatusEventDto.TYPE_PROC_INST);
+        event.setProcInstId(procInstEntity.getId());
+        event.setStatus(procInstEntity.getStatus());
+        event.setUpdatedTime(formatDate(procInstEntity.getUpdatedTime()));
+        return event;
+    }
+
+    private ProcInstStatusEventDto toEvent(TaskNodeInstInfoEntity nodeInstEntity) {
+        ProcInstStatusEventDto event = new ProcInstStatusEventDto();
+        event.setType(ProcInstStatusEventDto.TYPE_TASK_NODE);
+        event.setProcInstId(nodeInstEntity.getProcInstId());
+        event.setNodeInstId(nodeInstEntity.getId());
+        event.setNodeId(nodeInstEntity.getNodeId());
+        event.setStatus(nodeInstEntity.getStatus());
+        event.setErrorMessage(nodeInstEntity.getErrorMessage());
+        event.setUpdatedTime(formatDate(nodeInstEntity.getUpdatedTime()));
+        return event;
+    }
+
+    private String formatDate(Date date) {
+        return date == null ? null : new SimpleDateFormat(AbstractWorkflowService.PROC_DATETIME_PATTERN).format(date);
+    }
+
+    private class StatusChannel {
+        final Integer procInstId;
+        final Deque<ProcInstStatusEventDto> retainedEvents = new ArrayDeque<>();
+        final Map<String, String> lastStatuses = new HashMap<>();
+        final List<StatusSubscriber> subscribers = new CopyOnWriteArrayList<>();
+        long baseVersion;
+        long lastVersion;
+
+        StatusChannel(Integer procInstId) {
+            this.procInstId = procInstId;
+            this.baseVersion = versionSequence.get();
+            this.lastVersion = baseVersion;
+        }
+
+        synchronized boolean publish(ProcInstStatusEventDto event) {
+            return publish(event, null);
+        }
+
+        /**
+         * Publishes the status unless it is the last one published, to every
+         * subscriber but the one whose snapshot shows it already.
+         */
+        synchronized boolean publish(ProcInstStatusEventDto event, StatusSubscriber snapshotSubscriber) {
+            String key = ProcInstStatusEventDto.TYPE_PROC_INST.equals(event.getType()) ? "p"
+                    : "n" + event.getNodeInstId();
+            String value = event.getStatus() + "|" + event.getErrorMessage();
+            if (value.equals(lastStatuses.put(key, value))) {
+                return false;
+            }
+
+            lastVersion = versionSequence.incrementAndGet();
+            event.setVersion(lastVersion);
+            event.setEventId(toEventId(lastVersion));
+            retainedEvents.addLast(event);
+            while (retainedEvents.size() > Math.max(1, workflowProperties.getStatusStreamRetainedEvents())) {
+                baseVersion = retainedEvents.removeFirst().getVersion();
+            }
+
+            for (StatusSubscriber subscriber : subscribers) {
+                if (subscriber != snapshotSubscriber) {
+                    subscriber.offer(event);
+                }
+            }
+            return true;
+        }
+
+        synchronized StatusSubscriber subscribe(SseEmitter emitter, Long fromVersion) {
+            StatusSubscriber subscriber = new StatusSubscriber(this, emitter);
+            if (fromVersion == null || fromVersion < baseVersion || fromVersion > lastVersion) {
+                subscriber.resync();
+            } else {
+                for (ProcInstStatusEventDto event : retainedEvents) {
+                    if (event.getVersion() > fromVersion) {
+                        subscriber.offer(event);
+                    }
+                }
+            }
+            subscribers.add(subscriber);
+            return subscriber;
+        }
+
+        synchronized long getLastVersion() {
+            return lastVersion;
+        }
+
+        boolean hasSubscribers() {
+            return !subscribers.isEmpty();
+        }
+
+        void closeAll() {
+            for (StatusSubscriber subscriber : subscribers) {
+                subscriber.close();
+                subscriber.emitter.complete();
+            }
+        }
+    }
+
+    private class StatusSubscriber {
+        final StatusChannel channel;
+        final SseEmitter emitter;
+        final Deque<ProcInstStatusEventDto> pendingEvents = new ArrayDeque<>();
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        boolean resyncRequired;
+        long deliveredVersion;
+        volatile boolean closed;
+
+        StatusSubscriber(StatusChannel channel, SseEmitter emitter) {
+            this.channel = channel;
+            this.emitter = emitter;
+        }
+
+        void offer(ProcInstStatusEventDto event) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+
+                if (pendingEvents.size() >= Math.max(1, workflowProperties.getStatusStreamQueueCapacity())) {
+                    if (BACKPRESSURE_DISCONNECT.equalsIgnoreCase(workflowProperties.getStatusStreamBackpressurePolicy())) {
+                        log.info("disconnected a subscriber of process instance {} lagging behind by {} events",
+                                channel.procInstId, pendingEvents.size());
+                        close();
+                        emitter.complete();
+                        return;
+                    }
+                    pendingEvents.clear();
+                    resyncRequired = true;
+                } else {
+                    pendingEvents.addLast(event);
+                }
+            }
+            schedule();
+        }
+
+        void resync() {
+            synchronized (this) {
+                pendingEvents.clear();
+                resyncRequired = true;
+            }
+            schedule();
+        }
+
+        void close() {
+            synchronized (this) {
+                closed = true;
+                pendingEvents.clear();
+            }
+            channel.subscribers.remove(this);
+        }
+
+        private void schedule() {
+            if (!scheduled.compareAndSet(false, true)) {
+                return;
+            }
+
+            try {
+                senderExecutorService.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false);
+                close();
+            }
+        }
+
+        private void drain() {
+            try {
+                while (true) {
+                    boolean resync;
+                    List<ProcInstStatusEventDto> events;
+                    synchronized (this) {
+                        if (closed || (!resyncRequired && pendingEvents.isEmpty())) {
+                            scheduled.set(false);
+                            return;
+                        }
+                        resync = resyncRequired;
+                        resyncRequired = false;
+                        events = new ArrayList<>(pendingEvents);
+                        pendingEvents.clear();
+                    }
+
+                    if (resync) {
+                        ProcInstStatusEventDto snapshot = buildSnapshot(this);
+                        send(snapshot);
+                    }
+                    for (ProcInstStatusEventDto event : events) {
+                        if (event.getVersion() > deliveredVersion) {
+                            send(event);
+                        }
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                log.debug("failed to send status events of process instance {}", channel.procInstId, e);
+                scheduled.set(false);
+                close();
+                emitter.completeWithError(e);
+            }
+        }
+
+        private void send(ProcInstStatusEventDto event) throws IOException {
+            emitter.send(SseEmitter.event().id(event.getEventId()).name(event.getType())
+                    .data(event, MediaType.APPLICATION_JSON));
+            deliveredVersion = event.getVersion();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.webank.wecube.platform.core.service.workflow;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.webank.wecube.platform.core.commons.ApplicationProperties.WorkflowProperties;
+import com.webank.wecube.platform.core.entity.workflow.GraphNodeEntity;
+import com.webank.wecube.platform.core.entity.workflow.ProcExecBindingTmpEntity;
+import com.webank.wecube.platform.core.jpa.workflow.GraphNodeRepository;
+import com.webank.wecube.platform.core.jpa.workflow.ProcExecBindingTmpRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Deletes what expired process data preview sessions leave behind.
+ *
+ * <p>
+ * Every preview writes a session of temporary bindings and graph nodes. A
+ * session is expired once it is older than previewSessionTtlMinutes. Its
+ * temporary bindings are then deleted, and so are its graph nodes unless they
+ * have been linked to a process instance started with it. Both tables are
+ * scanned in id order, previewSweepBatchSize rows at a time, and the expired
+ * sessions found in each chunk are swept in their own transaction.
+ * </p>
+ *
+ */
+@Service
+public class ProcessDataPreviewSessionService {
+    private static final Logger log = LoggerFactory.getLogger(ProcessDataPreviewSessionService.class);
+
+    public static final String SESSIONS_METRIC_NAME = "wecube.workflow.preview.sessions";
+    public static final String SWEPT_SESSIONS_METRIC_NAME = "wecube.workflow.preview.sessions.swept";
+    public static final String SWEEP_METRIC_NAME = "wecube.workflow.preview.sweep";
+
+    @Autowired
+    private WorkflowProperties workflowProperties;
+
+    @Autowired
+    private ProcExecBindingTmpRepository procExecBindingTmpRepository;
+
+    @Autowired
+    private GraphNodeRepository graphNodeRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final AtomicLong sessionCount = new AtomicLong();
+
+    private Counter sweptSessionCounter;
+
+    private Timer sweepTimer;
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder(SESSIONS_METRIC_NAME, sessionCount, AtomicLong::get) //
+                .description("Process data preview sessions, as counted by the last sweep") //
+                .register(meterRegistry);
+        sweptSessionCounter = Counter.builder(SWEPT_SESSIONS_METRIC_NAME) //
+                .description("Expired process data preview sessions swept") //
+                .register(meterRegistry);
+        sweepTimer = Timer.builder(SWEEP_METRIC_NAME) //
+                .description("Time spent sweeping expired process data preview sessions") //
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return the number of expired sessions swept
+     */
+    public int sweepExpiredSessions() {
+        long startTime = System.nanoTime();
+        Date createdBefore = new Date(System.currentTimeMillis()
+                - TimeUnit.MINUTES.toMillis(workflowProperties.getPreviewSessionTtlMinutes()));
+        int batchSize = Math.max(1, workflowProperties.getPreviewSweepBatchSize());
+
+        int swept = 0;
+        try {
+            Integer afterId = 0;
+            while (true) {
+                List<ProcExecBindingTmpEntity> bindingTmps = procExecBindingTmpRepository
+                        .findAllCreatedBefore(createdBefore, afterId, PageRequest.of(0, batchSize));
+                if (bindingTmps.isEmpty()) {
+                    break;
+                }
+
+                Set<String> sessionIds = new LinkedHashSet<>();
+                bindingTmps.forEach(b -> sessionIds.add(b.getProcSessionId()));
+                swept += sweepSessions(sessionIds);
+                afterId = bindingTmps.get(bindingTmps.size() - 1).getId();
+            }
+
+            // graph nodes whose temporary bindings are gone already
+            afterId = 0;
+            while (true) {
+                List<GraphNodeEntity> graphNodes = graphNodeRepository.findAllUnlinkedCreatedBefore(createdBefore,
+                        afterId, PageRequest.of(0, batchSize));
+                if (graphNodes.isEmpty()) {
+                    break;
+                }
+
+                Set<String> sessionIds = new LinkedHashSet<>();
+                graphNodes.forEach(n -> sessionIds.add(n.getProcessSessionId()));
+                swept += sweepSessions(sessionIds);
+                afterId = graphNodes.get(graphNodes.size() - 1).getId();
+            }
+
+            sessionCount.set(procExecBindingTmpRepository.countSessions());
+        } finally {
+            sweepTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        }
+
+        sweptSessionCounter.increment(swept);
+        return swept;
+    }
+
+    private int sweepSessions(Set<String> sessionIds) {
+        sessionIds.remove(null);
+        if (sessionIds.isEmpty()) {
+            return 0;
+        }
+
+        List<String> expiredSessionIds = new ArrayList<>(sessionIds);
+        new TransactionTemplate(transactionManager).execute(status -> {
+            // the graph nodes linked to a process instance are all it still reads
+            int deletedBindings = procExecBindingTmpRepository.deleteBySessionIds(expiredSessionIds);
+            int deletedGraphNodes = graphNodeRepository.deleteUnlinkedBySessionIds(expiredSessionIds);
+            if (log.isDebugEnabled()) {
+                log.debug("swept {} expired preview sessions, deleting {} temporary bindings and {} graph nodes",
+                        expiredSessionIds.size(), deletedBindings, deletedGraphNodes);
+            }
+            return null;
+        });
+        return expiredSessionIds.size();
+    }
+}
@@ -0,0 +1,113 @@
+package com.webank.wecube.platform.core.service.workflow;
+
+import java.util.Date;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.webank.wecube.platform.core.commons.ApplicationProperties.WorkflowProperties;
+import com.webank.wecube.platform.core.entity.workflow.TaskNodeExecCallbackEntity;
+import com.webank.wecube.platform.core.jpa.workflow.TaskNodeExecCallbackRepository;
+
+/**
+ * Deduplicates asynchronous plugin callbacks on their request id.
+ *
+ * <p>
+ * The first callback of a request inserts a PROCESSING receipt in its own
+ * transaction; the unique REQ_ID makes concurrent duplicates fail on insert.
+ * A duplicate arriving after the first one completed is answered with the
+ * original outcome, one arriving while it is still processing is rejected,
+ * and one arriving after callbackProcessingTimeoutMillis of an unfinished
+ * first callback takes it over.
+ * </p>
+ *
+ */
+@Service
+public class TaskNodeExecCallbackService {
+    private static final Logger log = LoggerFactory.getLogger(TaskNodeExecCallbackService.class);
+
+    @Autowired
+    private WorkflowProperties workflowProperties;
+
+    @Autowired
+    private TaskNodeExecCallbackRepository taskNodeExecCallbackRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Returns null if the caller now owns the callback and has to process it,
+     * otherwise the receipt of the callback received before.
+     */
+    public TaskNodeExecCallbackEntity tryAcquire(String requestId, String payloadHash) {
+        TransactionTemplate transactionTemplate = newTransactionTemplate();
+        try {
+            transactionTemplate.execute(status -> {
+                TaskNodeExecCallbackEntity receipt = new TaskNodeExecCallbackEntity();
+                receipt.setRequestId(requestId);
+                receipt.setStatus(TaskNodeExecCallbackEntity.STATUS_PROCESSING);
+                receipt.setPayloadHash(payloadHash);
+                receipt.setUpdatedTime(receipt.getCreatedTime());
+                return taskNodeExecCallbackRepository.saveAndFlush(receipt);
+            });
+            return null;
+        } catch (DataIntegrityViolationException e) {
+            log.info("callback of request {} has been received before", requestId);
+        }
+
+        return transactionTemplate.execute(status -> {
+            TaskNodeExecCallbackEntity receipt = taskNodeExecCallbackRepository.findOneByRequestId(requestId);
+            if (receipt == null) {
+                receipt = new TaskNodeExecCallbackEntity();
+                receipt.setRequestId(requestId);
+                receipt.setStatus(TaskNodeExecCallbackEntity.STATUS_PROCESSING);
+                return receipt;
+            }
+
+            if (payloadHash != null && !payloadHash.equals(receipt.getPayloadHash())) {
+                log.warn("callback of request {} differs from the one received before", requestId);
+            }
+
+            if (receipt.isCompleted()) {
+                taskNodeExecCallbackRepository.incrementReplayTimes(requestId);
+                return receipt;
+            }
+
+            Date now = new Date();
+            Date deadline = new Date(now.getTime() - workflowProperties.getCallbackProcessingTimeoutMillis());
+            if (taskNodeExecCallbackRepository.claimStaleProcessing(requestId, payloadHash, now, deadline) > 0) {
+                log.warn("callback of request {} is unfinished since {}, and is taken over", requestId,
+                        receipt.getUpdatedTime());
+                return null;
+            }
+
+            return receipt;
+        });
+    }
+
+    public void complete(String requestId, String resultCode) {
+        newTransactionTemplate().execute(
+                status -> taskNodeExecCallbackRepository.complete(requestId, resultCode, new Date()));
+    }
+
+    /**
+     * Drops the receipt of a callback whose processing failed, so that the
+     * plugin may send it again.
+     */
+    public void release(String requestId) {
+        newTransactionTemplate()
+                .execute(status -> taskNodeExecCallbackRepository.deleteProcessingByRequestId(requestId));
+    }
+
+    private TransactionTemplate newTransactionTemplate() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return transactionTemplate;
+    }
+}
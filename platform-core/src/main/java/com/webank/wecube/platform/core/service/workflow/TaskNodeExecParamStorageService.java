@@ -0,0 +1,180 @@
+package com.webank.wecube.platform.core.service.workflow;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StreamUtils;
+
+import com.webank.wecube.platform.core.commons.ApplicationProperties.WorkflowProperties;
+import com.webank.wecube.platform.core.commons.WecubeCoreException;
+import com.webank.wecube.platform.core.entity.workflow.TaskNodeExecParamBlobEntity;
+import com.webank.wecube.platform.core.entity.workflow.TaskNodeExecParamEntity;
+import com.webank.wecube.platform.core.jpa.workflow.TaskNodeExecParamBlobRepository;
+import com.webank.wecube.platform.core.jpa.workflow.TaskNodeExecParamRepository;
+
+/**
+ * Keeps large task node parameter values out of CORE_RU_TASK_NODE_EXEC_PARAM.
+ *
+ * <p>
+ * Values longer than paramOffloadThreshold characters are gzip compressed
+ * into CORE_RU_TASK_NODE_EXEC_PARAM_BLOB. The parameter row keeps a short
+ * preview, the blob id, the SHA-256 of the value and its length, and the blob
+ * is only read when the full value is asked for.
+ * </p>
+ *
+ */
+@Service
+public class TaskNodeExecParamStorageService {
+    private static final Logger log = LoggerFactory.getLogger(TaskNodeExecParamStorageService.class);
+
+    @Autowired
+    private WorkflowProperties workflowProperties;
+
+    @Autowired
+    private TaskNodeExecParamRepository taskNodeExecParamRepository;
+
+    @Autowired
+    private TaskNodeExecParamBlobRepository taskNodeExecParamBlobRepository;
+
+    public boolean isOffloadEnabled() {
+        return workflowProperties.isParamOffloadEnabled();
+    }
+
+    /**
+     * Assigns the value to the parameter entity, storing it out of row if it
+     * is too large. Must be called before the parameter entity is saved.
+     */
+    public void storeParamDataValue(TaskNodeExecParamEntity paramEntity, String value) {
+        if (value == null || !isOffloadEnabled() || value.length() <= workflowProperties.getParamOffloadThreshold()) {
+            paramEntity.setParamDataValue(value);
+            return;
+        }
+
+        offloadParamDataValue(paramEntity, value);
+    }
+
+    private void offloadParamDataValue(TaskNodeExecParamEntity paramEntity, String value) {
+        if (value.length() > workflowProperties.getParamOffloadMaxSize()) {
+            log.warn("value of parameter {} with {} characters exceeds {}, and will be trimmed",
+                    paramEntity.getParamName(), value.length(), workflowProperties.getParamOffloadMaxSize());
+            value = value.substring(0, workflowProperties.getParamOffloadMaxSize());
+        }
+
+        byte[] raw = value.getBytes(StandardCharsets.UTF_8);
+        byte[] compressed = gzip(raw);
+
+        TaskNodeExecParamBlobEntity blobEntity = new TaskNodeExecParamBlobEntity();
+        blobEntity.setContentHash(DigestUtils.sha256Hex(raw));
+        blobEntity.setCompressType(TaskNodeExecParamBlobEntity.COMPRESS_TYPE_GZIP);
+        blobEntity.setRawSize(raw.length);
+        blobEntity.setStoredSize(compressed.length);
+        blobEntity.setData(compressed);
+        taskNodeExecParamBlobRepository.save(blobEntity);
+
+        paramEntity.setParamDataRef(blobEntity.getId());
+        paramEntity.setParamDataHash(blobEntity.getContentHash());
+        paramEntity.setParamDataSize(value.length());
+        paramEntity.setParamDataValue(value.substring(0, calculatePreviewSize()));
+
+        if (log.isDebugEnabled()) {
+            log.debug("stored value of parameter {} out of row, {} bytes compressed to {}",
+                    paramEntity.getParamName(), raw.length, compressed.length);
+        }
+    }
+
+    /**
+     * Returns the full value of the parameter, reading it from the blob table
+     * if it was stored out of row.
+     */
+    public String getParamDataValue(TaskNodeExecParamEntity paramEntity) {
+        if (!paramEntity.isParamDataOffloaded()) {
+            return paramEntity.getParamDataValue();
+        }
+
+        Optional<TaskNodeExecParamBlobEntity> blobEntityOpt = taskNodeExecParamBlobRepository
+                .findById(paramEntity.getParamDataRef());
+        if (!blobEntityOpt.isPresent()) {
+            log.error("value blob {} of parameter {} does not exist", paramEntity.getParamDataRef(),
+                    paramEntity.getId());
+            throw new WecubeCoreException(
+                    String.format("Value of parameter {%s} does not exist.", paramEntity.getParamName()));
+        }
+
+        TaskNodeExecParamBlobEntity blobEntity = blobEntityOpt.get();
+        byte[] raw = gunzip(blobEntity.getData());
+        if (paramEntity.getParamDataHash() != null
+                && !paramEntity.getParamDataHash().equals(DigestUtils.sha256Hex(raw))) {
+            log.error("content hash mismatch for value blob {} of parameter {}", blobEntity.getId(),
+                    paramEntity.getId());
+            throw new WecubeCoreException(
+                    String.format("Value of parameter {%s} is corrupted.", paramEntity.getParamName()));
+        }
+
+        return new String(raw, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Moves one batch of oversized values stored inline before offloading
+     * existed, returning how many were moved.
+     */
+    @Transactional
+    public int migrateOversizedParamValues() {
+        if (!isOffloadEnabled()) {
+            return 0;
+        }
+
+        List<TaskNodeExecParamEntity> paramEntities = taskNodeExecParamRepository.findAllOversizedInlineParams(
+                workflowProperties.getParamOffloadThreshold(),
+                PageRequest.of(0, workflowProperties.getParamMigrationBatchSize()));
+
+        int migrated = 0;
+        for (TaskNodeExecParamEntity paramEntity : paramEntities) {
+            if (paramEntity.getParamDataValue() == null) {
+                continue;
+            }
+            // every selected row is moved, whatever the threshold check says,
+            // so that no row is selected again by the next batch
+            offloadParamDataValue(paramEntity, paramEntity.getParamDataValue());
+            taskNodeExecParamRepository.save(paramEntity);
+            migrated++;
+        }
+
+        return migrated;
+    }
+
+    private int calculatePreviewSize() {
+        return Math.max(0,
+                Math.min(workflowProperties.getParamPreviewSize(), workflowProperties.getParamOffloadThreshold()));
+    }
+
+    private byte[] gzip(byte[] data) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(Math.max(512, data.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bos)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new WecubeCoreException("Failed to compress parameter value.", e);
+        }
+        return bos.toByteArray();
+    }
+
+    private byte[] gunzip(byte[] data) {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return StreamUtils.copyToByteArray(gzip);
+        } catch (IOException e) {
+            throw new WecubeCoreException("Failed to decompress parameter value.", e);
+        }
+    }
+}
@@ -8,6 +8,14 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -16,7 +24,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.webank.wecube.platform.core.commons.ApplicationProperties.WorkflowProperties;
 import com.webank.wecube.platform.core.commons.AuthenticationContextHolder;
+import com.webank.wecube.platform.core.commons.AuthenticationContextHolder.AuthenticatedUser;
 import com.webank.wecube.platform.core.commons.WecubeCoreException;
 import com.webank.wecube.platform.core.domain.plugin.PluginConfigInterface;
 import com.webank.wecube.platform.core.domain.plugin.PluginConfigInterfaceParameter;
@@ -24,6 +34,7 @@ import com.webank.wecube.platform.core.dto.workflow.FlowNodeDefDto;
 import com.webank.wecube.platform.core.dto.workflow.GraphNodeDto;
 import com.webank.wecube.platform.core.dto.workflow.InterfaceParameterDto;
 import com.webank.wecube.platform.core.dto.workflow.ProcDefOutlineDto;
+import com.webank.wecube.platform.core.dto.workflow.ProcInstArchiveDto;
 import com.webank.wecube.platform.core.dto.workflow.ProcessDataPreviewDto;
 import com.webank.wecube.platform.core.dto.workflow.RequestObjectDto;
 import com.webank.wecube.platform.core.dto.workflow.TaskNodeDefObjectBindInfoDto;
@@ -38,6 +49,7 @@ import com.webank.wecube.platform.core.entity.workflow.TaskNodeInstInfoEntity;
 import com.webank.wecube.platform.core.jpa.workflow.GraphNodeRepository;
 import com.webank.wecube.platform.core.jpa.workflow.ProcDefInfoRepository;
 import com.webank.wecube.platform.core.jpa.workflow.ProcExecBindingTmpRepository;
+import com.webank.wecube.platform.core.jpa.workflow.ProcessDataPreviewRepository;
 import com.webank.wecube.platform.core.jpa.workflow.TaskNodeDefInfoRepository;
 import com.webank.wecube.platform.core.jpa.workflow.TaskNodeExecParamRepository;
 import com.webank.wecube.platform.core.jpa.workflow.TaskNodeExecRequestRepository;
@@ -70,6 +82,9 @@ public class WorkflowDataService {
 	@Autowired
 	protected TaskNodeExecParamRepository taskNodeExecParamRepository;
 
+	@Autowired
+	protected TaskNodeExecParamStorageService taskNodeExecParamStorageService;
+
 	@Autowired
 	protected TaskNodeExecRequestRepository taskNodeExecRequestRepository;
 
@@ -82,6 +97,33 @@ public class WorkflowDataService {
 	@Autowired
 	protected GraphNodeRepository graphNodeRepository;
 
+	@Autowired
+	private ProcInstArchiveService procInstArchiveService;
+
+	@Autowired
+	private ProcessDataPreviewRepository processDataPreviewRepository;
+
+	@Autowired
+	private WorkflowProperties workflowProperties;
+
+	private ExecutorService previewExecutorService;
+
+	@PostConstruct
+	public void init() {
+		AtomicInteger threadIndex = new AtomicInteger();
+		previewExecutorService = Executors.newFixedThreadPool(Math.max(1, workflowProperties.getPreviewParallelism()),
+				r -> {
+					Thread t = new Thread(r, "workflow-preview-" + threadIndex.getAndIncrement());
+					t.setDaemon(true);
+					return t;
+				});
+	}
+
+	@PreDestroy
+	public void destroy() {
+		previewExecutorService.shutdownNow();
+	}
+
 	public ProcessDataPreviewDto generateProcessDataPreviewForProcInstance(Integer procInstId) {
 		List<GraphNodeEntity> gNodeEntities = graphNodeRepository.findAllByProcInstId(procInstId);
 		ProcessDataPreviewDto result = new ProcessDataPreviewDto();
@@ -245,6 +287,11 @@ public class WorkflowDataService {
 	public TaskNodeExecContextDto getTaskNodeContextInfo(Integer procInstId, Integer nodeInstId) {
 		Optional<TaskNodeInstInfoEntity> nodeEntityOpt = taskNodeInstInfoRepository.findById(nodeInstId);
 		if (!nodeEntityOpt.isPresent()) {
+			ProcInstArchiveDto archive = procInstArchiveService.getArchivedProcInst(procInstId);
+			TaskNodeExecContextDto archivedContext = archive == null ? null : archive.findTaskNodeContext(nodeInstId);
+			if (archivedContext != null) {
+				return archivedContext;
+			}
 			throw new WecubeCoreException("Invalid node instance id:" + nodeInstId);
 		}
 
@@ -326,13 +373,14 @@ public class WorkflowDataService {
 		}
 
 		ProcessDataPreviewDto previewDto = doFetchProcessPreviewData(procDefOutline, dataId, true);
-		saveProcessDataPreview(previewDto);
 
 		return previewDto;
 
 	}
 
-	private void saveProcessDataPreview(ProcessDataPreviewDto previewDto) {
+	private void saveProcessDataPreview(ProcessDataPreviewDto previewDto,
+			List<ProcExecBindingTmpEntity> bindingTmpEntities) {
+		List<GraphNodeEntity> graphNodeEntities = new ArrayList<>();
 		for (GraphNodeDto gNode : previewDto.getEntityTreeNodes()) {
 			GraphNodeEntity entity = new GraphNodeEntity();
 			entity.setDataId(gNode.getDataId());
@@ -344,12 +392,14 @@ public class WorkflowDataService {
 			entity.setSucceedingIds(GraphNodeEntity.convertIdsListToString(gNode.getSucceedingIds()));
 			entity.setProcessSessionId(previewDto.getProcessSessionId());
 
-			graphNodeRepository.save(entity);
+			graphNodeEntities.add(entity);
 		}
+
+		processDataPreviewRepository.insertPreview(graphNodeEntities, bindingTmpEntities);
 	}
 
-	private void saveProcExecBindingTmpEntity(ProcDefOutlineDto outline, String dataId, String dataName,
-			String processSessionId) {
+	private ProcExecBindingTmpEntity buildProcExecBindingTmpEntity(ProcDefOutlineDto outline, String dataId,
+			String dataName, String processSessionId) {
 		ProcExecBindingTmpEntity procInstBindingTmpEntity = new ProcExecBindingTmpEntity();
 		procInstBindingTmpEntity.setBindType(ProcExecBindingTmpEntity.BIND_TYPE_PROC_INSTANCE);
 		procInstBindingTmpEntity.setBound(ProcExecBindingTmpEntity.BOUND);
@@ -360,16 +410,22 @@ public class WorkflowDataService {
 		procInstBindingTmpEntity.setEntityDataName(dataName);
 		procInstBindingTmpEntity.setCreatedBy(AuthenticationContextHolder.getCurrentUsername());
 
-		procExecBindingTmpRepository.save(procInstBindingTmpEntity);
+		return procInstBindingTmpEntity;
 	}
 
+	/**
+	 * The data of the task nodes is fetched concurrently, then merged and
+	 * saved in the order of the task nodes.
+	 */
 	protected ProcessDataPreviewDto doFetchProcessPreviewData(ProcDefOutlineDto outline, String dataId,
 			boolean needSaveTmp) {
 		ProcessDataPreviewDto result = new ProcessDataPreviewDto();
 
 		List<GraphNodeDto> hierarchicalEntityNodes = new ArrayList<>();
+		List<ProcExecBindingTmpEntity> bindingTmpEntities = new ArrayList<>();
 		String processSessionId = UUID.randomUUID().toString();
 
+		List<FlowNodeDefDto> taskNodeDefs = new ArrayList<>();
 		for (FlowNodeDefDto f : outline.getFlowNodes()) {
 			String nodeType = f.getNodeType();
 
@@ -377,7 +433,13 @@ public class WorkflowDataService {
 				continue;
 			}
 
-			processSingleFlowNodeDefDto(f, hierarchicalEntityNodes, dataId, processSessionId, needSaveTmp);
+			taskNodeDefs.add(f);
+		}
+
+		List<EntityTreeNodesOverview> overviews = fetchEntityLinkOverviews(taskNodeDefs, dataId);
+		for (int i = 0; i < taskNodeDefs.size(); i++) {
+			processSingleFlowNodeDefDto(taskNodeDefs.get(i), overviews.get(i), hierarchicalEntityNodes,
+					bindingTmpEntities, dataId, processSessionId, needSaveTmp);
 		}
 
 		result.addAllEntityTreeNodes(hierarchicalEntityNodes);
@@ -389,7 +451,8 @@ public class WorkflowDataService {
 			if (rootEntity != null) {
 				dataName = rootEntity.getDisplayName();
 			}
-			saveProcExecBindingTmpEntity(outline, dataId, dataName, processSessionId);
+			bindingTmpEntities.add(buildProcExecBindingTmpEntity(outline, dataId, dataName, processSessionId));
+			saveProcessDataPreview(result, bindingTmpEntities);
 		}
 
 		return result;
@@ -410,39 +473,82 @@ public class WorkflowDataService {
 		return null;
 	}
 
-	private void processSingleFlowNodeDefDto(FlowNodeDefDto f, List<GraphNodeDto> hierarchicalEntityNodes,
-			String dataId, String processSessionId, boolean needSaveTmp) {
+	private List<EntityTreeNodesOverview> fetchEntityLinkOverviews(List<FlowNodeDefDto> taskNodeDefs,
+			String dataId) {
+		AuthenticatedUser currentUser = AuthenticationContextHolder.getCurrentUser();
+		List<Future<EntityTreeNodesOverview>> futures = new ArrayList<>();
+		for (FlowNodeDefDto f : taskNodeDefs) {
+			futures.add(previewExecutorService.submit(() -> {
+				AuthenticationContextHolder.clearCurrentUser();
+				AuthenticationContextHolder.setAuthenticatedUser(currentUser);
+				try {
+					return fetchEntityLinkOverview(f, dataId);
+				} finally {
+					AuthenticationContextHolder.clearCurrentUser();
+				}
+			}));
+		}
+
+		List<EntityTreeNodesOverview> overviews = new ArrayList<>();
+		try {
+			for (Future<EntityTreeNodesOverview> future : futures) {
+				overviews.add(future.get());
+			}
+		} catch (InterruptedException e) {
+			futures.forEach(future -> future.cancel(true));
+			Thread.currentThread().interrupt();
+			throw new WecubeCoreException("Interrupted while fetching process data preview.");
+		} catch (ExecutionException e) {
+			futures.forEach(future -> future.cancel(true));
+			if (e.getCause() instanceof WecubeCoreException) {
+				throw (WecubeCoreException) e.getCause();
+			}
+			throw new WecubeCoreException("Errors while fetching process data preview.", e.getCause());
+		}
+
+		return overviews;
+	}
+
+	private EntityTreeNodesOverview fetchEntityLinkOverview(FlowNodeDefDto f, String dataId) {
 		String routineExpr = calculateDataModelExpression(f);
 
 		if (StringUtils.isBlank(routineExpr)) {
 			log.info("the routine expression is blank for {} {}", f.getNodeDefId(), f.getNodeName());
-			return;
+			return null;
 		}
 
 		log.info("About to fetch data for node {} {} with expression {} and data id {}", f.getNodeDefId(),
 				f.getNodeName(), routineExpr, dataId);
 		EntityOperationRootCondition condition = new EntityOperationRootCondition(routineExpr, dataId);
-		List<TreeNode> nodes = null;
 		try {
-			EntityTreeNodesOverview overview = standardEntityOperationService.generateEntityLinkOverview(condition);
-			nodes = overview.getHierarchicalEntityNodes();
-
-			if (needSaveTmp) {
-				saveLeafNodeEntityNodesTemporary(f, overview.getLeafNodeEntityNodes(), processSessionId);
-			}
+			return standardEntityOperationService.generateEntityLinkOverview(condition);
 		} catch (Exception e) {
 			String errMsg = String.format("Errors while fetching data for node %s %s with expr %s and data id %s", f.getNodeDefId(),
 					f.getNodeName(), routineExpr, dataId);
 			log.error(errMsg, e);
 			throw new WecubeCoreException(errMsg);
 		}
+	}
+
+	private void processSingleFlowNodeDefDto(FlowNodeDefDto f, EntityTreeNodesOverview overview,
+			List<GraphNodeDto> hierarchicalEntityNodes, List<ProcExecBindingTmpEntity> bindingTmpEntities,
+			String dataId, String processSessionId, boolean needSaveTmp) {
+		if (overview == null) {
+			return;
+		}
 
+		if (needSaveTmp) {
+			addLeafNodeEntityNodesTemporary(f, overview.getLeafNodeEntityNodes(), bindingTmpEntities,
+					processSessionId);
+		}
+
+		List<TreeNode> nodes = overview.getHierarchicalEntityNodes();
 		if (nodes == null || nodes.isEmpty()) {
-			log.warn("None data returned for {} and {}", routineExpr, dataId);
+			log.warn("None data returned for {} and {}", f.getRoutineExpression(), dataId);
 			return;
 		}
 
-		log.info("total {} records returned for {} and {}", nodes.size(), routineExpr, dataId);
+		log.info("total {} records returned for {} and {}", nodes.size(), f.getRoutineExpression(), dataId);
 
 		processTreeNodes(hierarchicalEntityNodes, nodes);
 	}
@@ -477,8 +583,8 @@ public class WorkflowDataService {
 		}
 	}
 
-	private void saveLeafNodeEntityNodesTemporary(FlowNodeDefDto f, List<TreeNode> leafNodeEntityNodes,
-			String processSessionId) {
+	private void addLeafNodeEntityNodesTemporary(FlowNodeDefDto f, List<TreeNode> leafNodeEntityNodes,
+			List<ProcExecBindingTmpEntity> bindingTmpEntities, String processSessionId) {
 		if (leafNodeEntityNodes == null) {
 			return;
 		}
@@ -500,7 +606,7 @@ public class WorkflowDataService {
 			taskNodeBinding.setOrderedNo(f.getOrderedNo());
 			taskNodeBinding.setCreatedBy(AuthenticationContextHolder.getCurrentUsername());
 
-			procExecBindingTmpRepository.save(taskNodeBinding);
+			bindingTmpEntities.add(taskNodeBinding);
 		}
 
 		return;
@@ -588,7 +694,8 @@ public class WorkflowDataService {
 				if (isSensitiveData(respParamEntity)) {
 					respParamsMap.put(respParamEntity.getParamName(), "***MASK***");
 				} else {
-					respParamsMap.put(respParamEntity.getParamName(), respParamEntity.getParamDataValue());
+					respParamsMap.put(respParamEntity.getParamName(),
+							taskNodeExecParamStorageService.getParamDataValue(respParamEntity));
 				}
 
 			}
@@ -610,7 +717,7 @@ public class WorkflowDataService {
 			if (isSensitiveData(rp)) {
 				ro.addInput(rp.getParamName(), "***MASK***");
 			} else {
-				ro.addInput(rp.getParamName(), rp.getParamDataValue());
+				ro.addInput(rp.getParamName(), taskNodeExecParamStorageService.getParamDataValue(rp));
 			}
 		}
 
@@ -37,6 +37,7 @@ import org.springframework.stereotype.Service;
 import com.webank.wecube.platform.core.commons.WecubeCoreException;
 import com.webank.wecube.platform.core.dto.workflow.ProcDefInfoDto;
 import com.webank.wecube.platform.core.dto.workflow.TaskNodeDefInfoDto;
+import com.webank.wecube.platform.core.service.workflow.ProcDefOutlineCache.FlowGraph;
 import com.webank.wecube.platform.workflow.WorkflowConstants;
 import com.webank.wecube.platform.workflow.entity.ProcessInstanceStatusEntity;
 import com.webank.wecube.platform.workflow.entity.ServiceNodeStatusEntity;
@@ -96,6 +97,9 @@ public class WorkflowEngineService {
     @Autowired
     protected TaskService taskService;
 
+    @Autowired
+    protected ProcDefOutlineCache procDefOutlineCache;
+
     private List<String> statelessNodeTypes = Arrays.asList("startEvent", "endEvent", "exclusiveGateway",
             "parallelGateway");
 
@@ -263,32 +267,23 @@ public class WorkflowEngineService {
             processDefinitionId = existProcInst.getProcessDefinitionId();
         }
 
-        ProcessDefinition procDef = getProcessDefinitionByProcId(processDefinitionId);
-
-        if (procDef == null) {
-            log.error("such process definition does not exist,procDefId={}", processDefinitionId);
-            throw new WecubeCoreException("Such process definition does not exist.");
-        }
-
-        BpmnModelInstance bpmnModel = repositoryService.getBpmnModelInstance(procDef.getId());
-
-        Collection<org.camunda.bpm.model.bpmn.instance.Process> processes = bpmnModel
-                .getModelElementsByType(org.camunda.bpm.model.bpmn.instance.Process.class);
-
-        org.camunda.bpm.model.bpmn.instance.Process process = processes.iterator().next();
+        FlowGraph flowGraph = procDefOutlineCache.getFlowGraph(processDefinitionId);
+        if (flowGraph == null) {
+            ProcessDefinition procDef = getProcessDefinitionByProcId(processDefinitionId);
 
-        Collection<StartEvent> startEvents = process.getChildElementsByType(StartEvent.class);
+            if (procDef == null) {
+                log.error("such process definition does not exist,procDefId={}", processDefinitionId);
+                throw new WecubeCoreException("Such process definition does not exist.");
+            }
 
-        StartEvent startEvent = startEvents.iterator().next();
+            flowGraph = procDefOutlineCache.putFlowGraph(readProcDefOutline(procDef));
+        }
 
-        ProcInstOutline result = new ProcInstOutline();
+        ProcInstOutline result = flowGraph.toProcInstOutline();
         result.setId(processInstanceId);
         result.setProcInstKey(procInstStatusEntity.getProcInstanceBizKey());
-        result.setProcDefKernelId(procDef.getId());
-        result.setProcDefKey(procDef.getKey());
-        result.setProcDefName(procDef.getName());
 
-        populateFlowNodeInsts(result, startEvent);
+        populateFlowNodeInstStatus(result);
         refreshFlowNodeStatus(result);
 
         return result;
@@ -357,40 +352,20 @@ public class WorkflowEngineService {
         }
     }
 
-    protected void populateFlowNodeInsts(ProcInstOutline outline, FlowNode flowNode) {
-        ProcFlowNodeInst pfn = outline.findProcFlowNodeInstByNodeId(flowNode.getId());
-        if (pfn == null) {
-            pfn = new ProcFlowNodeInst();
-            pfn.setId(flowNode.getId());
-            pfn.setNodeType(flowNode.getElementType().getTypeName());
-            pfn.setNodeName(flowNode.getName() == null ? "" : flowNode.getName());
-            outline.addNodeInsts(pfn);
-        }
+    protected void populateFlowNodeInstStatus(ProcInstOutline outline) {
+        List<ServiceNodeStatusEntity> nodeStatuses = serviceNodeStatusRepository
+                .findByProcInstanceId(outline.getId());
 
-        ServiceNodeStatusEntity nodeStatus = serviceNodeStatusRepository
-                .findOneByProcInstanceIdAndNodeId(outline.getId(), pfn.getId());
+        for (ServiceNodeStatusEntity nodeStatus : nodeStatuses) {
+            ProcFlowNodeInst pfn = outline.findProcFlowNodeInstByNodeId(nodeStatus.getNodeId());
+            if (pfn == null) {
+                continue;
+            }
 
-        if (nodeStatus != null) {
             pfn.setStartTime(nodeStatus.getStartTime());
             pfn.setEndTime(nodeStatus.getEndTime());
             pfn.setStatus(nodeStatus.getStatus().name());
         }
-
-        for (FlowNode fn : flowNode.getSucceedingNodes().list()) {
-            ProcFlowNodeInst childPfn = outline.findProcFlowNodeInstByNodeId(fn.getId());
-            if (childPfn == null) {
-                childPfn = new ProcFlowNodeInst();
-                childPfn.setId(fn.getId());
-                childPfn.setNodeType(fn.getElementType().getTypeName());
-                childPfn.setNodeName(fn.getName() == null ? "" : fn.getName());
-                outline.addNodeInsts(childPfn);
-            }
-
-            pfn.addSucceedingFlowNodes(childPfn);
-
-            populateFlowNodeInsts(outline, fn);
-        }
-
     }
 
     protected ProcessInstance getProcessInstanceByProcInstId(String processInstanceId) {
@@ -547,6 +522,15 @@ public class WorkflowEngineService {
     }
 
     public ProcDefOutline getProcDefOutline(ProcessDefinition procDef) {
+        FlowGraph flowGraph = procDefOutlineCache.getFlowGraph(procDef.getId());
+        if (flowGraph == null) {
+            flowGraph = procDefOutlineCache.putFlowGraph(readProcDefOutline(procDef));
+        }
+
+        return flowGraph.toProcDefOutline();
+    }
+
+    protected ProcDefOutline readProcDefOutline(ProcessDefinition procDef) {
         ProcDefOutline pdo = new ProcDefOutline();
         pdo.setId(procDef.getId());
         pdo.setProcDefKey(procDef.getKey());
@@ -1,6 +1,7 @@
 package com.webank.wecube.platform.core.service.workflow;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -64,6 +65,9 @@ public class WorkflowProcDefService extends AbstractWorkflowService {
 	@Autowired
 	private ProcessRoleServiceImpl processRoleService;
 
+	@Autowired
+	private ProcDefOutlineCache procDefOutlineCache;
+
 	public ProcDefInfoExportImportDto importProcessDefinition(ProcDefInfoExportImportDto importDto, String token) {
 		if (importDto == null) {
 			throw new WecubeCoreException("Invalid import data.");
@@ -73,16 +77,7 @@ public class WorkflowProcDefService extends AbstractWorkflowService {
 
 		ProcDefInfoExportImportDto result = new ProcDefInfoExportImportDto();
 
-		ProcDefInfoEntity draftEntity = new ProcDefInfoEntity();
-		draftEntity.setId(LocalIdGenerator.generateId());
-		draftEntity.setStatus(ProcDefInfoEntity.DRAFT_STATUS);
-		draftEntity.setCreatedBy(AuthenticationContextHolder.getCurrentUsername());
-
-		draftEntity.setProcDefData(importDto.getProcDefData());
-		draftEntity.setProcDefKey(importDto.getProcDefKey());
-		draftEntity.setProcDefName(importDto.getProcDefName());
-		draftEntity.setRootEntity(importDto.getRootEntity());
-		draftEntity.setUpdatedTime(currTime);
+		ProcDefInfoEntity draftEntity = buildDraftProcDefInfoEntity(importDto, currTime);
 
 		ProcDefInfoEntity savedProcDefInfoDraftEntity = processDefInfoRepo.save(draftEntity);
 		log.info("process definition saved with id:{}", savedProcDefInfoDraftEntity.getId());
@@ -100,48 +95,21 @@ public class WorkflowProcDefService extends AbstractWorkflowService {
 		result.setProcDefKey(draftEntity.getProcDefKey());
 		result.setProcDefName(draftEntity.getProcDefName());
 		result.setRootEntity(draftEntity.getRootEntity());
+		result.setPriority(draftEntity.getPriority());
 		result.setStatus(draftEntity.getStatus());
 		result.setProcDefId(draftEntity.getId());
 
 		if (importDto.getTaskNodeInfos() != null) {
 			for (TaskNodeDefInfoDto nodeDto : importDto.getTaskNodeInfos()) {
-				TaskNodeDefInfoEntity draftNodeEntity = new TaskNodeDefInfoEntity();
-				draftNodeEntity.setId(LocalIdGenerator.generateId());
-				draftNodeEntity.setStatus(TaskNodeDefInfoEntity.DRAFT_STATUS);
-
-				draftNodeEntity.setDescription(nodeDto.getDescription());
-				draftNodeEntity.setNodeId(nodeDto.getNodeId());
-				draftNodeEntity.setNodeName(nodeDto.getNodeName());
-				draftNodeEntity.setProcDefId(draftEntity.getId());
-				draftNodeEntity.setProcDefKey(draftEntity.getProcDefKey());
-				draftNodeEntity.setRoutineExpression(nodeDto.getRoutineExpression());
-				draftNodeEntity.setRoutineRaw(nodeDto.getRoutineRaw());
-				draftNodeEntity.setServiceId(nodeDto.getServiceId());
-				draftNodeEntity.setServiceName(nodeDto.getServiceName());
-				draftNodeEntity.setTimeoutExpression(nodeDto.getTimeoutExpression());
-				draftNodeEntity.setUpdatedTime(currTime);
-				draftNodeEntity.setTaskCategory(nodeDto.getTaskCategory());
+				TaskNodeDefInfoEntity draftNodeEntity = buildDraftTaskNodeDefInfoEntity(draftEntity, nodeDto,
+						currTime);
 
 				taskNodeDefInfoRepo.save(draftNodeEntity);
 
 				if (nodeDto.getParamInfos() != null && !nodeDto.getParamInfos().isEmpty()) {
 					for (TaskNodeDefParamDto nodeParamDto : nodeDto.getParamInfos()) {
-						TaskNodeParamEntity draftNodeParamEntity = new TaskNodeParamEntity();
-						draftNodeParamEntity.setId(LocalIdGenerator.generateId());
-						draftNodeParamEntity.setStatus(TaskNodeParamEntity.DRAFT_STATUS);
-
-						draftNodeParamEntity
-								.setNodeId(StringUtils.isBlank(nodeParamDto.getNodeId()) ? nodeDto.getNodeId()
-										: nodeParamDto.getNodeId());
-						draftNodeParamEntity.setBindNodeId(nodeParamDto.getBindNodeId());
-						draftNodeParamEntity.setBindParamName(nodeParamDto.getBindParamName());
-						draftNodeParamEntity.setBindParamType(nodeParamDto.getBindParamType());
-						draftNodeParamEntity.setParamName(nodeParamDto.getParamName());
-						draftNodeParamEntity.setProcDefId(draftEntity.getId());
-						draftNodeParamEntity.setTaskNodeDefId(draftNodeEntity.getId());
-						draftNodeParamEntity.setUpdatedTime(currTime);
-						draftNodeParamEntity.setBindType(nodeParamDto.getBindType());
-						draftNodeParamEntity.setBindValue(nodeParamDto.getBindValue());
+						TaskNodeParamEntity draftNodeParamEntity = buildDraftTaskNodeParamEntity(draftNodeEntity,
+								nodeParamDto, currTime);
 
 						taskNodeParamRepo.save(draftNodeParamEntity);
 
@@ -187,6 +155,7 @@ public class WorkflowProcDefService extends AbstractWorkflowService {
 		ProcDefInfoExportImportDto result = new ProcDefInfoExportImportDto();
 		result.setProcDefId(procDef.getId());
 		result.setRootEntity(procDef.getRootEntity());
+		result.setPriority(procDef.getPriority());
 		result.setStatus(procDef.getStatus());
 		result.setCreatedTime(formatDate(procDef.getCreatedTime()));
 		result.setProcDefData(procDef.getProcDefData());
@@ -194,12 +163,18 @@ public class WorkflowProcDefService extends AbstractWorkflowService {
 		result.setProcDefName(procDef.getProcDefName());
 		result.setProcDefVersion(String.valueOf(procDef.getProcDefVersion()));
 
+		// one query for the params of all the nodes rather than one per node
+		Map<String, List<TaskNodeParamEntity>> taskNodeParamEntitiesByNode = new HashMap<>();
+		for (TaskNodeParamEntity tnpe : taskNodeParamRepo.findAllByProcDefId(procDef.getId())) {
+			taskNodeParamEntitiesByNode.computeIfAbsent(tnpe.getTaskNodeDefId(), k -> new ArrayList<>()).add(tnpe);
+		}
+
 		List<TaskNodeDefInfoEntity> taskNodeDefEntities = taskNodeDefInfoRepo.findAllByProcDefId(procDef.getId());
 		for (TaskNodeDefInfoEntity nodeEntity : taskNodeDefEntities) {
 			TaskNodeDefInfoDto tdto = taskNodeDefInfoDtoFromEntity(nodeEntity);
 
-			List<TaskNodeParamEntity> taskNodeParamEntities = taskNodeParamRepo
-					.findAllByProcDefIdAndTaskNodeDefId(procDef.getId(), nodeEntity.getId());
+			List<TaskNodeParamEntity> taskNodeParamEntities = taskNodeParamEntitiesByNode
+					.getOrDefault(nodeEntity.getId(), Collections.emptyList());
 
 			for (TaskNodeParamEntity tnpe : taskNodeParamEntities) {
 				TaskNodeDefParamDto pdto = taskNodeDefParamDtoFromEntity(tnpe);
@@ -229,6 +204,8 @@ public class WorkflowProcDefService extends AbstractWorkflowService {
 
 		this.processRoleService.checkPermission(procDef.getId(), ProcRoleBindingEntity.permissionEnum.MGMT);
 
+		procDefOutlineCache.evict(procDef.getId(), procDef.getProcDefKernelId());
+
 		if (!ProcDefInfoEntity.DRAFT_STATUS.equals(procDef.getStatus())) {
 			// set NOT DRAFT_STATUS process to DELETED_STATUS, without deleting
 			// the nodes and params
@@ -294,6 +271,15 @@ public class WorkflowProcDefService extends AbstractWorkflowService {
 			throw new WecubeCoreException("Process definition ID is blank.");
 		}
 
+		ProcDefOutlineDto cachedOutline = procDefOutlineCache.getProcDefOutline(procDefId);
+		if (cachedOutline != null) {
+			// a removal on another node only evicted the outline there
+			if (ProcDefInfoEntity.DEPLOYED_STATUS.equals(processDefInfoRepo.findStatusById(procDefId))) {
+				return cachedOutline;
+			}
+			procDefOutlineCache.evict(procDefId, null);
+		}
+
 		Optional<ProcDefInfoEntity> procDefEntityOptional = processDefInfoRepo.findById(procDefId);
 		if (!procDefEntityOptional.isPresent()) {
 			log.debug("cannot find process def with id {}", procDefId);
@@ -309,6 +295,7 @@ public class WorkflowProcDefService extends AbstractWorkflowService {
 		result.setProcDefName(procDefEntity.getProcDefName());
 		result.setProcDefVersion(String.valueOf(procDefEntity.getProcDefVersion()));
 		result.setRootEntity(procDefEntity.getRootEntity());
+		result.setPriority(procDefEntity.getPriority());
 		result.setStatus(procDefEntity.getStatus());
 
 		List<TaskNodeDefInfoEntity> nodeEntities = taskNodeDefInfoRepo.findAllByProcDefId(procDefEntity.getId());
@@ -319,6 +306,11 @@ public class WorkflowProcDefService extends AbstractWorkflowService {
 			result.addFlowNodes(fDto);
 		}
 
+		// drafts may still change, deployed process definitions never do
+		if (ProcDefInfoEntity.DEPLOYED_STATUS.equals(procDefEntity.getStatus())) {
+			procDefOutlineCache.putProcDefOutline(result);
+		}
+
 		return result;
 	}
 
@@ -384,6 +376,7 @@ public class WorkflowProcDefService extends AbstractWorkflowService {
 		result.setProcDefName(procDefEntity.getProcDefName());
 		result.setProcDefVersion(String.valueOf(procDefEntity.getProcDefVersion()));
 		result.setRootEntity(procDefEntity.getRootEntity());
+		result.setPriority(procDefEntity.getPriority());
 		result.setStatus(procDefEntity.getStatus());
 		// result.setProcDefData(procDefEntity.getProcDefData());
 		result.setCreatedTime(formatDate(procDefEntity.getCreatedTime()));
@@ -391,6 +384,65 @@ public class WorkflowProcDefService extends AbstractWorkflowService {
 		return result;
 	}
 
+	ProcDefInfoEntity buildDraftProcDefInfoEntity(ProcDefInfoExportImportDto importDto, Date currTime) {
+		ProcDefInfoEntity draftEntity = new ProcDefInfoEntity();
+		draftEntity.setId(LocalIdGenerator.generateId());
+		draftEntity.setStatus(ProcDefInfoEntity.DRAFT_STATUS);
+		draftEntity.setCreatedBy(AuthenticationContextHolder.getCurrentUsername());
+
+		draftEntity.setProcDefData(importDto.getProcDefData());
+		draftEntity.setProcDefKey(importDto.getProcDefKey());
+		draftEntity.setProcDefName(importDto.getProcDefName());
+		draftEntity.setRootEntity(importDto.getRootEntity());
+		draftEntity.setPriority(importDto.getPriority());
+		draftEntity.setUpdatedTime(currTime);
+
+		return draftEntity;
+	}
+
+	TaskNodeDefInfoEntity buildDraftTaskNodeDefInfoEntity(ProcDefInfoEntity draftEntity, TaskNodeDefInfoDto nodeDto,
+			Date currTime) {
+		TaskNodeDefInfoEntity draftNodeEntity = new TaskNodeDefInfoEntity();
+		draftNodeEntity.setId(LocalIdGenerator.generateId());
+		draftNodeEntity.setStatus(TaskNodeDefInfoEntity.DRAFT_STATUS);
+
+		draftNodeEntity.setDescription(nodeDto.getDescription());
+		draftNodeEntity.setNodeId(nodeDto.getNodeId());
+		draftNodeEntity.setNodeName(nodeDto.getNodeName());
+		draftNodeEntity.setProcDefId(draftEntity.getId());
+		draftNodeEntity.setProcDefKey(draftEntity.getProcDefKey());
+		draftNodeEntity.setRoutineExpression(nodeDto.getRoutineExpression());
+		draftNodeEntity.setRoutineRaw(nodeDto.getRoutineRaw());
+		draftNodeEntity.setServiceId(nodeDto.getServiceId());
+		draftNodeEntity.setServiceName(nodeDto.getServiceName());
+		draftNodeEntity.setTimeoutExpression(nodeDto.getTimeoutExpression());
+		draftNodeEntity.setUpdatedTime(currTime);
+		draftNodeEntity.setTaskCategory(nodeDto.getTaskCategory());
+
+		return draftNodeEntity;
+	}
+
+	TaskNodeParamEntity buildDraftTaskNodeParamEntity(TaskNodeDefInfoEntity draftNodeEntity,
+			TaskNodeDefParamDto nodeParamDto, Date currTime) {
+		TaskNodeParamEntity draftNodeParamEntity = new TaskNodeParamEntity();
+		draftNodeParamEntity.setId(LocalIdGenerator.generateId());
+		draftNodeParamEntity.setStatus(TaskNodeParamEntity.DRAFT_STATUS);
+
+		draftNodeParamEntity.setNodeId(StringUtils.isBlank(nodeParamDto.getNodeId()) ? draftNodeEntity.getNodeId()
+				: nodeParamDto.getNodeId());
+		draftNodeParamEntity.setBindNodeId(nodeParamDto.getBindNodeId());
+		draftNodeParamEntity.setBindParamName(nodeParamDto.getBindParamName());
+		draftNodeParamEntity.setBindParamType(nodeParamDto.getBindParamType());
+		draftNodeParamEntity.setParamName(nodeParamDto.getParamName());
+		draftNodeParamEntity.setProcDefId(draftNodeEntity.getProcDefId());
+		draftNodeParamEntity.setTaskNodeDefId(draftNodeEntity.getId());
+		draftNodeParamEntity.setUpdatedTime(currTime);
+		draftNodeParamEntity.setBindType(nodeParamDto.getBindType());
+		draftNodeParamEntity.setBindValue(nodeParamDto.getBindValue());
+
+		return draftNodeParamEntity;
+	}
+
 	private TaskNodeDefInfoDto taskNodeDefInfoDtoFromEntity(TaskNodeDefInfoEntity e) {
 		TaskNodeDefInfoDto tdto = new TaskNodeDefInfoDto();
 		tdto.setDescription(e.getDescription());
@@ -491,6 +543,7 @@ public class WorkflowProcDefService extends AbstractWorkflowService {
 		draftEntity.setProcDefKey(procDefDto.getProcDefKey());
 		draftEntity.setProcDefName(procDefDto.getProcDefName());
 		draftEntity.setRootEntity(procDefDto.getRootEntity());
+		draftEntity.setPriority(procDefDto.getPriority());
 		draftEntity.setUpdatedTime(currTime);
 
 		ProcDefInfoEntity savedProcDefInfoDraftEntity = processDefInfoRepo.save(draftEntity);
@@ -503,6 +556,7 @@ public class WorkflowProcDefService extends AbstractWorkflowService {
 		procDefResult.setProcDefKey(draftEntity.getProcDefKey());
 		procDefResult.setProcDefName(draftEntity.getProcDefName());
 		procDefResult.setRootEntity(draftEntity.getRootEntity());
+		procDefResult.setPriority(draftEntity.getPriority());
 		procDefResult.setStatus(draftEntity.getStatus());
 
 		processDraftTaskNodeInfos(procDefDto, draftEntity, procDefResult, currTime);
@@ -716,6 +770,7 @@ public class WorkflowProcDefService extends AbstractWorkflowService {
 		procDefEntity.setProcDefData(procDefInfoDto.getProcDefData());
 		procDefEntity.setProcDefKey(procDefInfoDto.getProcDefKey());
 		procDefEntity.setRootEntity(procDefInfoDto.getRootEntity());
+		procDefEntity.setPriority(procDefInfoDto.getPriority());
 		procDefEntity.setStatus(ProcDefInfoEntity.PREDEPLOY_STATUS);
 		procDefEntity.setUpdatedTime(currTime);
 
@@ -833,6 +888,7 @@ public class WorkflowProcDefService extends AbstractWorkflowService {
 		result.setProcDefName(procDefEntity.getProcDefName());
 		result.setProcDefVersion(String.valueOf(procDef.getVersion()));
 		result.setRootEntity(procDefEntity.getRootEntity());
+		result.setPriority(procDefEntity.getPriority());
 		result.setStatus(procDefEntity.getStatus());
 
 		List<TaskNodeParamEntity> nodeParamEntities = taskNodeParamRepo.findAllByProcDefId(procDefEntity.getId());
@@ -1,21 +1,46 @@
 package com.webank.wecube.platform.core.service.workflow;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import org.apache.commons.lang3.StringUtils;
 import org.camunda.bpm.engine.runtime.ProcessInstance;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.webank.wecube.platform.core.commons.ApplicationProperties.WorkflowProperties;
 import com.webank.wecube.platform.core.commons.AuthenticationContextHolder;
+import com.webank.wecube.platform.core.commons.AuthenticationContextHolder.AuthenticatedUser;
 import com.webank.wecube.platform.core.commons.WecubeCoreException;
+import com.webank.wecube.platform.core.dto.PageInfo;
+import com.webank.wecube.platform.core.dto.Pageable;
+import com.webank.wecube.platform.core.dto.QueryResponse;
+import com.webank.wecube.platform.core.dto.workflow.BatchStartProcInstItemResultDto;
+import com.webank.wecube.platform.core.dto.workflow.BatchStartProcInstRequestDto;
+import com.webank.wecube.platform.core.dto.workflow.BatchStartProcInstResultDto;
+import com.webank.wecube.platform.core.dto.workflow.ProcInstArchiveDto;
 import com.webank.wecube.platform.core.dto.workflow.ProcInstInfoDto;
 import com.webank.wecube.platform.core.dto.workflow.ProcInstOutlineDto;
+import com.webank.wecube.platform.core.dto.workflow.ProcInstQueryRequestDto;
 import com.webank.wecube.platform.core.dto.workflow.ProceedProcInstRequestDto;
 import com.webank.wecube.platform.core.dto.workflow.StartProcInstRequestDto;
 import com.webank.wecube.platform.core.dto.workflow.TaskNodeDefObjectBindInfoDto;
@@ -25,14 +50,15 @@ import com.webank.wecube.platform.core.entity.workflow.ProcDefInfoEntity;
 import com.webank.wecube.platform.core.entity.workflow.ProcExecBindingEntity;
 import com.webank.wecube.platform.core.entity.workflow.ProcExecBindingTmpEntity;
 import com.webank.wecube.platform.core.entity.workflow.ProcInstInfoEntity;
+import com.webank.wecube.platform.core.entity.workflow.ProcRoleBindingEntity;
 import com.webank.wecube.platform.core.entity.workflow.TaskNodeDefInfoEntity;
 import com.webank.wecube.platform.core.entity.workflow.TaskNodeInstInfoEntity;
 import com.webank.wecube.platform.core.jpa.workflow.GraphNodeRepository;
 import com.webank.wecube.platform.core.jpa.workflow.ProcDefInfoRepository;
+import com.webank.wecube.platform.core.jpa.workflow.ProcExecBindingBatchRepository;
 import com.webank.wecube.platform.core.jpa.workflow.ProcExecBindingRepository;
 import com.webank.wecube.platform.core.jpa.workflow.ProcExecBindingTmpRepository;
 import com.webank.wecube.platform.core.jpa.workflow.ProcInstInfoRepository;
-import com.webank.wecube.platform.core.jpa.workflow.ProcRoleBindingRepository;
 import com.webank.wecube.platform.core.jpa.workflow.TaskNodeDefInfoRepository;
 import com.webank.wecube.platform.core.jpa.workflow.TaskNodeExecParamRepository;
 import com.webank.wecube.platform.core.jpa.workflow.TaskNodeExecRequestRepository;
@@ -73,18 +99,58 @@ public class WorkflowProcInstService extends AbstractWorkflowService {
 	@Autowired
 	private UserManagementServiceImpl userManagementService;
 
-	@Autowired
-	private ProcRoleBindingRepository procRoleBindingRepository;
-
 	@Autowired
 	private ProcExecBindingTmpRepository procExecBindingTmpRepository;
 
 	@Autowired
 	protected GraphNodeRepository graphNodeRepository;
 
+	@Autowired
+	private WorkflowStatusWriteBehindService workflowStatusWriteBehindService;
+
+	@Autowired
+	private ProcInstStatusStreamService procInstStatusStreamService;
+
+	@Autowired
+	private WorkflowDataService workflowDataService;
+
+	@Autowired
+	private ProcInstArchiveService procInstArchiveService;
+
+	@Autowired
+	private WorkflowProperties workflowProperties;
+
+	@Autowired
+	private ProcExecBindingBatchRepository procExecBindingBatchRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private ExecutorService launchExecutorService;
+
+	@PostConstruct
+	public void init() {
+		AtomicInteger threadIndex = new AtomicInteger();
+		launchExecutorService = Executors.newFixedThreadPool(Math.max(1, workflowProperties.getBulkLaunchParallelism()),
+				r -> {
+					Thread t = new Thread(r, "workflow-launch-" + threadIndex.getAndIncrement());
+					t.setDaemon(true);
+					return t;
+				});
+	}
+
+	@PreDestroy
+	public void destroy() {
+		launchExecutorService.shutdownNow();
+	}
+
 	public List<TaskNodeDefObjectBindInfoDto> getProcessInstanceExecBindings(Integer procInstId) {
 		Optional<ProcInstInfoEntity> procInstEntityOpt = procInstInfoRepository.findById(procInstId);
 		if (!procInstEntityOpt.isPresent()) {
+			ProcInstArchiveDto archive = procInstArchiveService.getArchivedProcInst(procInstId);
+			if (archive != null) {
+				return archive.getExecBindings();
+			}
 			throw new WecubeCoreException(String.format("Such entity with id [%s] does not exist.", procInstId));
 		}
 
@@ -138,6 +204,7 @@ public class WorkflowProcInstService extends AbstractWorkflowService {
 		}
 
 		ProcInstInfoEntity procInst = procInstOpt.get();
+		workflowStatusWriteBehindService.flushProcInst(procInst.getId());
 		refreshProcessInstanceStatus(procInst);
 
 		Optional<TaskNodeInstInfoEntity> nodeInstOpt = taskNodeInstInfoRepository.findById(request.getNodeInstId());
@@ -175,6 +242,7 @@ public class WorkflowProcInstService extends AbstractWorkflowService {
 				nodeInst.setUpdatedTime(new Date());
 				nodeInst.setStatus(nodeStatus);
 				taskNodeInstInfoRepository.save(nodeInst);
+				procInstStatusStreamService.publishTaskNodeStatus(nodeInst);
 			}
 		}
 	}
@@ -195,6 +263,7 @@ public class WorkflowProcInstService extends AbstractWorkflowService {
 				nie.setStatus(nodeStatus);
 				nie.setUpdatedTime(currTime);
 				taskNodeInstInfoRepository.save(nie);
+				procInstStatusStreamService.publishTaskNodeStatus(nie);
 			}
 		}
 	}
@@ -211,31 +280,51 @@ public class WorkflowProcInstService extends AbstractWorkflowService {
 	}
 
 	public List<ProcInstInfoDto> getProcessInstances() {
-		List<ProcInstInfoDto> result = new ArrayList<>();
+		ProcInstQueryRequestDto queryDto = new ProcInstQueryRequestDto();
+		queryDto.setPageable(new Pageable(0, Integer.MAX_VALUE));
+		return getProcessInstances(queryDto).getContents();
+	}
+
+	/**
+	 * Lists, newest first, the process instances of the process definitions
+	 * the current user may use, in one paged query filtered in the database.
+	 * The root bindings are fetched for the returned page only.
+	 */
+	public QueryResponse<ProcInstInfoDto> getProcessInstances(ProcInstQueryRequestDto queryDto) {
+		Pageable pageable = queryDto.getPageable() == null ? new Pageable() : queryDto.getPageable();
+		int pageSize = Math.max(1, pageable.getPageSize());
+		int pageNo = Math.max(0, pageable.getStartIndex()) / pageSize;
+		Date createdFrom = parseDate(queryDto.getStartTime());
+		Date createdTo = parseDate(queryDto.getEndTime());
+
+		QueryResponse<ProcInstInfoDto> result = new QueryResponse<>(new PageInfo(0, pageNo * pageSize, pageSize),
+				new ArrayList<>());
 		List<String> roleIdList = this.userManagementService
 				.getRoleIdsByUsername(AuthenticationContextHolder.getCurrentUsername());
 		if (roleIdList.size() == 0) {
 			return result;
 		}
 
-		List<String> procDefIds = procRoleBindingRepository.findDistinctProcIdByRoleIdsAndPermissionIsUse(roleIdList);
-		if (procDefIds.size() == 0) {
-			return result;
-		}
+		workflowStatusWriteBehindService.flushAll();
 
-		List<ProcInstInfoEntity> allProcInstEntities = new ArrayList<>();
-		for (String procDefId : procDefIds) {
-			List<ProcInstInfoEntity> procInstEntities = procInstInfoRepository.findAllByProcDefId(procDefId);
-			if (procInstEntities != null) {
-				allProcInstEntities.addAll(procInstEntities);
-			}
-		}
+		Page<ProcInstInfoEntity> procInstEntities = procInstInfoRepository.findAllUsableByRoles(roleIdList,
+				ProcRoleBindingEntity.permissionEnum.USE, StringUtils.trimToNull(queryDto.getStatus()),
+				StringUtils.trimToNull(queryDto.getProcDefId()), StringUtils.trimToNull(queryDto.getOperator()),
+				createdFrom, createdTo, PageRequest.of(pageNo, pageSize));
+		result.getPageInfo().setTotalRows((int) procInstEntities.getTotalElements());
 
-		if (allProcInstEntities.isEmpty()) {
+		if (!procInstEntities.hasContent()) {
 			return result;
 		}
 
-		for (ProcInstInfoEntity e : allProcInstEntities) {
+		List<Integer> procInstIds = new ArrayList<>();
+		procInstEntities.forEach(e -> procInstIds.add(e.getId()));
+		Map<Integer, ProcExecBindingEntity> rootBindingEntities = new HashMap<>();
+		for (ProcExecBindingEntity b : procExecBindingRepository.findAllProcInstBindingsByProcInstIds(procInstIds)) {
+			rootBindingEntities.putIfAbsent(b.getProcInstId(), b);
+		}
+
+		for (ProcInstInfoEntity e : procInstEntities) {
 			ProcInstInfoDto d = new ProcInstInfoDto();
 			d.setCreatedTime(formatDate(e.getCreatedTime()));
 			d.setId(e.getId());
@@ -246,7 +335,7 @@ public class WorkflowProcInstService extends AbstractWorkflowService {
 			d.setProcInstName(e.getProcDefName());
 			d.setProcInstKey(e.getProcInstKey());
 
-			ProcExecBindingEntity rootBindingEntity = procExecBindingRepository.findProcInstBindings(e.getId());
+			ProcExecBindingEntity rootBindingEntity = rootBindingEntities.get(e.getId());
 			if (rootBindingEntity != null) {
 				d.setEntityDataId(rootBindingEntity.getEntityDataId());
 				d.setEntityTypeId(rootBindingEntity.getEntityTypeId());
@@ -255,7 +344,7 @@ public class WorkflowProcInstService extends AbstractWorkflowService {
 								: rootBindingEntity.getEntityDataName());
 			}
 
-			result.add(d);
+			result.addContent(d);
 		}
 
 		return result;
@@ -267,8 +356,13 @@ public class WorkflowProcInstService extends AbstractWorkflowService {
 
 	public ProcInstInfoDto getProcessInstanceById(Integer id) {
 
+		workflowStatusWriteBehindService.flushProcInst(id);
 		Optional<ProcInstInfoEntity> procInstEntityOpt = procInstInfoRepository.findById(id);
 		if (!procInstEntityOpt.isPresent()) {
+			ProcInstArchiveDto archive = procInstArchiveService.getArchivedProcInst(id);
+			if (archive != null) {
+				return archive.getProcInst();
+			}
 			throw new WecubeCoreException(String.format("Such entity with id [%s] does not exist.", id));
 		}
 
@@ -286,6 +380,7 @@ public class WorkflowProcInstService extends AbstractWorkflowService {
 			if (procInstEntity.getStatus().equals(procInstOutline.getStatus())) {
 				procInstEntity.setStatus(procInstOutline.getStatus());
 				procInstInfoRepository.save(procInstEntity);
+				procInstStatusStreamService.publishProcInstStatus(procInstEntity);
 			}
 
 			List<TaskNodeInstInfoEntity> nodeInstEntities = taskNodeInstInfoRepository
@@ -296,6 +391,7 @@ public class WorkflowProcInstService extends AbstractWorkflowService {
 						&& (!pfni.getStatus().equals(nodeInstEntity.getStatus()))) {
 					nodeInstEntity.setStatus(pfni.getStatus());
 					taskNodeInstInfoRepository.save(nodeInstEntity);
+					procInstStatusStreamService.publishTaskNodeStatus(nodeInstEntity);
 				}
 			}
 		}
@@ -356,6 +452,69 @@ public class WorkflowProcInstService extends AbstractWorkflowService {
 		return result;
 	}
 
+	/**
+	 * Archives process instances completed more than archiveAfterDays ago,
+	 * archiveBatchSize at a time with a pause of archivePauseMillis in
+	 * between, and at most archiveMaxPerRun of them.
+	 * 
+	 * @return the number of process instances archived
+	 */
+	public int archiveCompletedProcessInstances() {
+		int maxCount = Math.max(0, workflowProperties.getArchiveMaxPerRun());
+		int archived = 0;
+		int attempted = 0;
+		Integer lastId = 0;
+		while (attempted < maxCount) {
+			List<Integer> procInstIds = procInstArchiveService.findArchivableProcInstIds(lastId,
+					Math.min(Math.max(1, workflowProperties.getArchiveBatchSize()), maxCount - attempted));
+			if (procInstIds.isEmpty()) {
+				break;
+			}
+
+			for (Integer procInstId : procInstIds) {
+				try {
+					if (procInstArchiveService.archiveProcInst(buildProcInstArchive(procInstId))) {
+						archived++;
+					}
+				} catch (Exception e) {
+					log.error("failed to archive process instance {}", procInstId, e);
+				}
+			}
+			attempted += procInstIds.size();
+			lastId = procInstIds.get(procInstIds.size() - 1);
+
+			if (!pauseArchiving()) {
+				break;
+			}
+		}
+
+		return archived;
+	}
+
+	private ProcInstArchiveDto buildProcInstArchive(Integer procInstId) {
+		ProcInstArchiveDto archive = new ProcInstArchiveDto();
+		archive.setProcInst(getProcessInstanceById(procInstId));
+		archive.setExecBindings(getProcessInstanceExecBindings(procInstId));
+		for (TaskNodeInstDto nodeInst : archive.getProcInst().getTaskNodeInstances()) {
+			archive.getTaskNodeContexts().add(workflowDataService.getTaskNodeContextInfo(procInstId, nodeInst.getId()));
+		}
+		return archive;
+	}
+
+	private boolean pauseArchiving() {
+		if (workflowProperties.getArchivePauseMillis() <= 0) {
+			return true;
+		}
+
+		try {
+			Thread.sleep(workflowProperties.getArchivePauseMillis());
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
 	private TaskNodeDefInfoEntity findTaskNodeDefInfoEntityByNodeDefId(List<TaskNodeDefInfoEntity> nodeDefEntities,
 			String nodeDefId) {
 		for (TaskNodeDefInfoEntity nodeDef : nodeDefEntities) {
@@ -384,6 +543,214 @@ public class WorkflowProcInstService extends AbstractWorkflowService {
 		}
 
 		String procDefId = requestDto.getProcDefId();
+		ProcDefInfoEntity procDefInfoEntity = findDeployedProcDefInfoEntity(procDefId);
+
+		String procInstKey = LocalIdGenerator.generateId();
+
+		ProcInstInfoEntity procInstInfoEntity = buildProcInstInfoEntity(procDefInfoEntity, procInstKey,
+				requestDto.getPriority());
+
+		procInstInfoRepository.save(procInstInfoEntity);
+
+		ProcExecBindingEntity procInstBindEntity = buildProcInstBindEntity(procInstInfoEntity, rootEntityTypeId,
+				rootEntityDataId, rootEntityDataName);
+		procExecBindingRepository.save(procInstBindEntity);
+
+		List<TaskNodeDefInfoEntity> taskNodeDefInfoEntities = taskNodeDefInfoRepository.findAllByProcDefId(procDefId);
+
+		for (TaskNodeDefInfoEntity taskNodeDefInfoEntity : taskNodeDefInfoEntities) {
+			processSingleTaskNodeDefInfoEntityWhenCreate(taskNodeDefInfoEntity, procInstInfoEntity, requestDto,
+					procDefId);
+		}
+
+		ProcInstInfoDto result = doCreateProcessInstance(procInstInfoEntity, procDefInfoEntity.getProcDefKernelId(),
+				procInstKey);
+
+		postHandleGraphNodes(requestDto, result);
+		return result;
+	}
+
+	/**
+	 * Creates and starts a process instance for each item of the request, all
+	 * of the same process definition.
+	 *
+	 * <p>
+	 * The process definition and its task nodes are loaded once. All instances
+	 * are created in one transaction, with their bindings inserted in batches,
+	 * and then started in the engine, bulkLaunchParallelism at a time. An
+	 * instance which cannot be prepared or started is reported in its item
+	 * without stopping the others. As with a single launch, an instance which
+	 * fails to start in the engine stays not started.
+	 * </p>
+	 */
+	public BatchStartProcInstResultDto createProcessInstances(BatchStartProcInstRequestDto requestDto) {
+		if (StringUtils.isBlank(requestDto.getProcDefId())) {
+			throw new WecubeCoreException("Process definition ID is blank.");
+		}
+
+		List<StartProcInstRequestDto> instanceRequests = requestDto.getInstances();
+		if (instanceRequests == null || instanceRequests.isEmpty()) {
+			throw new WecubeCoreException("No process instance to start.");
+		}
+
+		if (instanceRequests.size() > workflowProperties.getBulkLaunchMaxInstances()) {
+			throw new WecubeCoreException(String.format("At most %s process instances can be started at once.",
+					workflowProperties.getBulkLaunchMaxInstances()));
+		}
+
+		String procDefId = requestDto.getProcDefId();
+		ProcDefInfoEntity procDefInfoEntity = findDeployedProcDefInfoEntity(procDefId);
+		List<TaskNodeDefInfoEntity> taskNodeDefInfoEntities = taskNodeDefInfoRepository.findAllByProcDefId(procDefId);
+
+		BatchStartProcInstResultDto result = new BatchStartProcInstResultDto();
+		result.setTotal(instanceRequests.size());
+
+		List<BulkLaunchItem> launchItems = new ArrayList<>();
+		for (int i = 0; i < instanceRequests.size(); i++) {
+			StartProcInstRequestDto instanceRequest = instanceRequests.get(i);
+			BatchStartProcInstItemResultDto itemResult = new BatchStartProcInstItemResultDto();
+			itemResult.setIndex(i);
+			itemResult.setEntityTypeId(instanceRequest.getEntityTypeId());
+			itemResult.setEntityDataId(instanceRequest.getEntityDataId());
+			itemResult.setProcessSessionId(instanceRequest.getProcessSessionId());
+			result.addItem(itemResult);
+
+			instanceRequest.setProcDefId(procDefId);
+			if (StringUtils.isBlank(instanceRequest.getPriority())) {
+				instanceRequest.setPriority(requestDto.getPriority());
+			}
+
+			try {
+				launchItems.add(prepareBulkLaunchItem(instanceRequest, itemResult));
+			} catch (Exception e) {
+				log.error("errors while preparing process instance {} of bulk launch", i, e);
+				failBulkLaunchItem(itemResult, e);
+			}
+		}
+
+		if (!launchItems.isEmpty()) {
+			new TransactionTemplate(transactionManager).execute(status -> {
+				createBulkLaunchInstances(launchItems, procDefInfoEntity, taskNodeDefInfoEntities);
+				return null;
+			});
+			startBulkLaunchInstances(launchItems, procDefInfoEntity, taskNodeDefInfoEntities);
+		}
+
+		for (BatchStartProcInstItemResultDto itemResult : result.getItems()) {
+			if (BatchStartProcInstItemResultDto.STATUS_STARTED.equals(itemResult.getStatus())) {
+				result.setStarted(result.getStarted() + 1);
+			} else {
+				result.setFailed(result.getFailed() + 1);
+			}
+		}
+
+		log.info("bulk launched {} of {} instances of process definition {}", result.getStarted(),
+				result.getTotal(), procDefId);
+		return result;
+	}
+
+	private BulkLaunchItem prepareBulkLaunchItem(StartProcInstRequestDto instanceRequest,
+			BatchStartProcInstItemResultDto itemResult) {
+		BulkLaunchItem item = new BulkLaunchItem(instanceRequest, itemResult);
+
+		item.rootEntityDataName = instanceRequest.getEntityDisplayName();
+		if (StringUtils.isBlank(item.rootEntityDataName)) {
+			item.rootEntityDataName = tryCalEntityDataName(instanceRequest);
+		}
+
+		List<TaskNodeDefObjectBindInfoDto> bindInfoDtos;
+		if (StringUtils.isBlank(instanceRequest.getProcessSessionId())) {
+			bindInfoDtos = instanceRequest.getTaskNodeBinds() == null ? Collections.emptyList()
+					: instanceRequest.getTaskNodeBinds();
+		} else {
+			bindInfoDtos = pickUpAllTaskNodeDefObjectBindInfoDtosFromSession(instanceRequest.getProcessSessionId());
+		}
+
+		for (TaskNodeDefObjectBindInfoDto bindInfoDto : bindInfoDtos) {
+			if (bindInfoDto != null && bindInfoDto.getNodeDefId() != null) {
+				item.nodeBindInfos.computeIfAbsent(bindInfoDto.getNodeDefId(), k -> new ArrayList<>())
+						.add(bindInfoDto);
+			}
+		}
+
+		return item;
+	}
+
+	private void createBulkLaunchInstances(List<BulkLaunchItem> launchItems, ProcDefInfoEntity procDefInfoEntity,
+			List<TaskNodeDefInfoEntity> taskNodeDefInfoEntities) {
+		List<ProcExecBindingEntity> bindEntities = new ArrayList<>();
+		for (BulkLaunchItem item : launchItems) {
+			StartProcInstRequestDto instanceRequest = item.request;
+			ProcInstInfoEntity procInstInfoEntity = buildProcInstInfoEntity(procDefInfoEntity,
+					LocalIdGenerator.generateId(), instanceRequest.getPriority());
+			procInstInfoRepository.save(procInstInfoEntity);
+			item.procInstInfoEntity = procInstInfoEntity;
+			item.result.setProcInstId(procInstInfoEntity.getId());
+
+			bindEntities.add(buildProcInstBindEntity(procInstInfoEntity, instanceRequest.getEntityTypeId(),
+					instanceRequest.getEntityDataId(), item.rootEntityDataName));
+
+			List<TaskNodeInstInfoEntity> taskNodeInstInfoEntities = new ArrayList<>();
+			for (TaskNodeDefInfoEntity taskNodeDefInfoEntity : taskNodeDefInfoEntities) {
+				taskNodeInstInfoEntities.add(buildTaskNodeInstInfoEntity(taskNodeDefInfoEntity, procInstInfoEntity));
+			}
+			taskNodeInstInfoRepository.saveAll(taskNodeInstInfoEntities);
+
+			for (TaskNodeInstInfoEntity taskNodeInstInfoEntity : taskNodeInstInfoEntities) {
+				List<TaskNodeDefObjectBindInfoDto> bindInfoDtos = item.nodeBindInfos
+						.getOrDefault(taskNodeInstInfoEntity.getNodeDefId(), Collections.emptyList());
+				for (TaskNodeDefObjectBindInfoDto bindInfoDto : bindInfoDtos) {
+					bindEntities.add(buildTaskNodeBindEntity(procInstInfoEntity, taskNodeInstInfoEntity, bindInfoDto));
+				}
+			}
+		}
+
+		procExecBindingBatchRepository.insertAll(bindEntities);
+	}
+
+	private void startBulkLaunchInstances(List<BulkLaunchItem> launchItems, ProcDefInfoEntity procDefInfoEntity,
+			List<TaskNodeDefInfoEntity> taskNodeDefInfoEntities) {
+		AuthenticatedUser currentUser = AuthenticationContextHolder.getCurrentUser();
+		List<Future<ProcInstInfoDto>> futures = new ArrayList<>();
+		for (BulkLaunchItem item : launchItems) {
+			futures.add(launchExecutorService.submit(() -> {
+				AuthenticationContextHolder.clearCurrentUser();
+				AuthenticationContextHolder.setAuthenticatedUser(currentUser);
+				try {
+					ProcInstInfoDto procInstance = doCreateProcessInstance(item.procInstInfoEntity,
+							procDefInfoEntity.getProcDefKernelId(), item.procInstInfoEntity.getProcInstKey(),
+							taskNodeDefInfoEntities);
+					postHandleGraphNodes(item.request, procInstance);
+					return procInstance;
+				} finally {
+					AuthenticationContextHolder.clearCurrentUser();
+				}
+			}));
+		}
+
+		for (int i = 0; i < launchItems.size(); i++) {
+			BatchStartProcInstItemResultDto itemResult = launchItems.get(i).result;
+			try {
+				itemResult.setProcInstance(futures.get(i).get());
+				itemResult.setStatus(BatchStartProcInstItemResultDto.STATUS_STARTED);
+			} catch (ExecutionException e) {
+				log.error("errors while starting process instance {}", itemResult.getProcInstId(), e.getCause());
+				failBulkLaunchItem(itemResult, e.getCause());
+			} catch (InterruptedException e) {
+				futures.forEach(future -> future.cancel(true));
+				Thread.currentThread().interrupt();
+				throw new WecubeCoreException("Interrupted while starting process instances.");
+			}
+		}
+	}
+
+	private void failBulkLaunchItem(BatchStartProcInstItemResultDto itemResult, Throwable cause) {
+		itemResult.setStatus(BatchStartProcInstItemResultDto.STATUS_FAILED);
+		itemResult.setErrorMessage(
+				StringUtils.isBlank(cause.getMessage()) ? cause.getClass().getSimpleName() : cause.getMessage());
+	}
+
+	private ProcDefInfoEntity findDeployedProcDefInfoEntity(String procDefId) {
 		Optional<ProcDefInfoEntity> procDefInfoEntityOpt = processDefInfoRepository.findById(procDefId);
 
 		if (!procDefInfoEntityOpt.isPresent()) {
@@ -402,39 +769,46 @@ public class WorkflowProcInstService extends AbstractWorkflowService {
 			throw new WecubeCoreException(String.format("Invalid process definition ID:%s", procDefId));
 		}
 
-		String procInstKey = LocalIdGenerator.generateId();
+		return procDefInfoEntity;
+	}
 
+	private ProcInstInfoEntity buildProcInstInfoEntity(ProcDefInfoEntity procDefInfoEntity, String procInstKey,
+			String priority) {
 		ProcInstInfoEntity procInstInfoEntity = new ProcInstInfoEntity();
 		procInstInfoEntity.setStatus(ProcInstInfoEntity.NOT_STARTED_STATUS);
 		procInstInfoEntity.setOperator(AuthenticationContextHolder.getCurrentUsername());
-		procInstInfoEntity.setProcDefId(procDefId);
+		procInstInfoEntity.setProcDefId(procDefInfoEntity.getId());
 		procInstInfoEntity.setProcDefKey(procDefInfoEntity.getProcDefKey());
 		procInstInfoEntity.setProcDefName(procDefInfoEntity.getProcDefName());
 		procInstInfoEntity.setProcInstKey(procInstKey);
+		procInstInfoEntity.setPriority(StringUtils.isBlank(priority) ? procDefInfoEntity.getPriority() : priority);
+		return procInstInfoEntity;
+	}
 
-		procInstInfoRepository.save(procInstInfoEntity);
-
+	private ProcExecBindingEntity buildProcInstBindEntity(ProcInstInfoEntity procInstInfoEntity,
+			String rootEntityTypeId, String rootEntityDataId, String rootEntityDataName) {
 		ProcExecBindingEntity procInstBindEntity = new ProcExecBindingEntity();
 		procInstBindEntity.setBindType(ProcExecBindingEntity.BIND_TYPE_PROC_INSTANCE);
 		procInstBindEntity.setEntityTypeId(rootEntityTypeId);
 		procInstBindEntity.setEntityDataId(rootEntityDataId);
 		procInstBindEntity.setEntityDataName(rootEntityDataName);
-		procInstBindEntity.setProcDefId(procDefId);
+		procInstBindEntity.setProcDefId(procInstInfoEntity.getProcDefId());
 		procInstBindEntity.setProcInstId(procInstInfoEntity.getId());
-		procExecBindingRepository.save(procInstBindEntity);
-
-		List<TaskNodeDefInfoEntity> taskNodeDefInfoEntities = taskNodeDefInfoRepository.findAllByProcDefId(procDefId);
-
-		for (TaskNodeDefInfoEntity taskNodeDefInfoEntity : taskNodeDefInfoEntities) {
-			processSingleTaskNodeDefInfoEntityWhenCreate(taskNodeDefInfoEntity, procInstInfoEntity, requestDto,
-					procDefId);
-		}
-
-		ProcInstInfoDto result = doCreateProcessInstance(procInstInfoEntity, procDefInfoEntity.getProcDefKernelId(),
-				procInstKey);
+		return procInstBindEntity;
+	}
 
-		postHandleGraphNodes(requestDto, result);
-		return result;
+	private ProcExecBindingEntity buildTaskNodeBindEntity(ProcInstInfoEntity procInstInfoEntity,
+			TaskNodeInstInfoEntity taskNodeInstInfoEntity, TaskNodeDefObjectBindInfoDto bindInfoDto) {
+		ProcExecBindingEntity nodeBindEntity = new ProcExecBindingEntity();
+		nodeBindEntity.setBindType(ProcExecBindingEntity.BIND_TYPE_TASK_NODE_INSTANCE);
+		nodeBindEntity.setProcInstId(procInstInfoEntity.getId());
+		nodeBindEntity.setProcDefId(procInstInfoEntity.getProcDefId());
+		nodeBindEntity.setNodeDefId(bindInfoDto.getNodeDefId());
+		nodeBindEntity.setTaskNodeInstId(taskNodeInstInfoEntity.getId());
+		nodeBindEntity.setEntityTypeId(bindInfoDto.getEntityTypeId());
+		nodeBindEntity.setEntityDataId(bindInfoDto.getEntityDataId());
+		nodeBindEntity.setEntityDataName(bindInfoDto.getEntityDisplayName());
+		return nodeBindEntity;
 	}
 
 	private void processSingleTaskNodeDefInfoEntityWhenCreate(TaskNodeDefInfoEntity taskNodeDefInfoEntity,
@@ -446,15 +820,8 @@ public class WorkflowProcInstService extends AbstractWorkflowService {
 				taskNodeDefInfoEntity.getId());
 
 		for (TaskNodeDefObjectBindInfoDto bindInfoDto : bindInfoDtos) {
-			ProcExecBindingEntity nodeBindEntity = new ProcExecBindingEntity();
-			nodeBindEntity.setBindType(ProcExecBindingEntity.BIND_TYPE_TASK_NODE_INSTANCE);
-			nodeBindEntity.setProcInstId(procInstInfoEntity.getId());
-			nodeBindEntity.setProcDefId(procDefId);
-			nodeBindEntity.setNodeDefId(bindInfoDto.getNodeDefId());
-			nodeBindEntity.setTaskNodeInstId(taskNodeInstInfoEntity.getId());
-			nodeBindEntity.setEntityTypeId(bindInfoDto.getEntityTypeId());
-			nodeBindEntity.setEntityDataId(bindInfoDto.getEntityDataId());
-			nodeBindEntity.setEntityDataName(bindInfoDto.getEntityDisplayName());
+			ProcExecBindingEntity nodeBindEntity = buildTaskNodeBindEntity(procInstInfoEntity, taskNodeInstInfoEntity,
+					bindInfoDto);
 
 			procExecBindingRepository.save(nodeBindEntity);
 		}
@@ -462,6 +829,16 @@ public class WorkflowProcInstService extends AbstractWorkflowService {
 
 	private TaskNodeInstInfoEntity createTaskNodeInstInfoEntity(TaskNodeDefInfoEntity taskNodeDefInfoEntity,
 			ProcInstInfoEntity procInstInfoEntity) {
+		TaskNodeInstInfoEntity taskNodeInstInfoEntity = buildTaskNodeInstInfoEntity(taskNodeDefInfoEntity,
+				procInstInfoEntity);
+
+		taskNodeInstInfoRepository.save(taskNodeInstInfoEntity);
+
+		return taskNodeInstInfoEntity;
+	}
+
+	private TaskNodeInstInfoEntity buildTaskNodeInstInfoEntity(TaskNodeDefInfoEntity taskNodeDefInfoEntity,
+			ProcInstInfoEntity procInstInfoEntity) {
 		TaskNodeInstInfoEntity taskNodeInstInfoEntity = new TaskNodeInstInfoEntity();
 		taskNodeInstInfoEntity.setStatus(TaskNodeInstInfoEntity.NOT_STARTED_STATUS);
 		taskNodeInstInfoEntity.setNodeDefId(taskNodeDefInfoEntity.getId());
@@ -474,9 +851,6 @@ public class WorkflowProcInstService extends AbstractWorkflowService {
 		taskNodeInstInfoEntity.setProcInstKey(procInstInfoEntity.getProcInstKey());
 		taskNodeInstInfoEntity.setNodeType(taskNodeDefInfoEntity.getNodeType());
 		taskNodeInstInfoEntity.setOrderedNo(taskNodeDefInfoEntity.getOrderedNo());
-
-		taskNodeInstInfoRepository.save(taskNodeInstInfoEntity);
-
 		return taskNodeInstInfoEntity;
 	}
 
@@ -511,6 +885,12 @@ public class WorkflowProcInstService extends AbstractWorkflowService {
 
 	protected ProcInstInfoDto doCreateProcessInstance(ProcInstInfoEntity procInstInfoEntity, String processDefinitionId,
 			String procInstKey) {
+		return doCreateProcessInstance(procInstInfoEntity, processDefinitionId, procInstKey,
+				taskNodeDefInfoRepository.findAllByProcDefId(procInstInfoEntity.getProcDefId()));
+	}
+
+	protected ProcInstInfoDto doCreateProcessInstance(ProcInstInfoEntity procInstInfoEntity, String processDefinitionId,
+			String procInstKey, List<TaskNodeDefInfoEntity> nodeDefEntities) {
 		ProcessInstance processInstance = workflowEngineService.startProcessInstance(processDefinitionId, procInstKey);
 
 		Optional<ProcInstInfoEntity> existProcInstInfoEntityOpt = procInstInfoRepository
@@ -530,6 +910,7 @@ public class WorkflowProcInstService extends AbstractWorkflowService {
 		procEntity.setStatus(ProcInstInfoEntity.IN_PROGRESS_STATUS);
 
 		procInstInfoRepository.save(procEntity);
+		procInstStatusStreamService.publishProcInstStatus(procEntity);
 
 		String entityTypeId = null;
 		String entityDataId = null;
@@ -560,12 +941,10 @@ public class WorkflowProcInstService extends AbstractWorkflowService {
 				n.setUpdatedTime(now);
 				n.setStatus(TaskNodeInstInfoEntity.COMPLETED_STATUS);
 				taskNodeInstInfoRepository.save(n);
+				procInstStatusStreamService.publishTaskNodeStatus(n);
 			}
 		}
 
-		List<TaskNodeDefInfoEntity> nodeDefEntities = taskNodeDefInfoRepository
-				.findAllByProcDefId(procEntity.getProcDefId());
-
 		for (TaskNodeDefInfoEntity nodeDefEntity : nodeDefEntities) {
 			TaskNodeInstInfoEntity nodeInstEntity = findTaskNodeInstInfoEntityByTaskNodeDefId(nodeInstEntities,
 					nodeDefEntity.getId());
@@ -625,6 +1004,19 @@ public class WorkflowProcInstService extends AbstractWorkflowService {
 		List<ProcExecBindingTmpEntity> sessionBindings = this.procExecBindingTmpRepository
 				.findAllNodeBindingsByNodeAndSession(nodeDefId, requestDto.getProcessSessionId());
 
+		return toBoundTaskNodeDefObjectBindInfoDtos(sessionBindings);
+	}
+
+	private List<TaskNodeDefObjectBindInfoDto> pickUpAllTaskNodeDefObjectBindInfoDtosFromSession(
+			String processSessionId) {
+		List<ProcExecBindingTmpEntity> sessionBindings = this.procExecBindingTmpRepository
+				.findAllNodeBindingsBySession(processSessionId);
+
+		return toBoundTaskNodeDefObjectBindInfoDtos(sessionBindings);
+	}
+
+	private List<TaskNodeDefObjectBindInfoDto> toBoundTaskNodeDefObjectBindInfoDtos(
+			List<ProcExecBindingTmpEntity> sessionBindings) {
 		List<TaskNodeDefObjectBindInfoDto> result = new ArrayList<>();
 		if (sessionBindings == null || sessionBindings.isEmpty()) {
 			return result;
@@ -661,4 +1053,17 @@ public class WorkflowProcInstService extends AbstractWorkflowService {
 
 		return result;
 	}
+
+	private static class BulkLaunchItem {
+		final StartProcInstRequestDto request;
+		final BatchStartProcInstItemResultDto result;
+		final Map<String, List<TaskNodeDefObjectBindInfoDto>> nodeBindInfos = new HashMap<>();
+		String rootEntityDataName;
+		ProcInstInfoEntity procInstInfoEntity;
+
+		BulkLaunchItem(StartProcInstRequestDto request, BatchStartProcInstItemResultDto result) {
+			this.request = request;
+			this.result = result;
+		}
+	}
 }
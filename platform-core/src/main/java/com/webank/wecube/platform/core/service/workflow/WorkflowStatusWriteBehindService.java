@@ -0,0 +1,281 @@
+package com.webank.wecube.platform.core.service.workflow;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.webank.wecube.platform.core.commons.ApplicationProperties.WorkflowProperties;
+import com.webank.wecube.platform.core.commons.WecubeCoreException;
+import com.webank.wecube.platform.core.entity.workflow.ProcInstInfoEntity;
+import com.webank.wecube.platform.core.entity.workflow.TaskNodeInstInfoEntity;
+import com.webank.wecube.platform.core.jpa.workflow.ProcInstInfoRepository;
+import com.webank.wecube.platform.core.jpa.workflow.TaskNodeInstInfoRepository;
+
+/**
+ * Write-behind buffer for status changes of process and task node instances.
+ *
+ * <p>
+ * Intermediate changes are kept per instance, a later one replacing an
+ * earlier one, and written in batched updates every statusFlushIntervalMillis
+ * or as soon as statusFlushMaxPending instances are waiting. Terminal changes
+ * are saved at once, after everything still pending for the same process
+ * instance has been written, so a buffered change can never overwrite a
+ * terminal status. Readers call {@link #flushProcInst(Integer)} or
+ * {@link #flushAll()} before reading statuses to see their own changes.
+ * </p>
+ * <p>
+ * Buffered changes are lost if the process dies before they are written;
+ * terminal statuses are not.
+ * </p>
+ *
+ */
+@Service
+public class WorkflowStatusWriteBehindService {
+    private static final Logger log = LoggerFactory.getLogger(WorkflowStatusWriteBehindService.class);
+
+    private static final int MAX_IDS_PER_UPDATE = 500;
+
+    @Autowired
+    private WorkflowProperties workflowProperties;
+
+    @Autowired
+    private TaskNodeInstInfoRepository taskNodeInstInfoRepository;
+
+    @Autowired
+    private ProcInstInfoRepository procInstInfoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ProcInstStatusStreamService procInstStatusStreamService;
+
+    private final Map<Integer, PendingStatus> pendingTaskNodeStatuses = new ConcurrentHashMap<>();
+
+    private final Map<Integer, PendingStatus> pendingProcInstStatuses = new ConcurrentHashMap<>();
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /**
+     * Buffers the current status, error message and updated time of a task
+     * node instance which is not in a terminal status.
+     */
+    public void bufferTaskNodeStatus(TaskNodeInstInfoEntity nodeInstEntity) {
+        if (!workflowProperties.isStatusWriteBehindEnabled()) {
+            taskNodeInstInfoRepository.save(nodeInstEntity);
+            procInstStatusStreamService.publishTaskNodeStatus(nodeInstEntity);
+            return;
+        }
+
+        pendingTaskNodeStatuses.put(nodeInstEntity.getId(), new PendingStatus(nodeInstEntity.getProcInstId(),
+                nodeInstEntity.getStatus(), nodeInstEntity.getErrorMessage(), nodeInstEntity.getUpdatedTime()));
+        procInstStatusStreamService.publishTaskNodeStatus(nodeInstEntity);
+        flushIfFull();
+    }
+
+    /**
+     * Buffers the current status and updated time of a process instance which
+     * is not in a terminal status.
+     */
+    public void bufferProcInstStatus(ProcInstInfoEntity procInstEntity) {
+        if (!workflowProperties.isStatusWriteBehindEnabled()) {
+            procInstInfoRepository.save(procInstEntity);
+            procInstStatusStreamService.publishProcInstStatus(procInstEntity);
+            return;
+        }
+
+        pendingProcInstStatuses.put(procInstEntity.getId(), new PendingStatus(procInstEntity.getId(),
+                procInstEntity.getStatus(), null, procInstEntity.getUpdatedTime()));
+        procInstStatusStreamService.publishProcInstStatus(procInstEntity);
+        flushIfFull();
+    }
+
+    /**
+     * Saves a task node instance at once, after the pending changes of its
+     * process instance.
+     */
+    public TaskNodeInstInfoEntity saveTaskNodeStatus(TaskNodeInstInfoEntity nodeInstEntity) {
+        flushProcInst(nodeInstEntity.getProcInstId());
+        TaskNodeInstInfoEntity savedNodeInstEntity = taskNodeInstInfoRepository.save(nodeInstEntity);
+        procInstStatusStreamService.publishTaskNodeStatus(savedNodeInstEntity);
+        return savedNodeInstEntity;
+    }
+
+    /**
+     * Saves a process instance at once, after its pending changes.
+     */
+    public ProcInstInfoEntity saveProcInstStatus(ProcInstInfoEntity procInstEntity) {
+        flushProcInst(procInstEntity.getId());
+        ProcInstInfoEntity savedProcInstEntity = procInstInfoRepository.save(procInstEntity);
+        procInstStatusStreamService.publishProcInstStatus(savedProcInstEntity);
+        return savedProcInstEntity;
+    }
+
+    public int flushProcInst(Integer procInstId) {
+        if (procInstId == null || getPendingCount() == 0) {
+            return 0;
+        }
+
+        return flush(p -> procInstId.equals(p.procInstId));
+    }
+
+    public int flushAll() {
+        if (getPendingCount() == 0) {
+            return 0;
+        }
+
+        return flush(p -> true);
+    }
+
+    public int getPendingCount() {
+        return pendingTaskNodeStatuses.size() + pendingProcInstStatuses.size();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        try {
+            flushAll();
+        } catch (Exception e) {
+            log.error("failed to write {} pending statuses on shutdown", getPendingCount(), e);
+        }
+    }
+
+    private void flushIfFull() {
+        if (getPendingCount() < workflowProperties.getStatusFlushMaxPending()) {
+            return;
+        }
+
+        try {
+            flushAll();
+        } catch (WecubeCoreException e) {
+            log.warn("pending statuses are kept for the next flush");
+        }
+    }
+
+    private int flush(Predicate<PendingStatus> filter) {
+        flushLock.lock();
+        try {
+            Map<Integer, PendingStatus> nodeStatuses = drain(pendingTaskNodeStatuses, filter);
+            Map<Integer, PendingStatus> procStatuses = drain(pendingProcInstStatuses, filter);
+            if (nodeStatuses.isEmpty() && procStatuses.isEmpty()) {
+                return 0;
+            }
+
+            try {
+                // a transaction of its own, as the drained statuses must not be
+                // rolled back with the caller, nor keep rows locked after the
+                // flush lock is released
+                TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+                transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+                transactionTemplate.execute(status -> {
+                    writeTaskNodeStatuses(nodeStatuses);
+                    writeProcInstStatuses(procStatuses);
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                log.error("failed to write {} task node and {} process instance statuses", nodeStatuses.size(),
+                        procStatuses.size(), e);
+                nodeStatuses.forEach(pendingTaskNodeStatuses::putIfAbsent);
+                procStatuses.forEach(pendingProcInstStatuses::putIfAbsent);
+                throw new WecubeCoreException("Failed to write status of process instances.", e);
+            }
+
+            if (log.isDebugEnabled()) {
+                log.debug("wrote {} task node and {} process instance statuses", nodeStatuses.size(),
+                        procStatuses.size());
+            }
+            return nodeStatuses.size() + procStatuses.size();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private Map<Integer, PendingStatus> drain(Map<Integer, PendingStatus> pendingStatuses,
+            Predicate<PendingStatus> filter) {
+        Map<Integer, PendingStatus> drained = new HashMap<>();
+        Iterator<Map.Entry<Integer, PendingStatus>> iter = pendingStatuses.entrySet().iterator();
+        while (iter.hasNext()) {
+            Map.Entry<Integer, PendingStatus> entry = iter.next();
+            if (filter.test(entry.getValue()) && pendingStatuses.remove(entry.getKey(), entry.getValue())) {
+                drained.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return drained;
+    }
+
+    private void writeTaskNodeStatuses(Map<Integer, PendingStatus> nodeStatuses) {
+        for (Map.Entry<List<String>, List<Integer>> group : groupByStatus(nodeStatuses).entrySet()) {
+            Date updatedTime = latestUpdatedTime(nodeStatuses, group.getValue());
+            for (List<Integer> ids : partition(group.getValue())) {
+                taskNodeInstInfoRepository.updateStatusByIds(group.getKey().get(0), group.getKey().get(1),
+                        updatedTime, ids);
+            }
+        }
+    }
+
+    private void writeProcInstStatuses(Map<Integer, PendingStatus> procStatuses) {
+        for (Map.Entry<List<String>, List<Integer>> group : groupByStatus(procStatuses).entrySet()) {
+            Date updatedTime = latestUpdatedTime(procStatuses, group.getValue());
+            for (List<Integer> ids : partition(group.getValue())) {
+                procInstInfoRepository.updateStatusByIds(group.getKey().get(0), updatedTime, ids);
+            }
+        }
+    }
+
+    private Map<List<String>, List<Integer>> groupByStatus(Map<Integer, PendingStatus> pendingStatuses) {
+        Map<List<String>, List<Integer>> groups = new HashMap<>();
+        pendingStatuses.forEach((id, p) -> groups
+                .computeIfAbsent(Arrays.asList(p.status, p.errorMessage), k -> new ArrayList<>()).add(id));
+        return groups;
+    }
+
+    private Date latestUpdatedTime(Map<Integer, PendingStatus> pendingStatuses, List<Integer> ids) {
+        Date latest = null;
+        for (Integer id : ids) {
+            Date updatedTime = pendingStatuses.get(id).updatedTime;
+            if (updatedTime != null && (latest == null || updatedTime.after(latest))) {
+                latest = updatedTime;
+            }
+        }
+        return latest == null ? new Date() : latest;
+    }
+
+    private List<List<Integer>> partition(List<Integer> ids) {
+        List<List<Integer>> parts = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += MAX_IDS_PER_UPDATE) {
+            parts.add(ids.subList(i, Math.min(ids.size(), i + MAX_IDS_PER_UPDATE)));
+        }
+        return parts;
+    }
+
+    private static class PendingStatus {
+        final Integer procInstId;
+        final String status;
+        final String errorMessage;
+        final Date updatedTime;
+
+        PendingStatus(Integer procInstId, String status, String errorMessage, Date updatedTime) {
+            this.procInstId = procInstId;
+            this.status = status;
+            this.errorMessage = errorMessage;
+            this.updatedTime = updatedTime;
+        }
+    }
+}
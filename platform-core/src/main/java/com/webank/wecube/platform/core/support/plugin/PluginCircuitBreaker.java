@@ -0,0 +1,193 @@
+package com.webank.wecube.platform.core.support.plugin;
+
+/**
+ * Count based circuit breaker for one plugin instance.
+ *
+ * <p>
+ * Outcomes of the latest windowSize calls are kept in a ring. A call counts
+ * as failed when it throws or takes longer than slowCallDurationMillis. Once
+ * at least minimumCalls are recorded and the failed ratio reaches
+ * failureRateThreshold, the breaker opens and rejects calls for
+ * openDurationMillis. It then lets halfOpenPermittedCalls probes through and
+ * closes again only if all of them succeed.
+ * </p>
+ *
+ */
+public class PluginCircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN;
+    }
+
+    public interface StateChangeListener {
+        void onStateChange(PluginCircuitBreaker breaker, State fromState, State toState);
+    }
+
+    private final String key;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long slowCallDurationMillis;
+    private final long openDurationMillis;
+    private final int halfOpenPermittedCalls;
+
+    private final boolean[] outcomes;
+    private int outcomeIndex;
+    private int outcomeCount;
+    private int failureCount;
+
+    private State state = State.CLOSED;
+    private long openedTime;
+    private int halfOpenAcquiredCalls;
+    private int halfOpenSucceededCalls;
+
+    private long totalCalls;
+    private long totalFailures;
+    private long totalRejections;
+
+    private StateChangeListener stateChangeListener;
+
+    public PluginCircuitBreaker(String key, int windowSize, int minimumCalls, int failureRateThreshold,
+            long slowCallDurationMillis, long openDurationMillis, int halfOpenPermittedCalls) {
+        this.key = key;
+        this.windowSize = Math.max(1, windowSize);
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, this.windowSize));
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallDurationMillis = slowCallDurationMillis;
+        this.openDurationMillis = openDurationMillis;
+        this.halfOpenPermittedCalls = Math.max(1, halfOpenPermittedCalls);
+        this.outcomes = new boolean[this.windowSize];
+    }
+
+    public synchronized boolean tryAcquire(long now) {
+        if (state == State.OPEN) {
+            if (now - openedTime < openDurationMillis) {
+                totalRejections++;
+                return false;
+            }
+            transitTo(State.HALF_OPEN, now);
+        }
+
+        if (state == State.HALF_OPEN) {
+            if (halfOpenAcquiredCalls >= halfOpenPermittedCalls) {
+                totalRejections++;
+                return false;
+            }
+            halfOpenAcquiredCalls++;
+        }
+
+        return true;
+    }
+
+    public synchronized void onSuccess(long durationMillis, long now) {
+        onResult(slowCallDurationMillis > 0 && durationMillis > slowCallDurationMillis, now);
+    }
+
+    public synchronized void onFailure(long durationMillis, long now) {
+        onResult(true, now);
+    }
+
+    private void onResult(boolean failed, long now) {
+        totalCalls++;
+        if (failed) {
+            totalFailures++;
+        }
+
+        if (state == State.HALF_OPEN) {
+            if (failed) {
+                transitTo(State.OPEN, now);
+                return;
+            }
+
+            halfOpenSucceededCalls++;
+            if (halfOpenSucceededCalls >= halfOpenPermittedCalls) {
+                transitTo(State.CLOSED, now);
+            }
+            return;
+        }
+
+        if (state == State.OPEN) {
+            return;
+        }
+
+        recordOutcome(failed);
+        if (outcomeCount >= minimumCalls && getFailureRate() >= failureRateThreshold) {
+            transitTo(State.OPEN, now);
+        }
+    }
+
+    private void recordOutcome(boolean failed) {
+        if (outcomeCount == windowSize) {
+            if (outcomes[outcomeIndex]) {
+                failureCount--;
+            }
+        } else {
+            outcomeCount++;
+        }
+
+        outcomes[outcomeIndex] = failed;
+        if (failed) {
+            failureCount++;
+        }
+        outcomeIndex = (outcomeIndex + 1) % windowSize;
+    }
+
+    private void transitTo(State toState, long now) {
+        State fromState = this.state;
+        this.state = toState;
+
+        if (toState == State.OPEN) {
+            openedTime = now;
+        }
+
+        halfOpenAcquiredCalls = 0;
+        halfOpenSucceededCalls = 0;
+        outcomeIndex = 0;
+        outcomeCount = 0;
+        failureCount = 0;
+
+        if (stateChangeListener != null && fromState != toState) {
+            stateChangeListener.onStateChange(this, fromState, toState);
+        }
+    }
+
+    public synchronized void reset(long now) {
+        transitTo(State.CLOSED, now);
+    }
+
+    public synchronized int getFailureRate() {
+        if (outcomeCount == 0) {
+            return 0;
+        }
+        return failureCount * 100 / outcomeCount;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized long getOpenedTime() {
+        return openedTime;
+    }
+
+    public synchronized long getTotalCalls() {
+        return totalCalls;
+    }
+
+    public synchronized long getTotalFailures() {
+        return totalFailures;
+    }
+
+    public synchronized long getTotalRejections() {
+        return totalRejections;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setStateChangeListener(StateChangeListener stateChangeListener) {
+        this.stateChangeListener = stateChangeListener;
+    }
+
+}
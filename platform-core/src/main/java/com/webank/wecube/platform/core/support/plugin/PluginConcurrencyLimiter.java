@@ -0,0 +1,95 @@
+package com.webank.wecube.platform.core.support.plugin;
+
+/**
+ * AIMD concurrency limiter for one plugin instance.
+ *
+ * <p>
+ * The limit grows by one for every limit calls that succeed faster than
+ * latencyThresholdMillis and is multiplied by backoffRatio whenever a call
+ * fails or exceeds the threshold. Callers wait up to a timeout for a free
+ * slot before being rejected.
+ * </p>
+ *
+ */
+public class PluginConcurrencyLimiter {
+
+    private final String key;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdMillis;
+    private final double backoffRatio;
+
+    private double limit;
+    private int inFlight;
+    private long totalRejections;
+
+    public PluginConcurrencyLimiter(String key, int initialLimit, int minLimit, int maxLimit,
+            long latencyThresholdMillis, double backoffRatio) {
+        this.key = key;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.latencyThresholdMillis = latencyThresholdMillis;
+        this.backoffRatio = backoffRatio;
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+    }
+
+    public synchronized boolean tryAcquire(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (inFlight >= getLimit()) {
+            long waitMillis = deadline - System.currentTimeMillis();
+            if (waitMillis <= 0) {
+                totalRejections++;
+                return false;
+            }
+            wait(waitMillis);
+        }
+
+        inFlight++;
+        return true;
+    }
+
+    public synchronized void onSuccess(long durationMillis) {
+        if (latencyThresholdMillis > 0 && durationMillis > latencyThresholdMillis) {
+            decrease();
+        } else {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+        release();
+    }
+
+    public synchronized void onFailure(long durationMillis) {
+        decrease();
+        release();
+    }
+
+    /**
+     * Gives the slot back without adjusting the limit, for calls that never
+     * reached the plugin.
+     */
+    public synchronized void release() {
+        if (inFlight > 0) {
+            inFlight--;
+        }
+        notifyAll();
+    }
+
+    private void decrease() {
+        limit = Math.max(minLimit, limit * backoffRatio);
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized long getTotalRejections() {
+        return totalRejections;
+    }
+
+    public String getKey() {
+        return key;
+    }
+}
@@ -0,0 +1,179 @@
+package com.webank.wecube.platform.core.support.plugin;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.webank.wecube.platform.core.commons.ApplicationProperties.PluginInvocationProperties;
+import com.webank.wecube.platform.core.domain.plugin.PluginInstance;
+
+/**
+ * Client side load balancing across running instances of a plugin package,
+ * used when plugins are invoked directly instead of through the gateway.
+ *
+ * <p>
+ * Instance health is learned from call outcomes. An instance failing
+ * instanceEjectionConsecutiveFailures times in a row is skipped for
+ * instanceEjectionDurationMillis unless no other instance is left.
+ * </p>
+ *
+ */
+@Component
+public class PluginInstanceLoadBalancer {
+    private static final Logger log = LoggerFactory.getLogger(PluginInstanceLoadBalancer.class);
+
+    public static final String STRATEGY_ROUND_ROBIN = "round-robin";
+    public static final String STRATEGY_LEAST_OUTSTANDING = "least-outstanding";
+    public static final String STRATEGY_WEIGHTED = "weighted";
+
+    private static final double HEALTH_SCORE_DECAY = 0.8;
+    private static final double MIN_HEALTH_SCORE = 0.05;
+
+    @Autowired
+    private PluginInvocationProperties pluginInvocationProperties;
+
+    private final Map<String, AtomicInteger> roundRobinCounters = new ConcurrentHashMap<>();
+
+    private final Map<String, InstanceStats> instanceStats = new ConcurrentHashMap<>();
+
+    public PluginInstance choose(String pluginPackageName, List<PluginInstance> instances) {
+        if (instances == null || instances.isEmpty()) {
+            return null;
+        }
+
+        if (instances.size() == 1) {
+            return instances.get(0);
+        }
+
+        long now = System.currentTimeMillis();
+        List<PluginInstance> candidates = new ArrayList<>();
+        for (PluginInstance instance : instances) {
+            if (!getInstanceStats(asInstanceAddress(instance)).isEjected(now)) {
+                candidates.add(instance);
+            }
+        }
+
+        if (candidates.isEmpty()) {
+            log.warn("all instances of {} are ejected, choosing among all of them", pluginPackageName);
+            candidates = instances;
+        }
+
+        String strategy = pluginInvocationProperties.getLoadBalanceStrategy();
+        if (STRATEGY_LEAST_OUTSTANDING.equalsIgnoreCase(strategy)) {
+            return chooseLeastOutstanding(candidates);
+        }
+
+        if (STRATEGY_WEIGHTED.equalsIgnoreCase(strategy)) {
+            return chooseWeighted(candidates);
+        }
+
+        return chooseRoundRobin(pluginPackageName, candidates);
+    }
+
+    public void onStart(String instanceAddress) {
+        getInstanceStats(instanceAddress).outstanding.incrementAndGet();
+    }
+
+    public void onComplete(String instanceAddress, boolean success) {
+        InstanceStats stats = getInstanceStats(instanceAddress);
+        stats.outstanding.decrementAndGet();
+        if (success) {
+            stats.onSuccess();
+        } else {
+            stats.onFailure(System.currentTimeMillis(),
+                    pluginInvocationProperties.getInstanceEjectionConsecutiveFailures(),
+                    pluginInvocationProperties.getInstanceEjectionDurationMillis());
+        }
+    }
+
+    public String asInstanceAddress(PluginInstance instance) {
+        return String.format("%s:%s", instance.getHost(), instance.getPort());
+    }
+
+    private PluginInstance chooseRoundRobin(String pluginPackageName, List<PluginInstance> candidates) {
+        AtomicInteger counter = roundRobinCounters.computeIfAbsent(pluginPackageName, k -> new AtomicInteger());
+        int index = (counter.getAndIncrement() & Integer.MAX_VALUE) % candidates.size();
+        return candidates.get(index);
+    }
+
+    private PluginInstance chooseLeastOutstanding(List<PluginInstance> candidates) {
+        PluginInstance chosen = null;
+        int minOutstanding = Integer.MAX_VALUE;
+        int ties = 0;
+        for (PluginInstance instance : candidates) {
+            int outstanding = getInstanceStats(asInstanceAddress(instance)).outstanding.get();
+            if (outstanding < minOutstanding) {
+                minOutstanding = outstanding;
+                chosen = instance;
+                ties = 1;
+            } else if (outstanding == minOutstanding) {
+                ties++;
+                if (ThreadLocalRandom.current().nextInt(ties) == 0) {
+                    chosen = instance;
+                }
+            }
+        }
+        return chosen;
+    }
+
+    private PluginInstance chooseWeighted(List<PluginInstance> candidates) {
+        double[] weights = new double[candidates.size()];
+        double totalWeight = 0;
+        for (int i = 0; i < candidates.size(); i++) {
+            InstanceStats stats = getInstanceStats(asInstanceAddress(candidates.get(i)));
+            weights[i] = stats.getHealthScore() / (1 + stats.outstanding.get());
+            totalWeight += weights[i];
+        }
+
+        double r = ThreadLocalRandom.current().nextDouble() * totalWeight;
+        for (int i = 0; i < weights.length; i++) {
+            r -= weights[i];
+            if (r < 0) {
+                return candidates.get(i);
+            }
+        }
+        return candidates.get(candidates.size() - 1);
+    }
+
+    private InstanceStats getInstanceStats(String instanceAddress) {
+        return instanceStats.computeIfAbsent(instanceAddress, k -> new InstanceStats());
+    }
+
+    private static class InstanceStats {
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private int consecutiveFailures;
+        private long ejectedUntil;
+        private double healthScore = 1.0;
+
+        synchronized boolean isEjected(long now) {
+            return ejectedUntil > now;
+        }
+
+        synchronized double getHealthScore() {
+            return healthScore;
+        }
+
+        synchronized void onSuccess() {
+            consecutiveFailures = 0;
+            ejectedUntil = 0;
+            healthScore = healthScore * HEALTH_SCORE_DECAY + (1 - HEALTH_SCORE_DECAY);
+        }
+
+        synchronized void onFailure(long now, int ejectionConsecutiveFailures, long ejectionDurationMillis) {
+            consecutiveFailures++;
+            healthScore = Math.max(MIN_HEALTH_SCORE, healthScore * HEALTH_SCORE_DECAY);
+            if (ejectionConsecutiveFailures > 0 && consecutiveFailures >= ejectionConsecutiveFailures) {
+                ejectedUntil = now + ejectionDurationMillis;
+                consecutiveFailures = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.webank.wecube.platform.core.support.plugin;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.webank.wecube.platform.core.commons.ApplicationProperties.PluginInvocationProperties;
+import com.webank.wecube.platform.core.dto.PluginInvocationGuardStateDto;
+import com.webank.wecube.platform.core.dto.PluginInvocationGuardStateDto.StateChangeDto;
+import com.webank.wecube.platform.core.support.plugin.PluginCircuitBreaker.State;
+
+/**
+ * Circuit breakers and concurrency limiters in front of plugin invocations,
+ * keyed by plugin package name and instance address.
+ *
+ */
+@Service
+public class PluginInvocationGuard {
+    private static final Logger log = LoggerFactory.getLogger(PluginInvocationGuard.class);
+
+    private static final int MAX_STATE_CHANGE_RECORDS = 200;
+
+    @Autowired
+    private PluginInvocationProperties pluginInvocationProperties;
+
+    private final Map<String, PluginCircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+    private final Map<String, PluginConcurrencyLimiter> concurrencyLimiters = new ConcurrentHashMap<>();
+
+    private final LinkedList<StateChangeDto> stateChanges = new LinkedList<>();
+
+    /**
+     * Acquires a permit for one call. The returned permit must be completed
+     * with either onSuccess or onFailure.
+     */
+    public Permit acquire(String pluginPackageName, String instanceAddress) {
+        String key = buildKey(pluginPackageName, instanceAddress);
+
+        PluginConcurrencyLimiter concurrencyLimiter = null;
+        if (pluginInvocationProperties.isConcurrencyLimitEnabled()) {
+            concurrencyLimiter = concurrencyLimiters.computeIfAbsent(key, this::createConcurrencyLimiter);
+            boolean acquired = false;
+            try {
+                acquired = concurrencyLimiter
+                        .tryAcquire(pluginInvocationProperties.getConcurrencyLimitAcquireTimeoutMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (!acquired) {
+                log.warn("plugin invocation rejected by concurrency limiter {},limit:{}", key,
+                        concurrencyLimiter.getLimit());
+                throw new PluginInvocationRejectedException(
+                        String.format("Plugin [%s] is overloaded, concurrency limit %s reached. Please retry later.",
+                                key, concurrencyLimiter.getLimit()));
+            }
+        }
+
+        PluginCircuitBreaker circuitBreaker = null;
+        if (pluginInvocationProperties.isCircuitBreakerEnabled()) {
+            circuitBreaker = circuitBreakers.computeIfAbsent(key, this::createCircuitBreaker);
+            if (!circuitBreaker.tryAcquire(System.currentTimeMillis())) {
+                if (concurrencyLimiter != null) {
+                    concurrencyLimiter.release();
+                }
+                log.warn("plugin invocation rejected by circuit breaker {},state:{}", key, circuitBreaker.getState());
+                throw new PluginInvocationRejectedException(String.format(
+                        "Plugin [%s] is unavailable, circuit breaker is %s. Please retry later.", key,
+                        circuitBreaker.getState()));
+            }
+        }
+
+        return new Permit(circuitBreaker, concurrencyLimiter);
+    }
+
+    public List<PluginInvocationGuardStateDto> getStates() {
+        Map<String, PluginInvocationGuardStateDto> states = new TreeMap<>();
+        for (PluginCircuitBreaker circuitBreaker : circuitBreakers.values()) {
+            PluginInvocationGuardStateDto dto = states.computeIfAbsent(circuitBreaker.getKey(), this::newStateDto);
+            dto.setCircuitBreakerState(circuitBreaker.getState().name());
+            dto.setFailureRate(circuitBreaker.getFailureRate());
+            dto.setOpenedTime(circuitBreaker.getOpenedTime());
+            dto.setTotalCalls(circuitBreaker.getTotalCalls());
+            dto.setTotalFailures(circuitBreaker.getTotalFailures());
+            dto.setCircuitBreakerRejections(circuitBreaker.getTotalRejections());
+        }
+
+        for (PluginConcurrencyLimiter concurrencyLimiter : concurrencyLimiters.values()) {
+            PluginInvocationGuardStateDto dto = states.computeIfAbsent(concurrencyLimiter.getKey(),
+                    this::newStateDto);
+            dto.setConcurrencyLimit(concurrencyLimiter.getLimit());
+            dto.setInFlight(concurrencyLimiter.getInFlight());
+            dto.setConcurrencyLimitRejections(concurrencyLimiter.getTotalRejections());
+        }
+
+        return new ArrayList<>(states.values());
+    }
+
+    public List<StateChangeDto> getStateChanges() {
+        synchronized (stateChanges) {
+            return new ArrayList<>(stateChanges);
+        }
+    }
+
+    public boolean resetCircuitBreaker(String key) {
+        PluginCircuitBreaker circuitBreaker = circuitBreakers.get(key);
+        if (circuitBreaker == null) {
+            return false;
+        }
+
+        circuitBreaker.reset(System.currentTimeMillis());
+        return true;
+    }
+
+    private PluginInvocationGuardStateDto newStateDto(String key) {
+        PluginInvocationGuardStateDto dto = new PluginInvocationGuardStateDto();
+        dto.setKey(key);
+        return dto;
+    }
+
+    private PluginCircuitBreaker createCircuitBreaker(String key) {
+        PluginInvocationProperties p = pluginInvocationProperties;
+        PluginCircuitBreaker circuitBreaker = new PluginCircuitBreaker(key, p.getCircuitBreakerWindowSize(),
+                p.getCircuitBreakerMinimumCalls(), p.getCircuitBreakerFailureRateThreshold(),
+                p.getCircuitBreakerSlowCallDurationMillis(), p.getCircuitBreakerOpenDurationMillis(),
+                p.getCircuitBreakerHalfOpenPermittedCalls());
+        circuitBreaker.setStateChangeListener(this::onStateChange);
+        return circuitBreaker;
+    }
+
+    private PluginConcurrencyLimiter createConcurrencyLimiter(String key) {
+        PluginInvocationProperties p = pluginInvocationProperties;
+        return new PluginConcurrencyLimiter(key, p.getConcurrencyLimitInitial(), p.getConcurrencyLimitMin(),
+                p.getConcurrencyLimitMax(), p.getConcurrencyLimitLatencyThresholdMillis(),
+                p.getConcurrencyLimitBackoffRatio());
+    }
+
+    private void onStateChange(PluginCircuitBreaker circuitBreaker, State fromState, State toState) {
+        log.warn("circuit breaker {} changed from {} to {}", circuitBreaker.getKey(), fromState, toState);
+        synchronized (stateChanges) {
+            stateChanges.addFirst(new StateChangeDto(circuitBreaker.getKey(), fromState.name(), toState.name(),
+                    System.currentTimeMillis()));
+            while (stateChanges.size() > MAX_STATE_CHANGE_RECORDS) {
+                stateChanges.removeLast();
+            }
+        }
+    }
+
+    private String buildKey(String pluginPackageName, String instanceAddress) {
+        return pluginPackageName + "@" + instanceAddress;
+    }
+
+    public static class Permit {
+        private final PluginCircuitBreaker circuitBreaker;
+        private final PluginConcurrencyLimiter concurrencyLimiter;
+        private final long startTime = System.currentTimeMillis();
+
+        Permit(PluginCircuitBreaker circuitBreaker, PluginConcurrencyLimiter concurrencyLimiter) {
+            this.circuitBreaker = circuitBreaker;
+            this.concurrencyLimiter = concurrencyLimiter;
+        }
+
+        public void onSuccess() {
+            long now = System.currentTimeMillis();
+            if (circuitBreaker != null) {
+                circuitBreaker.onSuccess(now - startTime, now);
+            }
+            if (concurrencyLimiter != null) {
+                concurrencyLimiter.onSuccess(now - startTime);
+            }
+        }
+
+        public void onFailure() {
+            long now = System.currentTimeMillis();
+            if (circuitBreaker != null) {
+                circuitBreaker.onFailure(now - startTime, now);
+            }
+            if (concurrencyLimiter != null) {
+                concurrencyLimiter.onFailure(now - startTime);
+            }
+        }
+    }
+}
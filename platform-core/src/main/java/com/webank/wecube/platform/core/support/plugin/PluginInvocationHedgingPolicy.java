@@ -0,0 +1,107 @@
+package com.webank.wecube.platform.core.support.plugin;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.webank.wecube.platform.core.commons.ApplicationProperties.PluginInvocationProperties;
+
+/**
+ * Decides when a duplicate request may be sent for an idempotent plugin
+ * interface.
+ *
+ * <p>
+ * The hedge delay is the configured percentile of recent latencies of the
+ * interface. Hedges are paid from a global budget which every primary call
+ * refills by hedgeBudgetRatio, so hedging adds at most that ratio of extra
+ * calls on top of a small burst of hedgeBudgetMaxTokens.
+ * </p>
+ *
+ */
+@Component
+public class PluginInvocationHedgingPolicy {
+
+    @Autowired
+    private PluginInvocationProperties pluginInvocationProperties;
+
+    private final Map<String, LatencyWindow> latencyWindows = new ConcurrentHashMap<>();
+
+    private double budgetTokens;
+
+    private long totalHedges;
+
+    /**
+     * Returns the delay after which the call should be hedged, or -1 while
+     * too few latencies are known.
+     */
+    public long getHedgeDelayMillis(String key) {
+        LatencyWindow window = latencyWindows.get(key);
+        if (window == null) {
+            return -1;
+        }
+
+        long percentileMillis = window.percentile(pluginInvocationProperties.getHedgeDelayPercentile(),
+                pluginInvocationProperties.getHedgeMinSamples());
+        if (percentileMillis < 0) {
+            return -1;
+        }
+
+        return Math.max(pluginInvocationProperties.getHedgeMinDelayMillis(), percentileMillis);
+    }
+
+    public void recordLatency(String key, long latencyMillis) {
+        latencyWindows.computeIfAbsent(key, k -> new LatencyWindow(pluginInvocationProperties.getHedgeWindowSize()))
+                .add(latencyMillis);
+    }
+
+    public synchronized void onPrimaryCall() {
+        budgetTokens = Math.min(pluginInvocationProperties.getHedgeBudgetMaxTokens(),
+                budgetTokens + pluginInvocationProperties.getHedgeBudgetRatio());
+    }
+
+    public synchronized boolean tryAcquireHedge() {
+        if (budgetTokens < 1) {
+            return false;
+        }
+
+        budgetTokens -= 1;
+        totalHedges++;
+        return true;
+    }
+
+    public synchronized long getTotalHedges() {
+        return totalHedges;
+    }
+
+    private static class LatencyWindow {
+        private final long[] samples;
+        private int index;
+        private int count;
+
+        LatencyWindow(int size) {
+            this.samples = new long[Math.max(1, size)];
+        }
+
+        synchronized void add(long latencyMillis) {
+            samples[index] = latencyMillis;
+            index = (index + 1) % samples.length;
+            if (count < samples.length) {
+                count++;
+            }
+        }
+
+        synchronized long percentile(int percentile, int minSamples) {
+            if (count == 0 || count < minSamples) {
+                return -1;
+            }
+
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            int pos = (int) Math.ceil(percentile / 100.0 * count) - 1;
+            return sorted[Math.max(0, Math.min(count - 1, pos))];
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.webank.wecube.platform.core.support.plugin;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Stage timers of plugin invocations, tagged by plugin package, interface
+ * and outcome.
+ *
+ */
+@Component
+public class PluginInvocationMetrics {
+
+    public static final String METRIC_NAME = "wecube.plugin.invocation";
+    public static final String QUEUE_WAIT_METRIC_NAME = "wecube.plugin.invocation.queue.wait";
+    public static final String QUEUE_DEPTH_METRIC_NAME = "wecube.plugin.invocation.queue.depth";
+
+    public static final String STAGE_PARAMETER_RESOLUTION = "parameter-resolution";
+    public static final String STAGE_HTTP_CALL = "http-call";
+    public static final String STAGE_RESULT_HANDLING = "result-handling";
+    public static final String STAGE_PERSISTENCE = "persistence";
+
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_FAIL = "fail";
+    public static final String OUTCOME_ERROR = "error";
+    public static final String OUTCOME_REJECTED = "rejected";
+
+    private static final String UNKNOWN = "unknown";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public void record(String stage, String pluginPackageName, String interfaceName, String outcome,
+            long durationNanos) {
+        String pkg = pluginPackageName == null ? UNKNOWN : pluginPackageName;
+        String itf = interfaceName == null ? UNKNOWN : interfaceName;
+        String key = stage + "|" + pkg + "|" + itf + "|" + outcome;
+
+        Timer timer = timers.get(key);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(key, k -> Timer.builder(METRIC_NAME) //
+                    .description("Time spent in each stage of plugin invocations") //
+                    .tag("stage", stage) //
+                    .tag("package", pkg) //
+                    .tag("interface", itf) //
+                    .tag("outcome", outcome) //
+                    .register(meterRegistry));
+        }
+
+        timer.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordQueueWait(String priority, long durationNanos) {
+        String key = QUEUE_WAIT_METRIC_NAME + "|" + priority;
+
+        Timer timer = timers.get(key);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(key, k -> Timer.builder(QUEUE_WAIT_METRIC_NAME) //
+                    .description("Time plugin invocations wait in the queue of their priority class") //
+                    .tag("priority", priority) //
+                    .register(meterRegistry));
+        }
+
+        timer.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void registerQueueDepth(String priority, Supplier<Number> depthSupplier) {
+        Gauge.builder(QUEUE_DEPTH_METRIC_NAME, depthSupplier) //
+                .description("Plugin invocations waiting in the queue of a priority class") //
+                .tag("priority", priority) //
+                .register(meterRegistry);
+    }
+}
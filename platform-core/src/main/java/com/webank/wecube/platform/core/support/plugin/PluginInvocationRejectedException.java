@@ -0,0 +1,16 @@
+package com.webank.wecube.platform.core.support.plugin;
+
+/**
+ * Raised when a plugin call is refused locally by the circuit breaker or the
+ * concurrency limiter without reaching the plugin. Such failures are safe to
+ * retry later.
+ *
+ */
+public class PluginInvocationRejectedException extends PluginRemoteCallException {
+
+    private static final long serialVersionUID = 4318207409375311186L;
+
+    public PluginInvocationRejectedException(String message) {
+        super(message);
+    }
+}
@@ -1,15 +1,29 @@
 package com.webank.wecube.platform.core.support.plugin;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestTemplate;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.PluginInvocationProperties;
 import com.webank.wecube.platform.core.support.RestClient;
 import com.webank.wecube.platform.core.support.plugin.dto.PluginRequest;
 import com.webank.wecube.platform.core.support.plugin.dto.PluginRequest.DefaultPluginRequest;
@@ -19,27 +33,164 @@ import com.webank.wecube.platform.core.support.plugin.dto.PluginResponse.Default
 @Service("pluginInvocationRestClient")
 public class PluginInvocationRestClient implements RestClient {
     private static final Logger log = LoggerFactory.getLogger(PluginInvocationRestClient.class);
-    
+
+    public static final String CONTENT_ENCODING_GZIP = "gzip";
+
     @Autowired
     @Qualifier(value = "jwtSsoRestTemplate")
     private RestTemplate jwtSsoRestTemplate;
-    
-    
+
+    @Autowired
+    private PluginInvocationProperties pluginInvocationProperties;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+
     public PluginResponse<Object> callPluginService(String instanceAddress, String path,
             List<Map<String, Object>> parameters, String requestId) {
-        return doCallPluginService(asPluginServerUrl(instanceAddress, path),
-                new DefaultPluginRequest().withInputs(parameters).withRequestId(requestId));
+        String targetUrl = asPluginServerUrl(instanceAddress, path);
+        PluginRequest<?> request = new DefaultPluginRequest().withInputs(parameters).withRequestId(requestId);
+        if (isCompressionEnabled(path)) {
+            return doCallPluginServiceWithCompression(targetUrl, request, isRequestCompressionAccepted(path));
+        }
+        return doCallPluginService(targetUrl, request);
     }
-    
+
     protected PluginResponse<Object> doCallPluginService(String targetUrl, PluginRequest<?> parameters) {
-        log.info("About to call {} with parameters: {} ", targetUrl, parameters);
+        if (log.isDebugEnabled()) {
+            log.debug("About to call {} with parameters: {} ", targetUrl, parameters);
+        } else {
+            log.info("About to call {}", targetUrl);
+        }
         PluginResponse<Object> response = jwtSsoRestTemplate.postForObject(targetUrl, parameters,
                 DefaultPluginResponse.class);
-        log.info("Plugin response: {} ", response);
+        if (log.isDebugEnabled()) {
+            log.debug("Plugin response: {} ", response);
+        }
 
         return response;
     }
-    
+
+    /**
+     * Sends the request body gzip encoded once it reaches compressionMinBytes
+     * and the receiver accepts it, and accepts gzip encoded responses.
+     */
+    protected PluginResponse<Object> doCallPluginServiceWithCompression(String targetUrl,
+            PluginRequest<?> parameters, boolean requestCompressionAccepted) {
+        if (log.isDebugEnabled()) {
+            log.debug("About to call {} with parameters: {} ", targetUrl, parameters);
+        }
+
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(parameters);
+        } catch (IOException e) {
+            throw new PluginRemoteCallException("Failed to serialize plugin request.", null, e);
+        }
+
+        int rawLength = body.length;
+        boolean compressed = false;
+        if (requestCompressionAccepted && rawLength >= pluginInvocationProperties.getCompressionMinBytes()) {
+            body = gzip(body, pluginInvocationProperties.getCompressionLevel());
+            compressed = true;
+        }
+
+        log.info("About to call {} with body of {} bytes, {} bytes on wire", targetUrl, rawLength, body.length);
+
+        final byte[] requestBody = body;
+        final boolean requestCompressed = compressed;
+        RequestCallback requestCallback = request -> {
+            HttpHeaders headers = request.getHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON_UTF8);
+            headers.set(HttpHeaders.ACCEPT_ENCODING, CONTENT_ENCODING_GZIP);
+            if (requestCompressed) {
+                headers.set(HttpHeaders.CONTENT_ENCODING, CONTENT_ENCODING_GZIP);
+            }
+            headers.setContentLength(requestBody.length);
+            StreamUtils.copy(requestBody, request.getBody());
+        };
+
+        ResponseExtractor<PluginResponse<Object>> responseExtractor = response -> {
+            InputStream in = response.getBody();
+            if (CONTENT_ENCODING_GZIP.equalsIgnoreCase(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING))) {
+                in = new GZIPInputStream(in);
+            }
+            byte[] responseBody = StreamUtils.copyToByteArray(in);
+            if (responseBody.length == 0) {
+                return null;
+            }
+            return objectMapper.readValue(responseBody, DefaultPluginResponse.class);
+        };
+
+        PluginResponse<Object> response = jwtSsoRestTemplate.execute(targetUrl, HttpMethod.POST, requestCallback,
+                responseExtractor);
+        if (log.isDebugEnabled()) {
+            log.debug("Plugin response: {} ", response);
+        }
+
+        return response;
+    }
+
+    protected boolean isCompressionEnabled(String path) {
+        if (pluginInvocationProperties == null || !pluginInvocationProperties.isCompressionEnabled()) {
+            return false;
+        }
+
+        List<String> compressionPlugins = pluginInvocationProperties.getCompressionPlugins();
+        if (compressionPlugins == null || compressionPlugins.isEmpty()) {
+            return true;
+        }
+
+        return compressionPlugins.contains(calculatePluginName(path));
+    }
+
+    /**
+     * The gateway inflates gzip request bodies, whereas plugin instances
+     * called directly only do so once listed in directCompressionPlugins.
+     */
+    protected boolean isRequestCompressionAccepted(String path) {
+        if (!pluginInvocationProperties.isDirectInvocationEnabled()) {
+            return true;
+        }
+
+        List<String> directCompressionPlugins = pluginInvocationProperties.getDirectCompressionPlugins();
+        if (directCompressionPlugins == null || directCompressionPlugins.isEmpty()) {
+            return false;
+        }
+
+        return directCompressionPlugins.contains(calculatePluginName(path));
+    }
+
+    /**
+     * The first path segment names the plugin, the same way the gateway
+     * routes it.
+     */
+    protected String calculatePluginName(String path) {
+        if (path.startsWith("/")) {
+            path = path.substring(1);
+        }
+
+        if (path.indexOf("/") >= 0) {
+            path = path.substring(0, path.indexOf("/"));
+        }
+
+        return path;
+    }
+
+    private byte[] gzip(byte[] data, int level) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(Math.max(512, data.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bos, 8192) {
+            {
+                def.setLevel(level);
+            }
+        }) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new PluginRemoteCallException("Failed to compress plugin request.", null, e);
+        }
+        return bos.toByteArray();
+    }
+
     protected String asPluginServerUrl(String instanceAddress, String originPath, Object... pathVariables) {
         String solvedPath = originPath;
         if (pathVariables != null && pathVariables.length > 0) {
@@ -0,0 +1,239 @@
+package com.webank.wecube.platform.core.support.plugin;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.webank.wecube.platform.core.commons.ApplicationProperties.PluginInvocationProperties;
+
+/**
+ * Work queue in front of the plugin invocation workers.
+ *
+ * <p>
+ * Invocations are queued in FIFO order per priority class. Workers pick the
+ * next class by smooth weighted round robin over the classes having work, so
+ * a backlogged class receives its weight's share of the workers and no class
+ * starves, however long the others' queues are.
+ * </p>
+ * 
+ * <p>
+ * Each class holds at most invocationQueueCapacity invocations, further
+ * submissions are rejected with a {@link RejectedExecutionException}.
+ * </p>
+ *
+ */
+@Component
+public class PluginInvocationScheduler {
+    private static final Logger log = LoggerFactory.getLogger(PluginInvocationScheduler.class);
+
+    public static final String PRIORITY_HIGH = "high";
+    public static final String PRIORITY_NORMAL = "normal";
+    public static final String PRIORITY_LOW = "low";
+
+    @Autowired
+    private PluginInvocationProperties pluginInvocationProperties;
+
+    @Autowired(required = false)
+    private PluginInvocationMetrics pluginInvocationMetrics;
+
+    private final Map<String, PriorityClass> priorityClasses = new LinkedHashMap<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    private final List<Thread> workers = new ArrayList<>();
+
+    private volatile boolean running;
+
+    private int queueCapacity;
+
+    @PostConstruct
+    public void init() {
+        queueCapacity = Math.max(1, pluginInvocationProperties.getInvocationQueueCapacity());
+        priorityClasses.put(PRIORITY_HIGH, new PriorityClass(PRIORITY_HIGH,
+                Math.max(1, pluginInvocationProperties.getPriorityWeightHigh())));
+        priorityClasses.put(PRIORITY_NORMAL, new PriorityClass(PRIORITY_NORMAL,
+                Math.max(1, pluginInvocationProperties.getPriorityWeightNormal())));
+        priorityClasses.put(PRIORITY_LOW, new PriorityClass(PRIORITY_LOW,
+                Math.max(1, pluginInvocationProperties.getPriorityWeightLow())));
+
+        if (pluginInvocationMetrics != null) {
+            for (PriorityClass priorityClass : priorityClasses.values()) {
+                pluginInvocationMetrics.registerQueueDepth(priorityClass.name, () -> getQueueDepth(priorityClass.name));
+            }
+        }
+
+        running = true;
+        for (int i = 0; i < pluginInvocationProperties.getInvocationWorkers(); i++) {
+            Thread worker = new Thread(this::work, "plugin-invocation-worker-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        running = false;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+    }
+
+    public Future<?> submit(String priority, Runnable task) {
+        return submit(priority, Executors.callable(task));
+    }
+
+    public <T> Future<T> submit(String priority, Callable<T> task) {
+        FutureTask<T> futureTask = new FutureTask<>(() -> {
+            try {
+                return task.call();
+            } catch (Exception e) {
+                log.error("plugin invocation task failed", e);
+                throw e;
+            }
+        });
+
+        String priorityClassName = normalizePriority(priority);
+        lock.lock();
+        try {
+            PriorityClass priorityClass = priorityClasses.get(priorityClassName);
+            if (priorityClass.queue.size() >= queueCapacity) {
+                log.warn("rejected plugin invocation as the {} priority queue is full", priorityClassName);
+                throw new RejectedExecutionException(String.format(
+                        "Plugin invocation queue of priority %s is full with %s invocations.", priorityClassName,
+                        queueCapacity));
+            }
+            priorityClass.queue.add(new QueuedTask(futureTask, priorityClassName, System.nanoTime()));
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+        return futureTask;
+    }
+
+    public int getQueueDepth(String priority) {
+        lock.lock();
+        try {
+            return priorityClasses.get(normalizePriority(priority)).queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Unknown or blank priorities fall into the normal class.
+     */
+    public static String normalizePriority(String priority) {
+        if (PRIORITY_HIGH.equalsIgnoreCase(priority)) {
+            return PRIORITY_HIGH;
+        }
+
+        if (PRIORITY_LOW.equalsIgnoreCase(priority)) {
+            return PRIORITY_LOW;
+        }
+
+        if (StringUtils.isNotBlank(priority) && !PRIORITY_NORMAL.equalsIgnoreCase(priority)) {
+            log.warn("unknown invocation priority {}, using {}", priority, PRIORITY_NORMAL);
+        }
+
+        return PRIORITY_NORMAL;
+    }
+
+    QueuedTask take() throws InterruptedException {
+        lock.lock();
+        try {
+            PriorityClass chosen;
+            while ((chosen = chooseClass()) == null) {
+                notEmpty.await();
+            }
+            return chosen.queue.poll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private PriorityClass chooseClass() {
+        PriorityClass chosen = null;
+        int totalWeight = 0;
+        for (PriorityClass priorityClass : priorityClasses.values()) {
+            if (priorityClass.queue.isEmpty()) {
+                priorityClass.currentWeight = 0;
+                continue;
+            }
+
+            priorityClass.currentWeight += priorityClass.weight;
+            totalWeight += priorityClass.weight;
+            if (chosen == null || priorityClass.currentWeight > chosen.currentWeight) {
+                chosen = priorityClass;
+            }
+        }
+
+        if (chosen != null) {
+            chosen.currentWeight -= totalWeight;
+        }
+        return chosen;
+    }
+
+    private void work() {
+        while (running) {
+            QueuedTask queuedTask;
+            try {
+                queuedTask = take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            if (pluginInvocationMetrics != null) {
+                pluginInvocationMetrics.recordQueueWait(queuedTask.priority,
+                        System.nanoTime() - queuedTask.enqueuedNanos);
+            }
+
+            queuedTask.task.run();
+        }
+    }
+
+    static class QueuedTask {
+        final FutureTask<?> task;
+        final String priority;
+        final long enqueuedNanos;
+
+        QueuedTask(FutureTask<?> task, String priority, long enqueuedNanos) {
+            this.task = task;
+            this.priority = priority;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+
+    private static class PriorityClass {
+        final String name;
+        final int weight;
+        final ArrayDeque<QueuedTask> queue = new ArrayDeque<>();
+        int currentWeight;
+
+        PriorityClass(String name, int weight) {
+            this.name = name;
+            this.weight = weight;
+        }
+    }
+}
@@ -141,6 +141,7 @@ create table plugin_config_interfaces (
     `path` VARCHAR(500) NOT NULL, 
     `http_method` VARCHAR(10) NOT NULL, 
     `is_async_processing` VARCHAR(1) DEFAULT 'N',
+    `is_idempotent` VARCHAR(1) DEFAULT 'N',
     `type` VARCHAR(16) DEFAULT 'EXECUTION',
     `filter_rule` VARCHAR(1024) NULL DEFAULT ''
 ) ENGINE=InnoDB  DEFAULT CHARSET=utf8 ;
@@ -269,7 +270,8 @@ CREATE TABLE `core_ru_proc_role_binding` (
     `proc_id`      VARCHAR(255) NOT NULL,
     `role_id` VARCHAR(64)       NOT NULL,
     `role_name` VARCHAR(64)     NOT NULL,
-    `permission` VARCHAR(255) NOT NULL
+    `permission` VARCHAR(255) NOT NULL,
+    KEY `idx_proc_role_binding_role` (`role_id`, `permission`, `proc_id`)
 ) ENGINE=InnoDB  DEFAULT CHARSET=utf8;
 
 drop table if exists batch_execution_jobs;
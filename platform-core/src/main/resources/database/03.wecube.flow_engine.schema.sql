@@ -1187,6 +1187,81 @@ CREATE TABLE `act_ru_srvnode_status` (
   PRIMARY KEY (`id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8;
 
+/*Table structure for table `act_ru_srv_invoke_event` */
+
+drop table if exists `act_ru_srv_invoke_event`;
+CREATE TABLE `act_ru_srv_invoke_event` (
+  `id` varchar(255) NOT NULL,
+  `event_type` varchar(64) DEFAULT NULL,
+  `status` varchar(20) DEFAULT NULL,
+  `req_id` varchar(255) DEFAULT NULL,
+  `proc_inst_id` varchar(255) DEFAULT NULL,
+  `proc_inst_key` varchar(255) DEFAULT NULL,
+  `proc_def_id` varchar(255) DEFAULT NULL,
+  `proc_def_key` varchar(255) DEFAULT NULL,
+  `proc_def_ver` int(11) DEFAULT NULL,
+  `exec_id` varchar(255) DEFAULT NULL,
+  `event_src_id` varchar(255) DEFAULT NULL,
+  `event_src_name` varchar(255) DEFAULT NULL,
+  `srv_code` varchar(255) DEFAULT NULL,
+  `callback_url` varchar(255) DEFAULT NULL,
+  `direction` int(11) DEFAULT NULL,
+  `result` int(11) DEFAULT NULL,
+  `msg` varchar(255) DEFAULT NULL,
+  `retry_times` int(11) DEFAULT NULL,
+  `partition_no` int(11) DEFAULT NULL,
+  `owner` varchar(255) DEFAULT NULL,
+  `claimed_time` datetime DEFAULT NULL,
+  `available_time` datetime DEFAULT NULL,
+  `created_time` datetime DEFAULT NULL,
+  PRIMARY KEY (`id`),
+  KEY `idx_srv_invoke_event_status` (`status`,`available_time`),
+  KEY `idx_srv_invoke_event_partition` (`partition_no`,`status`,`available_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+/*Table structure for table `act_ru_event_partition` */
+
+drop table if exists `act_ru_event_partition`;
+CREATE TABLE `act_ru_event_partition` (
+  `partition_no` int(11) NOT NULL,
+  `owner` varchar(255) DEFAULT NULL,
+  `expire_time` datetime DEFAULT NULL,
+  `updated_time` datetime DEFAULT NULL,
+  PRIMARY KEY (`partition_no`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+/*Table structure for table `act_ru_event_node` */
+
+drop table if exists `act_ru_event_node`;
+CREATE TABLE `act_ru_event_node` (
+  `owner` varchar(255) NOT NULL,
+  `heartbeat_time` datetime DEFAULT NULL,
+  PRIMARY KEY (`owner`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+/*Table structure for table `act_ru_history_event_batch` */
+
+drop table if exists `act_ru_history_event_batch`;
+CREATE TABLE `act_ru_history_event_batch` (
+  `id` bigint(20) NOT NULL AUTO_INCREMENT,
+  `event_count` int(11) DEFAULT NULL,
+  `event_data` longblob,
+  `created_time` datetime DEFAULT NULL,
+  PRIMARY KEY (`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+/*Table structure for table `act_ru_id_node_lease` */
+
+drop table if exists `act_ru_id_node_lease`;
+CREATE TABLE `act_ru_id_node_lease` (
+  `node_id` int(11) NOT NULL,
+  `owner` varchar(255) DEFAULT NULL,
+  `expire_time` datetime DEFAULT NULL,
+  `last_timestamp` bigint(20) DEFAULT NULL,
+  `updated_time` datetime DEFAULT NULL,
+  PRIMARY KEY (`node_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
 /*Table structure for table `act_ru_task` */
 
 drop table if exists `act_ru_task`;
@@ -1336,6 +1411,7 @@ CREATE TABLE `core_re_proc_def_info` (
   `proc_def_name` varchar(255) DEFAULT NULL,
   `proc_def_ver` int(11) DEFAULT NULL,
   `root_entity` varchar(255) DEFAULT NULL,
+  `priority` varchar(20) DEFAULT NULL,
   PRIMARY KEY (`id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8;
 
@@ -1408,7 +1484,8 @@ CREATE TABLE `core_ru_proc_exec_binding` (
   `proc_inst_id` int(11) DEFAULT NULL,
   `task_node_inst_id` int(11) DEFAULT NULL,
   `entity_data_name` varchar(255) DEFAULT NULL,
-  PRIMARY KEY (`id`)
+  PRIMARY KEY (`id`),
+  KEY `idx_proc_exec_binding_proc_inst` (`proc_inst_id`, `bind_type`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8;
 
 /*Table structure for table `core_ru_proc_inst_info` */
@@ -1429,7 +1506,28 @@ CREATE TABLE `core_ru_proc_inst_info` (
   `proc_def_name` varchar(255) DEFAULT NULL,
   `proc_inst_kernel_id` varchar(255) DEFAULT NULL,
   `proc_inst_key` varchar(255) DEFAULT NULL,
-  PRIMARY KEY (`id`)
+  `priority` varchar(20) DEFAULT NULL,
+  PRIMARY KEY (`id`),
+  KEY `idx_proc_inst_info_proc_def` (`proc_def_id`, `status`, `created_time`),
+  KEY `idx_proc_inst_info_status_updated` (`status`, `updated_time`, `id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+/*Table structure for table `core_ru_task_node_exec_callback` */
+
+drop table if exists `core_ru_task_node_exec_callback`;
+CREATE TABLE `core_ru_task_node_exec_callback` (
+  `id` int(11) NOT NULL AUTO_INCREMENT,
+  `created_by` varchar(255) DEFAULT NULL,
+  `created_time` datetime DEFAULT NULL,
+  `updated_by` varchar(255) DEFAULT NULL,
+  `updated_time` datetime DEFAULT NULL,
+  `req_id` varchar(255) NOT NULL,
+  `status` varchar(20) DEFAULT NULL,
+  `result_code` varchar(20) DEFAULT NULL,
+  `payload_hash` varchar(64) DEFAULT NULL,
+  `replay_times` int(11) DEFAULT 0,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_task_node_exec_callback_req_id` (`req_id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8;
 
 /*Table structure for table `core_ru_task_node_exec_param` */
@@ -1450,6 +1548,26 @@ CREATE TABLE `core_ru_task_node_exec_param` (
   `proc_inst_id` int(11) DEFAULT NULL,
   `task_node_inst_id` int(11) DEFAULT NULL,
   `is_sensitive` bit(1) DEFAULT NULL,
+  `param_data_ref` int(11) DEFAULT NULL,
+  `param_data_hash` varchar(64) DEFAULT NULL,
+  `param_data_size` int(11) DEFAULT NULL,
+  PRIMARY KEY (`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+/*Table structure for table `core_ru_task_node_exec_param_blob` */
+
+drop table if exists `core_ru_task_node_exec_param_blob`;
+CREATE TABLE `core_ru_task_node_exec_param_blob` (
+  `id` int(11) NOT NULL AUTO_INCREMENT,
+  `created_by` varchar(255) DEFAULT NULL,
+  `created_time` datetime DEFAULT NULL,
+  `updated_by` varchar(255) DEFAULT NULL,
+  `updated_time` datetime DEFAULT NULL,
+  `content_hash` varchar(64) DEFAULT NULL,
+  `compress_type` varchar(20) DEFAULT NULL,
+  `raw_size` int(11) DEFAULT NULL,
+  `stored_size` int(11) DEFAULT NULL,
+  `data` longblob,
   PRIMARY KEY (`id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8;
 
@@ -1494,7 +1612,9 @@ CREATE TABLE `core_ru_proc_exec_binding_tmp` (
   `proc_def_id` varchar(255)  DEFAULT NULL,
   `proc_session_id` varchar(255)  DEFAULT NULL,
   `entity_data_name` varchar(255) DEFAULT NULL,
-  PRIMARY KEY (`id`)
+  PRIMARY KEY (`id`),
+  KEY `idx_proc_exec_binding_tmp_session` (`proc_session_id`),
+  KEY `idx_proc_exec_binding_tmp_created` (`created_time`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8;
 
 drop table if exists `core_ru_graph_node`;
@@ -1513,7 +1633,32 @@ CREATE TABLE `core_ru_graph_node` (
   `proc_inst_id` int(11) DEFAULT NULL,
   `proc_sess_id` varchar(255)  DEFAULT NULL,
   `succ_ids` text,
-  PRIMARY KEY (`id`)
+  PRIMARY KEY (`id`),
+  KEY `idx_graph_node_session` (`proc_sess_id`),
+  KEY `idx_graph_node_proc_inst` (`proc_inst_id`),
+  KEY `idx_graph_node_created` (`created_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+/*Table structure for table `core_ar_proc_inst` */
+
+drop table if exists `core_ar_proc_inst`;
+CREATE TABLE `core_ar_proc_inst` (
+  `id` int(11) NOT NULL,
+  `proc_inst_key` varchar(255) DEFAULT NULL,
+  `proc_inst_kernel_id` varchar(255) DEFAULT NULL,
+  `proc_def_id` varchar(255) DEFAULT NULL,
+  `proc_def_key` varchar(255) DEFAULT NULL,
+  `proc_def_name` varchar(255) DEFAULT NULL,
+  `status` varchar(255) DEFAULT NULL,
+  `created_time` datetime DEFAULT NULL,
+  `completed_time` datetime DEFAULT NULL,
+  `archived_time` datetime DEFAULT NULL,
+  `compress_type` varchar(20) DEFAULT NULL,
+  `raw_size` int(11) DEFAULT NULL,
+  `stored_size` int(11) DEFAULT NULL,
+  `data` longblob,
+  PRIMARY KEY (`id`),
+  KEY `idx_ar_proc_inst_completed_time` (`completed_time`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8;
 
 drop table if exists `core_operation_event`;
@@ -10,6 +10,7 @@ import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
 
@@ -27,12 +28,26 @@ public abstract class BaseSpringBootTest {
     @Autowired
     private JwtSsoClientContext jwtSsoClientContext;
 
+    @Autowired
+    private ApplicationContext applicationContext;
+
     @Before
     public void initJwtSsoClientContext() {
         this.jwtSsoClientContext.setRefreshToken(getRefreshToken());
         this.jwtSsoClientContext.setAcccessToken(getAccessToken());
     }
 
+    /**
+     * Injects the beans of the test context into a service created by the
+     * test. Unlike the bean of the context, it is not initialized, so none of
+     * its scheduled work runs, and the collaborators a test replaces can be set
+     * on it afterwards.
+     */
+    protected <T> T autowire(T bean) {
+        applicationContext.getAutowireCapableBeanFactory().autowireBean(bean);
+        return bean;
+    }
+
 
     public JwtSsoRefreshToken getRefreshToken() {
         return new JwtSsoRefreshToken() {
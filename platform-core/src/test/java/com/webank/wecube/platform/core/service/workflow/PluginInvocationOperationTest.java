@@ -0,0 +1,256 @@
+package com.webank.wecube.platform.core.service.workflow;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
+
+import com.webank.wecube.platform.core.commons.ApplicationProperties;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.PluginInvocationProperties;
+import com.webank.wecube.platform.core.service.workflow.PluginInvocationProcessor.PluginInterfaceInvocationResult;
+import com.webank.wecube.platform.core.service.workflow.PluginInvocationProcessor.PluginInvocationOperation;
+import com.webank.wecube.platform.core.support.plugin.PluginInvocationHedgingPolicy;
+import com.webank.wecube.platform.core.support.plugin.PluginInvocationRestClient;
+import com.webank.wecube.platform.core.support.plugin.dto.PluginResponse;
+import com.webank.wecube.platform.core.support.plugin.dto.PluginResponse.DefaultPluginResponse;
+import com.webank.wecube.platform.core.support.plugin.dto.PluginResponse.ResultData;
+
+public class PluginInvocationOperationTest {
+
+    private ExecutorService sliceExecutorService = Executors.newFixedThreadPool(4);
+
+    @After
+    public void tearDown() {
+        sliceExecutorService.shutdownNow();
+    }
+
+    @Test
+    public void givenChunkSizeWhenOperateThenInvokePerSliceAndMergeOutputs() {
+        EchoRestClient restClient = new EchoRestClient(0);
+        List<PluginInterfaceInvocationResult> results = new ArrayList<>();
+
+        PluginInvocationOperation operation = newOperation(restClient, 10, results).withChunkSize(3)
+                .withChunkParallelism(2);
+        operation.operate();
+
+        assertThat(restClient.getCallTimes()).isEqualTo(4);
+        assertThat(results).hasSize(1);
+        assertThat(results.get(0).isSuccess()).isTrue();
+        assertThat(results.get(0).getResultData()).hasSize(10);
+    }
+
+    @Test
+    public void givenChunkingDisabledWhenOperateThenInvokeOnce() {
+        EchoRestClient restClient = new EchoRestClient(0);
+        List<PluginInterfaceInvocationResult> results = new ArrayList<>();
+
+        newOperation(restClient, 10, results).withChunkSize(0).operate();
+
+        assertThat(restClient.getCallTimes()).isEqualTo(1);
+        assertThat(results.get(0).getResultData()).hasSize(10);
+    }
+
+    @Test
+    public void givenTransientFailureWhenOperateThenRetrySliceOnly() {
+        EchoRestClient restClient = new EchoRestClient(1);
+        List<PluginInterfaceInvocationResult> results = new ArrayList<>();
+
+        newOperation(restClient, 6, results).withChunkSize(3).withChunkParallelism(1).withChunkMaxRetryTimes(1)
+                .operate();
+
+        assertThat(restClient.getCallTimes()).isEqualTo(3);
+        assertThat(results.get(0).isSuccess()).isTrue();
+        assertThat(results.get(0).getResultData()).hasSize(6);
+    }
+
+    @Test
+    public void givenRetriesExhaustedWhenOperateThenReportPartialOutputsAndFailure() {
+        EchoRestClient restClient = new EchoRestClient(2);
+        List<PluginInterfaceInvocationResult> results = new ArrayList<>();
+
+        newOperation(restClient, 6, results).withChunkSize(3).withChunkParallelism(1).withChunkMaxRetryTimes(1)
+                .operate();
+
+        PluginInterfaceInvocationResult result = results.get(0);
+        assertThat(result.isSuccess()).isFalse();
+        assertThat(result.getResultCode()).isEqualTo(PluginResponse.RESULT_CODE_FAIL);
+        assertThat(result.getResultData()).hasSize(3);
+        assertThat(result.getErrMsg()).contains("slice 1/2");
+    }
+
+    @Test
+    public void givenReadTimeoutOnNonIdempotentInterfaceWhenOperateThenDoNotRetry() {
+        EchoRestClient restClient = new EchoRestClient(1, readTimedOut());
+        List<PluginInterfaceInvocationResult> results = new ArrayList<>();
+
+        newOperation(restClient, 3, results).withChunkSize(3).withChunkMaxRetryTimes(1).operate();
+
+        assertThat(restClient.getCallTimes()).isEqualTo(1);
+        assertThat(results.get(0).isSuccess()).isFalse();
+    }
+
+    @Test
+    public void givenReadTimeoutOnIdempotentInterfaceWhenOperateThenRetry() {
+        EchoRestClient restClient = new EchoRestClient(1, readTimedOut());
+        List<PluginInterfaceInvocationResult> results = new ArrayList<>();
+
+        newOperation(restClient, 3, results).withChunkSize(3).withChunkMaxRetryTimes(1).withIdempotent(true)
+                .operate();
+
+        assertThat(restClient.getCallTimes()).isEqualTo(2);
+        assertThat(results.get(0).isSuccess()).isTrue();
+    }
+
+    @Test
+    public void givenSlowPrimaryWhenHedgingThenFasterHedgeWins() {
+        PluginInvocationHedgingPolicy hedgingPolicy = newHedgingPolicy(1.0);
+        SlowHostRestClient restClient = new SlowHostRestClient("localhost:9999", 3000L);
+        List<PluginInterfaceInvocationResult> results = new ArrayList<>();
+
+        long startTime = System.currentTimeMillis();
+        newOperation(restClient, 3, results).withPluginPackageName("test").withInterfaceName("echo")
+                .withPluginInvocationHedgingPolicy(hedgingPolicy).withHedgeInstanceHost("localhost:9998").operate();
+
+        assertThat(System.currentTimeMillis() - startTime).isLessThan(2000L);
+        assertThat(results.get(0).isSuccess()).isTrue();
+        assertThat(results.get(0).getResultData()).hasSize(3);
+        assertThat(restClient.getCalledHosts()).containsExactlyInAnyOrder("localhost:9999", "localhost:9998");
+        assertThat(hedgingPolicy.getTotalHedges()).isEqualTo(1L);
+    }
+
+    @Test
+    public void givenHedgeBudgetExhaustedWhenHedgingThenWaitForPrimary() {
+        PluginInvocationHedgingPolicy hedgingPolicy = newHedgingPolicy(0.0);
+        SlowHostRestClient restClient = new SlowHostRestClient("localhost:9999", 300L);
+        List<PluginInterfaceInvocationResult> results = new ArrayList<>();
+
+        newOperation(restClient, 3, results).withPluginPackageName("test").withInterfaceName("echo")
+                .withPluginInvocationHedgingPolicy(hedgingPolicy).withHedgeInstanceHost("localhost:9998").operate();
+
+        assertThat(results.get(0).isSuccess()).isTrue();
+        assertThat(restClient.getCalledHosts()).containsExactly("localhost:9999");
+        assertThat(hedgingPolicy.getTotalHedges()).isEqualTo(0L);
+    }
+
+    private static RuntimeException connectionRefused() {
+        return new ResourceAccessException("I/O error", new ConnectException("Connection refused"));
+    }
+
+    private static RuntimeException readTimedOut() {
+        return new ResourceAccessException("I/O error", new SocketTimeoutException("Read timed out"));
+    }
+
+    private PluginInvocationHedgingPolicy newHedgingPolicy(double budgetRatio) {
+        PluginInvocationProperties properties = new ApplicationProperties().new PluginInvocationProperties();
+        properties.setHedgeMinDelayMillis(50);
+        properties.setHedgeMinSamples(5);
+        properties.setHedgeBudgetRatio(budgetRatio);
+
+        PluginInvocationHedgingPolicy hedgingPolicy = new PluginInvocationHedgingPolicy();
+        ReflectionTestUtils.setField(hedgingPolicy, "pluginInvocationProperties", properties);
+        for (int i = 0; i < 10; i++) {
+            hedgingPolicy.recordLatency("test/echo", 20L);
+        }
+        return hedgingPolicy;
+    }
+
+    private PluginInvocationOperation newOperation(PluginInvocationRestClient restClient, int objectSize,
+            List<PluginInterfaceInvocationResult> results) {
+        List<Map<String, Object>> pluginParameters = new ArrayList<>();
+        for (int i = 0; i < objectSize; i++) {
+            Map<String, Object> inputMap = new HashMap<>();
+            inputMap.put("callbackParameter", String.valueOf(i));
+            pluginParameters.add(inputMap);
+        }
+
+        PluginInvocationOperation operation = new PluginInvocationOperation() //
+                .withPluginInvocationRestClient(restClient) //
+                .withPluginParameters(pluginParameters) //
+                .withInstanceHost("localhost:9999") //
+                .withInterfacePath("/test/v1/echo") //
+                .withRequestId("test-request") //
+                .withCallback((result, ctx) -> results.add(result));
+        operation.setSliceExecutorService(sliceExecutorService);
+
+        return operation;
+    }
+
+    private static class EchoRestClient extends PluginInvocationRestClient {
+        private AtomicInteger callTimes = new AtomicInteger(0);
+        private AtomicInteger remainingFailures;
+        private RuntimeException failure;
+
+        EchoRestClient(int failures) {
+            this(failures, connectionRefused());
+        }
+
+        EchoRestClient(int failures, RuntimeException failure) {
+            this.remainingFailures = new AtomicInteger(failures);
+            this.failure = failure;
+        }
+
+        @Override
+        public PluginResponse<Object> callPluginService(String instanceAddress, String path,
+                List<Map<String, Object>> parameters, String requestId) {
+            callTimes.incrementAndGet();
+            if (remainingFailures.getAndDecrement() > 0) {
+                throw failure;
+            }
+
+            DefaultPluginResponse response = new DefaultPluginResponse();
+            response.setResultCode(PluginResponse.RESULT_CODE_OK);
+            response.setResultData(new ResultData<Object>(new ArrayList<Object>(parameters)));
+            return response;
+        }
+
+        int getCallTimes() {
+            return callTimes.get();
+        }
+    }
+
+    private static class SlowHostRestClient extends PluginInvocationRestClient {
+        private final String slowHost;
+        private final long delayMillis;
+        private final List<String> calledHosts = new CopyOnWriteArrayList<>();
+
+        SlowHostRestClient(String slowHost, long delayMillis) {
+            this.slowHost = slowHost;
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public PluginResponse<Object> callPluginService(String instanceAddress, String path,
+                List<Map<String, Object>> parameters, String requestId) {
+            calledHosts.add(instanceAddress);
+            if (slowHost.equals(instanceAddress)) {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException("cancelled");
+                }
+            }
+
+            DefaultPluginResponse response = new DefaultPluginResponse();
+            response.setResultCode(PluginResponse.RESULT_CODE_OK);
+            response.setResultData(new ResultData<Object>(new ArrayList<Object>(parameters)));
+            return response;
+        }
+
+        List<String> getCalledHosts() {
+            return calledHosts;
+        }
+    }
+}
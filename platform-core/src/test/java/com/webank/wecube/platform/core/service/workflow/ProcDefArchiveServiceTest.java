@@ -0,0 +1,209 @@
+package com.webank.wecube.platform.core.service.workflow;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.webank.wecube.platform.core.DatabaseBasedTest;
+import com.webank.wecube.platform.core.commons.ApplicationProperties;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.WorkflowProperties;
+import com.webank.wecube.platform.core.commons.WecubeCoreException;
+import com.webank.wecube.platform.core.dto.user.RoleDto;
+import com.webank.wecube.platform.core.dto.workflow.ProcDefArchiveImportItemDto;
+import com.webank.wecube.platform.core.dto.workflow.ProcDefArchiveImportResultDto;
+import com.webank.wecube.platform.core.entity.workflow.ProcDefInfoEntity;
+import com.webank.wecube.platform.core.entity.workflow.ProcRoleBindingEntity;
+import com.webank.wecube.platform.core.entity.workflow.TaskNodeDefInfoEntity;
+import com.webank.wecube.platform.core.entity.workflow.TaskNodeParamEntity;
+import com.webank.wecube.platform.core.jpa.workflow.ProcDefInfoRepository;
+import com.webank.wecube.platform.core.jpa.workflow.ProcRoleBindingRepository;
+import com.webank.wecube.platform.core.jpa.workflow.TaskNodeDefInfoRepository;
+import com.webank.wecube.platform.core.jpa.workflow.TaskNodeParamRepository;
+import com.webank.wecube.platform.core.service.user.UserManagementServiceImpl;
+import com.webank.wecube.platform.workflow.commons.LocalIdGenerator;
+
+public class ProcDefArchiveServiceTest extends DatabaseBasedTest {
+
+    @Autowired
+    private ProcDefInfoRepository procDefInfoRepository;
+
+    @Autowired
+    private TaskNodeDefInfoRepository taskNodeDefInfoRepository;
+
+    @Autowired
+    private TaskNodeParamRepository taskNodeParamRepository;
+
+    @Autowired
+    private ProcRoleBindingRepository procRoleBindingRepository;
+
+    private UserManagementServiceImpl userManagementService;
+
+    private WorkflowProperties workflowProperties;
+
+    private ProcDefArchiveService archiveService;
+
+    @Before
+    public void setupArchiveService() {
+        RoleDto role = new RoleDto();
+        role.setId("role-1");
+        role.setName("SUPER_ADMIN");
+        userManagementService = Mockito.mock(UserManagementServiceImpl.class);
+        Mockito.when(userManagementService.getGrantedRolesByUsername(ArgumentMatchers.any()))
+                .thenReturn(Collections.singletonList(role));
+
+        workflowProperties = new ApplicationProperties().new WorkflowProperties();
+        workflowProperties.setProcDefImportChunkSize(2);
+
+        // no auth server is needed for the roles
+        archiveService = autowire(new ProcDefArchiveService());
+        ReflectionTestUtils.setField(archiveService, "userManagementService", userManagementService);
+        ReflectionTestUtils.setField(archiveService, "workflowProperties", workflowProperties);
+    }
+
+    @Test
+    public void givenDeployedDefinitionsWhenExportAndImportArchiveThenDraftCopiesImported() throws Exception {
+        List<String> procDefIds = Arrays.asList(newDeployedProcDef(), newDeployedProcDef(), newDeployedProcDef());
+
+        byte[] archive = exportArchive(procDefIds);
+        ProcDefArchiveImportResultDto result = archiveService
+                .importProcessDefinitions(new ByteArrayInputStream(archive), false);
+
+        assertThat(result.getTotal()).isEqualTo(3);
+        assertThat(result.getImported()).isEqualTo(3);
+        assertThat(result.getInvalid()).isZero();
+        assertThat(result.getFailed()).isZero();
+        assertThat(result.getErrorMessage()).isNull();
+
+        for (ProcDefArchiveImportItemDto item : result.getItems()) {
+            assertThat(item.getStatus()).isEqualTo(ProcDefArchiveImportItemDto.STATUS_IMPORTED);
+            assertThat(item.getProcDefId()).isNotIn(procDefIds);
+
+            ProcDefInfoEntity draft = procDefInfoRepository.findById(item.getProcDefId()).get();
+            assertThat(draft.getStatus()).isEqualTo(ProcDefInfoEntity.DRAFT_STATUS);
+            assertThat(draft.getProcDefData()).isEqualTo("<bpmn/>");
+
+            List<TaskNodeDefInfoEntity> draftNodes = taskNodeDefInfoRepository.findAllByProcDefId(draft.getId());
+            assertThat(draftNodes).extracting(TaskNodeDefInfoEntity::getNodeId).containsOnly("node-1", "node-2");
+            List<TaskNodeParamEntity> draftParams = taskNodeParamRepository.findAllByProcDefId(draft.getId());
+            assertThat(draftParams).hasSize(2);
+            assertThat(draftParams).extracting(TaskNodeParamEntity::getTaskNodeDefId)
+                    .isSubsetOf(draftNodes.stream().map(TaskNodeDefInfoEntity::getId).toArray(String[]::new));
+
+            assertThat(procRoleBindingRepository.findAllByProcId(draft.getId()))
+                    .extracting(ProcRoleBindingEntity::getRoleName).containsExactly("SUPER_ADMIN");
+        }
+    }
+
+    @Test
+    public void givenInvalidDefinitionWhenDryRunThenReportedWithoutSaving() throws Exception {
+        String procDefId = newDeployedProcDef();
+        String archive = new String(Base64.getDecoder().decode(exportArchive(Collections.singletonList(procDefId))),
+                StandardCharsets.UTF_8);
+        String procDef = archive.substring(archive.indexOf('[') + 1, archive.lastIndexOf(']'));
+        String duplicatedNodeProcDef = procDef.replace("node-2", "node-1");
+
+        ProcDefArchiveImportResultDto result = archiveService
+                .importProcessDefinitions(encode("{\"formatVersion\":1,\"procDefs\":[" + procDef + ","
+                        + duplicatedNodeProcDef + "]}"), true);
+
+        assertThat(result.isDryRun()).isTrue();
+        assertThat(result.getTotal()).isEqualTo(2);
+        assertThat(result.getValid()).isEqualTo(1);
+        assertThat(result.getInvalid()).isEqualTo(1);
+        assertThat(result.getImported()).isZero();
+        assertThat(result.getItems().get(1).getErrorMessage()).contains("node-1");
+        assertThat(result.getItems()).extracting(ProcDefArchiveImportItemDto::getProcDefId).containsOnlyNulls();
+        Mockito.verifyZeroInteractions(userManagementService);
+    }
+
+    @Test
+    public void givenTruncatedArchiveWhenImportThenCommittedChunksReported() throws Exception {
+        workflowProperties.setProcDefImportChunkSize(1);
+        List<String> procDefIds = Arrays.asList(newDeployedProcDef(), newDeployedProcDef());
+        String archive = new String(Base64.getDecoder().decode(exportArchive(procDefIds)), StandardCharsets.UTF_8);
+        String truncatedArchive = archive.substring(0, archive.lastIndexOf("node-2"));
+
+        ProcDefArchiveImportResultDto result = archiveService.importProcessDefinitions(encode(truncatedArchive),
+                false);
+
+        assertThat(result.getErrorMessage()).isNotNull();
+        assertThat(result.getTotal()).isEqualTo(1);
+        assertThat(result.getImported()).isEqualTo(1);
+        assertThat(procDefInfoRepository.findById(result.getItems().get(0).getProcDefId())).isPresent();
+    }
+
+    @Test
+    public void givenUndeployedDefinitionWhenResolveExportThenRejected() {
+        String procDefId = newDeployedProcDef();
+
+        assertThat(archiveService.resolveExportProcDefIds(Arrays.asList(procDefId, procDefId)))
+                .containsExactly(procDefId);
+        assertThatThrownBy(() -> archiveService.resolveExportProcDefIds(Arrays.asList(procDefId, "not-existing")))
+                .isInstanceOf(WecubeCoreException.class);
+    }
+
+    private byte[] exportArchive(List<String> procDefIds) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        archiveService.exportProcessDefinitions(procDefIds, out);
+        return out.toByteArray();
+    }
+
+    private ByteArrayInputStream encode(String archive) {
+        return new ByteArrayInputStream(Base64.getEncoder().encode(archive.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private String newDeployedProcDef() {
+        ProcDefInfoEntity procDef = new ProcDefInfoEntity();
+        procDef.setId(LocalIdGenerator.generateId());
+        procDef.setStatus(ProcDefInfoEntity.DEPLOYED_STATUS);
+        procDef.setProcDefKey("proc-" + UUID.randomUUID());
+        procDef.setProcDefName("archived process");
+        procDef.setProcDefVersion(1);
+        procDef.setProcDefData("<bpmn/>");
+        procDef.setRootEntity("wecmdb:host");
+        procDefInfoRepository.save(procDef);
+
+        List<TaskNodeParamEntity> params = new ArrayList<>();
+        for (String nodeId : Arrays.asList("node-1", "node-2")) {
+            TaskNodeDefInfoEntity node = new TaskNodeDefInfoEntity();
+            node.setId(LocalIdGenerator.generateId());
+            node.setStatus(TaskNodeDefInfoEntity.DEPLOYED_STATUS);
+            node.setProcDefId(procDef.getId());
+            node.setProcDefKey(procDef.getProcDefKey());
+            node.setNodeId(nodeId);
+            node.setNodeName("task " + nodeId);
+            node.setServiceName("wecmdb/host/create");
+            taskNodeDefInfoRepository.save(node);
+
+            TaskNodeParamEntity param = new TaskNodeParamEntity();
+            param.setId(LocalIdGenerator.generateId());
+            param.setStatus(TaskNodeParamEntity.DEPLOYED_STATUS);
+            param.setProcDefId(procDef.getId());
+            param.setTaskNodeDefId(node.getId());
+            param.setNodeId(nodeId);
+            param.setParamName("hostName");
+            param.setBindType("constant");
+            param.setBindValue("host-1");
+            params.add(param);
+        }
+        taskNodeParamRepository.saveAll(params);
+
+        return procDef.getId();
+    }
+}
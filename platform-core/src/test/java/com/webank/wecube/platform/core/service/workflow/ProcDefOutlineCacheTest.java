@@ -0,0 +1,153 @@
+package com.webank.wecube.platform.core.service.workflow;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Date;
+
+import org.camunda.bpm.engine.RepositoryService;
+import org.camunda.bpm.engine.RuntimeService;
+import org.camunda.bpm.engine.repository.ProcessDefinition;
+import org.camunda.bpm.model.bpmn.Bpmn;
+import org.camunda.bpm.model.bpmn.BpmnModelInstance;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.webank.wecube.platform.core.DatabaseBasedTest;
+import com.webank.wecube.platform.core.entity.workflow.ProcDefInfoEntity;
+import com.webank.wecube.platform.core.jpa.workflow.ProcDefInfoRepository;
+import com.webank.wecube.platform.workflow.commons.LocalIdGenerator;
+import com.webank.wecube.platform.workflow.entity.ProcessInstanceStatusEntity;
+import com.webank.wecube.platform.workflow.entity.ServiceNodeStatusEntity;
+import com.webank.wecube.platform.workflow.model.ProcDefOutline;
+import com.webank.wecube.platform.workflow.model.ProcFlowNodeInst;
+import com.webank.wecube.platform.workflow.model.ProcInstOutline;
+import com.webank.wecube.platform.workflow.model.TraceStatus;
+import com.webank.wecube.platform.workflow.repository.ProcessInstanceStatusRepository;
+import com.webank.wecube.platform.workflow.repository.ServiceNodeStatusRepository;
+
+public class ProcDefOutlineCacheTest extends DatabaseBasedTest {
+    private static final String PROC_DEF_KEY = "outlineCache";
+
+    @Autowired
+    private RepositoryService repositoryService;
+
+    @Autowired
+    private WorkflowEngineService workflowEngineService;
+
+    @Autowired
+    private ProcDefOutlineCache procDefOutlineCache;
+
+    @Autowired
+    private WorkflowProcDefService workflowProcDefService;
+
+    @Autowired
+    private ProcDefInfoRepository procDefInfoRepository;
+
+    @Autowired
+    private ProcessInstanceStatusRepository processInstanceStatusRepository;
+
+    @Autowired
+    private ServiceNodeStatusRepository serviceNodeStatusRepository;
+
+    @Test
+    public void givenCachedOutlineWhenCallerChangesItThenNextLookupIsUnaffected() {
+        ProcessDefinition procDef = deploy();
+
+        ProcDefOutline first = workflowEngineService.getProcDefOutline(procDef);
+        assertThat(procDefOutlineCache.getFlowGraph(procDef.getId())).isNotNull();
+        assertThat(first.getFlowNodes()).extracting("id").containsExactly("start", "gateway", "task_a", "task_b",
+                "join", "end");
+        assertThat(first.findFlowNode("join").getPreviousFlowNodes()).extracting("id").containsExactly("task_a",
+                "task_b");
+
+        first.getFlowNodes().clear();
+        first.setProcDefName("changed");
+
+        ProcDefOutline second = workflowEngineService.getProcDefOutline(procDef);
+        assertThat(second.getProcDefName()).isEqualTo("outline cache");
+        assertThat(second.getFlowNodes()).hasSize(6);
+        assertThat(second.findFlowNode("gateway").getSucceedingFlowNodes()).extracting("id")
+                .containsExactly("task_a", "task_b");
+
+        procDefOutlineCache.evict(null, procDef.getId());
+        assertThat(procDefOutlineCache.getFlowGraph(procDef.getId())).isNull();
+    }
+
+    @Test
+    public void givenCompletedInstanceAndCachedOutlineWhenGetProcInstOutlineThenCamundaIsNotRead() {
+        ProcessDefinition procDef = deploy();
+        workflowEngineService.getProcDefOutline(procDef);
+
+        String procInstId = "completed-" + LocalIdGenerator.generateId();
+        ProcessInstanceStatusEntity procInstStatus = new ProcessInstanceStatusEntity();
+        procInstStatus.setId(LocalIdGenerator.generateId());
+        procInstStatus.setProcInstanceId(procInstId);
+        procInstStatus.setProcInstanceBizKey("biz-" + procInstId);
+        procInstStatus.setProcDefinitionId(procDef.getId());
+        procInstStatus.setStatus(TraceStatus.Completed);
+        processInstanceStatusRepository.save(procInstStatus);
+
+        ServiceNodeStatusEntity nodeStatus = new ServiceNodeStatusEntity();
+        nodeStatus.setId(LocalIdGenerator.generateId());
+        nodeStatus.setProcInstanceId(procInstId);
+        nodeStatus.setProcInstanceBizKey("biz-" + procInstId);
+        nodeStatus.setNodeId("task_a");
+        nodeStatus.setStatus(TraceStatus.Completed);
+        nodeStatus.setEndTime(new Date());
+        serviceNodeStatusRepository.save(nodeStatus);
+
+        // Camunda taken away, so that the outline can only come from the cache
+        RepositoryService camundaRepositoryService = Mockito.mock(RepositoryService.class);
+        RuntimeService camundaRuntimeService = Mockito.mock(RuntimeService.class);
+        WorkflowEngineService engineService = autowire(new WorkflowEngineService());
+        ReflectionTestUtils.setField(engineService, "repositoryService", camundaRepositoryService);
+        ReflectionTestUtils.setField(engineService, "runtimeService", camundaRuntimeService);
+
+        ProcInstOutline outline = engineService.getProcInstOutline(procInstId);
+
+        Mockito.verifyZeroInteractions(camundaRepositoryService, camundaRuntimeService);
+        assertThat(outline.getId()).isEqualTo(procInstId);
+        assertThat(outline.getProcDefKernelId()).isEqualTo(procDef.getId());
+        assertThat(outline.getNodeInsts()).hasSize(6);
+        ProcFlowNodeInst taskA = outline.findProcFlowNodeInstByNodeId("task_a");
+        assertThat(taskA.getStatus()).isEqualTo(TraceStatus.Completed.name());
+        assertThat(outline.findProcFlowNodeInstByNodeId("task_b").getStatus()).isNull();
+        assertThat(outline.findProcFlowNodeInstByNodeId("gateway").getStatus())
+                .isEqualTo(TraceStatus.Completed.name());
+    }
+
+    @Test
+    public void givenCachedOutlineWhenRemovedOnAnotherNodeThenReadAgain() {
+        ProcDefInfoEntity procDef = new ProcDefInfoEntity();
+        procDef.setId(LocalIdGenerator.generateId());
+        procDef.setStatus(ProcDefInfoEntity.DEPLOYED_STATUS);
+        procDef.setProcDefKey(PROC_DEF_KEY);
+        procDef.setProcDefName("outline cache");
+        procDef.setProcDefVersion(1);
+        procDef.setRootEntity("wecmdb:host");
+        procDefInfoRepository.save(procDef);
+
+        assertThat(workflowProcDefService.getProcessDefinitionOutline(procDef.getId()).getStatus())
+                .isEqualTo(ProcDefInfoEntity.DEPLOYED_STATUS);
+        assertThat(procDefOutlineCache.getProcDefOutline(procDef.getId())).isNotNull();
+
+        // without the eviction which only reaches the cache of that node
+        procDef.setStatus(ProcDefInfoEntity.DELETED_STATUS);
+        procDefInfoRepository.saveAndFlush(procDef);
+
+        assertThat(workflowProcDefService.getProcessDefinitionOutline(procDef.getId()).getStatus())
+                .isEqualTo(ProcDefInfoEntity.DELETED_STATUS);
+        assertThat(procDefOutlineCache.getProcDefOutline(procDef.getId())).isNull();
+    }
+
+    private ProcessDefinition deploy() {
+        BpmnModelInstance model = Bpmn.createExecutableProcess(PROC_DEF_KEY).name("outline cache")
+                .startEvent("start").exclusiveGateway("gateway").userTask("task_a").parallelGateway("join")
+                .endEvent("end").moveToNode("gateway").userTask("task_b").connectTo("join").done();
+        String deploymentId = repositoryService.createDeployment().addModelInstance(PROC_DEF_KEY + ".bpmn", model)
+                .deploy().getId();
+        return repositoryService.createProcessDefinitionQuery().deploymentId(deploymentId).singleResult();
+    }
+}
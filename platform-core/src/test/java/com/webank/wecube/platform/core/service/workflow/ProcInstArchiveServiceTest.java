@@ -0,0 +1,194 @@
+package com.webank.wecube.platform.core.service.workflow;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.webank.wecube.platform.core.DatabaseBasedTest;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.WorkflowProperties;
+import com.webank.wecube.platform.core.dto.workflow.ProcInstInfoDto;
+import com.webank.wecube.platform.core.dto.workflow.TaskNodeExecContextDto;
+import com.webank.wecube.platform.core.entity.workflow.ProcExecBindingEntity;
+import com.webank.wecube.platform.core.entity.workflow.ProcInstInfoEntity;
+import com.webank.wecube.platform.core.entity.workflow.TaskNodeExecParamEntity;
+import com.webank.wecube.platform.core.entity.workflow.TaskNodeExecRequestEntity;
+import com.webank.wecube.platform.core.entity.workflow.TaskNodeInstInfoEntity;
+import com.webank.wecube.platform.core.jpa.workflow.ProcExecBindingRepository;
+import com.webank.wecube.platform.core.jpa.workflow.ProcInstInfoRepository;
+import com.webank.wecube.platform.core.jpa.workflow.TaskNodeExecParamRepository;
+import com.webank.wecube.platform.core.jpa.workflow.TaskNodeExecRequestRepository;
+import com.webank.wecube.platform.core.jpa.workflow.TaskNodeInstInfoRepository;
+import com.webank.wecube.platform.workflow.commons.LocalIdGenerator;
+
+public class ProcInstArchiveServiceTest extends DatabaseBasedTest {
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    @Autowired
+    private WorkflowProperties workflowProperties;
+
+    @Autowired
+    private WorkflowProcInstService workflowProcInstService;
+
+    @Autowired
+    private WorkflowDataService workflowDataService;
+
+    @Autowired
+    private ProcInstArchiveService procInstArchiveService;
+
+    @Autowired
+    private TaskNodeExecParamStorageService taskNodeExecParamStorageService;
+
+    @Autowired
+    private ProcInstInfoRepository procInstInfoRepository;
+
+    @Autowired
+    private TaskNodeInstInfoRepository taskNodeInstInfoRepository;
+
+    @Autowired
+    private TaskNodeExecRequestRepository taskNodeExecRequestRepository;
+
+    @Autowired
+    private TaskNodeExecParamRepository taskNodeExecParamRepository;
+
+    @Autowired
+    private ProcExecBindingRepository procExecBindingRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private long archivePauseMillis;
+
+    @Before
+    public void setupArchiving() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        archivePauseMillis = workflowProperties.getArchivePauseMillis();
+        workflowProperties.setArchivePauseMillis(0);
+    }
+
+    @After
+    public void restoreArchiving() {
+        workflowProperties.setArchivePauseMillis(archivePauseMillis);
+    }
+
+    @Test
+    public void givenInstanceCompletedLongAgoWhenArchiveThenRuntimeRowsRemovedAndDetailsStillReadable() {
+        String largeValue = StringUtils.repeat("deploying instance ok\n", 5000);
+        ProcInstInfoEntity procInst = newProcInst(ProcInstInfoEntity.COMPLETED_STATUS, 400);
+        TaskNodeInstInfoEntity nodeInst = newTaskNodeInst(procInst);
+        String requestId = newExecRequest(nodeInst, largeValue);
+        newProcInstBinding(procInst);
+        ProcInstInfoDto liveProcInst = workflowProcInstService.getProcessInstanceById(procInst.getId());
+
+        assertThat(workflowProcInstService.archiveCompletedProcessInstances()).isEqualTo(1);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(count("core_ru_proc_inst_info", "id", procInst.getId())).isZero();
+        assertThat(count("core_ru_task_node_inst_info", "proc_inst_id", procInst.getId())).isZero();
+        assertThat(count("core_ru_proc_exec_binding", "proc_inst_id", procInst.getId())).isZero();
+        assertThat(count("core_ru_task_node_exec_req", "req_id", requestId)).isZero();
+        assertThat(count("core_ru_task_node_exec_param", "req_id", requestId)).isZero();
+        assertThat(jdbcTemplate.queryForObject("select count(1) from core_ru_task_node_exec_param_blob",
+                Integer.class)).isZero();
+
+        ProcInstInfoDto archivedProcInst = workflowProcInstService.getProcessInstanceById(procInst.getId());
+        assertThat(archivedProcInst.getStatus()).isEqualTo(ProcInstInfoEntity.COMPLETED_STATUS);
+        assertThat(archivedProcInst.getProcInstKey()).isEqualTo(liveProcInst.getProcInstKey());
+        assertThat(archivedProcInst.getEntityDataId()).isEqualTo("host-1");
+        assertThat(archivedProcInst.getTaskNodeInstances()).extracting("nodeId").containsExactly("task_a");
+
+        assertThat(workflowProcInstService.getProcessInstanceExecBindings(procInst.getId())).isEmpty();
+
+        TaskNodeExecContextDto nodeContext = workflowDataService.getTaskNodeContextInfo(procInst.getId(),
+                nodeInst.getId());
+        assertThat(nodeContext.getRequestId()).isEqualTo(requestId);
+        assertThat(nodeContext.getRequestObjects()).hasSize(1);
+        assertThat(nodeContext.getRequestObjects().get(0).getInputs()).containsEntry("script", largeValue);
+    }
+
+    @Test
+    public void givenRecentOrUnfinishedInstancesWhenArchiveThenKeepThem() {
+        ProcInstInfoEntity recentProcInst = newProcInst(ProcInstInfoEntity.COMPLETED_STATUS, 10);
+        ProcInstInfoEntity runningProcInst = newProcInst(ProcInstInfoEntity.IN_PROGRESS_STATUS, 400);
+
+        assertThat(workflowProcInstService.archiveCompletedProcessInstances()).isZero();
+
+        assertThat(count("core_ru_proc_inst_info", "id", recentProcInst.getId())).isEqualTo(1);
+        assertThat(count("core_ru_proc_inst_info", "id", runningProcInst.getId())).isEqualTo(1);
+        assertThat(procInstArchiveService.getArchivedProcInst(recentProcInst.getId())).isNull();
+    }
+
+    private ProcInstInfoEntity newProcInst(String status, int completedDaysAgo) {
+        ProcInstInfoEntity procInst = new ProcInstInfoEntity();
+        procInst.setProcDefId("archive-proc-def");
+        procInst.setProcDefKey("archive");
+        procInst.setProcDefName("archive");
+        procInst.setProcInstKey("archive-" + LocalIdGenerator.generateId());
+        procInst.setProcInstKernelId("kernel-" + procInst.getProcInstKey());
+        procInst.setStatus(status);
+        procInst.setCreatedTime(new Date(System.currentTimeMillis() - (completedDaysAgo + 1) * DAY_MILLIS));
+        procInst.setUpdatedTime(new Date(System.currentTimeMillis() - completedDaysAgo * DAY_MILLIS));
+        return procInstInfoRepository.save(procInst);
+    }
+
+    private TaskNodeInstInfoEntity newTaskNodeInst(ProcInstInfoEntity procInst) {
+        TaskNodeInstInfoEntity nodeInst = new TaskNodeInstInfoEntity();
+        nodeInst.setProcInstId(procInst.getId());
+        nodeInst.setProcInstKey(procInst.getProcInstKey());
+        nodeInst.setProcDefId(procInst.getProcDefId());
+        nodeInst.setNodeDefId("archive-node-def");
+        nodeInst.setNodeId("task_a");
+        nodeInst.setNodeName("task a");
+        nodeInst.setNodeType("subProcess");
+        nodeInst.setStatus(TaskNodeInstInfoEntity.COMPLETED_STATUS);
+        return taskNodeInstInfoRepository.save(nodeInst);
+    }
+
+    private String newExecRequest(TaskNodeInstInfoEntity nodeInst, String value) {
+        TaskNodeExecRequestEntity request = new TaskNodeExecRequestEntity();
+        request.setRequestId("archive-req-" + LocalIdGenerator.generateId());
+        request.setNodeInstId(nodeInst.getId());
+        taskNodeExecRequestRepository.save(request);
+
+        TaskNodeExecParamEntity param = new TaskNodeExecParamEntity();
+        param.setRequestId(request.getRequestId());
+        param.setObjectId("0");
+        param.setParamType(TaskNodeExecParamEntity.PARAM_TYPE_REQUEST);
+        param.setParamName("script");
+        param.setParamDataType(TaskNodeExecParamEntity.PARAM_DATA_TYPE_STRING);
+        param.setSensitive(false);
+        taskNodeExecParamStorageService.storeParamDataValue(param, value);
+        taskNodeExecParamRepository.save(param);
+
+        return request.getRequestId();
+    }
+
+    private void newProcInstBinding(ProcInstInfoEntity procInst) {
+        ProcExecBindingEntity binding = new ProcExecBindingEntity();
+        binding.setProcDefId(procInst.getProcDefId());
+        binding.setProcInstId(procInst.getId());
+        binding.setBindType(ProcExecBindingEntity.BIND_TYPE_PROC_INSTANCE);
+        binding.setEntityTypeId("cmdb:host");
+        binding.setEntityDataId("host-1");
+        procExecBindingRepository.save(binding);
+    }
+
+    private int count(String table, String column, Object value) {
+        entityManager.flush();
+        return jdbcTemplate.queryForObject("select count(1) from " + table + " where " + column + " = ?",
+                Integer.class, value);
+    }
+}
@@ -0,0 +1,284 @@
+package com.webank.wecube.platform.core.service.workflow;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.webank.wecube.platform.core.DatabaseBasedTest;
+import com.webank.wecube.platform.core.commons.ApplicationProperties;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.WorkflowProperties;
+import com.webank.wecube.platform.core.dto.workflow.ProcInstStatusEventDto;
+import com.webank.wecube.platform.core.entity.workflow.ProcInstInfoEntity;
+import com.webank.wecube.platform.core.entity.workflow.TaskNodeInstInfoEntity;
+import com.webank.wecube.platform.core.jpa.workflow.ProcInstInfoRepository;
+import com.webank.wecube.platform.core.jpa.workflow.TaskNodeInstInfoRepository;
+
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ProcInstStatusStreamServiceTest extends DatabaseBasedTest {
+
+    @Autowired
+    private ProcInstInfoRepository procInstInfoRepository;
+
+    @Autowired
+    private TaskNodeInstInfoRepository taskNodeInstInfoRepository;
+
+    private WorkflowProperties workflowProperties;
+
+    private ManualExecutorService senderExecutorService;
+
+    private ProcInstStatusStreamService streamService;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private ProcInstInfoEntity procInst;
+
+    private TaskNodeInstInfoEntity nodeInst;
+
+    @Before
+    public void setupStreamService() {
+        workflowProperties = new ApplicationProperties().new WorkflowProperties();
+        senderExecutorService = new ManualExecutorService();
+
+        // events are sent, and changes read from the database, only when the test says so
+        streamService = autowire(new ProcInstStatusStreamService() {
+            @Override
+            protected SseEmitter newEmitter(long timeoutMillis) {
+                return new RecordingEmitter();
+            }
+        });
+        ReflectionTestUtils.setField(streamService, "workflowProperties", workflowProperties);
+        ReflectionTestUtils.setField(streamService, "senderExecutorService", senderExecutorService);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        procInst = new ProcInstInfoEntity();
+        procInst.setStatus(ProcInstInfoEntity.NOT_STARTED_STATUS);
+        procInst = procInstInfoRepository.save(procInst);
+
+        nodeInst = new TaskNodeInstInfoEntity();
+        nodeInst.setProcInstId(procInst.getId());
+        nodeInst.setNodeId("node-1");
+        nodeInst.setStatus(TaskNodeInstInfoEntity.NOT_STARTED_STATUS);
+        nodeInst = taskNodeInstInfoRepository.save(nodeInst);
+    }
+
+    @After
+    public void deleteInstances() {
+        jdbcTemplate.update("delete from core_ru_task_node_inst_info where proc_inst_id = ?", procInst.getId());
+        jdbcTemplate.update("delete from core_ru_proc_inst_info where id = ?", procInst.getId());
+    }
+
+    @Test
+    public void givenNewSubscriberWhenStatusesChangeThenSnapshotFollowedByChanges() {
+        RecordingEmitter emitter = (RecordingEmitter) streamService.subscribe(procInst.getId(), null);
+        senderExecutorService.runAll();
+
+        assertThat(emitter.events).hasSize(1);
+        ProcInstStatusEventDto snapshot = emitter.events.get(0);
+        assertThat(snapshot.getType()).isEqualTo(ProcInstStatusEventDto.TYPE_SNAPSHOT);
+        assertThat(snapshot.getStatus()).isEqualTo(ProcInstInfoEntity.NOT_STARTED_STATUS);
+        assertThat(snapshot.getTaskNodes()).extracting(ProcInstStatusEventDto::getNodeId).containsExactly("node-1");
+
+        streamService.publishProcInstStatus(procInstStatus(ProcInstInfoEntity.IN_PROGRESS_STATUS));
+        streamService.publishTaskNodeStatus(taskNodeStatus(TaskNodeInstInfoEntity.IN_PROGRESS_STATUS));
+        streamService.publishTaskNodeStatus(taskNodeStatus(TaskNodeInstInfoEntity.IN_PROGRESS_STATUS));
+        senderExecutorService.runAll();
+
+        assertThat(emitter.events).hasSize(3);
+        assertThat(emitter.events.get(1).getType()).isEqualTo(ProcInstStatusEventDto.TYPE_PROC_INST);
+        assertThat(emitter.events.get(2).getType()).isEqualTo(ProcInstStatusEventDto.TYPE_TASK_NODE);
+        assertThat(emitter.events.get(2).getNodeInstId()).isEqualTo(nodeInst.getId());
+        assertThat(emitter.events.get(1).getVersion()).isGreaterThan(snapshot.getVersion());
+        assertThat(emitter.events.get(2).getVersion()).isGreaterThan(emitter.events.get(1).getVersion());
+    }
+
+    @Test
+    public void givenRetainedVersionWhenSubscribeThenOnlyLaterChangesSent() {
+        RecordingEmitter firstEmitter = (RecordingEmitter) streamService.subscribe(procInst.getId(), null);
+        streamService.publishProcInstStatus(procInstStatus(ProcInstInfoEntity.IN_PROGRESS_STATUS));
+        streamService.publishTaskNodeStatus(taskNodeStatus(TaskNodeInstInfoEntity.COMPLETED_STATUS));
+        senderExecutorService.runAll();
+        ProcInstStatusEventDto lastEvent = firstEmitter.events.get(1);
+
+        RecordingEmitter resumedEmitter = (RecordingEmitter) streamService.subscribe(procInst.getId(),
+                lastEvent.getEventId());
+        senderExecutorService.runAll();
+
+        assertThat(resumedEmitter.events).hasSize(1);
+        assertThat(resumedEmitter.events.get(0).getType()).isEqualTo(ProcInstStatusEventDto.TYPE_TASK_NODE);
+        assertThat(resumedEmitter.events.get(0).getStatus()).isEqualTo(TaskNodeInstInfoEntity.COMPLETED_STATUS);
+
+        // the same version issued by another node
+        RecordingEmitter otherNodeEmitter = (RecordingEmitter) streamService.subscribe(procInst.getId(),
+                "otherNode-" + lastEvent.getVersion());
+        senderExecutorService.runAll();
+
+        assertThat(otherNodeEmitter.events).extracting(ProcInstStatusEventDto::getType)
+                .containsExactly(ProcInstStatusEventDto.TYPE_SNAPSHOT);
+    }
+
+    @Test
+    public void givenStatusChangedOnAnotherNodeWhenPollThenChangeSentOnce() {
+        RecordingEmitter emitter = (RecordingEmitter) streamService.subscribe(procInst.getId(), null);
+        senderExecutorService.runAll();
+
+        assertThat(streamService.pollWatchedInstances()).isZero();
+
+        jdbcTemplate.update("update core_ru_task_node_inst_info set status = ? where id = ?",
+                TaskNodeInstInfoEntity.COMPLETED_STATUS, nodeInst.getId());
+        assertThat(streamService.pollWatchedInstances()).isEqualTo(1);
+        assertThat(streamService.pollWatchedInstances()).isZero();
+        senderExecutorService.runAll();
+
+        assertThat(emitter.events).hasSize(2);
+        assertThat(emitter.events.get(1).getType()).isEqualTo(ProcInstStatusEventDto.TYPE_TASK_NODE);
+        assertThat(emitter.events.get(1).getStatus()).isEqualTo(TaskNodeInstInfoEntity.COMPLETED_STATUS);
+
+        // already published on this node
+        streamService.publishTaskNodeStatus(taskNodeStatus(TaskNodeInstInfoEntity.COMPLETED_STATUS));
+        senderExecutorService.runAll();
+
+        assertThat(emitter.events).hasSize(2);
+    }
+
+    @Test
+    public void givenStatusChangedOnAnotherNodeWhenSecondSubscriberConnectsBeforePollThenFirstGetsChange() {
+        RecordingEmitter firstEmitter = (RecordingEmitter) streamService.subscribe(procInst.getId(), null);
+        senderExecutorService.runAll();
+
+        jdbcTemplate.update("update core_ru_task_node_inst_info set status = ? where id = ?",
+                TaskNodeInstInfoEntity.FAULTED_STATUS, nodeInst.getId());
+        RecordingEmitter secondEmitter = (RecordingEmitter) streamService.subscribe(procInst.getId(), null);
+        senderExecutorService.runAll();
+
+        assertThat(secondEmitter.events).hasSize(1);
+        assertThat(secondEmitter.events.get(0).getTaskNodes()).extracting(ProcInstStatusEventDto::getStatus)
+                .containsExactly(TaskNodeInstInfoEntity.FAULTED_STATUS);
+        assertThat(firstEmitter.events).hasSize(2);
+        assertThat(firstEmitter.events.get(1).getType()).isEqualTo(ProcInstStatusEventDto.TYPE_TASK_NODE);
+        assertThat(firstEmitter.events.get(1).getStatus()).isEqualTo(TaskNodeInstInfoEntity.FAULTED_STATUS);
+        assertThat(secondEmitter.events.get(0).getVersion()).isGreaterThanOrEqualTo(
+                firstEmitter.events.get(1).getVersion());
+
+        assertThat(streamService.pollWatchedInstances()).isZero();
+    }
+
+    @Test
+    public void givenSlowSubscriberWhenQueueFullThenResyncOrDisconnect() {
+        workflowProperties.setStatusStreamQueueCapacity(2);
+        RecordingEmitter emitter = (RecordingEmitter) streamService.subscribe(procInst.getId(), null);
+        senderExecutorService.runAll();
+
+        streamService.publishTaskNodeStatus(taskNodeStatus(TaskNodeInstInfoEntity.IN_PROGRESS_STATUS));
+        streamService.publishTaskNodeStatus(taskNodeStatus(TaskNodeInstInfoEntity.FAULTED_STATUS));
+        streamService.publishTaskNodeStatus(taskNodeStatus(TaskNodeInstInfoEntity.COMPLETED_STATUS));
+        senderExecutorService.runAll();
+
+        assertThat(emitter.events).extracting(ProcInstStatusEventDto::getType)
+                .containsExactly(ProcInstStatusEventDto.TYPE_SNAPSHOT, ProcInstStatusEventDto.TYPE_SNAPSHOT);
+
+        workflowProperties.setStatusStreamBackpressurePolicy(ProcInstStatusStreamService.BACKPRESSURE_DISCONNECT);
+        streamService.publishProcInstStatus(procInstStatus(ProcInstInfoEntity.IN_PROGRESS_STATUS));
+        streamService.publishProcInstStatus(procInstStatus(ProcInstInfoEntity.FAULTED_STATUS));
+        streamService.publishProcInstStatus(procInstStatus(ProcInstInfoEntity.COMPLETED_STATUS));
+
+        assertThat(emitter.completed).isTrue();
+        assertThat(streamService.getSubscriberCount(procInst.getId())).isZero();
+    }
+
+    private ProcInstInfoEntity procInstStatus(String status) {
+        ProcInstInfoEntity statusChange = new ProcInstInfoEntity();
+        statusChange.setId(procInst.getId());
+        statusChange.setStatus(status);
+        statusChange.setUpdatedTime(new Date());
+        return statusChange;
+    }
+
+    private TaskNodeInstInfoEntity taskNodeStatus(String status) {
+        TaskNodeInstInfoEntity statusChange = new TaskNodeInstInfoEntity();
+        statusChange.setId(nodeInst.getId());
+        statusChange.setProcInstId(procInst.getId());
+        statusChange.setNodeId(nodeInst.getNodeId());
+        statusChange.setStatus(status);
+        statusChange.setUpdatedTime(new Date());
+        return statusChange;
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+        final List<ProcInstStatusEventDto> events = new ArrayList<>();
+        boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            for (ResponseBodyEmitter.DataWithMediaType data : builder.build()) {
+                if (data.getData() instanceof ProcInstStatusEventDto) {
+                    events.add((ProcInstStatusEventDto) data.getData());
+                }
+            }
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed = true;
+        }
+    }
+
+    private static class ManualExecutorService extends AbstractExecutorService {
+        private final Deque<Runnable> tasks = new ArrayDeque<>();
+
+        void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.webank.wecube.platform.core.service.workflow;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.webank.wecube.platform.core.DatabaseBasedTest;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.WorkflowProperties;
+import com.webank.wecube.platform.core.entity.workflow.GraphNodeEntity;
+import com.webank.wecube.platform.core.entity.workflow.ProcExecBindingTmpEntity;
+import com.webank.wecube.platform.core.jpa.workflow.GraphNodeRepository;
+import com.webank.wecube.platform.core.jpa.workflow.ProcExecBindingTmpRepository;
+
+public class ProcessDataPreviewSessionServiceTest extends DatabaseBasedTest {
+    private static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    @Autowired
+    private WorkflowProperties workflowProperties;
+
+    @Autowired
+    private ProcessDataPreviewSessionService processDataPreviewSessionService;
+
+    @Autowired
+    private ProcExecBindingTmpRepository procExecBindingTmpRepository;
+
+    @Autowired
+    private GraphNodeRepository graphNodeRepository;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private int previewSweepBatchSize;
+
+    @Before
+    public void setupSweeping() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        previewSweepBatchSize = workflowProperties.getPreviewSweepBatchSize();
+        workflowProperties.setPreviewSweepBatchSize(3);
+    }
+
+    @After
+    public void restoreSweeping() {
+        workflowProperties.setPreviewSweepBatchSize(previewSweepBatchSize);
+    }
+
+    @Test
+    public void givenExpiredSessionsWhenSweepThenAllButGraphNodesOfStartedOnesDeleted() {
+        String expiredSession = newSession(48, null, true);
+        String anotherExpiredSession = newSession(30, null, true);
+        String orphanGraphNodesSession = newSession(30, null, false);
+        String startedSession = newSession(48, 1001, true);
+        String recentSession = newSession(1, null, true);
+
+        assertThat(processDataPreviewSessionService.sweepExpiredSessions()).isEqualTo(4);
+
+        assertThat(countBindings(expiredSession)).isZero();
+        assertThat(countGraphNodes(expiredSession)).isZero();
+        assertThat(countBindings(anotherExpiredSession)).isZero();
+        assertThat(countGraphNodes(anotherExpiredSession)).isZero();
+        assertThat(countGraphNodes(orphanGraphNodesSession)).isZero();
+
+        assertThat(countBindings(startedSession)).isZero();
+        assertThat(countGraphNodes(startedSession)).isEqualTo(2);
+        assertThat(countBindings(recentSession)).isEqualTo(3);
+        assertThat(countGraphNodes(recentSession)).isEqualTo(2);
+
+        assertThat(processDataPreviewSessionService.sweepExpiredSessions()).isZero();
+    }
+
+    @Test
+    public void givenExpiredStartedSessionWhenSweepThenOnlyLinkedGraphNodesKept() {
+        String startedSession = newSession(48, 1001, true);
+        GraphNodeEntity unlinkedGraphNode = new GraphNodeEntity();
+        unlinkedGraphNode.setProcessSessionId(startedSession);
+        unlinkedGraphNode.setPackageName("wecmdb");
+        unlinkedGraphNode.setEntityName("host");
+        unlinkedGraphNode.setDataId("host-9");
+        unlinkedGraphNode.setGraphNodeId("wecmdb:host:host-9");
+        unlinkedGraphNode.setCreatedTime(new Date(System.currentTimeMillis() - 48 * HOUR_MILLIS));
+        graphNodeRepository.save(unlinkedGraphNode);
+
+        assertThat(processDataPreviewSessionService.sweepExpiredSessions()).isEqualTo(1);
+
+        assertThat(countBindings(startedSession)).isZero();
+        assertThat(jdbcTemplate.queryForList("select data_id from core_ru_graph_node where proc_sess_id = ?",
+                String.class, startedSession)).containsOnly("host-0", "host-1");
+        assertThat(processDataPreviewSessionService.sweepExpiredSessions()).isZero();
+    }
+
+    private String newSession(int createdHoursAgo, Integer procInstId, boolean withBindings) {
+        String sessionId = UUID.randomUUID().toString();
+        Date createdTime = new Date(System.currentTimeMillis() - createdHoursAgo * HOUR_MILLIS);
+
+        if (withBindings) {
+            for (int i = 0; i < 3; i++) {
+                ProcExecBindingTmpEntity binding = new ProcExecBindingTmpEntity();
+                binding.setBindType(i == 0 ? ProcExecBindingTmpEntity.BIND_TYPE_PROC_INSTANCE
+                        : ProcExecBindingTmpEntity.BIND_TYPE_TASK_NODE_INSTANCE);
+                binding.setBound(ProcExecBindingTmpEntity.BOUND);
+                binding.setProcSessionId(sessionId);
+                binding.setEntityTypeId("wecmdb:host");
+                binding.setEntityDataId("host-" + i);
+                binding.setCreatedTime(createdTime);
+                procExecBindingTmpRepository.save(binding);
+            }
+        }
+
+        for (int i = 0; i < 2; i++) {
+            GraphNodeEntity graphNode = new GraphNodeEntity();
+            graphNode.setProcessSessionId(sessionId);
+            graphNode.setPackageName("wecmdb");
+            graphNode.setEntityName("host");
+            graphNode.setDataId("host-" + i);
+            graphNode.setGraphNodeId("wecmdb:host:host-" + i);
+            graphNode.setProcInstId(procInstId);
+            graphNode.setCreatedTime(createdTime);
+            graphNodeRepository.save(graphNode);
+        }
+
+        return sessionId;
+    }
+
+    private int countBindings(String sessionId) {
+        return jdbcTemplate.queryForObject(
+                "select count(1) from core_ru_proc_exec_binding_tmp where proc_session_id = ?", Integer.class,
+                sessionId);
+    }
+
+    private int countGraphNodes(String sessionId) {
+        return jdbcTemplate.queryForObject("select count(1) from core_ru_graph_node where proc_sess_id = ?",
+                Integer.class, sessionId);
+    }
+}
@@ -0,0 +1,84 @@
+package com.webank.wecube.platform.core.service.workflow;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.webank.wecube.platform.core.DatabaseBasedTest;
+import com.webank.wecube.platform.core.entity.workflow.TaskNodeExecCallbackEntity;
+import com.webank.wecube.platform.core.jpa.workflow.TaskNodeExecCallbackRepository;
+
+public class TaskNodeExecCallbackServiceTest extends DatabaseBasedTest {
+
+    @Autowired
+    private TaskNodeExecCallbackService taskNodeExecCallbackService;
+
+    @Autowired
+    private TaskNodeExecCallbackRepository taskNodeExecCallbackRepository;
+
+    @Test
+    public void givenCompletedCallbackWhenReplayedThenReturnOriginalOutcome() {
+        String requestId = UUID.randomUUID().toString();
+
+        assertThat(taskNodeExecCallbackService.tryAcquire(requestId, "hash")).isNull();
+        TaskNodeExecCallbackEntity processingReceipt = taskNodeExecCallbackService.tryAcquire(requestId, "hash");
+        assertThat(processingReceipt.isCompleted()).isFalse();
+
+        taskNodeExecCallbackService.complete(requestId, "0");
+        TaskNodeExecCallbackEntity completedReceipt = taskNodeExecCallbackService.tryAcquire(requestId, "hash");
+
+        assertThat(completedReceipt.isCompleted()).isTrue();
+        assertThat(completedReceipt.getResultCode()).isEqualTo("0");
+        assertThat(taskNodeExecCallbackRepository.findOneByRequestId(requestId).getReplayTimes()).isEqualTo(1);
+    }
+
+    @Test
+    public void givenReleasedCallbackWhenSentAgainThenProcessAgain() {
+        String requestId = UUID.randomUUID().toString();
+
+        assertThat(taskNodeExecCallbackService.tryAcquire(requestId, "hash")).isNull();
+        taskNodeExecCallbackService.release(requestId);
+
+        assertThat(taskNodeExecCallbackService.tryAcquire(requestId, "hash")).isNull();
+    }
+
+    @Test
+    public void givenConcurrentDuplicateCallbacksWhenAcquireThenOnlyOneWins() throws Exception {
+        String requestId = UUID.randomUUID().toString();
+        int threads = 8;
+        CountDownLatch startLatch = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                Callable<Boolean> task = () -> {
+                    startLatch.await();
+                    return taskNodeExecCallbackService.tryAcquire(requestId, "hash") == null;
+                };
+                futures.add(executor.submit(task));
+            }
+            startLatch.countDown();
+
+            int acquired = 0;
+            for (Future<Boolean> future : futures) {
+                if (future.get()) {
+                    acquired++;
+                }
+            }
+
+            assertThat(acquired).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
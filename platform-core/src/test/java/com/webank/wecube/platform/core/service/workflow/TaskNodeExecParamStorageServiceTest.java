@@ -0,0 +1,109 @@
+package com.webank.wecube.platform.core.service.workflow;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.webank.wecube.platform.core.DatabaseBasedTest;
+import com.webank.wecube.platform.core.entity.workflow.TaskNodeExecParamBlobEntity;
+import com.webank.wecube.platform.core.entity.workflow.TaskNodeExecParamEntity;
+import com.webank.wecube.platform.core.jpa.workflow.TaskNodeExecParamBlobRepository;
+import com.webank.wecube.platform.core.jpa.workflow.TaskNodeExecParamRepository;
+
+public class TaskNodeExecParamStorageServiceTest extends DatabaseBasedTest {
+
+    @Autowired
+    private TaskNodeExecParamStorageService taskNodeExecParamStorageService;
+
+    @Autowired
+    private TaskNodeExecParamRepository taskNodeExecParamRepository;
+
+    @Autowired
+    private TaskNodeExecParamBlobRepository taskNodeExecParamBlobRepository;
+
+    @Test
+    public void givenSmallValueWhenStoreThenKeepInline() {
+        TaskNodeExecParamEntity paramEntity = newParamEntity();
+
+        taskNodeExecParamStorageService.storeParamDataValue(paramEntity, "ok");
+        taskNodeExecParamRepository.save(paramEntity);
+
+        assertThat(paramEntity.isParamDataOffloaded()).isFalse();
+        assertThat(taskNodeExecParamStorageService.getParamDataValue(paramEntity)).isEqualTo("ok");
+    }
+
+    @Test
+    public void givenLargeValueWhenStoreThenKeepCompressedOutOfRow() {
+        String value = StringUtils.repeat("deploying instance ok\n", 5000);
+        TaskNodeExecParamEntity paramEntity = newParamEntity();
+
+        taskNodeExecParamStorageService.storeParamDataValue(paramEntity, value);
+        taskNodeExecParamRepository.save(paramEntity);
+
+        assertThat(paramEntity.isParamDataOffloaded()).isTrue();
+        assertThat(paramEntity.getParamDataValue().length()).isLessThan(value.length());
+        assertThat(paramEntity.getParamDataSize()).isEqualTo(value.length());
+
+        TaskNodeExecParamBlobEntity blobEntity = taskNodeExecParamBlobRepository
+                .findById(paramEntity.getParamDataRef()).get();
+        assertThat(blobEntity.getStoredSize()).isLessThan(blobEntity.getRawSize());
+
+        TaskNodeExecParamEntity loadedEntity = taskNodeExecParamRepository.findById(paramEntity.getId()).get();
+        assertThat(taskNodeExecParamStorageService.getParamDataValue(loadedEntity)).isEqualTo(value);
+    }
+
+    @Test
+    public void givenOversizedInlineValueWhenMigrateThenMoveOutOfRow() {
+        String value = StringUtils.repeat("x", 3000);
+        TaskNodeExecParamEntity paramEntity = newParamEntity();
+        paramEntity.setParamDataValue(value);
+        taskNodeExecParamRepository.save(paramEntity);
+
+        int migrated = taskNodeExecParamStorageService.migrateOversizedParamValues();
+
+        assertThat(migrated).isEqualTo(1);
+        TaskNodeExecParamEntity loadedEntity = taskNodeExecParamRepository.findById(paramEntity.getId()).get();
+        assertThat(loadedEntity.isParamDataOffloaded()).isTrue();
+        assertThat(taskNodeExecParamStorageService.getParamDataValue(loadedEntity)).isEqualTo(value);
+        assertThat(taskNodeExecParamStorageService.migrateOversizedParamValues()).isEqualTo(0);
+    }
+
+    @Test
+    public void givenMultibyteInlineValuesWhenMigrateThenOnlyThoseOverThresholdInCharactersMoved() {
+        // both are over the threshold in UTF-8 bytes, only the first one in characters
+        String oversizedValue = StringUtils.repeat("\u90e8\u7f72", 1500);
+        String fittingValue = StringUtils.repeat("\u90e8\u7f72", 1000);
+        TaskNodeExecParamEntity oversizedParamEntity = newParamEntity();
+        oversizedParamEntity.setParamDataValue(oversizedValue);
+        taskNodeExecParamRepository.save(oversizedParamEntity);
+        TaskNodeExecParamEntity fittingParamEntity = newParamEntity();
+        fittingParamEntity.setParamDataValue(fittingValue);
+        taskNodeExecParamRepository.save(fittingParamEntity);
+
+        assertThat(taskNodeExecParamStorageService.migrateOversizedParamValues()).isEqualTo(1);
+        assertThat(taskNodeExecParamStorageService.migrateOversizedParamValues()).isEqualTo(0);
+
+        TaskNodeExecParamEntity loadedEntity = taskNodeExecParamRepository.findById(oversizedParamEntity.getId())
+                .get();
+        assertThat(loadedEntity.isParamDataOffloaded()).isTrue();
+        assertThat(loadedEntity.getParamDataSize()).isEqualTo(oversizedValue.length());
+        assertThat(taskNodeExecParamStorageService.getParamDataValue(loadedEntity)).isEqualTo(oversizedValue);
+
+        TaskNodeExecParamEntity fittingLoadedEntity = taskNodeExecParamRepository
+                .findById(fittingParamEntity.getId()).get();
+        assertThat(fittingLoadedEntity.isParamDataOffloaded()).isFalse();
+        assertThat(fittingLoadedEntity.getParamDataValue()).isEqualTo(fittingValue);
+    }
+
+    private TaskNodeExecParamEntity newParamEntity() {
+        TaskNodeExecParamEntity paramEntity = new TaskNodeExecParamEntity();
+        paramEntity.setRequestId("req-1");
+        paramEntity.setObjectId("0");
+        paramEntity.setParamType(TaskNodeExecParamEntity.PARAM_TYPE_RESPONSE);
+        paramEntity.setParamName("output");
+        paramEntity.setParamDataType(TaskNodeExecParamEntity.PARAM_DATA_TYPE_STRING);
+        return paramEntity;
+    }
+}
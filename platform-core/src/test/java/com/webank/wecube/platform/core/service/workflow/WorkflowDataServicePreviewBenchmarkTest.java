@@ -0,0 +1,143 @@
+package com.webank.wecube.platform.core.service.workflow;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.webank.wecube.platform.core.DatabaseBasedTest;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.WorkflowProperties;
+import com.webank.wecube.platform.core.dto.workflow.FlowNodeDefDto;
+import com.webank.wecube.platform.core.dto.workflow.ProcDefOutlineDto;
+import com.webank.wecube.platform.core.dto.workflow.ProcessDataPreviewDto;
+import com.webank.wecube.platform.core.entity.workflow.ProcExecBindingTmpEntity;
+import com.webank.wecube.platform.core.service.dme.EntityOperationRootCondition;
+import com.webank.wecube.platform.core.service.dme.EntityTreeNodesOverview;
+import com.webank.wecube.platform.core.service.dme.StandardEntityOperationService;
+import com.webank.wecube.platform.core.service.dme.TreeNode;
+import com.webank.wecube.platform.core.service.plugin.PluginConfigService;
+
+public class WorkflowDataServicePreviewBenchmarkTest extends DatabaseBasedTest {
+    private static final Logger log = LoggerFactory.getLogger(WorkflowDataServicePreviewBenchmarkTest.class);
+
+    private static final long FETCH_LATENCY_MILLIS = 50;
+
+    @Autowired
+    private WorkflowProperties workflowProperties;
+
+    private WorkflowProcDefService workflowProcDefService;
+
+    private WorkflowDataService workflowDataService;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private final AtomicInteger appIndex = new AtomicInteger();
+
+    @Before
+    public void setupWorkflowDataService() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        StandardEntityOperationService entityOperationService = Mockito.mock(StandardEntityOperationService.class);
+        Mockito.when(entityOperationService.generateEntityLinkOverview(ArgumentMatchers.any()))
+                .thenAnswer(invocation -> {
+                    TimeUnit.MILLISECONDS.sleep(FETCH_LATENCY_MILLIS);
+                    EntityOperationRootCondition condition = invocation.getArgument(0);
+                    return newOverview(condition.getEntityIdentity());
+                });
+        workflowProcDefService = Mockito.mock(WorkflowProcDefService.class);
+
+        // fetching data takes a known time
+        workflowDataService = autowire(new WorkflowDataService());
+        ReflectionTestUtils.setField(workflowDataService, "standardEntityOperationService", entityOperationService);
+        ReflectionTestUtils.setField(workflowDataService, "workflowProcDefService", workflowProcDefService);
+        ReflectionTestUtils.setField(workflowDataService, "pluginConfigService",
+                Mockito.mock(PluginConfigService.class));
+        workflowDataService.init();
+    }
+
+    @After
+    public void destroyWorkflowDataService() {
+        workflowDataService.destroy();
+    }
+
+    @Test
+    public void givenTaskNodesWhenGeneratePreviewThenDataFetchedConcurrentlyAndSavedInBatches() {
+        for (int taskNodeCount : Arrays.asList(1, 10, 30)) {
+            String procDefId = "preview-" + taskNodeCount;
+            Mockito.when(workflowProcDefService.getProcessDefinitionOutline(procDefId))
+                    .thenReturn(newOutline(procDefId, taskNodeCount));
+
+            long start = System.nanoTime();
+            ProcessDataPreviewDto preview = workflowDataService.generateProcessDataPreview(procDefId, "host-1");
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            log.info("preview of {} task nodes generated in {} ms", taskNodeCount, elapsedMillis);
+
+            assertThat(preview.getEntityTreeNodes()).hasSize(taskNodeCount + 1);
+            assertThat(count("core_ru_graph_node", "proc_sess_id", preview.getProcessSessionId()))
+                    .isEqualTo(taskNodeCount + 1);
+            assertThat(count("core_ru_proc_exec_binding_tmp", "proc_session_id", preview.getProcessSessionId()))
+                    .isEqualTo(taskNodeCount + 1);
+            assertThat(jdbcTemplate.queryForObject(
+                    "select entity_data_name from core_ru_proc_exec_binding_tmp where proc_session_id = ? and bind_type = ?",
+                    String.class, preview.getProcessSessionId(), ProcExecBindingTmpEntity.BIND_TYPE_PROC_INSTANCE))
+                            .isEqualTo("host 1");
+
+            if (taskNodeCount >= 2 * workflowProperties.getPreviewParallelism()) {
+                assertThat(elapsedMillis).isLessThan(taskNodeCount * FETCH_LATENCY_MILLIS / 2);
+            }
+        }
+    }
+
+    private ProcDefOutlineDto newOutline(String procDefId, int taskNodeCount) {
+        ProcDefOutlineDto outline = new ProcDefOutlineDto();
+        outline.setProcDefId(procDefId);
+        outline.setRootEntity("wecmdb:host");
+
+        FlowNodeDefDto startNode = new FlowNodeDefDto();
+        startNode.setNodeType("startEvent");
+        outline.addFlowNodes(startNode);
+
+        for (int i = 0; i < taskNodeCount; i++) {
+            FlowNodeDefDto taskNode = new FlowNodeDefDto();
+            taskNode.setNodeType("subProcess");
+            taskNode.setProcDefId(procDefId);
+            taskNode.setNodeDefId(procDefId + "-node-" + i);
+            taskNode.setNodeName("task " + i);
+            taskNode.setOrderedNo(String.valueOf(i));
+            taskNode.setRoutineExpression("wecmdb:host~(host)wecmdb:app{index eq '" + i + "'}");
+            outline.addFlowNodes(taskNode);
+        }
+        return outline;
+    }
+
+    private EntityTreeNodesOverview newOverview(String hostId) {
+        // each task node reaches the host and an app of its own
+        String appId = "app-" + appIndex.incrementAndGet();
+        TreeNode host = new TreeNode("wecmdb", "host", hostId, "host 1");
+        TreeNode app = new TreeNode("wecmdb", "app", appId, appId);
+        app.setParent(host);
+        host.addChildren(app);
+
+        EntityTreeNodesOverview overview = new EntityTreeNodesOverview();
+        overview.addHierarchicalEntityNodes(host, app);
+        overview.addLeafNodeEntityNodes(app);
+        return overview;
+    }
+
+    private int count(String table, String column, Object value) {
+        return jdbcTemplate.queryForObject("select count(1) from " + table + " where " + column + " = ?",
+                Integer.class, value);
+    }
+}
@@ -0,0 +1,209 @@
+package com.webank.wecube.platform.core.service.workflow;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.UUID;
+
+import org.camunda.bpm.engine.runtime.ProcessInstance;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.webank.wecube.platform.core.DatabaseBasedTest;
+import com.webank.wecube.platform.core.commons.ApplicationProperties;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.WorkflowProperties;
+import com.webank.wecube.platform.core.commons.WecubeCoreException;
+import com.webank.wecube.platform.core.dto.workflow.BatchStartProcInstItemResultDto;
+import com.webank.wecube.platform.core.dto.workflow.BatchStartProcInstRequestDto;
+import com.webank.wecube.platform.core.dto.workflow.BatchStartProcInstResultDto;
+import com.webank.wecube.platform.core.dto.workflow.StartProcInstRequestDto;
+import com.webank.wecube.platform.core.dto.workflow.TaskNodeDefObjectBindInfoDto;
+import com.webank.wecube.platform.core.entity.workflow.ProcDefInfoEntity;
+import com.webank.wecube.platform.core.entity.workflow.ProcExecBindingEntity;
+import com.webank.wecube.platform.core.entity.workflow.ProcExecBindingTmpEntity;
+import com.webank.wecube.platform.core.entity.workflow.ProcInstInfoEntity;
+import com.webank.wecube.platform.core.entity.workflow.TaskNodeDefInfoEntity;
+import com.webank.wecube.platform.core.jpa.workflow.ProcDefInfoRepository;
+import com.webank.wecube.platform.core.jpa.workflow.ProcExecBindingTmpRepository;
+import com.webank.wecube.platform.core.jpa.workflow.TaskNodeDefInfoRepository;
+
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class WorkflowProcInstServiceBulkLaunchTest extends DatabaseBasedTest {
+    private static final String FAILING_HOST_ID = "host-failing";
+
+    @Autowired
+    private ProcDefInfoRepository procDefInfoRepository;
+
+    @Autowired
+    private TaskNodeDefInfoRepository taskNodeDefInfoRepository;
+
+    @Autowired
+    private ProcExecBindingTmpRepository procExecBindingTmpRepository;
+
+    private WorkflowProcInstService procInstService;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private String procDefId;
+
+    private String processSessionId;
+
+    @Before
+    public void setupProcInstService() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        procDefId = "proc-def-" + UUID.randomUUID();
+        processSessionId = UUID.randomUUID().toString();
+
+        WorkflowEngineService workflowEngineService = Mockito.mock(WorkflowEngineService.class);
+        Mockito.when(workflowEngineService.startProcessInstance(ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenAnswer(invocation -> {
+                    String procInstKey = invocation.getArgument(1);
+                    if (FAILING_HOST_ID.equals(readRootEntityDataId(procInstKey))) {
+                        throw new WecubeCoreException("Engine rejected " + procInstKey);
+                    }
+                    ProcessInstance processInstance = Mockito.mock(ProcessInstance.class);
+                    Mockito.when(processInstance.getId()).thenReturn("kernel-" + procInstKey);
+                    return processInstance;
+                });
+
+        WorkflowProperties workflowProperties = new ApplicationProperties().new WorkflowProperties();
+        workflowProperties.setBulkLaunchMaxInstances(3);
+
+        // no engine is needed to start instances
+        procInstService = autowire(new WorkflowProcInstService());
+        ReflectionTestUtils.setField(procInstService, "workflowEngineService", workflowEngineService);
+        ReflectionTestUtils.setField(procInstService, "workflowProperties", workflowProperties);
+        procInstService.init();
+
+        ProcDefInfoEntity procDef = new ProcDefInfoEntity();
+        procDef.setId(procDefId);
+        procDef.setProcDefKey("deploy");
+        procDef.setProcDefName("Deploy");
+        procDef.setProcDefKernelId("kernel-" + procDefId);
+        procDef.setStatus(ProcDefInfoEntity.DEPLOYED_STATUS);
+        procDefInfoRepository.save(procDef);
+
+        newTaskNodeDef("start", "startEvent");
+        newTaskNodeDef("deploy", "subProcess");
+    }
+
+    @After
+    public void deleteProcDef() {
+        procInstService.destroy();
+        jdbcTemplate.update("delete from core_ru_proc_exec_binding where proc_def_id = ?", procDefId);
+        jdbcTemplate.update("delete from core_ru_task_node_inst_info where proc_def_id = ?", procDefId);
+        jdbcTemplate.update("delete from core_ru_proc_inst_info where proc_def_id = ?", procDefId);
+        jdbcTemplate.update("delete from core_re_task_node_def_info where proc_def_id = ?", procDefId);
+        jdbcTemplate.update("delete from core_re_proc_def_info where id = ?", procDefId);
+        jdbcTemplate.update("delete from core_ru_proc_exec_binding_tmp where proc_session_id = ?", processSessionId);
+    }
+
+    @Test
+    public void givenOneInstanceFailingToStartWhenBulkLaunchThenOthersStartedAndFailureReported() {
+        ProcExecBindingTmpEntity sessionBinding = new ProcExecBindingTmpEntity();
+        sessionBinding.setBindType(ProcExecBindingTmpEntity.BIND_TYPE_TASK_NODE_INSTANCE);
+        sessionBinding.setBound(ProcExecBindingTmpEntity.BOUND);
+        sessionBinding.setProcSessionId(processSessionId);
+        sessionBinding.setNodeDefId(procDefId + "-deploy");
+        sessionBinding.setEntityTypeId("wecmdb:host");
+        sessionBinding.setEntityDataId("host-from-session");
+        procExecBindingTmpRepository.save(sessionBinding);
+
+        StartProcInstRequestDto fromSession = newInstanceRequest("host-1");
+        fromSession.setProcessSessionId(processSessionId);
+        StartProcInstRequestDto fromInput = newInstanceRequest("host-2");
+        TaskNodeDefObjectBindInfoDto bindInfo = new TaskNodeDefObjectBindInfoDto();
+        bindInfo.setNodeDefId(procDefId + "-deploy");
+        bindInfo.setEntityTypeId("wecmdb:host");
+        bindInfo.setEntityDataId("host-2");
+        fromInput.addTaskNodeDefObjectBindInfos(bindInfo);
+
+        BatchStartProcInstRequestDto requestDto = new BatchStartProcInstRequestDto();
+        requestDto.setProcDefId(procDefId);
+        requestDto.getInstances().add(fromSession);
+        requestDto.getInstances().add(newInstanceRequest(FAILING_HOST_ID));
+        requestDto.getInstances().add(fromInput);
+
+        BatchStartProcInstResultDto result = procInstService.createProcessInstances(requestDto);
+
+        assertThat(result.getTotal()).isEqualTo(3);
+        assertThat(result.getStarted()).isEqualTo(2);
+        assertThat(result.getFailed()).isEqualTo(1);
+        assertThat(result.getItems()).extracting(BatchStartProcInstItemResultDto::getStatus).containsExactly(
+                BatchStartProcInstItemResultDto.STATUS_STARTED, BatchStartProcInstItemResultDto.STATUS_FAILED,
+                BatchStartProcInstItemResultDto.STATUS_STARTED);
+
+        BatchStartProcInstItemResultDto failedItem = result.getItems().get(1);
+        assertThat(failedItem.getErrorMessage()).startsWith("Engine rejected");
+        assertThat(readProcInstStatus(failedItem.getProcInstId())).isEqualTo(ProcInstInfoEntity.NOT_STARTED_STATUS);
+
+        for (int i : new int[] { 0, 2 }) {
+            BatchStartProcInstItemResultDto startedItem = result.getItems().get(i);
+            assertThat(startedItem.getProcInstance().getTaskNodeInstances()).hasSize(2);
+            assertThat(readProcInstStatus(startedItem.getProcInstId()))
+                    .isEqualTo(ProcInstInfoEntity.IN_PROGRESS_STATUS);
+        }
+
+        assertThat(readNodeBoundEntityDataId(result.getItems().get(0).getProcInstId()))
+                .isEqualTo("host-from-session");
+        assertThat(readNodeBoundEntityDataId(result.getItems().get(2).getProcInstId())).isEqualTo("host-2");
+    }
+
+    @Test
+    public void givenTooManyInstancesWhenBulkLaunchThenRejected() {
+        BatchStartProcInstRequestDto requestDto = new BatchStartProcInstRequestDto();
+        requestDto.setProcDefId(procDefId);
+        for (int i = 0; i < 4; i++) {
+            requestDto.getInstances().add(newInstanceRequest("host-" + i));
+        }
+
+        assertThatThrownBy(() -> procInstService.createProcessInstances(requestDto))
+                .isInstanceOf(WecubeCoreException.class);
+        assertThat(jdbcTemplate.queryForObject("select count(1) from core_ru_proc_inst_info where proc_def_id = ?",
+                Integer.class, procDefId)).isZero();
+    }
+
+    private void newTaskNodeDef(String nodeId, String nodeType) {
+        TaskNodeDefInfoEntity taskNodeDef = new TaskNodeDefInfoEntity();
+        taskNodeDef.setId(procDefId + "-" + nodeId);
+        taskNodeDef.setProcDefId(procDefId);
+        taskNodeDef.setProcDefKey("deploy");
+        taskNodeDef.setNodeId(nodeId);
+        taskNodeDef.setNodeName(nodeId);
+        taskNodeDef.setNodeType(nodeType);
+        taskNodeDefInfoRepository.save(taskNodeDef);
+    }
+
+    private StartProcInstRequestDto newInstanceRequest(String hostId) {
+        StartProcInstRequestDto instanceRequest = new StartProcInstRequestDto();
+        instanceRequest.setEntityTypeId("wecmdb:host");
+        instanceRequest.setEntityDataId(hostId);
+        return instanceRequest;
+    }
+
+    private String readRootEntityDataId(String procInstKey) {
+        return jdbcTemplate.queryForObject("select b.entity_data_id from core_ru_proc_exec_binding b "
+                + "join core_ru_proc_inst_info p on b.proc_inst_id = p.id "
+                + "where p.proc_inst_key = ? and b.bind_type = ?", String.class, procInstKey,
+                ProcExecBindingEntity.BIND_TYPE_PROC_INSTANCE);
+    }
+
+    private String readNodeBoundEntityDataId(Integer procInstId) {
+        return jdbcTemplate.queryForObject(
+                "select entity_data_id from core_ru_proc_exec_binding where proc_inst_id = ? and bind_type = ?",
+                String.class, procInstId, ProcExecBindingEntity.BIND_TYPE_TASK_NODE_INSTANCE);
+    }
+
+    private String readProcInstStatus(Integer procInstId) {
+        return jdbcTemplate.queryForObject("select status from core_ru_proc_inst_info where id = ?", String.class,
+                procInstId);
+    }
+}
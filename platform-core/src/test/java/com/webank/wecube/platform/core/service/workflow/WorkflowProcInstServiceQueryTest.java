@@ -0,0 +1,144 @@
+package com.webank.wecube.platform.core.service.workflow;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.webank.wecube.platform.core.DatabaseBasedTest;
+import com.webank.wecube.platform.core.commons.WecubeCoreException;
+import com.webank.wecube.platform.core.dto.Pageable;
+import com.webank.wecube.platform.core.dto.QueryResponse;
+import com.webank.wecube.platform.core.dto.workflow.ProcInstInfoDto;
+import com.webank.wecube.platform.core.dto.workflow.ProcInstQueryRequestDto;
+import com.webank.wecube.platform.core.entity.workflow.ProcExecBindingEntity;
+import com.webank.wecube.platform.core.entity.workflow.ProcInstInfoEntity;
+import com.webank.wecube.platform.core.entity.workflow.ProcRoleBindingEntity;
+import com.webank.wecube.platform.core.jpa.workflow.ProcExecBindingRepository;
+import com.webank.wecube.platform.core.jpa.workflow.ProcInstInfoRepository;
+import com.webank.wecube.platform.core.jpa.workflow.ProcRoleBindingRepository;
+import com.webank.wecube.platform.core.service.user.UserManagementServiceImpl;
+
+public class WorkflowProcInstServiceQueryTest extends DatabaseBasedTest {
+    private static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    @Autowired
+    private ProcInstInfoRepository procInstInfoRepository;
+
+    @Autowired
+    private ProcExecBindingRepository procExecBindingRepository;
+
+    @Autowired
+    private ProcRoleBindingRepository procRoleBindingRepository;
+
+    private WorkflowProcInstService procInstService;
+
+    @Before
+    public void setupProcInstService() {
+        UserManagementServiceImpl userManagementService = Mockito.mock(UserManagementServiceImpl.class);
+        Mockito.when(userManagementService.getRoleIdsByUsername(ArgumentMatchers.any()))
+                .thenReturn(Arrays.asList("role-ops"));
+
+        // the roles of the current user do not have to come from the auth server
+        procInstService = autowire(new WorkflowProcInstService());
+        ReflectionTestUtils.setField(procInstService, "userManagementService", userManagementService);
+
+        newProcRoleBinding("proc-def-deploy", "role-ops", ProcRoleBindingEntity.permissionEnum.USE);
+        newProcRoleBinding("proc-def-backup", "role-ops", ProcRoleBindingEntity.permissionEnum.USE);
+        newProcRoleBinding("proc-def-secret", "role-ops", ProcRoleBindingEntity.permissionEnum.MGMT);
+        newProcRoleBinding("proc-def-secret", "role-admin", ProcRoleBindingEntity.permissionEnum.USE);
+    }
+
+    @Test
+    public void givenInstancesOfUsableDefinitionsWhenQueryPageThenOnlyThatPageReturnedWithTotalCount() {
+        for (int i = 0; i < 5; i++) {
+            newProcInst("proc-def-deploy", ProcInstInfoEntity.COMPLETED_STATUS, "umadmin", i);
+        }
+        newProcInst("proc-def-secret", ProcInstInfoEntity.COMPLETED_STATUS, "umadmin", 0);
+
+        ProcInstQueryRequestDto queryDto = new ProcInstQueryRequestDto();
+        queryDto.setPageable(new Pageable(2, 2));
+        QueryResponse<ProcInstInfoDto> result = procInstService.getProcessInstances(queryDto);
+
+        assertThat(result.getPageInfo().getTotalRows()).isEqualTo(5);
+        assertThat(result.getPageInfo().getStartIndex()).isEqualTo(2);
+        assertThat(result.getContents()).hasSize(2);
+        assertThat(result.getContents()).extracting("procDefId").containsOnly("proc-def-deploy");
+        assertThat(result.getContents().get(0).getId()).isGreaterThan(result.getContents().get(1).getId());
+        assertThat(result.getContents()).extracting("entityDataId").doesNotContainNull();
+
+        assertThat(procInstService.getProcessInstances()).hasSize(5);
+    }
+
+    @Test
+    public void givenFiltersWhenQueryThenFilteredInDatabase() {
+        newProcInst("proc-def-deploy", ProcInstInfoEntity.COMPLETED_STATUS, "umadmin", 30);
+        ProcInstInfoEntity expected = newProcInst("proc-def-deploy", ProcInstInfoEntity.IN_PROGRESS_STATUS,
+                "umadmin", 2);
+        newProcInst("proc-def-deploy", ProcInstInfoEntity.IN_PROGRESS_STATUS, "someone", 2);
+        newProcInst("proc-def-backup", ProcInstInfoEntity.IN_PROGRESS_STATUS, "umadmin", 2);
+        newProcInst("proc-def-deploy", ProcInstInfoEntity.IN_PROGRESS_STATUS, "umadmin", 30);
+
+        SimpleDateFormat df = new SimpleDateFormat(AbstractWorkflowService.PROC_DATETIME_PATTERN);
+        ProcInstQueryRequestDto queryDto = new ProcInstQueryRequestDto();
+        queryDto.setStatus(ProcInstInfoEntity.IN_PROGRESS_STATUS);
+        queryDto.setProcDefId("proc-def-deploy");
+        queryDto.setOperator("umadmin");
+        queryDto.setStartTime(df.format(new Date(System.currentTimeMillis() - 10 * HOUR_MILLIS)));
+        queryDto.setEndTime(df.format(new Date(System.currentTimeMillis() + HOUR_MILLIS)));
+        QueryResponse<ProcInstInfoDto> result = procInstService.getProcessInstances(queryDto);
+
+        assertThat(result.getPageInfo().getTotalRows()).isEqualTo(1);
+        assertThat(result.getContents()).extracting("id").containsExactly(expected.getId());
+        assertThat(result.getContents().get(0).getEntityDisplayName()).isEqualTo(expected.getProcInstKey());
+    }
+
+    @Test
+    public void givenMalformedTimeWhenQueryThenRejected() {
+        ProcInstQueryRequestDto queryDto = new ProcInstQueryRequestDto();
+        queryDto.setStartTime("2020/01/01");
+
+        assertThatThrownBy(() -> procInstService.getProcessInstances(queryDto))
+                .isInstanceOf(WecubeCoreException.class);
+    }
+
+    private void newProcRoleBinding(String procDefId, String roleId, ProcRoleBindingEntity.permissionEnum permission) {
+        ProcRoleBindingEntity binding = new ProcRoleBindingEntity();
+        binding.setProcId(procDefId);
+        binding.setRoleId(roleId);
+        binding.setRoleName(roleId);
+        binding.setPermission(permission);
+        procRoleBindingRepository.save(binding);
+    }
+
+    private ProcInstInfoEntity newProcInst(String procDefId, String status, String operator, int createdHoursAgo) {
+        ProcInstInfoEntity procInst = new ProcInstInfoEntity();
+        procInst.setProcDefId(procDefId);
+        procInst.setProcDefKey(procDefId);
+        procInst.setProcDefName(procDefId);
+        procInst.setProcInstKey(procDefId + "-" + System.nanoTime());
+        procInst.setOperator(operator);
+        procInst.setStatus(status);
+        procInst.setCreatedTime(new Date(System.currentTimeMillis() - createdHoursAgo * HOUR_MILLIS));
+        procInstInfoRepository.save(procInst);
+
+        ProcExecBindingEntity binding = new ProcExecBindingEntity();
+        binding.setProcDefId(procDefId);
+        binding.setProcInstId(procInst.getId());
+        binding.setBindType(ProcExecBindingEntity.BIND_TYPE_PROC_INSTANCE);
+        binding.setEntityTypeId("cmdb:host");
+        binding.setEntityDataId(procInst.getProcInstKey());
+        procExecBindingRepository.save(binding);
+        return procInst;
+    }
+}
@@ -0,0 +1,168 @@
+package com.webank.wecube.platform.core.service.workflow;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.webank.wecube.platform.core.DatabaseBasedTest;
+import com.webank.wecube.platform.core.commons.ApplicationProperties;
+import com.webank.wecube.platform.core.entity.workflow.ProcInstInfoEntity;
+import com.webank.wecube.platform.core.entity.workflow.TaskNodeInstInfoEntity;
+import com.webank.wecube.platform.core.jpa.workflow.ProcInstInfoRepository;
+import com.webank.wecube.platform.core.jpa.workflow.TaskNodeInstInfoRepository;
+
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class WorkflowStatusWriteBehindServiceTest extends DatabaseBasedTest {
+
+    @Autowired
+    private TaskNodeInstInfoRepository taskNodeInstInfoRepository;
+
+    @Autowired
+    private ProcInstInfoRepository procInstInfoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private WorkflowStatusWriteBehindService writeBehindService;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Integer> procInstIds = new ArrayList<>();
+
+    @Before
+    public void setupWriteBehindService() {
+        // without the scheduled flush of the Spring bean
+        writeBehindService = autowire(new WorkflowStatusWriteBehindService());
+        ReflectionTestUtils.setField(writeBehindService, "workflowProperties",
+                new ApplicationProperties().new WorkflowProperties());
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @After
+    public void deleteInstances() {
+        for (Integer procInstId : procInstIds) {
+            jdbcTemplate.update("delete from core_ru_task_node_inst_info where proc_inst_id = ?", procInstId);
+            jdbcTemplate.update("delete from core_ru_proc_inst_info where id = ?", procInstId);
+        }
+    }
+
+    @Test
+    public void givenSuccessiveChangesWhenBufferedThenWriteOnlyLatestOnFlush() {
+        ProcInstInfoEntity procInst = newProcInst();
+        TaskNodeInstInfoEntity nodeInst = newTaskNodeInst(procInst.getId());
+
+        writeBehindService.bufferTaskNodeStatus(
+                statusChange(nodeInst, TaskNodeInstInfoEntity.IN_PROGRESS_STATUS, "waiting"));
+        writeBehindService.bufferTaskNodeStatus(statusChange(nodeInst, TaskNodeInstInfoEntity.IN_PROGRESS_STATUS, ""));
+
+        assertThat(readTaskNodeStatus(nodeInst.getId())).isEqualTo(TaskNodeInstInfoEntity.NOT_STARTED_STATUS);
+        assertThat(writeBehindService.getPendingCount()).isEqualTo(1);
+
+        assertThat(writeBehindService.flushAll()).isEqualTo(1);
+        assertThat(readTaskNodeStatus(nodeInst.getId())).isEqualTo(TaskNodeInstInfoEntity.IN_PROGRESS_STATUS);
+        assertThat(jdbcTemplate.queryForObject("select err_msg from core_ru_task_node_inst_info where id = ?",
+                String.class, nodeInst.getId())).isEmpty();
+    }
+
+    @Test
+    public void givenPendingChangesWhenTerminalStatusSavedThenPendingWrittenFirstAndNeverAfter() {
+        ProcInstInfoEntity procInst = newProcInst();
+        TaskNodeInstInfoEntity nodeInst = newTaskNodeInst(procInst.getId());
+
+        ProcInstInfoEntity procStatusChange = new ProcInstInfoEntity();
+        procStatusChange.setId(procInst.getId());
+        procStatusChange.setStatus(ProcInstInfoEntity.IN_PROGRESS_STATUS);
+        procStatusChange.setUpdatedTime(new Date());
+        writeBehindService.bufferProcInstStatus(procStatusChange);
+        writeBehindService.bufferTaskNodeStatus(statusChange(nodeInst, TaskNodeInstInfoEntity.IN_PROGRESS_STATUS, ""));
+
+        nodeInst.setStatus(TaskNodeInstInfoEntity.COMPLETED_STATUS);
+        nodeInst.setUpdatedTime(new Date());
+        writeBehindService.saveTaskNodeStatus(nodeInst);
+        taskNodeInstInfoRepository.flush();
+
+        assertThat(writeBehindService.getPendingCount()).isEqualTo(0);
+        assertThat(writeBehindService.flushAll()).isEqualTo(0);
+        assertThat(readTaskNodeStatus(nodeInst.getId())).isEqualTo(TaskNodeInstInfoEntity.COMPLETED_STATUS);
+        assertThat(jdbcTemplate.queryForObject("select status from core_ru_proc_inst_info where id = ?",
+                String.class, procInst.getId())).isEqualTo(ProcInstInfoEntity.IN_PROGRESS_STATUS);
+    }
+
+    @Test
+    public void givenPendingChangesOfSeveralInstancesWhenFlushOneThenOthersStayPending() {
+        ProcInstInfoEntity procInst = newProcInst();
+        TaskNodeInstInfoEntity nodeInst = newTaskNodeInst(procInst.getId());
+        ProcInstInfoEntity otherProcInst = newProcInst();
+        TaskNodeInstInfoEntity otherNodeInst = newTaskNodeInst(otherProcInst.getId());
+
+        writeBehindService.bufferTaskNodeStatus(statusChange(nodeInst, TaskNodeInstInfoEntity.IN_PROGRESS_STATUS, ""));
+        writeBehindService
+                .bufferTaskNodeStatus(statusChange(otherNodeInst, TaskNodeInstInfoEntity.IN_PROGRESS_STATUS, ""));
+
+        assertThat(writeBehindService.flushProcInst(procInst.getId())).isEqualTo(1);
+        assertThat(readTaskNodeStatus(nodeInst.getId())).isEqualTo(TaskNodeInstInfoEntity.IN_PROGRESS_STATUS);
+        assertThat(readTaskNodeStatus(otherNodeInst.getId())).isEqualTo(TaskNodeInstInfoEntity.NOT_STARTED_STATUS);
+        assertThat(writeBehindService.getPendingCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void givenCallerRolledBackWhenFlushedWithinThenStatusesStillWritten() {
+        ProcInstInfoEntity procInst = newProcInst();
+        TaskNodeInstInfoEntity nodeInst = newTaskNodeInst(procInst.getId());
+        writeBehindService.bufferTaskNodeStatus(statusChange(nodeInst, TaskNodeInstInfoEntity.IN_PROGRESS_STATUS, ""));
+
+        new TransactionTemplate(transactionManager).execute(status -> {
+            assertThat(writeBehindService.flushProcInst(procInst.getId())).isEqualTo(1);
+            status.setRollbackOnly();
+            return null;
+        });
+
+        assertThat(writeBehindService.getPendingCount()).isEqualTo(0);
+        assertThat(readTaskNodeStatus(nodeInst.getId())).isEqualTo(TaskNodeInstInfoEntity.IN_PROGRESS_STATUS);
+    }
+
+    private ProcInstInfoEntity newProcInst() {
+        ProcInstInfoEntity procInst = new ProcInstInfoEntity();
+        procInst.setStatus(ProcInstInfoEntity.NOT_STARTED_STATUS);
+        procInst = procInstInfoRepository.saveAndFlush(procInst);
+        procInstIds.add(procInst.getId());
+        return procInst;
+    }
+
+    private TaskNodeInstInfoEntity newTaskNodeInst(Integer procInstId) {
+        TaskNodeInstInfoEntity nodeInst = new TaskNodeInstInfoEntity();
+        nodeInst.setProcInstId(procInstId);
+        nodeInst.setNodeId("node-1");
+        nodeInst.setStatus(TaskNodeInstInfoEntity.NOT_STARTED_STATUS);
+        return taskNodeInstInfoRepository.saveAndFlush(nodeInst);
+    }
+
+    private TaskNodeInstInfoEntity statusChange(TaskNodeInstInfoEntity nodeInst, String status, String errorMessage) {
+        TaskNodeInstInfoEntity statusChange = new TaskNodeInstInfoEntity();
+        statusChange.setId(nodeInst.getId());
+        statusChange.setProcInstId(nodeInst.getProcInstId());
+        statusChange.setStatus(status);
+        statusChange.setErrorMessage(errorMessage);
+        statusChange.setUpdatedTime(new Date());
+        return statusChange;
+    }
+
+    private String readTaskNodeStatus(Integer id) {
+        return jdbcTemplate.queryForObject("select status from core_ru_task_node_inst_info where id = ?",
+                String.class, id);
+    }
+}
@@ -0,0 +1,75 @@
+package com.webank.wecube.platform.core.support.plugin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+import com.webank.wecube.platform.core.support.plugin.PluginCircuitBreaker.State;
+
+public class PluginCircuitBreakerTest {
+
+    private PluginCircuitBreaker newBreaker() {
+        return new PluginCircuitBreaker("pkg@host", 10, 4, 50, 1000L, 5000L, 2);
+    }
+
+    @Test
+    public void givenFailureRateReachedWhenCallThenOpenAndReject() {
+        PluginCircuitBreaker breaker = newBreaker();
+        for (int i = 0; i < 2; i++) {
+            assertThat(breaker.tryAcquire(0L)).isTrue();
+            breaker.onSuccess(10L, 0L);
+        }
+        for (int i = 0; i < 2; i++) {
+            assertThat(breaker.tryAcquire(0L)).isTrue();
+            breaker.onFailure(10L, 0L);
+        }
+
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+        assertThat(breaker.tryAcquire(100L)).isFalse();
+        assertThat(breaker.getTotalRejections()).isEqualTo(1L);
+    }
+
+    @Test
+    public void givenSlowCallsWhenCallThenCountAsFailures() {
+        PluginCircuitBreaker breaker = newBreaker();
+        for (int i = 0; i < 4; i++) {
+            assertThat(breaker.tryAcquire(0L)).isTrue();
+            breaker.onSuccess(2000L, 0L);
+        }
+
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+    }
+
+    @Test
+    public void givenOpenDurationElapsedWhenProbesSucceedThenClose() {
+        PluginCircuitBreaker breaker = newBreaker();
+        for (int i = 0; i < 4; i++) {
+            breaker.tryAcquire(0L);
+            breaker.onFailure(10L, 0L);
+        }
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+
+        assertThat(breaker.tryAcquire(6000L)).isTrue();
+        assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+        assertThat(breaker.tryAcquire(6000L)).isTrue();
+        assertThat(breaker.tryAcquire(6000L)).isFalse();
+
+        breaker.onSuccess(10L, 6010L);
+        breaker.onSuccess(10L, 6020L);
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+    }
+
+    @Test
+    public void givenHalfOpenWhenProbeFailsThenReopen() {
+        PluginCircuitBreaker breaker = newBreaker();
+        for (int i = 0; i < 4; i++) {
+            breaker.tryAcquire(0L);
+            breaker.onFailure(10L, 0L);
+        }
+
+        assertThat(breaker.tryAcquire(6000L)).isTrue();
+        breaker.onFailure(10L, 6010L);
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+        assertThat(breaker.tryAcquire(7000L)).isFalse();
+    }
+}
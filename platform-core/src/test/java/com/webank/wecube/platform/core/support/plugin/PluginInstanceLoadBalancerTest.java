@@ -0,0 +1,85 @@
+package com.webank.wecube.platform.core.support.plugin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.webank.wecube.platform.core.commons.ApplicationProperties;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.PluginInvocationProperties;
+import com.webank.wecube.platform.core.domain.plugin.PluginInstance;
+
+public class PluginInstanceLoadBalancerTest {
+
+    private PluginInstanceLoadBalancer loadBalancer;
+    private PluginInvocationProperties pluginInvocationProperties;
+    private List<PluginInstance> instances;
+
+    @Before
+    public void setUp() {
+        pluginInvocationProperties = new ApplicationProperties().new PluginInvocationProperties();
+        pluginInvocationProperties.setInstanceEjectionConsecutiveFailures(2);
+        pluginInvocationProperties.setInstanceEjectionDurationMillis(60000);
+
+        loadBalancer = new PluginInstanceLoadBalancer();
+        ReflectionTestUtils.setField(loadBalancer, "pluginInvocationProperties", pluginInvocationProperties);
+
+        instances = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            PluginInstance instance = new PluginInstance();
+            instance.setHost("10.0.0." + i);
+            instance.setPort(20000);
+            instances.add(instance);
+        }
+    }
+
+    @Test
+    public void givenRoundRobinWhenChooseThenSpreadEvenly() {
+        pluginInvocationProperties.setLoadBalanceStrategy(PluginInstanceLoadBalancer.STRATEGY_ROUND_ROBIN);
+
+        Map<String, Integer> counts = chooseTimes(300);
+
+        assertThat(counts).hasSize(3);
+        assertThat(counts.values()).containsOnly(100);
+    }
+
+    @Test
+    public void givenLeastOutstandingWhenChooseThenPickIdleInstance() {
+        pluginInvocationProperties.setLoadBalanceStrategy(PluginInstanceLoadBalancer.STRATEGY_LEAST_OUTSTANDING);
+        loadBalancer.onStart("10.0.0.1:20000");
+        loadBalancer.onStart("10.0.0.2:20000");
+
+        PluginInstance chosen = loadBalancer.choose("service-mgmt", instances);
+
+        assertThat(chosen.getHost()).isEqualTo("10.0.0.3");
+    }
+
+    @Test
+    public void givenConsecutiveFailuresWhenChooseThenSkipEjectedInstance() {
+        pluginInvocationProperties.setLoadBalanceStrategy(PluginInstanceLoadBalancer.STRATEGY_WEIGHTED);
+        for (int i = 0; i < 2; i++) {
+            loadBalancer.onStart("10.0.0.1:20000");
+            loadBalancer.onComplete("10.0.0.1:20000", false);
+        }
+
+        Map<String, Integer> counts = chooseTimes(200);
+
+        assertThat(counts).doesNotContainKey("10.0.0.1");
+        assertThat(counts).containsKeys("10.0.0.2", "10.0.0.3");
+    }
+
+    private Map<String, Integer> chooseTimes(int times) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < times; i++) {
+            PluginInstance chosen = loadBalancer.choose("service-mgmt", instances);
+            counts.merge(chosen.getHost(), 1, Integer::sum);
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,155 @@
+package com.webank.wecube.platform.core.support.plugin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.RestTemplate;
+
+import com.webank.wecube.platform.core.commons.ApplicationProperties;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.PluginInvocationProperties;
+import com.webank.wecube.platform.core.support.plugin.dto.PluginResponse;
+
+public class PluginInvocationRestClientTest {
+
+    private static final String TARGET_URL = "http://127.0.0.1:19110/service-mgmt/v1/deploy";
+
+    private PluginInvocationRestClient client;
+    private PluginInvocationProperties pluginInvocationProperties;
+    private MockRestServiceServer server;
+
+    @Before
+    public void setUp() {
+        RestTemplate restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+
+        pluginInvocationProperties = new ApplicationProperties().new PluginInvocationProperties();
+        pluginInvocationProperties.setCompressionEnabled(true);
+        pluginInvocationProperties.setCompressionMinBytes(1024);
+
+        client = new PluginInvocationRestClient();
+        ReflectionTestUtils.setField(client, "jwtSsoRestTemplate", restTemplate);
+        ReflectionTestUtils.setField(client, "pluginInvocationProperties", pluginInvocationProperties);
+    }
+
+    @Test
+    public void givenLargePayloadWhenCallThenSendGzipBodyAndReadGzipResponse() throws IOException {
+        HttpHeaders responseHeaders = new HttpHeaders();
+        responseHeaders.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        String responseJson = "{\"resultCode\":\"0\",\"resultMessage\":\"success\",\"results\":{\"outputs\":[{\"guid\":\"0001\"}]}}";
+
+        server.expect(requestTo(TARGET_URL)).andExpect(method(HttpMethod.POST))
+                .andExpect(header(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header(HttpHeaders.ACCEPT_ENCODING, "gzip")).andExpect(request -> {
+                    byte[] body = ((MockClientHttpRequest) request).getBodyAsBytes();
+                    String json = new String(gunzip(body), StandardCharsets.UTF_8);
+                    assertThat(json).contains("\"requestId\":\"req-1\"").contains("callbackParameter");
+                }).andRespond(withSuccess(gzip(responseJson.getBytes(StandardCharsets.UTF_8)),
+                        MediaType.APPLICATION_JSON).headers(responseHeaders));
+
+        PluginResponse<Object> response = client.callPluginService("127.0.0.1:19110", "/service-mgmt/v1/deploy",
+                newParameters(200), "req-1");
+
+        server.verify();
+        assertThat(response.getResultCode()).isEqualTo(PluginResponse.RESULT_CODE_OK);
+        assertThat(response.getOutputs()).hasSize(1);
+    }
+
+    @Test
+    public void givenSmallPayloadWhenCallThenSendPlainBody() {
+        server.expect(requestTo(TARGET_URL)).andExpect(request -> {
+            assertThat(request.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+        }).andRespond(withSuccess("{\"resultCode\":\"0\",\"results\":{\"outputs\":[]}}", MediaType.APPLICATION_JSON));
+
+        PluginResponse<Object> response = client.callPluginService("127.0.0.1:19110", "/service-mgmt/v1/deploy",
+                newParameters(1), "req-2");
+
+        server.verify();
+        assertThat(response.getResultCode()).isEqualTo(PluginResponse.RESULT_CODE_OK);
+    }
+
+    @Test
+    public void givenPluginNotListedWhenCheckThenCompressionDisabled() {
+        pluginInvocationProperties.setCompressionPlugins(Arrays.asList("wecmdb"));
+
+        assertThat(client.isCompressionEnabled("/service-mgmt/v1/deploy")).isFalse();
+        assertThat(client.isCompressionEnabled("/wecmdb/entities/host/query")).isTrue();
+    }
+
+    @Test
+    public void givenDirectInvocationWhenPluginNotListedThenSendPlainBodyButAcceptGzip() {
+        pluginInvocationProperties.setDirectInvocationEnabled(true);
+
+        server.expect(requestTo(TARGET_URL)).andExpect(header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(request -> {
+                    assertThat(request.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+                }).andRespond(withSuccess("{\"resultCode\":\"0\",\"results\":{\"outputs\":[]}}",
+                        MediaType.APPLICATION_JSON));
+
+        PluginResponse<Object> response = client.callPluginService("127.0.0.1:19110", "/service-mgmt/v1/deploy",
+                newParameters(200), "req-3");
+
+        server.verify();
+        assertThat(response.getResultCode()).isEqualTo(PluginResponse.RESULT_CODE_OK);
+    }
+
+    @Test
+    public void givenDirectInvocationWhenPluginListedThenRequestCompressionAccepted() {
+        pluginInvocationProperties.setDirectInvocationEnabled(true);
+        pluginInvocationProperties.setDirectCompressionPlugins(Arrays.asList("wecmdb"));
+
+        assertThat(client.isRequestCompressionAccepted("/service-mgmt/v1/deploy")).isFalse();
+        assertThat(client.isRequestCompressionAccepted("/wecmdb/entities/host/query")).isTrue();
+
+        pluginInvocationProperties.setDirectInvocationEnabled(false);
+        assertThat(client.isRequestCompressionAccepted("/service-mgmt/v1/deploy")).isTrue();
+    }
+
+    private List<Map<String, Object>> newParameters(int size) {
+        List<Map<String, Object>> parameters = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Map<String, Object> param = new HashMap<>();
+            param.put("callbackParameter", String.valueOf(i));
+            param.put("script", "#!/bin/bash\necho deploying instance " + i);
+            parameters.add(param);
+        }
+        return parameters;
+    }
+
+    private byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bos)) {
+            out.write(data);
+        }
+        return bos.toByteArray();
+    }
+
+    private byte[] gunzip(byte[] data) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return StreamUtils.copyToByteArray(in);
+        }
+    }
+}
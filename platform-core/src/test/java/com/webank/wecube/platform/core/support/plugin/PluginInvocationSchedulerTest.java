@@ -0,0 +1,109 @@
+package com.webank.wecube.platform.core.support.plugin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.webank.wecube.platform.core.commons.ApplicationProperties;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.PluginInvocationProperties;
+
+public class PluginInvocationSchedulerTest {
+
+    private PluginInvocationScheduler scheduler;
+
+    @Before
+    public void setup() {
+        PluginInvocationProperties properties = new ApplicationProperties().new PluginInvocationProperties();
+        properties.setInvocationWorkers(0);
+        properties.setPriorityWeightHigh(8);
+        properties.setPriorityWeightNormal(4);
+        properties.setPriorityWeightLow(1);
+        properties.setInvocationQueueCapacity(1000);
+
+        scheduler = new PluginInvocationScheduler();
+        ReflectionTestUtils.setField(scheduler, "pluginInvocationProperties", properties);
+        scheduler.init();
+    }
+
+    @Test
+    public void givenBackloggedClassesWhenTakeThenServeByWeight() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            scheduler.submit(PluginInvocationScheduler.PRIORITY_HIGH, () -> {
+            });
+            scheduler.submit(PluginInvocationScheduler.PRIORITY_LOW, () -> {
+            });
+        }
+
+        int high = 0;
+        int low = 0;
+        for (int i = 0; i < 90; i++) {
+            if (PluginInvocationScheduler.PRIORITY_HIGH.equals(scheduler.take().priority)) {
+                high++;
+            } else {
+                low++;
+            }
+        }
+
+        assertThat(high).isEqualTo(80);
+        assertThat(low).isEqualTo(10);
+        assertThat(scheduler.getQueueDepth(PluginInvocationScheduler.PRIORITY_HIGH)).isEqualTo(20);
+    }
+
+    @Test
+    public void givenFloodOfHighPriorityWorkWhenTakeThenLowPriorityIsNotStarved() throws Exception {
+        for (int i = 0; i < 1000; i++) {
+            scheduler.submit(PluginInvocationScheduler.PRIORITY_HIGH, () -> {
+            });
+        }
+        scheduler.submit(PluginInvocationScheduler.PRIORITY_LOW, () -> {
+        });
+
+        boolean lowServed = false;
+        for (int i = 0; i < 9 && !lowServed; i++) {
+            lowServed = PluginInvocationScheduler.PRIORITY_LOW.equals(scheduler.take().priority);
+        }
+
+        assertThat(lowServed).isTrue();
+    }
+
+    @Test
+    public void givenUnknownPriorityWhenSubmitThenQueueAsNormal() throws Exception {
+        scheduler.submit("urgent", () -> {
+        });
+
+        assertThat(scheduler.getQueueDepth(PluginInvocationScheduler.PRIORITY_NORMAL)).isEqualTo(1);
+        assertThat(scheduler.take().priority).isEqualTo(PluginInvocationScheduler.PRIORITY_NORMAL);
+    }
+
+    @Test
+    public void givenTakenTaskWhenRunThenCompleteFuture() throws Exception {
+        Future<String> future = scheduler.submit(PluginInvocationScheduler.PRIORITY_HIGH,
+                () -> "done");
+
+        scheduler.take().task.run();
+
+        assertThat(future.get()).isEqualTo("done");
+    }
+
+    @Test
+    public void givenFullQueueWhenSubmitThenRejectOnlyThatClass() throws Exception {
+        for (int i = 0; i < 1000; i++) {
+            scheduler.submit(PluginInvocationScheduler.PRIORITY_LOW, () -> {
+            });
+        }
+
+        assertThatThrownBy(() -> scheduler.submit(PluginInvocationScheduler.PRIORITY_LOW, () -> {
+        })).isInstanceOf(RejectedExecutionException.class);
+
+        scheduler.submit(PluginInvocationScheduler.PRIORITY_HIGH, () -> {
+        });
+        assertThat(scheduler.getQueueDepth(PluginInvocationScheduler.PRIORITY_LOW)).isEqualTo(1000);
+        assertThat(scheduler.getQueueDepth(PluginInvocationScheduler.PRIORITY_HIGH)).isEqualTo(1);
+    }
+}
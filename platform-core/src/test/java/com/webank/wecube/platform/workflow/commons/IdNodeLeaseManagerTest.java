@@ -0,0 +1,76 @@
+package com.webank.wecube.platform.workflow.commons;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.webank.wecube.platform.core.DatabaseBasedTest;
+import com.webank.wecube.platform.workflow.entity.IdNodeLeaseEntity;
+import com.webank.wecube.platform.workflow.repository.IdNodeLeaseRepository;
+
+public class IdNodeLeaseManagerTest extends DatabaseBasedTest {
+
+    @Autowired
+    private IdNodeLeaseRepository idNodeLeaseRepository;
+
+    @Test
+    public void givenTwoNodesWhenAcquireThenLeaseDifferentNodeIds() {
+        LocalIdGenerator generatorA = new LocalIdGenerator(System::currentTimeMillis, 0);
+        LocalIdGenerator generatorB = new LocalIdGenerator(System::currentTimeMillis, 0);
+
+        Integer nodeIdA = newLeaseManager("node-a", generatorA, 60000).acquire();
+        Integer nodeIdB = newLeaseManager("node-b", generatorB, 60000).acquire();
+
+        assertThat(nodeIdA).isNotNull().isNotEqualTo(nodeIdB);
+        assertThat(generatorA.getNodeId()).isEqualTo(nodeIdA);
+        assertThat(generatorB.getNodeId()).isEqualTo(nodeIdB);
+    }
+
+    @Test
+    public void givenExpiredLeaseWhenAcquireThenTakeOverAfterLastTimestampOfPreviousHolder() throws Exception {
+        Integer expiredNodeId = newLeaseManager("node-a", new LocalIdGenerator(System::currentTimeMillis, 0), 10)
+                .acquire();
+        long lastTimestamp = System.currentTimeMillis() + 3600000;
+        IdNodeLeaseEntity lease = idNodeLeaseRepository.findById(expiredNodeId).get();
+        lease.setLastTimestamp(lastTimestamp);
+        idNodeLeaseRepository.saveAndFlush(lease);
+        Thread.sleep(50);
+
+        LocalIdGenerator generator = new LocalIdGenerator(System::currentTimeMillis, 0);
+        Integer nodeId = newLeaseManager("node-b", generator, 10).acquire();
+
+        assertThat(nodeId).isEqualTo(expiredNodeId);
+        generator.nextId();
+        assertThat(generator.getLastTimestampMillis()).isGreaterThanOrEqualTo(lastTimestamp + 10);
+    }
+
+    @Test
+    public void givenLeaseTakenOverWhenGenerateThenRefusedUntilRenewalLeasesAnotherNodeId() throws Exception {
+        LocalIdGenerator generatorA = new LocalIdGenerator(System::currentTimeMillis, 0);
+        IdNodeLeaseManager leaseManagerA = newLeaseManager("node-a", generatorA, 10);
+        Integer lostNodeId = leaseManagerA.acquire();
+        Thread.sleep(50);
+
+        Integer takenNodeId = newLeaseManager("node-b", new LocalIdGenerator(System::currentTimeMillis, 0), 60000)
+                .acquire();
+        assertThat(takenNodeId).isEqualTo(lostNodeId);
+        assertThatThrownBy(generatorA::nextId).isInstanceOf(IllegalStateException.class);
+
+        Integer nodeIdA = leaseManagerA.renew();
+
+        assertThat(nodeIdA).isNotNull().isNotEqualTo(lostNodeId);
+        assertThat((generatorA.nextId() >>> 12) & LocalIdGenerator.MAX_NODE_ID).isEqualTo(nodeIdA.longValue());
+    }
+
+    private IdNodeLeaseManager newLeaseManager(String owner, LocalIdGenerator generator, long leaseMillis) {
+        // without the renewals of the Spring bean
+        IdNodeLeaseManager leaseManager = autowire(new IdNodeLeaseManager());
+        ReflectionTestUtils.setField(leaseManager, "owner", owner);
+        ReflectionTestUtils.setField(leaseManager, "idGenerator", generator);
+        ReflectionTestUtils.setField(leaseManager, "leaseMillis", leaseMillis);
+        return leaseManager;
+    }
+}
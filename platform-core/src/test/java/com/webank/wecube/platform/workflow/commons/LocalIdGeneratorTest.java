@@ -0,0 +1,142 @@
+package com.webank.wecube.platform.workflow.commons;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class LocalIdGeneratorTest {
+    private static final Logger log = LoggerFactory.getLogger(LocalIdGeneratorTest.class);
+
+    private static final int THREAD_COUNT = 8;
+    private static final int IDS_PER_THREAD = 500000;
+
+    @Test
+    public void givenManyThreadsWhenGenerateMillionsOfIdsThenAllUnique() throws Exception {
+        LocalIdGenerator generator = new LocalIdGenerator(System::currentTimeMillis, 1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int t = 0; t < THREAD_COUNT; t++) {
+                futures.add(executor.submit(() -> {
+                    long[] ids = new long[IDS_PER_THREAD];
+                    startSignal.await();
+                    for (int i = 0; i < IDS_PER_THREAD; i++) {
+                        ids[i] = generator.nextId();
+                    }
+                    return ids;
+                }));
+            }
+
+            long start = System.nanoTime();
+            startSignal.countDown();
+            long[] allIds = new long[THREAD_COUNT * IDS_PER_THREAD];
+            for (int t = 0; t < THREAD_COUNT; t++) {
+                System.arraycopy(futures.get(t).get(), 0, allIds, t * IDS_PER_THREAD, IDS_PER_THREAD);
+            }
+            long elapsedNanos = System.nanoTime() - start;
+
+            Arrays.sort(allIds);
+            for (int i = 1; i < allIds.length; i++) {
+                assertThat(allIds[i]).isGreaterThan(allIds[i - 1]);
+            }
+            assertThat(allIds[0]).isPositive();
+
+            log.info("generated {} unique ids with {} threads at {} ids per second", allIds.length, THREAD_COUNT,
+                    (long) (allIds.length * 1e9 / elapsedNanos));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void givenClockSetBackWhenGenerateThenIdsKeepIncreasing() {
+        AtomicLong clock = new AtomicLong(LocalIdGenerator.EPOCH_MILLIS + 100000);
+        LocalIdGenerator generator = new LocalIdGenerator(clock::get, 3);
+
+        long before = generator.nextId();
+        clock.addAndGet(-60000);
+        long after = generator.nextId();
+
+        assertThat(after).isGreaterThan(before);
+        assertThat(timestampOf(after)).isEqualTo(timestampOf(before));
+        assertThat(nodeIdOf(after)).isEqualTo(3);
+    }
+
+    @Test
+    public void givenStoppedClockWhenSequenceExhaustedThenContinueWithNextMillisecond() {
+        AtomicLong clock = new AtomicLong(LocalIdGenerator.EPOCH_MILLIS + 100000);
+        LocalIdGenerator generator = new LocalIdGenerator(clock::get, 3);
+
+        long first = generator.nextId();
+        long last = first;
+        for (int i = 1; i < 10000; i++) {
+            long id = generator.nextId();
+            assertThat(id).isGreaterThan(last);
+            last = id;
+        }
+
+        assertThat(timestampOf(last) - timestampOf(first)).isEqualTo(2);
+    }
+
+    @Test
+    public void givenLeasedNodeIdWhenGenerateThenUseNodeIdAndTimestampsAfterMinimum() {
+        AtomicLong clock = new AtomicLong(LocalIdGenerator.EPOCH_MILLIS + 100000);
+        LocalIdGenerator generator = new LocalIdGenerator(clock::get, 3);
+        generator.nextId();
+
+        generator.assignNodeId(1000, clock.get() + 60000, clock.get() + 60000);
+        long id = generator.nextId();
+
+        assertThat(nodeIdOf(id)).isEqualTo(1000);
+        assertThat(timestampOf(id)).isGreaterThan(100000 + 60000);
+    }
+
+    @Test
+    public void givenExpiredOrRevokedLeaseWhenGenerateThenRefusedUntilNewLeaseAssigned() {
+        AtomicLong clock = new AtomicLong(LocalIdGenerator.EPOCH_MILLIS + 100000);
+        LocalIdGenerator generator = new LocalIdGenerator(clock::get, 3);
+        generator.assignNodeId(5, 0, clock.get() + 60000);
+        generator.nextId();
+
+        clock.addAndGet(60000);
+        assertThatThrownBy(generator::nextId).isInstanceOf(IllegalStateException.class);
+
+        generator.renewLease(clock.get() + 60000);
+        assertThat(nodeIdOf(generator.nextId())).isEqualTo(5);
+
+        generator.revokeLease();
+        assertThatThrownBy(generator::nextId).isInstanceOf(IllegalStateException.class);
+
+        generator.assignNodeId(6, 0, clock.get() + 60000);
+        assertThat(nodeIdOf(generator.nextId())).isEqualTo(6);
+    }
+
+    @Test
+    public void givenPrefixWhenGenerateTimestampedIdThenPrefixedBase62() {
+        String id = LocalIdGenerator.INSTANCE.generateTimestampedId("Sig_");
+
+        assertThat(id).startsWith("Sig_").matches("Sig_[0-9a-zA-Z]{1,11}");
+        assertThat(LocalIdGenerator.generateId()).isNotEqualTo(LocalIdGenerator.generateId());
+    }
+
+    private long timestampOf(long id) {
+        return id >>> (LocalIdGenerator.NODE_ID_BITS + 12);
+    }
+
+    private long nodeIdOf(long id) {
+        return (id >>> 12) & LocalIdGenerator.MAX_NODE_ID;
+    }
+}
@@ -0,0 +1,20 @@
+package com.webank.wecube.platform.workflow.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.webank.wecube.platform.core.BaseSpringBootTest;
+
+public class CustomBpmConfigTest extends BaseSpringBootTest {
+
+    @Autowired
+    private ProcessEngineConfigurationImpl processEngineConfiguration;
+
+    @Test
+    public void whenEngineConfiguredThenJdbcBatchProcessingIsDisabled() {
+        assertThat(processEngineConfiguration.isJdbcBatchProcessing()).isFalse();
+    }
+}
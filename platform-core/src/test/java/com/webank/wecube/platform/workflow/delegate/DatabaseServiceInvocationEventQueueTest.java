@@ -0,0 +1,105 @@
+package com.webank.wecube.platform.workflow.delegate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.webank.wecube.platform.core.DatabaseBasedTest;
+import com.webank.wecube.platform.workflow.entity.ServiceInvocationEventEntity;
+import com.webank.wecube.platform.workflow.model.ServiceInvocationEvent;
+import com.webank.wecube.platform.workflow.repository.ServiceInvocationEventRepository;
+
+public class DatabaseServiceInvocationEventQueueTest extends DatabaseBasedTest {
+
+    @Autowired
+    private ServiceInvocationEventRepository serviceInvocationEventRepository;
+
+    private ServiceInvocationEventQueueTestSupport support;
+
+    @Before
+    public void setupSupport() {
+        support = new ServiceInvocationEventQueueTestSupport(this::autowire);
+    }
+
+    @Test
+    public void givenClaimedEventsWhenConsumerCrashesThenRedeliverEveryUnacknowledgedEvent() throws Exception {
+        DatabaseServiceInvocationEventQueue queue = support.newQueue("node-a", 1000, 600000);
+        Set<String> putEventIds = support.putEvents(queue, 5);
+
+        ServiceInvocationEvent ackedEvent = queue.poll(0, TimeUnit.MILLISECONDS);
+        queue.ack(ackedEvent);
+        assertThat(queue.poll(0, TimeUnit.MILLISECONDS)).isNotNull();
+        assertThat(queue.poll(0, TimeUnit.MILLISECONDS)).isNotNull();
+
+        // the consumer dies with two events claimed and two never taken, and
+        // its claims go stale
+        DatabaseServiceInvocationEventQueue restartedQueue = support.newQueue("node-a", 1000, 10);
+        Thread.sleep(50);
+        Set<String> redeliveredEventIds = support.drain(restartedQueue, true);
+
+        putEventIds.remove(ackedEvent.getEventId());
+        assertThat(redeliveredEventIds).isEqualTo(putEventIds);
+        assertThat(serviceInvocationEventRepository.count()).isEqualTo(0);
+    }
+
+    @Test
+    public void givenStaleClaimOfAnotherNodeWhenPollThenRedeliver() throws Exception {
+        DatabaseServiceInvocationEventQueue queue = support.newQueue("node-a", 1000, 600000);
+        Set<String> putEventIds = support.putEvents(queue, 1);
+        assertThat(queue.poll(0, TimeUnit.MILLISECONDS)).isNotNull();
+
+        DatabaseServiceInvocationEventQueue otherQueue = support.newQueue("node-b", 1000, 600000);
+        assertThat(otherQueue.poll(0, TimeUnit.MILLISECONDS)).isNull();
+
+        Thread.sleep(20);
+        DatabaseServiceInvocationEventQueue impatientQueue = support.newQueue("node-c", 1000, 10);
+        assertThat(support.drain(impatientQueue, false)).isEqualTo(putEventIds);
+    }
+
+    @Test
+    public void givenLongRunningInvocationWhenClaimRenewedThenNotRedelivered() throws Exception {
+        DatabaseServiceInvocationEventQueue queue = support.newQueue("node-a", 1000, 60000);
+        support.putEvents(queue, 2);
+        ServiceInvocationEvent runningEvent = queue.poll(0, TimeUnit.MILLISECONDS);
+        ServiceInvocationEvent deferredEvent = queue.poll(0, TimeUnit.MILLISECONDS);
+        queue.defer(deferredEvent, 600000);
+
+        // claimed an hour ago, longer than the claim timeout of every node
+        ServiceInvocationEventEntity runningEntity = serviceInvocationEventRepository
+                .findById(runningEvent.getEventId()).get();
+        runningEntity.setClaimedTime(new Date(System.currentTimeMillis() - 3600000));
+        serviceInvocationEventRepository.saveAndFlush(runningEntity);
+
+        assertThat(queue.renewClaims()).isEqualTo(1);
+
+        DatabaseServiceInvocationEventQueue otherQueue = support.newQueue("node-b", 1000, 60000);
+        assertThat(otherQueue.poll(0, TimeUnit.MILLISECONDS)).isNull();
+
+        queue.ack(runningEvent);
+        assertThat(queue.renewClaims()).isEqualTo(0);
+    }
+
+    @Test
+    public void givenMoreEventsThanBufferWhenPollThenDeliverAllWithinBound() throws Exception {
+        DatabaseServiceInvocationEventQueue queue = support.newQueue("node-a", 2, 600000);
+        Set<String> putEventIds = support.putEvents(queue, 7);
+
+        Set<String> deliveredEventIds = new HashSet<>();
+        ServiceInvocationEvent event;
+        while ((event = queue.poll(0, TimeUnit.MILLISECONDS)) != null) {
+            assertThat(queue.getBufferedCount()).isLessThanOrEqualTo(2);
+            deliveredEventIds.add(event.getEventId());
+            queue.ack(event);
+        }
+
+        assertThat(deliveredEventIds).isEqualTo(putEventIds);
+        assertThat(serviceInvocationEventRepository.count()).isEqualTo(0);
+    }
+}
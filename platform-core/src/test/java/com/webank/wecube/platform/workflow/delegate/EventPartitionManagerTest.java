@@ -0,0 +1,144 @@
+package com.webank.wecube.platform.workflow.delegate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.webank.wecube.platform.core.DatabaseBasedTest;
+import com.webank.wecube.platform.workflow.model.ServiceInvocationEvent;
+
+/**
+ * Runs two nodes, each with its own partition manager and event queue, on
+ * the same database.
+ */
+public class EventPartitionManagerTest extends DatabaseBasedTest {
+    private static final int PARTITION_COUNT = 8;
+    private static final int EVENT_COUNT = 40;
+
+    @Autowired
+    private EventPartitionManager eventPartitionManager;
+
+    private ServiceInvocationEventQueueTestSupport support;
+
+    @Before
+    public void stopSpringNode() {
+        // the node of the application context would take a share of the
+        // partitions otherwise
+        eventPartitionManager.destroy();
+        support = new ServiceInvocationEventQueueTestSupport(this::autowire);
+    }
+
+    @After
+    public void restartSpringNode() {
+        eventPartitionManager.init();
+    }
+
+    @Test
+    public void givenTwoNodesWhenHeartbeatThenSplitPartitionsAndDeliverEachEventToItsOwner() throws Exception {
+        EventPartitionManager managerA = newManager("node-a", 60000);
+        EventPartitionManager managerB = newManager("node-b", 60000);
+        balance(managerA, managerB);
+
+        assertThat(managerA.getOwnedPartitionNos()).hasSize(PARTITION_COUNT / 2);
+        assertThat(managerB.getOwnedPartitionNos()).hasSize(PARTITION_COUNT / 2);
+        assertThat(managerA.getOwnedPartitionNos()).doesNotContainAnyElementsOf(managerB.getOwnedPartitionNos());
+
+        DatabaseServiceInvocationEventQueue queueA = support.newQueue(managerA, 600000);
+        DatabaseServiceInvocationEventQueue queueB = support.newQueue(managerB, 600000);
+        Set<String> putEventIds = support.putEvents(queueA, EVENT_COUNT);
+
+        Set<String> deliveredToA = drain(queueA, managerA, true);
+        Set<String> deliveredToB = drain(queueB, managerB, true);
+
+        assertThat(deliveredToA).isNotEmpty().doesNotContainAnyElementsOf(deliveredToB);
+        assertThat(deliveredToB).isNotEmpty();
+        Set<String> deliveredEventIds = new HashSet<>(deliveredToA);
+        deliveredEventIds.addAll(deliveredToB);
+        assertThat(deliveredEventIds).isEqualTo(putEventIds);
+    }
+
+    @Test
+    public void givenNodeStopsHeartbeatWhenLeaseExpiresThenOtherNodeTakesPartitionsAndRedeliversStaleClaims()
+            throws Exception {
+        EventPartitionManager managerA = newManager("node-a", 200);
+        EventPartitionManager managerB = newManager("node-b", 200);
+        balance(managerA, managerB);
+
+        DatabaseServiceInvocationEventQueue queueA = support.newQueue(managerA, 600000);
+        DatabaseServiceInvocationEventQueue queueB = support.newQueue(managerB, 600000);
+        Set<String> putEventIds = support.putEvents(queueA, EVENT_COUNT);
+
+        // node-b claims its events, then dies without acknowledging them
+        Set<String> claimedByB = drain(queueB, managerB, false);
+        assertThat(claimedByB).isNotEmpty();
+        Set<String> ackedByA = drain(queueA, managerA, true);
+
+        Thread.sleep(300);
+        managerA.heartbeat();
+        assertThat(managerA.getOwnedPartitionNos()).hasSize(PARTITION_COUNT);
+
+        // node-b might still be invoking them, so they wait for the claim timeout
+        assertThat(drain(queueA, managerA, true)).isEmpty();
+        DatabaseServiceInvocationEventQueue impatientQueueA = support.newQueue(managerA, 10);
+        assertThat(drain(impatientQueueA, managerA, true)).isEqualTo(claimedByB);
+        Set<String> deliveredEventIds = new HashSet<>(ackedByA);
+        deliveredEventIds.addAll(claimedByB);
+        assertThat(deliveredEventIds).isEqualTo(putEventIds);
+    }
+
+    @Test
+    public void givenNodeNotYetAwareOfLostPartitionsWhenPollThenClaimNothing() throws Exception {
+        EventPartitionManager managerA = newManager("node-a", 200);
+        EventPartitionManager managerB = newManager("node-b", 200);
+        balance(managerA, managerB);
+
+        DatabaseServiceInvocationEventQueue queueA = support.newQueue(managerA, 600000);
+        DatabaseServiceInvocationEventQueue queueB = support.newQueue(managerB, 600000);
+        Set<String> putEventIds = support.putEvents(queueB, EVENT_COUNT);
+
+        // node-b stalls past its lease, and node-a takes its partitions over
+        Thread.sleep(300);
+        managerA.heartbeat();
+        assertThat(managerA.getOwnedPartitionNos()).hasSize(PARTITION_COUNT);
+        assertThat(managerB.getOwnedPartitionNos()).isNotEmpty();
+
+        assertThat(queueB.poll(0, TimeUnit.MILLISECONDS)).isNull();
+        assertThat(drain(queueA, managerA, true)).isEqualTo(putEventIds);
+    }
+
+    private void balance(EventPartitionManager managerA, EventPartitionManager managerB) {
+        // node-a starts alone and takes everything, then hands half to node-b
+        managerA.heartbeat();
+        assertThat(managerA.getOwnedPartitionNos()).hasSize(PARTITION_COUNT);
+        managerB.heartbeat();
+        managerA.heartbeat();
+        managerB.heartbeat();
+    }
+
+    private EventPartitionManager newManager(String owner, long partitionLeaseMillis) {
+        // without the heartbeat thread of the Spring bean
+        EventPartitionManager manager = autowire(new EventPartitionManager());
+        ReflectionTestUtils.setField(manager, "partitionCount", PARTITION_COUNT);
+        ReflectionTestUtils.setField(manager, "partitionLeaseMillis", partitionLeaseMillis);
+        ReflectionTestUtils.setField(manager, "owner", owner);
+        return manager;
+    }
+
+    private Set<String> drain(DatabaseServiceInvocationEventQueue queue, EventPartitionManager manager, boolean ack)
+            throws Exception {
+        Set<String> eventIds = new HashSet<>();
+        for (ServiceInvocationEvent event : support.drainEvents(queue, ack)) {
+            assertThat(manager.isOwned(manager.partitionOf(event.getInstanceId()))).isTrue();
+            eventIds.add(event.getEventId());
+        }
+        return eventIds;
+    }
+}
@@ -0,0 +1,123 @@
+package com.webank.wecube.platform.workflow.delegate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.RepositoryService;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.persistence.entity.ProcessDefinitionEntity;
+import org.camunda.bpm.engine.repository.ProcessDefinition;
+import org.camunda.bpm.model.bpmn.Bpmn;
+import org.camunda.bpm.model.bpmn.BpmnModelInstance;
+import org.camunda.bpm.model.bpmn.builder.AbstractFlowNodeBuilder;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.webank.wecube.platform.core.DatabaseBasedTest;
+import com.webank.wecube.platform.workflow.parse.SignalCatchEventIndex;
+
+/**
+ * Compares the cost of finding the signal catch event of a service task on
+ * dispatch, by querying the definition and walking the model as before, and
+ * by the index built when the definition is parsed. The timings are only
+ * logged, what is asserted is that both find the same catch events.
+ */
+public class PlugableApplicationTaskDispatcherBenchmarkTest extends DatabaseBasedTest {
+    private static final Logger log = LoggerFactory.getLogger(PlugableApplicationTaskDispatcherBenchmarkTest.class);
+
+    private static final int SERVICE_TASK_COUNT = 300;
+    private static final int WARM_UP_ROUNDS = 2;
+    private static final int MEASURED_ROUNDS = 5;
+
+    @Autowired
+    private ProcessEngine processEngine;
+
+    @Autowired
+    private RepositoryService repositoryService;
+
+    private String[] modelWalkIds = new String[SERVICE_TASK_COUNT];
+
+    private String[] indexIds = new String[SERVICE_TASK_COUNT];
+
+    @Test
+    public void givenLargeModelWhenLookUpSignalCatchEventsThenIndexMatchesModelWalk() {
+        BpmnModelInstance model = buildModel(SERVICE_TASK_COUNT);
+        String procDefId = deploy(model);
+        SignalCatchEventIndex index = findDeployedProcessDefinition(procDefId).getProperties()
+                .get(SignalCatchEventIndex.PROPERTY_KEY);
+
+        assertThat(index).isNotNull();
+        assertThat(index.size()).isEqualTo(SERVICE_TASK_COUNT);
+        for (int i = 0; i < SERVICE_TASK_COUNT; i++) {
+            assertThat(index.getSignalCatchEventId(serviceTaskId(i))).isEqualTo("signal_catch_" + i)
+                    .isEqualTo(PlugableApplicationTaskDispatcher.findSignalCatchEventId(model, serviceTaskId(i)));
+        }
+        assertThat(index.getSignalCatchEventId("start")).isNull();
+
+        long modelWalkNanos = measure(() -> {
+            for (int i = 0; i < SERVICE_TASK_COUNT; i++) {
+                ProcessDefinition procDef = repositoryService.createProcessDefinitionQuery()
+                        .processDefinitionId(procDefId).singleResult();
+                modelWalkIds[i] = PlugableApplicationTaskDispatcher.findSignalCatchEventId(
+                        repositoryService.getBpmnModelInstance(procDef.getId()), serviceTaskId(i));
+            }
+        });
+
+        ProcessDefinitionEntity cachedProcDef = findDeployedProcessDefinition(procDefId);
+        long indexNanos = measure(() -> {
+            for (int i = 0; i < SERVICE_TASK_COUNT; i++) {
+                indexIds[i] = cachedProcDef.getProperties().get(SignalCatchEventIndex.PROPERTY_KEY)
+                        .getSignalCatchEventId(serviceTaskId(i));
+            }
+        });
+
+        log.info("signal catch event lookup of {} service tasks: model walk {} ns/dispatch, index {} ns/dispatch",
+                SERVICE_TASK_COUNT, modelWalkNanos / SERVICE_TASK_COUNT, indexNanos / SERVICE_TASK_COUNT);
+        assertThat(indexIds).doesNotContainNull().containsExactly(modelWalkIds);
+    }
+
+    private long measure(Runnable round) {
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            round.run();
+        }
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            round.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    private BpmnModelInstance buildModel(int serviceTaskCount) {
+        AbstractFlowNodeBuilder<?, ?> builder = Bpmn.createExecutableProcess("signalIndexBenchmark").startEvent("start");
+        for (int i = 0; i < serviceTaskCount; i++) {
+            // the timer branch comes first, so that the lookup has to skip it
+            builder = builder.serviceTask(serviceTaskId(i)).eventBasedGateway().id("gateway_" + i)
+                    .intermediateCatchEvent("timer_catch_" + i).timerWithDuration("PT10M").endEvent("timeout_" + i)
+                    .moveToNode("gateway_" + i).intermediateCatchEvent("signal_catch_" + i).signal("signal_" + i);
+        }
+        return builder.endEvent("end").done();
+    }
+
+    private String serviceTaskId(int i) {
+        return "service_task_" + i;
+    }
+
+    private String deploy(BpmnModelInstance model) {
+        String deploymentId = repositoryService.createDeployment().addModelInstance("signalIndexBenchmark.bpmn", model)
+                .deploy().getId();
+        return repositoryService.createProcessDefinitionQuery().deploymentId(deploymentId).singleResult().getId();
+    }
+
+    private ProcessDefinitionEntity findDeployedProcessDefinition(String procDefId) {
+        ProcessEngineConfigurationImpl processEngineConfiguration = (ProcessEngineConfigurationImpl) processEngine
+                .getProcessEngineConfiguration();
+        return processEngineConfiguration.getCommandExecutorTxRequired()
+                .execute(commandContext -> commandContext.getProcessEngineConfiguration().getDeploymentCache()
+                        .findDeployedProcessDefinitionById(procDefId));
+    }
+}
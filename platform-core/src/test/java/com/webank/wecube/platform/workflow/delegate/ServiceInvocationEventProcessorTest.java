@@ -0,0 +1,67 @@
+package com.webank.wecube.platform.workflow.delegate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class ServiceInvocationEventProcessorTest {
+
+    @Test
+    public void givenRetryTimesWhenCalculateDelayThenBackOffExponentiallyWithJitterUpToMax() {
+        ServiceInvocationEventProcessor processor = new ServiceInvocationEventProcessor();
+        ReflectionTestUtils.setField(processor, "retryBaseDelayMillis", 1000L);
+        ReflectionTestUtils.setField(processor, "retryMaxDelayMillis", 8000L);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(processor.calculateRetryDelayMillis(1)).isBetween(500L, 1000L);
+            assertThat(processor.calculateRetryDelayMillis(3)).isBetween(2000L, 4000L);
+            assertThat(processor.calculateRetryDelayMillis(10)).isBetween(4000L, 8000L);
+            assertThat(processor.calculateRetryDelayMillis(100)).isBetween(4000L, 8000L);
+        }
+    }
+
+    @Test
+    public void givenBusyWorkersWhenSubmitThenGrowToMaxThenQueueThenRunInCaller() throws Exception {
+        ThreadPoolExecutor executor = ServiceInvocationEventProcessor.newElasticExecutor(1, 3, 2, 60000,
+                "test-event-worker-");
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            for (int i = 0; i < 3; i++) {
+                CountDownLatch started = new CountDownLatch(1);
+                executor.execute(() -> {
+                    started.countDown();
+                    awaitQuietly(release);
+                });
+                assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            }
+            assertThat(executor.getPoolSize()).isEqualTo(3);
+            assertThat(executor.getQueue()).isEmpty();
+
+            executor.execute(() -> awaitQuietly(release));
+            executor.execute(() -> awaitQuietly(release));
+            assertThat(executor.getPoolSize()).isEqualTo(3);
+            assertThat(executor.getQueue()).hasSize(2);
+
+            AtomicReference<Thread> runner = new AtomicReference<>();
+            executor.execute(() -> runner.set(Thread.currentThread()));
+            assertThat(runner.get()).isSameAs(Thread.currentThread());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
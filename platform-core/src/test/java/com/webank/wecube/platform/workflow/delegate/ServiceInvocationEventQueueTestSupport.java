@@ -0,0 +1,91 @@
+package com.webank.wecube.platform.workflow.delegate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.webank.wecube.platform.workflow.model.ServiceInvocationEvent;
+import com.webank.wecube.platform.workflow.model.ServiceInvocationEventImpl;
+
+/**
+ * Creates database event queues standing for separate nodes on the same
+ * database, and puts and drains their events.
+ */
+public class ServiceInvocationEventQueueTestSupport {
+    private final UnaryOperator<DatabaseServiceInvocationEventQueue> autowirer;
+
+    /**
+     * @param autowirer
+     *            injects the beans of the test context into a new queue
+     */
+    public ServiceInvocationEventQueueTestSupport(UnaryOperator<DatabaseServiceInvocationEventQueue> autowirer) {
+        this.autowirer = autowirer;
+    }
+
+    public DatabaseServiceInvocationEventQueue newQueue(String owner, int bufferSize, long claimTimeoutMillis) {
+        return newQueue(owner, null, bufferSize, claimTimeoutMillis);
+    }
+
+    public DatabaseServiceInvocationEventQueue newQueue(EventPartitionManager eventPartitionManager,
+            long claimTimeoutMillis) {
+        return newQueue(null, eventPartitionManager, 1000, claimTimeoutMillis);
+    }
+
+    public Set<String> putEvents(DatabaseServiceInvocationEventQueue queue, int count) throws Exception {
+        Set<String> eventIds = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            ServiceInvocationEventImpl event = new ServiceInvocationEventImpl();
+            event.setEventType(ServiceInvocationEvent.EventType.SERVICE_INVOCATION);
+            event.setInstanceId("proc-inst-" + i);
+            event.setBusinessKey("biz-key-" + i);
+            event.setEventSourceId("srvBeanST-node-" + i);
+            queue.put(event);
+            eventIds.add(event.getEventId());
+        }
+        return eventIds;
+    }
+
+    /**
+     * Polls until the queue has no event left, acknowledging each one if ack
+     * is set and leaving it claimed otherwise.
+     */
+    public List<ServiceInvocationEvent> drainEvents(DatabaseServiceInvocationEventQueue queue, boolean ack)
+            throws Exception {
+        List<ServiceInvocationEvent> events = new ArrayList<>();
+        ServiceInvocationEvent event;
+        while ((event = queue.poll(0, TimeUnit.MILLISECONDS)) != null) {
+            events.add(event);
+            if (ack) {
+                queue.ack(event);
+            }
+        }
+        return events;
+    }
+
+    public Set<String> drain(DatabaseServiceInvocationEventQueue queue, boolean ack) throws Exception {
+        Set<String> eventIds = new HashSet<>();
+        for (ServiceInvocationEvent event : drainEvents(queue, ack)) {
+            eventIds.add(event.getEventId());
+        }
+        return eventIds;
+    }
+
+    private DatabaseServiceInvocationEventQueue newQueue(String owner, EventPartitionManager eventPartitionManager,
+            int bufferSize, long claimTimeoutMillis) {
+        DatabaseServiceInvocationEventQueue queue = autowirer.apply(new DatabaseServiceInvocationEventQueue());
+        ReflectionTestUtils.setField(queue, "eventPartitionManager", eventPartitionManager);
+        ReflectionTestUtils.setField(queue, "ownerPrefix", owner);
+        ReflectionTestUtils.setField(queue, "bufferSize", bufferSize);
+        ReflectionTestUtils.setField(queue, "claimTimeoutMillis", claimTimeoutMillis);
+        // renewals are triggered by the tests
+        ReflectionTestUtils.setField(queue, "claimHeartbeatMillis", 0L);
+        ReflectionTestUtils.setField(queue, "pollIntervalMillis", 0L);
+        queue.init();
+        return queue;
+    }
+}
@@ -0,0 +1,152 @@
+package com.webank.wecube.platform.workflow.delegate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.camunda.bpm.engine.RepositoryService;
+import org.camunda.bpm.engine.RuntimeService;
+import org.camunda.bpm.engine.TaskService;
+import org.camunda.bpm.model.bpmn.Bpmn;
+import org.camunda.bpm.model.bpmn.BpmnModelInstance;
+import org.camunda.bpm.model.bpmn.builder.AbstractFlowNodeBuilder;
+import org.junit.After;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.webank.wecube.platform.core.DatabaseBasedTest;
+import com.webank.wecube.platform.workflow.entity.ServiceNodeStatusEntity;
+import com.webank.wecube.platform.workflow.model.TraceStatus;
+import com.webank.wecube.platform.workflow.repository.ServiceNodeStatusRepository;
+
+/**
+ * Completes user tasks of several process instances concurrently, with node
+ * statuses written in the engine transactions and after them, and logs the
+ * engine throughput of both. Runs outside a test transaction, so that the
+ * writes after commit see the engine state, and removes what it committed
+ * afterwards.
+ */
+public class ServiceNodeStatusWriterLoadTest extends DatabaseBasedTest {
+    private static final Logger log = LoggerFactory.getLogger(ServiceNodeStatusWriterLoadTest.class);
+
+    private static final String PROC_DEF_KEY = "nodeStatusLoad";
+    private static final int INSTANCE_COUNT = 8;
+    private static final int COMPLETED_TASKS_PER_INSTANCE = 25;
+
+    @Autowired
+    private RepositoryService repositoryService;
+
+    @Autowired
+    private RuntimeService runtimeService;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private ServiceNodeStatusWriter serviceNodeStatusWriter;
+
+    @Autowired
+    private ServiceNodeStatusRepository serviceNodeStatusRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String deploymentId;
+
+    @After
+    public void restoreSynchronousWrites() {
+        serviceNodeStatusWriter.flush();
+        ReflectionTestUtils.setField(serviceNodeStatusWriter, "asyncWriteEnabled", false);
+
+        if (deploymentId != null) {
+            repositoryService.deleteDeployment(deploymentId, true, true);
+        }
+        jdbcTemplate.update("delete from ACT_RU_SRVNODE_STATUS where PROC_INST_KEY like ?", PROC_DEF_KEY + "-%");
+        jdbcTemplate.update("delete from ACT_RU_PROCINST_STATUS where PROC_DEF_KEY = ?", PROC_DEF_KEY);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void givenConcurrentTaskCompletionsWhenWriteStatusesAfterCommitThenSameStatusesAndThroughputLogged()
+            throws Exception {
+        deploymentId = repositoryService.createDeployment().addModelInstance(PROC_DEF_KEY + ".bpmn", buildModel())
+                .deploy().getId();
+
+        ReflectionTestUtils.setField(serviceNodeStatusWriter, "asyncWriteEnabled", false);
+        double syncThroughput = completeTasks("sync");
+        assertStatuses("sync");
+
+        ReflectionTestUtils.setField(serviceNodeStatusWriter, "asyncWriteEnabled", true);
+        double asyncThroughput = completeTasks("async");
+        assertThat(serviceNodeStatusWriter.flush()).isPositive();
+        assertStatuses("async");
+
+        log.info("completed user tasks per second with {} concurrent instances: synchronous statuses {}, "
+                + "statuses written after commit {}", INSTANCE_COUNT, String.format("%.1f", syncThroughput),
+                String.format("%.1f", asyncThroughput));
+    }
+
+    private double completeTasks(String round) throws Exception {
+        List<String> procInstIds = new ArrayList<>();
+        for (int i = 0; i < INSTANCE_COUNT; i++) {
+            procInstIds.add(runtimeService.startProcessInstanceByKey(PROC_DEF_KEY, businessKey(round, i)).getId());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(INSTANCE_COUNT);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (String procInstId : procInstIds) {
+                futures.add(executor.submit(() -> {
+                    for (int t = 0; t < COMPLETED_TASKS_PER_INSTANCE; t++) {
+                        String taskId = taskService.createTaskQuery().processInstanceId(procInstId).singleResult()
+                                .getId();
+                        taskService.complete(taskId);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long elapsedNanos = System.nanoTime() - start;
+            return INSTANCE_COUNT * COMPLETED_TASKS_PER_INSTANCE * 1e9 / elapsedNanos;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void assertStatuses(String round) {
+        for (int i = 0; i < INSTANCE_COUNT; i++) {
+            List<ServiceNodeStatusEntity> statuses = serviceNodeStatusRepository
+                    .findByProcInstanceBizKeyIn(Collections.singletonList(businessKey(round, i)));
+
+            assertThat(statuses).filteredOn(s -> s.getStatus() == TraceStatus.Completed)
+                    .hasSize(COMPLETED_TASKS_PER_INSTANCE);
+            assertThat(statuses).filteredOn(s -> s.getStatus() == TraceStatus.InProgress).hasSize(1);
+        }
+    }
+
+    private BpmnModelInstance buildModel() {
+        // one user task more than completed, so that no instance ends
+        AbstractFlowNodeBuilder<?, ?> builder = Bpmn.createExecutableProcess(PROC_DEF_KEY).startEvent("start");
+        for (int i = 0; i <= COMPLETED_TASKS_PER_INSTANCE; i++) {
+            builder = builder.userTask("user_task_" + i);
+        }
+        return builder.endEvent("end").done();
+    }
+
+    private String businessKey(String round, int i) {
+        return PROC_DEF_KEY + "-" + round + "-" + i;
+    }
+}
@@ -0,0 +1,164 @@
+package com.webank.wecube.platform.workflow.history;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.camunda.bpm.engine.HistoryService;
+import org.camunda.bpm.engine.RepositoryService;
+import org.camunda.bpm.engine.RuntimeService;
+import org.camunda.bpm.engine.TaskService;
+import org.camunda.bpm.model.bpmn.Bpmn;
+import org.camunda.bpm.model.bpmn.BpmnModelInstance;
+import org.camunda.bpm.model.bpmn.builder.AbstractFlowNodeBuilder;
+import org.junit.After;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.webank.wecube.platform.core.DatabaseBasedTest;
+
+/**
+ * Completes user tasks setting a variable of several process instances
+ * concurrently, with full history written in the engine transactions, with
+ * activity history only, and with full history written after them, and logs
+ * the engine throughput of all three.
+ */
+public class WorkflowHistoryEventHandlerBenchmarkTest extends DatabaseBasedTest {
+    private static final Logger log = LoggerFactory.getLogger(WorkflowHistoryEventHandlerBenchmarkTest.class);
+
+    private static final String SYNC_PROC_DEF_KEY = "historySync";
+    private static final String ACTIVITY_PROC_DEF_KEY = "historyActivity";
+    private static final String ASYNC_PROC_DEF_KEY = "historyAsync";
+    private static final int INSTANCE_COUNT = 8;
+    private static final int COMPLETED_TASKS_PER_INSTANCE = 25;
+
+    @Autowired
+    private RepositoryService repositoryService;
+
+    @Autowired
+    private RuntimeService runtimeService;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private HistoryService historyService;
+
+    @Autowired
+    private WorkflowHistoryEventHandler workflowHistoryEventHandler;
+
+    @After
+    public void restoreFullSynchronousHistory() {
+        workflowHistoryEventHandler.flush();
+        ReflectionTestUtils.setField(workflowHistoryEventHandler, "asyncWriteEnabled", false);
+        ReflectionTestUtils.setField(workflowHistoryEventHandler, "historyLevels",
+                new DefinitionHistoryLevels("full", ""));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void givenConcurrentTaskCompletionsWhenWriteHistoryPerLevelAndAfterCommitThenHistoryCompleteAndThroughputLogged()
+            throws Exception {
+        for (String procDefKey : new String[] { SYNC_PROC_DEF_KEY, ACTIVITY_PROC_DEF_KEY, ASYNC_PROC_DEF_KEY }) {
+            repositoryService.createDeployment().addModelInstance(procDefKey + ".bpmn", buildModel(procDefKey))
+                    .deploy();
+        }
+        ReflectionTestUtils.setField(workflowHistoryEventHandler, "historyLevels",
+                new DefinitionHistoryLevels("full", ACTIVITY_PROC_DEF_KEY + ":activity"));
+
+        List<String> syncProcInstIds = startInstances(SYNC_PROC_DEF_KEY);
+        double syncThroughput = completeTasks(syncProcInstIds);
+        assertHistory(syncProcInstIds, true);
+
+        List<String> activityProcInstIds = startInstances(ACTIVITY_PROC_DEF_KEY);
+        double activityThroughput = completeTasks(activityProcInstIds);
+        assertHistory(activityProcInstIds, false);
+
+        ReflectionTestUtils.setField(workflowHistoryEventHandler, "asyncWriteEnabled", true);
+        List<String> asyncProcInstIds = startInstances(ASYNC_PROC_DEF_KEY);
+        double asyncThroughput = completeTasks(asyncProcInstIds);
+        workflowHistoryEventHandler.flush();
+        assertThat(workflowHistoryEventHandler.getPendingBatchCount()).isZero();
+        assertHistory(asyncProcInstIds, true);
+
+        log.info("completed user tasks per second with {} concurrent instances: full history {}, "
+                + "activity history {}, full history written after commit {}", INSTANCE_COUNT,
+                String.format("%.1f", syncThroughput), String.format("%.1f", activityThroughput),
+                String.format("%.1f", asyncThroughput));
+    }
+
+    private List<String> startInstances(String procDefKey) {
+        List<String> procInstIds = new ArrayList<>();
+        for (int i = 0; i < INSTANCE_COUNT; i++) {
+            procInstIds.add(runtimeService.startProcessInstanceByKey(procDefKey, procDefKey + "-" + i).getId());
+        }
+        return procInstIds;
+    }
+
+    private double completeTasks(List<String> procInstIds) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(INSTANCE_COUNT);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (String procInstId : procInstIds) {
+                futures.add(executor.submit(() -> {
+                    for (int t = 0; t < COMPLETED_TASKS_PER_INSTANCE; t++) {
+                        String taskId = taskService.createTaskQuery().processInstanceId(procInstId).singleResult()
+                                .getId();
+                        taskService.complete(taskId, Collections.singletonMap("completedTasks", (Object) (t + 1)));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long elapsedNanos = System.nanoTime() - start;
+            return procInstIds.size() * COMPLETED_TASKS_PER_INSTANCE * 1e9 / elapsedNanos;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void assertHistory(List<String> procInstIds, boolean fullHistory) {
+        for (String procInstId : procInstIds) {
+            assertThat(historyService.createHistoricProcessInstanceQuery().processInstanceId(procInstId).count())
+                    .isEqualTo(1);
+            // the start event, the completed user tasks and the waiting one
+            assertThat(historyService.createHistoricActivityInstanceQuery().processInstanceId(procInstId).count())
+                    .isEqualTo(COMPLETED_TASKS_PER_INSTANCE + 2);
+            assertThat(historyService.createHistoricActivityInstanceQuery().processInstanceId(procInstId).finished()
+                    .count()).isEqualTo(COMPLETED_TASKS_PER_INSTANCE + 1);
+
+            if (fullHistory) {
+                assertThat(historyService.createHistoricVariableInstanceQuery().processInstanceId(procInstId)
+                        .singleResult().getValue()).isEqualTo(COMPLETED_TASKS_PER_INSTANCE);
+                assertThat(historyService.createHistoricDetailQuery().processInstanceId(procInstId).count())
+                        .isEqualTo(COMPLETED_TASKS_PER_INSTANCE);
+            } else {
+                assertThat(historyService.createHistoricVariableInstanceQuery().processInstanceId(procInstId)
+                        .count()).isZero();
+                assertThat(historyService.createHistoricDetailQuery().processInstanceId(procInstId).count())
+                        .isZero();
+            }
+        }
+    }
+
+    private BpmnModelInstance buildModel(String procDefKey) {
+        // one user task more than completed, so that no instance ends
+        AbstractFlowNodeBuilder<?, ?> builder = Bpmn.createExecutableProcess(procDefKey).startEvent("start");
+        for (int i = 0; i <= COMPLETED_TASKS_PER_INSTANCE; i++) {
+            builder = builder.userTask("user_task_" + i);
+        }
+        return builder.endEvent("end").done();
+    }
+}
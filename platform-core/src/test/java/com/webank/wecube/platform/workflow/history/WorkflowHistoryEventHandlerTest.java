@@ -0,0 +1,78 @@
+package com.webank.wecube.platform.workflow.history;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.webank.wecube.platform.core.DatabaseBasedTest;
+
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class WorkflowHistoryEventHandlerTest extends DatabaseBasedTest {
+
+    @Autowired
+    private WorkflowHistoryEventHandler workflowHistoryEventHandler;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private long baseId;
+
+    @Before
+    public void stopScheduledFlush() {
+        workflowHistoryEventHandler.destroy();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        baseId = jdbcTemplate.queryForObject("select coalesce(max(ID), 0) from ACT_RU_HISTORY_EVENT_BATCH",
+                Long.class) + 1000;
+        ReflectionTestUtils.setField(workflowHistoryEventHandler, "lastPassedId", baseId);
+        ReflectionTestUtils.setField(workflowHistoryEventHandler, "gapWaitMillis", 200L);
+    }
+
+    @After
+    public void restartScheduledFlush() {
+        jdbcTemplate.update("delete from ACT_RU_HISTORY_EVENT_BATCH where ID > ?", baseId);
+        ReflectionTestUtils.setField(workflowHistoryEventHandler, "lastPassedId", null);
+        ReflectionTestUtils.setField(workflowHistoryEventHandler, "gapWaitMillis", 5000L);
+        workflowHistoryEventHandler.init();
+    }
+
+    @Test
+    public void givenGapInBatchIdsWhenFlushThenLaterBatchesWaitForMissingOne() throws Exception {
+        storeBatch(baseId + 2);
+        assertThat(workflowHistoryEventHandler.flush()).isZero();
+
+        // the transaction of the lower id commits after the higher one
+        storeBatch(baseId + 1);
+        assertThat(workflowHistoryEventHandler.flush()).isEqualTo(2);
+
+        // the transaction of baseId + 3 rolls back
+        storeBatch(baseId + 4);
+        assertThat(workflowHistoryEventHandler.flush()).isZero();
+        Thread.sleep(300);
+        assertThat(workflowHistoryEventHandler.flush()).isEqualTo(1);
+
+        assertThat(jdbcTemplate.queryForObject("select count(*) from ACT_RU_HISTORY_EVENT_BATCH where ID > ?",
+                Long.class, baseId)).isZero();
+    }
+
+    private void storeBatch(long id) throws Exception {
+        ByteArrayOutputStream eventData = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(eventData)) {
+            out.writeObject(new ArrayList<>());
+        }
+        jdbcTemplate.update(
+                "insert into ACT_RU_HISTORY_EVENT_BATCH (ID, EVENT_COUNT, EVENT_DATA, CREATED_TIME) values (?, 0, ?, ?)",
+                id, eventData.toByteArray(), new Date());
+    }
+}
@@ -1,18 +1,36 @@
 package com.webank.wecube.platform.gateway.filter.factory;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.net.URI;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
 import org.springframework.cloud.gateway.route.Route;
 import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
 import com.webank.wecube.platform.gateway.route.DynamicRouteContext;
 import com.webank.wecube.platform.gateway.route.DynamicRouteItemInfo;
 import com.webank.wecube.platform.gateway.route.DynamicRouteItemInfoHolder;
@@ -29,8 +47,16 @@ public class DynamicRouteGatewayFilterFactory
 
     public static final String ENABLED_KEY = "enabled";
 
+    public static final String CONTENT_ENCODING_GZIP = "gzip";
+
+    public static final int DEFAULT_MAX_COMPRESSED_REQUEST_BYTES = 10 * 1024 * 1024;
+
+    public static final int DEFAULT_MAX_DECOMPRESSED_REQUEST_BYTES = 50 * 1024 * 1024;
+
     private DynamicRouteProperties dynamicRouteProperties;
 
+    private final AtomicInteger routeCounter = new AtomicInteger();
+
     public DynamicRouteGatewayFilterFactory() {
         super(Config.class);
     }
@@ -66,12 +92,154 @@ public class DynamicRouteGatewayFilterFactory
             String baseUrl = determineDynamicRoute(newPath, exchange);
             if (baseUrl != null) {
                 tryPrepareRoute(exchange, route, baseUrl);
+
+                if (shouldDecompressRequestBody(newPath, exchange)) {
+                    return filterWithDecompressedRequestBody(exchange, chain);
+                }
             }
 
             return chain.filter(exchange);
         });
     }
-    
+
+    /**
+     * Gzip encoded request bodies are inflated here unless the target route
+     * is configured to accept them as they are.
+     */
+    protected boolean shouldDecompressRequestBody(String path, ServerWebExchange exchange) {
+        String contentEncoding = exchange.getRequest().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING);
+        if (!CONTENT_ENCODING_GZIP.equalsIgnoreCase(contentEncoding)) {
+            return false;
+        }
+
+        if (dynamicRouteProperties == null) {
+            return true;
+        }
+
+        List<String> compressedRequestRoutes = dynamicRouteProperties.getCompressedRequestRoutes();
+        if (compressedRequestRoutes == null) {
+            return true;
+        }
+
+        return !compressedRequestRoutes.contains(calculateComponentPath(path));
+    }
+
+    protected Mono<Void> filterWithDecompressedRequestBody(ServerWebExchange exchange, GatewayFilterChain chain) {
+        DataBufferFactory bufferFactory = exchange.getResponse().bufferFactory();
+        int maxCompressedBytes = getMaxCompressedRequestBytes();
+        int maxDecompressedBytes = getMaxDecompressedRequestBytes();
+
+        if (exchange.getRequest().getHeaders().getContentLength() > maxCompressedBytes) {
+            log.warn("rejected compressed request body of {} bytes, limit is {} bytes",
+                    exchange.getRequest().getHeaders().getContentLength(), maxCompressedBytes);
+            return rejectTooLargeRequestBody(exchange);
+        }
+
+        AtomicLong receivedBytes = new AtomicLong();
+        Flux<DataBuffer> limitedBody = exchange.getRequest().getBody().handle((dataBuffer, sink) -> {
+            if (receivedBytes.addAndGet(dataBuffer.readableByteCount()) > maxCompressedBytes) {
+                DataBufferUtils.release(dataBuffer);
+                sink.error(new RequestBodyTooLargeException(
+                        String.format("compressed request body exceeds %s bytes", maxCompressedBytes)));
+                return;
+            }
+            sink.next(dataBuffer);
+        });
+
+        return DataBufferUtils.join(limitedBody) //
+                .defaultIfEmpty(bufferFactory.wrap(new byte[0])) //
+                .flatMap(dataBuffer -> {
+                    byte[] compressedBody = new byte[dataBuffer.readableByteCount()];
+                    dataBuffer.read(compressedBody);
+                    DataBufferUtils.release(dataBuffer);
+
+                    byte[] body;
+                    try {
+                        body = gunzip(compressedBody, maxDecompressedBytes);
+                    } catch (RequestBodyTooLargeException e) {
+                        return Mono.error(e);
+                    } catch (IOException e) {
+                        log.error("failed to decompress request body", e);
+                        return Mono.error(e);
+                    }
+
+                    if (log.isDebugEnabled()) {
+                        log.debug("decompressed request body from {} to {} bytes", compressedBody.length,
+                                body.length);
+                    }
+
+                    ServerHttpRequest request = exchange.getRequest();
+                    HttpHeaders headers = new HttpHeaders();
+                    headers.putAll(request.getHeaders());
+                    headers.remove(HttpHeaders.CONTENT_ENCODING);
+                    headers.setContentLength(body.length);
+
+                    ServerHttpRequest decoratedRequest = new ServerHttpRequestDecorator(request) {
+                        @Override
+                        public HttpHeaders getHeaders() {
+                            return headers;
+                        }
+
+                        @Override
+                        public Flux<DataBuffer> getBody() {
+                            return Flux.defer(() -> Flux.just(bufferFactory.wrap(body)));
+                        }
+                    };
+
+                    return chain.filter(exchange.mutate().request(decoratedRequest).build());
+                }) //
+                .onErrorResume(RequestBodyTooLargeException.class, e -> {
+                    log.warn("rejected request body:{}", e.getMessage());
+                    return rejectTooLargeRequestBody(exchange);
+                });
+    }
+
+    private Mono<Void> rejectTooLargeRequestBody(ServerWebExchange exchange) {
+        exchange.getResponse().setStatusCode(HttpStatus.PAYLOAD_TOO_LARGE);
+        return exchange.getResponse().setComplete();
+    }
+
+    /**
+     * Inflates into memory and stops as soon as the output passes
+     * maxDecompressedBytes, so a small gzip bomb cannot exhaust the heap.
+     */
+    private byte[] gunzip(byte[] compressedBody, int maxDecompressedBytes) throws IOException {
+        if (compressedBody.length == 0) {
+            return compressedBody;
+        }
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressedBody))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(
+                    Math.min(compressedBody.length * 4, maxDecompressedBytes));
+            byte[] buffer = new byte[StreamUtils.BUFFER_SIZE];
+            int totalBytes = 0;
+            int readBytes;
+            while ((readBytes = in.read(buffer)) != -1) {
+                totalBytes += readBytes;
+                if (totalBytes > maxDecompressedBytes) {
+                    throw new RequestBodyTooLargeException(
+                            String.format("decompressed request body exceeds %s bytes", maxDecompressedBytes));
+                }
+                out.write(buffer, 0, readBytes);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private int getMaxCompressedRequestBytes() {
+        if (dynamicRouteProperties == null) {
+            return DEFAULT_MAX_COMPRESSED_REQUEST_BYTES;
+        }
+        return dynamicRouteProperties.getMaxCompressedRequestBytes();
+    }
+
+    private int getMaxDecompressedRequestBytes() {
+        if (dynamicRouteProperties == null) {
+            return DEFAULT_MAX_DECOMPRESSED_REQUEST_BYTES;
+        }
+        return dynamicRouteProperties.getMaxDecompressedRequestBytes();
+    }
+
     protected void tryPrepareRoute(ServerWebExchange exchange, Route route, String baseUrl) {
         if (log.isDebugEnabled()) {
             log.debug("base url:{}", baseUrl);
@@ -93,7 +261,8 @@ public class DynamicRouteGatewayFilterFactory
             return null;
         }
         
-        DynamicRouteContext routeContext = new DynamicRouteContext().addDynamicRouteItemInfos(routeItemInfos);
+        DynamicRouteContext routeContext = new DynamicRouteContext().addDynamicRouteItemInfos(routeItemInfos)
+                .withStartIndex(routeCounter.getAndIncrement());
         exchange.getAttributes().put(DynamicRouteContext.DYNAMIC_ROUTE_CONTEXT_KEY, routeContext);
 
         DynamicRouteItemInfo routeItemInfo = routeContext.next();
@@ -131,6 +300,14 @@ public class DynamicRouteGatewayFilterFactory
         return Arrays.asList(ENABLED_KEY);
     }
 
+    private static class RequestBodyTooLargeException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        RequestBodyTooLargeException(String message) {
+            super(message);
+        }
+    }
+
     public static class Config {
         private boolean enabled;
 
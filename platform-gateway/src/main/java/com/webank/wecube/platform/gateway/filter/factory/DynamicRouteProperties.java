@@ -1,5 +1,8 @@
 package com.webank.wecube.platform.gateway.filter.factory;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 @ConfigurationProperties(prefix = "platform.gateway.route")
@@ -12,6 +15,10 @@ public class DynamicRouteProperties {
     private int retryIntervalOfSeconds = 5;
     private int refreshIntervalOfMinutes = 10;
 
+    private List<String> compressedRequestRoutes = new ArrayList<>();
+    private int maxCompressedRequestBytes = DynamicRouteGatewayFilterFactory.DEFAULT_MAX_COMPRESSED_REQUEST_BYTES;
+    private int maxDecompressedRequestBytes = DynamicRouteGatewayFilterFactory.DEFAULT_MAX_DECOMPRESSED_REQUEST_BYTES;
+
     public String getRouteConfigServer() {
         return routeConfigServer;
     }
@@ -60,4 +67,28 @@ public class DynamicRouteProperties {
         this.refreshIntervalOfMinutes = refreshIntervalOfMinutes;
     }
 
+    public List<String> getCompressedRequestRoutes() {
+        return compressedRequestRoutes;
+    }
+
+    public void setCompressedRequestRoutes(List<String> compressedRequestRoutes) {
+        this.compressedRequestRoutes = compressedRequestRoutes;
+    }
+
+    public int getMaxCompressedRequestBytes() {
+        return maxCompressedRequestBytes;
+    }
+
+    public void setMaxCompressedRequestBytes(int maxCompressedRequestBytes) {
+        this.maxCompressedRequestBytes = maxCompressedRequestBytes;
+    }
+
+    public int getMaxDecompressedRequestBytes() {
+        return maxDecompressedRequestBytes;
+    }
+
+    public void setMaxDecompressedRequestBytes(int maxDecompressedRequestBytes) {
+        this.maxDecompressedRequestBytes = maxDecompressedRequestBytes;
+    }
+
 }
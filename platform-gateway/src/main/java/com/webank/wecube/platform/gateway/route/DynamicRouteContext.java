@@ -14,6 +14,7 @@ public class DynamicRouteContext {
     private List<DynamicRouteItemInfo> routeItemInfos = new ArrayList<>();
     private volatile int currentIndex = -1;
     private volatile boolean hasNext = true;
+    private int startIndex = 0;
 
     public DynamicRouteItemInfo next() {
         if (routeItemInfos.isEmpty()) {
@@ -28,7 +29,7 @@ public class DynamicRouteContext {
             currentIndex = 0;
         }
         
-        return routeItemInfos.get(currentIndex);
+        return routeItemInfos.get((startIndex + currentIndex) % routeItemInfos.size());
 
     }
 
@@ -37,6 +38,15 @@ public class DynamicRouteContext {
         return this;
     }
 
+    /**
+     * Rotates the first item handed out so that requests spread over all
+     * route items instead of always starting with the first one.
+     */
+    public DynamicRouteContext withStartIndex(int startIndex) {
+        this.startIndex = startIndex & Integer.MAX_VALUE;
+        return this;
+    }
+
     public boolean hasNext() {
         return hasNext;
     }
@@ -0,0 +1,200 @@
+package com.webank.wecube.platform.workflow.commons;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import com.webank.wecube.platform.workflow.entity.IdNodeLeaseEntity;
+import com.webank.wecube.platform.workflow.repository.IdNodeLeaseRepository;
+
+/**
+ * Leases a node id of {@link LocalIdGenerator} from ACT_RU_ID_NODE_LEASE, so
+ * that no two running nodes generate IDs with the same node id.
+ *
+ * <p>
+ * A lease is renewed every third of lease-millis, recording the last
+ * timestamp used for IDs. An expired lease may be taken over by another
+ * node, which then only uses timestamps after the recorded one plus
+ * lease-millis, covering the IDs the previous holder may have generated
+ * before its lease ran out.
+ * </p>
+ * <p>
+ * The id generator stops generating IDs once the lease is lost, or has not
+ * been renewed within lease-millis, until another lease is acquired.
+ * </p>
+ *
+ */
+@Component
+public class IdNodeLeaseManager {
+    private static final Logger log = LoggerFactory.getLogger(IdNodeLeaseManager.class);
+
+    @Autowired
+    private IdNodeLeaseRepository idNodeLeaseRepository;
+
+    @Value("${wecube.core.workflow.id-node.lease-millis:60000}")
+    private long leaseMillis = 60000;
+
+    private String owner;
+
+    private LocalIdGenerator idGenerator = LocalIdGenerator.INSTANCE;
+
+    private volatile Integer leasedNodeId;
+
+    private ScheduledExecutorService renewExecutor;
+
+    @PostConstruct
+    public void init() {
+        owner = resolveHostName() + "-" + UUID.randomUUID().toString();
+        acquireQuietly();
+
+        long renewIntervalMillis = Math.max(1, leaseMillis / 3);
+        renewExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "id-node-lease");
+            t.setDaemon(true);
+            return t;
+        });
+        renewExecutor.scheduleWithFixedDelay(this::renewQuietly, renewIntervalMillis, renewIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (renewExecutor != null) {
+            renewExecutor.shutdown();
+        }
+
+        Integer nodeId = leasedNodeId;
+        if (nodeId == null) {
+            return;
+        }
+
+        try {
+            Date now = new Date();
+            idNodeLeaseRepository.renew(nodeId, owner, now, idGenerator.getLastTimestampMillis(), now);
+        } catch (Exception e) {
+            log.warn("failed to release id node lease {}", nodeId, e);
+        }
+    }
+
+    public Integer getLeasedNodeId() {
+        return leasedNodeId;
+    }
+
+    /**
+     * Takes over an expired lease or creates a new one, and assigns its node
+     * id to the id generator.
+     *
+     * @return the leased node id, or null if all node ids are leased
+     */
+    public Integer acquire() {
+        Date now = new Date();
+        Date expireTime = new Date(now.getTime() + leaseMillis);
+
+        for (Integer nodeId : idNodeLeaseRepository.findExpiredNodeIds(now)) {
+            if (idNodeLeaseRepository.takeOver(nodeId, owner, expireTime, now) != 1) {
+                continue;
+            }
+
+            Optional<IdNodeLeaseEntity> leaseOpt = idNodeLeaseRepository.findById(nodeId);
+            Long lastTimestamp = leaseOpt.isPresent() ? leaseOpt.get().getLastTimestamp() : null;
+            return assign(nodeId, lastTimestamp == null ? 0 : lastTimestamp + leaseMillis, expireTime);
+        }
+
+        Set<Integer> usedNodeIds = new HashSet<>(idNodeLeaseRepository.findAllNodeIds());
+        int nodeIdCount = LocalIdGenerator.MAX_NODE_ID + 1;
+        int start = new Random().nextInt(nodeIdCount);
+        for (int i = 0; i < nodeIdCount; i++) {
+            int nodeId = (start + i) % nodeIdCount;
+            if (usedNodeIds.contains(nodeId)) {
+                continue;
+            }
+
+            try {
+                idNodeLeaseRepository.create(nodeId, owner, expireTime, now);
+                return assign(nodeId, 0, expireTime);
+            } catch (DataIntegrityViolationException e) {
+                log.debug("id node {} was leased meanwhile", nodeId);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Renews the lease of the node id, or acquires another one if it was
+     * lost. The id generator generates no IDs from losing a lease until
+     * another one is acquired.
+     *
+     * @return the leased node id, or null if none is held
+     */
+    public Integer renew() {
+        Integer nodeId = leasedNodeId;
+        if (nodeId != null) {
+            Date now = new Date();
+            Date expireTime = new Date(now.getTime() + leaseMillis);
+            if (idNodeLeaseRepository.renew(nodeId, owner, expireTime, idGenerator.getLastTimestampMillis(),
+                    now) == 1) {
+                idGenerator.renewLease(expireTime.getTime());
+                return nodeId;
+            }
+            log.warn("lost the lease of id node {}", nodeId);
+            idGenerator.revokeLease();
+            leasedNodeId = null;
+        }
+
+        return acquire();
+    }
+
+    private Integer assign(int nodeId, long minTimestampMillis, Date expireTime) {
+        idGenerator.assignNodeId(nodeId, minTimestampMillis, expireTime.getTime());
+        leasedNodeId = nodeId;
+        log.info("leased id node {} for {}", nodeId, owner);
+        return nodeId;
+    }
+
+    private void renewQuietly() {
+        try {
+            if (renew() == null) {
+                log.error("all id nodes are leased, trying again with the next renewal");
+            }
+        } catch (Exception e) {
+            log.error("failed to renew id node lease", e);
+        }
+    }
+
+    private void acquireQuietly() {
+        try {
+            if (acquire() == null) {
+                log.error("all id nodes are leased, keeping id node {} until one expires", idGenerator.getNodeId());
+            }
+        } catch (Exception e) {
+            log.error("failed to lease an id node, keeping id node {}", idGenerator.getNodeId(), e);
+        }
+    }
+
+    private String resolveHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "localhost";
+        }
+    }
+}
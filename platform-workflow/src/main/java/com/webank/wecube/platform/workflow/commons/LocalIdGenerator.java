@@ -2,62 +2,178 @@ package com.webank.wecube.platform.workflow.commons;
 
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 /**
  * For workflow related ID generation
+ *
+ * <p>
+ * IDs are 63 bit numbers made of the milliseconds since {@link #EPOCH_MILLIS}
+ * (41 bits), the id of the generating node (10 bits) and a sequence within
+ * the millisecond (12 bits), and are handed out in base62. Node ids are leased
+ * from the database by {@link IdNodeLeaseManager}; until a lease is held a
+ * random node id is used. Once a lease has been assigned, no IDs are
+ * generated after it expires or is revoked, since another node may hold the
+ * node id by then, until a new lease is assigned.
+ * </p>
+ * <p>
+ * Timestamps never go backwards: when the clock is set back, IDs continue
+ * from the last timestamp used, and when the sequence of a millisecond is
+ * exhausted the next millisecond is taken ahead of the clock. The last
+ * timestamp is kept with the node id lease, so that a node taking over the
+ * lease after a restart continues from there as well.
+ * </p>
+ *
  * @author gavinli
  *
  */
 public final class LocalIdGenerator {
+	private static final Logger log = LoggerFactory.getLogger(LocalIdGenerator.class);
+
+	public static final LocalIdGenerator INSTANCE = new LocalIdGenerator(System::currentTimeMillis,
+			new Random().nextInt(MAX_NODE_ID + 1));
+
+	/**
+	 * 2020-01-01T00:00:00Z
+	 */
+	public static final long EPOCH_MILLIS = 1577836800000L;
+
+	public static final int NODE_ID_BITS = 10;
+	public static final int MAX_NODE_ID = (1 << NODE_ID_BITS) - 1;
+
+	private static final int SEQUENCE_BITS = 12;
+	private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+
+	private static final long CLOCK_WARNING_THRESHOLD_MILLIS = 1000;
+	private static final long CLOCK_WARNING_INTERVAL_MILLIS = 10000;
 
-	public static final String KEY_MODULE = LocalIdGenerator.class.getSimpleName();
-	public static final LocalIdGenerator INSTANCE = new LocalIdGenerator();
-	
 	private static final String BASE62_CHARS_STR = "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
-	private static char[] BASE62_CHARS;
+	private static final char[] BASE62_CHARS = BASE62_CHARS_STR.toCharArray();
 
-	private static final long COUNT_MIN = 10000;
-	private static final long COUNT_MAX = 90000;
+	private final LongSupplier clock;
 
-	private AtomicLong count = new AtomicLong(COUNT_MIN);
+	/**
+	 * last timestamp since the epoch, shifted by SEQUENCE_BITS, plus the last
+	 * sequence
+	 */
+	private final AtomicLong lastState = new AtomicLong();
 
-	private String idSaltStr;
+	private volatile long nodeId;
 
-	private LocalIdGenerator() {
-		BASE62_CHARS = BASE62_CHARS_STR.toCharArray();
-		int salt = new Random().nextInt(62);
-		idSaltStr = String.valueOf(BASE62_CHARS[salt]);
-		
-		String moduleIdentity = System.getProperty(KEY_MODULE);
-		if(moduleIdentity != null && moduleIdentity.trim().length() > 0) {
-			idSaltStr+=moduleIdentity.trim();
-		}
+	private volatile long leaseExpireTimeMillis = Long.MAX_VALUE;
+
+	private volatile long lastClockWarningTime = -CLOCK_WARNING_INTERVAL_MILLIS;
+
+	LocalIdGenerator(LongSupplier clock, int nodeId) {
+		this.clock = clock;
+		this.nodeId = checkNodeId(nodeId);
 	}
-	
-	public static String generateId(){
-	    return INSTANCE.doGenerateTimestampedId();
+
+	public static String generateId() {
+		return INSTANCE.doGenerateTimestampedId();
 	}
-	
-	public static String generateId(String prefix){
-	    return INSTANCE.generateTimestampedId(prefix);
+
+	public static String generateId(String prefix) {
+		return INSTANCE.generateTimestampedId(prefix);
 	}
-	
+
 	public String generateTimestampedId(String prefix) {
-		return prefix+generateTimestampedId();
+		return prefix + generateTimestampedId();
 	}
 
 	public String generateTimestampedId() {
 		return doGenerateTimestampedId();
 	}
-	
-	private String doGenerateTimestampedId() {
-		String timeStr = number2base62(System.currentTimeMillis());
-		if (count.get() >= COUNT_MAX) {
-			count.set(COUNT_MIN);
+
+	public long nextId() {
+		while (true) {
+			long node = nodeId;
+			long last = lastState.get();
+			long lastTimestamp = last >>> SEQUENCE_BITS;
+			long nowMillis = clock.getAsLong();
+			if (nowMillis >= leaseExpireTimeMillis) {
+				throw new IllegalStateException(
+						"the lease of id node " + node + " is not held, no ids are generated until a new one is");
+			}
+			long now = nowMillis - EPOCH_MILLIS;
+
+			long next;
+			if (now > lastTimestamp) {
+				next = now << SEQUENCE_BITS;
+			} else if ((last & MAX_SEQUENCE) < MAX_SEQUENCE) {
+				next = last + 1;
+			} else {
+				next = (lastTimestamp + 1) << SEQUENCE_BITS;
+			}
+
+			if (lastState.compareAndSet(last, next)) {
+				if (lastTimestamp - now > CLOCK_WARNING_THRESHOLD_MILLIS) {
+					warnClockBehind(now, lastTimestamp - now);
+				}
+				return ((next >>> SEQUENCE_BITS) << (NODE_ID_BITS + SEQUENCE_BITS)) | (node << SEQUENCE_BITS)
+						| (next & MAX_SEQUENCE);
+			}
+		}
+	}
+
+	public int getNodeId() {
+		return (int) nodeId;
+	}
+
+	/**
+	 * Switches to a leased node id, held until leaseExpireTimeMillis. IDs will
+	 * not use a timestamp before minTimestampMillis, the last one the previous
+	 * holder of the lease may have used.
+	 */
+	public void assignNodeId(int nodeId, long minTimestampMillis, long leaseExpireTimeMillis) {
+		this.nodeId = checkNodeId(nodeId);
+
+		long minState = Math.max(0, minTimestampMillis - EPOCH_MILLIS) << SEQUENCE_BITS | MAX_SEQUENCE;
+		lastState.accumulateAndGet(minState, Math::max);
+		this.leaseExpireTimeMillis = leaseExpireTimeMillis;
+	}
+
+	/**
+	 * Extends the lease of the current node id until leaseExpireTimeMillis.
+	 */
+	public void renewLease(long leaseExpireTimeMillis) {
+		this.leaseExpireTimeMillis = leaseExpireTimeMillis;
+	}
+
+	/**
+	 * Stops generating IDs until a new lease is assigned.
+	 */
+	public void revokeLease() {
+		this.leaseExpireTimeMillis = Long.MIN_VALUE;
+	}
+
+	/**
+	 * @return the timestamp of the last id generated, in milliseconds
+	 */
+	public long getLastTimestampMillis() {
+		return (lastState.get() >>> SEQUENCE_BITS) + EPOCH_MILLIS;
+	}
+
+	private void warnClockBehind(long now, long behindMillis) {
+		if (Math.abs(now - lastClockWarningTime) < CLOCK_WARNING_INTERVAL_MILLIS) {
+			return;
 		}
+		lastClockWarningTime = now;
+		log.warn("clock is {} ms behind the timestamp of the last id, ids continue from that timestamp", behindMillis);
+	}
 
-		String countStr = number2base62(count.getAndIncrement());
+	private String doGenerateTimestampedId() {
+		return number2base62(nextId());
+	}
 
-		return timeStr + idSaltStr + countStr;
+	private static long checkNodeId(int nodeId) {
+		if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+			throw new IllegalArgumentException("node id must be between 0 and " + MAX_NODE_ID);
+		}
+		return nodeId;
 	}
 
 	private String number2base62(long num) {
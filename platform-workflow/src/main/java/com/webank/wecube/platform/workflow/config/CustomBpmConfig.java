@@ -21,6 +21,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
 
+import com.webank.wecube.platform.workflow.history.WorkflowHistoryEventHandler;
 import com.webank.wecube.platform.workflow.parse.CustomSpringProcessEngineConfiguration;
 import com.webank.wecube.platform.workflow.parse.LocalBpmnParseListener;
 
@@ -47,6 +48,9 @@ public class CustomBpmConfig {
         @Autowired
         private LocalBpmnParseListener processStartAndEndEventInitializer;
 
+        @Autowired
+        private WorkflowHistoryEventHandler workflowHistoryEventHandler;
+
         @PostConstruct
         public void afterPropertiesSet() {
             log.info("WorkflowConfig {} is ready.", WorkflowConfig.class.getName());
@@ -56,6 +60,13 @@ public class CustomBpmConfig {
         public void preInit(SpringProcessEngineConfiguration processEngineConfiguration) {
             super.preInit(processEngineConfiguration);
 
+            // The datasource may set rewriteBatchedStatements=true for the bulk
+            // inserts of the core repositories. The driver then answers rewritten
+            // batches without per statement update counts, which the engine needs
+            // to detect optimistic locking failures, so the engine must not batch.
+            log.info("disabling jdbc batch processing of process engine");
+            processEngineConfiguration.setJdbcBatchProcessing(false);
+
             List<BpmnParseListener> preParseListeners = processEngineConfiguration.getCustomPreBPMNParseListeners();
             if (preParseListeners == null) {
                 preParseListeners = new ArrayList<BpmnParseListener>();
@@ -65,6 +76,11 @@ public class CustomBpmConfig {
             log.info("adding LocalBpmnParseListener:{}", processStartAndEndEventInitializer.getClass().getName());
 
             preParseListeners.add(processStartAndEndEventInitializer);
+
+            log.info("setting history event handler:{}", workflowHistoryEventHandler.getClass().getName());
+
+            workflowHistoryEventHandler.setProcessEngineConfiguration(processEngineConfiguration);
+            processEngineConfiguration.setHistoryEventHandler(workflowHistoryEventHandler);
         }
     }
 }
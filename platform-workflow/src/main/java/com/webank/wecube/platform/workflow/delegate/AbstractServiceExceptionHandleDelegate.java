@@ -9,7 +9,6 @@ import com.webank.wecube.platform.workflow.WorkflowConstants;
 import com.webank.wecube.platform.workflow.entity.ServiceNodeStatusEntity;
 import com.webank.wecube.platform.workflow.model.TraceStatus;
 import com.webank.wecube.platform.workflow.parse.SpringApplicationContextUtil;
-import com.webank.wecube.platform.workflow.repository.ServiceNodeStatusRepository;
 
 /**
  * 
@@ -30,22 +29,19 @@ public abstract class AbstractServiceExceptionHandleDelegate {
         String nodeId = activityId.substring(idPrefix.length());
         String procInstanceBizKey = execution.getProcessBusinessKey();
 
-        ServiceNodeStatusRepository repository = SpringApplicationContextUtil
-                .getBean(ServiceNodeStatusRepository.class);
+        Date currTime = new Date();
+        boolean updated = SpringApplicationContextUtil.getBean(ServiceNodeStatusWriter.class)
+                .update(procInstanceBizKey, nodeId, null, entity -> {
+                    entity.setUpdatedBy(WorkflowConstants.DEFAULT_USER);
+                    entity.setUpdatedTime(currTime);
+                    entity.setStatus(traceStatus);
+                });
 
-        ServiceNodeStatusEntity entity = repository.findOneByProcInstanceBizKeyAndNodeId(procInstanceBizKey, nodeId);
-
-        if (entity == null) {
+        if (!updated) {
             getLogger().error("{} doesnt exist for procInstanceBizKey={},nodeId={}",
                     ServiceNodeStatusEntity.class.getSimpleName(), procInstanceBizKey, nodeId);
             throw new IllegalStateException("Entity doesnt exist");
         }
-
-        entity.setUpdatedBy(WorkflowConstants.DEFAULT_USER);
-        entity.setUpdatedTime(new Date());
-        entity.setStatus(traceStatus);
-
-        repository.save(entity);
     }
 
     protected abstract Logger getLogger();
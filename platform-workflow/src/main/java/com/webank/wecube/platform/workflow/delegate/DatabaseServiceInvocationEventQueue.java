@@ -0,0 +1,297 @@
+package com.webank.wecube.platform.workflow.delegate;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.webank.wecube.platform.workflow.commons.LocalIdGenerator;
+import com.webank.wecube.platform.workflow.entity.ServiceInvocationEventEntity;
+import com.webank.wecube.platform.workflow.model.ServiceInvocationEvent;
+import com.webank.wecube.platform.workflow.model.ServiceInvocationEventImpl;
+import com.webank.wecube.platform.workflow.repository.ServiceInvocationEventRepository;
+
+/**
+ * Keeps events in ACT_RU_SRV_INVOKE_EVENT until they are acknowledged.
+ *
+ * <p>
+ * An event is inserted in the transaction of the process engine command
+ * which raises it, so it exists exactly when the engine state that needs it
+ * has been committed. Its id is handed to a bounded in-memory buffer after
+ * the commit; ids which do not fit, and events written by a previous run, are
+ * found again by reading the table whenever the buffer runs dry.
+ * </p>
+ * <p>
+ * A consumer owns an event once it has moved it from NEW to CLAIMED, and an
+ * acknowledged event is deleted. Claims older than claimTimeoutMillis are
+ * released periodically, including those left by a node which stopped, so
+ * every event is delivered at least once. The owner of the claims is unique
+ * per JVM, so a node starting on the same host as a running one can never
+ * take or release the claims of the running one.
+ * </p>
+ * <p>
+ * While a consumer is still working on an event, its claim is renewed every
+ * claimHeartbeatMillis, so an invocation running longer than the claim
+ * timeout (a plugin call may take up to the socket timeout of the http client
+ * for every retry) is not delivered to a second consumer. Only the claims of
+ * a node which stopped renewing them go stale, so claimHeartbeatMillis has to
+ * stay well below claimTimeoutMillis.
+ * </p>
+ * <p>
+ * With an {@link EventPartitionManager}, events are partitioned by process
+ * instance, and a node only buffers and reads the events of the partitions it
+ * currently owns, and only claims an event while the lease of its partition
+ * is still its own in the database.
+ * </p>
+ *
+ */
+@Component
+@ConditionalOnProperty(name = "wecube.core.workflow.event-queue.type", havingValue = "database", matchIfMissing = true)
+public class DatabaseServiceInvocationEventQueue implements ServiceInvocationEventQueue {
+    private static final Logger log = LoggerFactory.getLogger(DatabaseServiceInvocationEventQueue.class);
+
+    @Autowired
+    private ServiceInvocationEventRepository serviceInvocationEventRepository;
+
+    @Autowired(required = false)
+    private EventPartitionManager eventPartitionManager;
+
+    @Value("${wecube.core.workflow.event-queue.buffer-size:1000}")
+    private int bufferSize = 1000;
+
+    @Value("${wecube.core.workflow.event-queue.claim-timeout-millis:600000}")
+    private long claimTimeoutMillis = 600000;
+
+    @Value("${wecube.core.workflow.event-queue.claim-heartbeat-millis:60000}")
+    private long claimHeartbeatMillis = 60000;
+
+    @Value("${wecube.core.workflow.event-queue.poll-interval-millis:1000}")
+    private long pollIntervalMillis = 1000;
+
+    @Value("${wecube.core.workflow.event-queue.owner:}")
+    private String ownerPrefix;
+
+    private String owner;
+
+    private BlockingQueue<String> buffer;
+
+    private volatile long lastReloadTime;
+
+    private final Set<String> claimedEventIds = ConcurrentHashMap.newKeySet();
+
+    private ScheduledExecutorService claimHeartbeatExecutor;
+
+    @PostConstruct
+    public void init() {
+        if (eventPartitionManager != null) {
+            owner = eventPartitionManager.getOwner();
+        } else {
+            owner = (StringUtils.isBlank(ownerPrefix) ? resolveHostName() : ownerPrefix) + "-"
+                    + UUID.randomUUID().toString();
+        }
+        buffer = new ArrayBlockingQueue<>(Math.max(1, bufferSize));
+
+        if (claimHeartbeatMillis > 0) {
+            claimHeartbeatExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "event-claim-heartbeat");
+                t.setDaemon(true);
+                return t;
+            });
+            claimHeartbeatExecutor.scheduleWithFixedDelay(this::renewClaimsQuietly, claimHeartbeatMillis,
+                    claimHeartbeatMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (claimHeartbeatExecutor != null) {
+            claimHeartbeatExecutor.shutdownNow();
+        }
+    }
+
+    @Override
+    public void put(ServiceInvocationEvent event) throws InterruptedException {
+        if (event.getEventId() == null && event instanceof ServiceInvocationEventImpl) {
+            ((ServiceInvocationEventImpl) event).setEventId(LocalIdGenerator.generateId());
+        }
+
+        Date now = new Date();
+        ServiceInvocationEventEntity entity = ServiceInvocationEventEntity.from(event);
+        entity.setStatus(ServiceInvocationEventEntity.STATUS_NEW);
+        entity.setCreatedTime(now);
+        entity.setAvailableTime(now);
+        if (eventPartitionManager != null) {
+            entity.setPartitionNo(eventPartitionManager.partitionOf(entity.getInstanceId()));
+        }
+        serviceInvocationEventRepository.save(entity);
+
+        if (eventPartitionManager != null && !eventPartitionManager.isOwned(entity.getPartitionNo())) {
+            // left to the owner of the partition, which finds it in the table
+            return;
+        }
+
+        String eventId = entity.getId();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    buffer.offer(eventId);
+                }
+            });
+        } else {
+            buffer.offer(eventId);
+        }
+    }
+
+    @Override
+    public ServiceInvocationEvent poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (true) {
+            if (buffer.isEmpty()) {
+                reloadIfDue();
+            }
+
+            long remaining = deadline - System.nanoTime();
+            String eventId = buffer.poll(Math.max(0, Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(
+                    Math.max(1, pollIntervalMillis)))), TimeUnit.NANOSECONDS);
+            if (eventId != null) {
+                ServiceInvocationEvent event = claim(eventId);
+                if (event != null) {
+                    return event;
+                }
+            }
+            if (buffer.isEmpty() && System.nanoTime() >= deadline) {
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public void ack(ServiceInvocationEvent event) {
+        serviceInvocationEventRepository.deleteOneById(event.getEventId());
+        claimedEventIds.remove(event.getEventId());
+    }
+
+    @Override
+    public void defer(ServiceInvocationEvent event, long delayMillis) {
+        serviceInvocationEventRepository.release(event.getEventId(), event.getRetryTimes(),
+                new Date(System.currentTimeMillis() + delayMillis));
+        claimedEventIds.remove(event.getEventId());
+    }
+
+    @Override
+    public int getBufferedCount() {
+        return buffer.size();
+    }
+
+    /**
+     * Renews the claims of the events taken by this queue which are neither
+     * acknowledged nor deferred yet.
+     *
+     * @return the number of claims renewed
+     */
+    public int renewClaims() {
+        if (claimedEventIds.isEmpty()) {
+            return 0;
+        }
+        return serviceInvocationEventRepository.renewClaims(new ArrayList<>(claimedEventIds), owner, new Date());
+    }
+
+    private void renewClaimsQuietly() {
+        try {
+            renewClaims();
+        } catch (Exception e) {
+            log.error("failed to renew service invocation event claims of {}", owner, e);
+        }
+    }
+
+    private ServiceInvocationEvent claim(String eventId) {
+        Date now = new Date();
+        int claimed = eventPartitionManager == null ? serviceInvocationEventRepository.claim(eventId, owner, now)
+                : serviceInvocationEventRepository.claimInOwnedPartition(eventId, owner, now);
+        if (claimed != 1) {
+            return null;
+        }
+
+        Optional<ServiceInvocationEventEntity> entityOpt = serviceInvocationEventRepository.findById(eventId);
+        if (!entityOpt.isPresent()) {
+            return null;
+        }
+        claimedEventIds.add(eventId);
+        return entityOpt.get().toServiceInvocationEvent();
+    }
+
+    private void reloadIfDue() {
+        long now = System.currentTimeMillis();
+        if (now - lastReloadTime < pollIntervalMillis) {
+            return;
+        }
+        lastReloadTime = now;
+
+        try {
+            int released = serviceInvocationEventRepository.releaseStaleClaims(new Date(now - claimTimeoutMillis));
+            if (released > 0) {
+                log.warn("released {} service invocation events claimed for more than {} ms", released,
+                        claimTimeoutMillis);
+            }
+
+            int capacity = buffer.remainingCapacity();
+            if (capacity <= 0) {
+                return;
+            }
+
+            List<String> eventIds;
+            if (eventPartitionManager == null) {
+                eventIds = serviceInvocationEventRepository.findAvailableIds(new Date(now),
+                        PageRequest.of(0, capacity));
+            } else {
+                Set<Integer> ownedPartitionNos = eventPartitionManager.getOwnedPartitionNos();
+                if (ownedPartitionNos.isEmpty()) {
+                    return;
+                }
+                eventIds = serviceInvocationEventRepository.findAvailableIdsInPartitions(new Date(now),
+                        ownedPartitionNos, PageRequest.of(0, capacity));
+            }
+            for (String eventId : eventIds) {
+                if (!buffer.offer(eventId)) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.error("failed to read service invocation events", e);
+        }
+    }
+
+    private String resolveHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            log.warn("cannot resolve host name, using localhost as event queue owner");
+            return "localhost";
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.webank.wecube.platform.workflow.delegate;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import com.webank.wecube.platform.workflow.entity.EventPartitionEntity;
+import com.webank.wecube.platform.workflow.repository.EventNodeRepository;
+import com.webank.wecube.platform.workflow.repository.EventPartitionRepository;
+
+/**
+ * Shares the partitions of service invocation events among the running
+ * nodes.
+ *
+ * <p>
+ * An event belongs to partition hash(process instance id) mod
+ * partition-count, and is only consumed by the node owning the lease of its
+ * partition in ACT_RU_EVENT_PARTITION. Every partition-heartbeat-millis a node
+ * records itself as alive in ACT_RU_EVENT_NODE, renews its leases for
+ * partition-lease-millis, gives up partitions above its fair share of
+ * partition-count divided by the live nodes, and takes unowned or expired
+ * partitions up to that share. The partitions of a node which stops renewing
+ * thus move to the others within one lease and one heartbeat. The events it
+ * had claimed in them stay claimed, since it may still be invoking them, and
+ * are only redelivered once their claims time out; a node only claims events
+ * of partitions whose lease it holds in the database at that moment.
+ * </p>
+ *
+ */
+@Component
+@ConditionalOnProperty(name = "wecube.core.workflow.event-queue.type", havingValue = "database", matchIfMissing = true)
+public class EventPartitionManager {
+    private static final Logger log = LoggerFactory.getLogger(EventPartitionManager.class);
+
+    @Autowired
+    private EventPartitionRepository eventPartitionRepository;
+
+    @Autowired
+    private EventNodeRepository eventNodeRepository;
+
+    @Value("${wecube.core.workflow.event-queue.partition-count:16}")
+    private int partitionCount = 16;
+
+    @Value("${wecube.core.workflow.event-queue.partition-heartbeat-millis:2000}")
+    private long partitionHeartbeatMillis = 2000;
+
+    @Value("${wecube.core.workflow.event-queue.partition-lease-millis:6000}")
+    private long partitionLeaseMillis = 6000;
+
+    @Value("${wecube.core.workflow.event-queue.owner:}")
+    private String ownerPrefix;
+
+    private String owner;
+
+    private volatile Set<Integer> ownedPartitionNos = Collections.emptySet();
+
+    private ScheduledExecutorService heartbeatExecutor;
+
+    @PostConstruct
+    public void init() {
+        // unique per JVM, so that two nodes on one host never renew each
+        // other's leases
+        owner = (StringUtils.isBlank(ownerPrefix) ? resolveHostName() : ownerPrefix) + "-"
+                + UUID.randomUUID().toString();
+        heartbeatQuietly();
+
+        heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "event-partition-heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+        heartbeatExecutor.scheduleWithFixedDelay(this::heartbeatQuietly, partitionHeartbeatMillis,
+                partitionHeartbeatMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        try {
+            if (heartbeatExecutor != null) {
+                heartbeatExecutor.shutdown();
+                heartbeatExecutor.awaitTermination(partitionHeartbeatMillis, TimeUnit.MILLISECONDS);
+            }
+
+            Date now = new Date();
+            for (Integer partitionNo : ownedPartitionNos) {
+                eventPartitionRepository.release(partitionNo, owner, now);
+            }
+            eventNodeRepository.deleteOneByOwner(owner);
+            ownedPartitionNos = Collections.emptySet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("failed to release event partitions of {}", owner, e);
+        }
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public int getPartitionCount() {
+        return partitionCount;
+    }
+
+    public int partitionOf(String instanceId) {
+        if (instanceId == null) {
+            return 0;
+        }
+        return Math.floorMod(instanceId.hashCode(), Math.max(1, partitionCount));
+    }
+
+    public boolean isOwned(int partitionNo) {
+        return ownedPartitionNos.contains(partitionNo);
+    }
+
+    public Set<Integer> getOwnedPartitionNos() {
+        return ownedPartitionNos;
+    }
+
+    /**
+     * Renews this node and its leases, and rebalances the partitions towards
+     * its fair share.
+     */
+    public void heartbeat() {
+        Date now = new Date();
+        if (eventNodeRepository.heartbeat(owner, now) == 0) {
+            createQuietly(() -> eventNodeRepository.create(owner, now));
+        }
+        eventNodeRepository.deleteDead(new Date(now.getTime() - 10 * partitionLeaseMillis));
+        ensurePartitions(now);
+
+        Date expireTime = new Date(now.getTime() + partitionLeaseMillis);
+        eventPartitionRepository.renewAll(owner, expireTime, now);
+        TreeSet<Integer> owned = new TreeSet<>(eventPartitionRepository.findPartitionNosOwnedBy(owner));
+        owned.removeIf(partitionNo -> partitionNo >= partitionCount);
+
+        long liveNodes = Math.max(1,
+                eventNodeRepository.countAlive(new Date(now.getTime() - partitionLeaseMillis)));
+        int fairShare = (int) ((partitionCount + liveNodes - 1) / liveNodes);
+
+        while (owned.size() > fairShare) {
+            Integer partitionNo = owned.last();
+            eventPartitionRepository.release(partitionNo, owner, now);
+            owned.remove(partitionNo);
+            log.info("released event partition {} of {} to rebalance", partitionNo, owner);
+        }
+
+        if (owned.size() < fairShare) {
+            for (EventPartitionEntity partition : eventPartitionRepository.findAvailable(partitionCount, now)) {
+                if (owned.size() >= fairShare) {
+                    break;
+                }
+
+                if (eventPartitionRepository.takeOver(partition.getPartitionNo(), owner, expireTime, now) != 1) {
+                    continue;
+                }
+                owned.add(partition.getPartitionNo());
+
+                String previousOwner = partition.getOwner();
+                if (previousOwner != null && !owner.equals(previousOwner)) {
+                    log.info("took over event partition {} from {}", partition.getPartitionNo(), previousOwner);
+                } else {
+                    log.info("took event partition {} for {}", partition.getPartitionNo(), owner);
+                }
+            }
+        }
+
+        ownedPartitionNos = Collections.unmodifiableSet(new HashSet<>(owned));
+    }
+
+    private void heartbeatQuietly() {
+        try {
+            heartbeat();
+        } catch (Exception e) {
+            log.error("event partition heartbeat of {} failed", owner, e);
+        }
+    }
+
+    private void ensurePartitions(Date now) {
+        List<Integer> existingPartitionNos = eventPartitionRepository.findAllPartitionNos();
+        if (existingPartitionNos.size() >= partitionCount) {
+            return;
+        }
+
+        Set<Integer> existing = new HashSet<>(existingPartitionNos);
+        for (int partitionNo = 0; partitionNo < partitionCount; partitionNo++) {
+            if (!existing.contains(partitionNo)) {
+                int newPartitionNo = partitionNo;
+                createQuietly(() -> eventPartitionRepository.create(newPartitionNo, now));
+            }
+        }
+    }
+
+    private void createQuietly(Runnable creation) {
+        try {
+            creation.run();
+        } catch (DataIntegrityViolationException e) {
+            log.debug("created by another node meanwhile");
+        }
+    }
+
+    private String resolveHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            log.warn("cannot resolve host name, using localhost as event partition owner");
+            return "localhost";
+        }
+    }
+}
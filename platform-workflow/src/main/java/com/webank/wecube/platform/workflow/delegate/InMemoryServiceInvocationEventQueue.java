@@ -0,0 +1,83 @@
+package com.webank.wecube.platform.workflow.delegate;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.webank.wecube.platform.workflow.commons.LocalIdGenerator;
+import com.webank.wecube.platform.workflow.model.ServiceInvocationEvent;
+import com.webank.wecube.platform.workflow.model.ServiceInvocationEventImpl;
+
+/**
+ * Keeps events in memory only, so they are lost when the process stops.
+ *
+ */
+@Component
+@ConditionalOnProperty(name = "wecube.core.workflow.event-queue.type", havingValue = "memory")
+public class InMemoryServiceInvocationEventQueue implements ServiceInvocationEventQueue {
+
+    private final BlockingQueue<ServiceInvocationEvent> serviceInvocationEventQueue;
+    private final DelayQueue<DeferredEvent> deferredServiceInvocationEventQueue = new DelayQueue<>();
+
+    public InMemoryServiceInvocationEventQueue(
+            @Value("${wecube.core.workflow.event-queue.buffer-size:1000}") int bufferSize) {
+        this.serviceInvocationEventQueue = new LinkedBlockingQueue<>(bufferSize);
+    }
+
+    @Override
+    public void put(ServiceInvocationEvent event) throws InterruptedException {
+        if (event.getEventId() == null && event instanceof ServiceInvocationEventImpl) {
+            ((ServiceInvocationEventImpl) event).setEventId(LocalIdGenerator.generateId());
+        }
+        serviceInvocationEventQueue.put(event);
+    }
+
+    @Override
+    public ServiceInvocationEvent poll(long timeout, TimeUnit unit) throws InterruptedException {
+        DeferredEvent deferredEvent = deferredServiceInvocationEventQueue.poll();
+        if (deferredEvent != null) {
+            return deferredEvent.event;
+        }
+        return serviceInvocationEventQueue.poll(timeout, unit);
+    }
+
+    @Override
+    public void ack(ServiceInvocationEvent event) {
+    }
+
+    @Override
+    public void defer(ServiceInvocationEvent event, long delayMillis) {
+        deferredServiceInvocationEventQueue.put(new DeferredEvent(event, delayMillis));
+    }
+
+    @Override
+    public int getBufferedCount() {
+        return serviceInvocationEventQueue.size() + deferredServiceInvocationEventQueue.size();
+    }
+
+    private static class DeferredEvent implements Delayed {
+        final ServiceInvocationEvent event;
+        final long availableNanos;
+
+        DeferredEvent(ServiceInvocationEvent event, long delayMillis) {
+            this.event = event;
+            this.availableNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(availableNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed o) {
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), o.getDelay(TimeUnit.NANOSECONDS));
+        }
+    }
+}
@@ -6,7 +6,10 @@ import java.util.List;
 
 import org.camunda.bpm.engine.delegate.DelegateExecution;
 import org.camunda.bpm.engine.delegate.JavaDelegate;
+import org.camunda.bpm.engine.impl.persistence.entity.ExecutionEntity;
+import org.camunda.bpm.engine.impl.persistence.entity.ProcessDefinitionEntity;
 import org.camunda.bpm.engine.repository.ProcessDefinition;
+import org.camunda.bpm.model.bpmn.BpmnModelInstance;
 import org.camunda.bpm.model.bpmn.instance.EventBasedGateway;
 import org.camunda.bpm.model.bpmn.instance.EventDefinition;
 import org.camunda.bpm.model.bpmn.instance.IntermediateCatchEvent;
@@ -16,12 +19,11 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import com.webank.wecube.platform.workflow.WorkflowConstants;
-import com.webank.wecube.platform.workflow.entity.ServiceNodeStatusEntity;
 import com.webank.wecube.platform.workflow.model.ServiceInvocationEvent;
 import com.webank.wecube.platform.workflow.model.ServiceInvocationEventImpl;
 import com.webank.wecube.platform.workflow.model.TraceStatus;
+import com.webank.wecube.platform.workflow.parse.SignalCatchEventIndex;
 import com.webank.wecube.platform.workflow.parse.SpringApplicationContextUtil;
-import com.webank.wecube.platform.workflow.repository.ServiceNodeStatusRepository;
 
 /**
  * 
@@ -39,10 +41,7 @@ public class PlugableApplicationTaskDispatcher implements JavaDelegate {
                     execution.getId(), execution.getCurrentActivityId(), execution.getProcessBusinessKey());
         }
 
-        String processDefinitionId = execution.getProcessDefinitionId();
-
-        ProcessDefinition procDef = execution.getProcessEngine().getRepositoryService().createProcessDefinitionQuery()
-                .processDefinitionId(processDefinitionId).singleResult();
+        ProcessDefinition procDef = getProcessDefinition(execution);
 
         if (procDef == null) {
             log.error("cannot find process definition in execution,executionId={}", execution.getId());
@@ -50,7 +49,8 @@ public class PlugableApplicationTaskDispatcher implements JavaDelegate {
         }
 
         try {
-            QueueHolder.putServiceInvocationEvent(serviceInvocationEvent(execution, procDef));
+            SpringApplicationContextUtil.getBean(ServiceInvocationEventQueue.class)
+                    .put(serviceInvocationEvent(execution, procDef));
         } catch (Throwable e) {
             log.error("plugin invocation errors", e);
             throw e;
@@ -72,17 +72,14 @@ public class PlugableApplicationTaskDispatcher implements JavaDelegate {
         
         String procInstanceBizKey = execution.getProcessBusinessKey();
         
-        ServiceNodeStatusRepository repository = SpringApplicationContextUtil.getBean(ServiceNodeStatusRepository.class);
-        
-        ServiceNodeStatusEntity entity = repository.findOneByProcInstanceBizKeyAndNodeId(procInstanceBizKey, nodeId);
-        
-        if(entity != null){
-            entity.setTryTimes(entity.getTryTimes() +  1);
-            entity.setStatus(TraceStatus.InProgress);
-            entity.setUpdatedTime(new Date());
-            entity.setUpdatedBy("system");
-            repository.save(entity);
-        }
+        Date currTime = new Date();
+        SpringApplicationContextUtil.getBean(ServiceNodeStatusWriter.class).update(procInstanceBizKey, nodeId, null,
+                entity -> {
+                    entity.setTryTimes(entity.getTryTimes() + 1);
+                    entity.setStatus(TraceStatus.InProgress);
+                    entity.setUpdatedTime(currTime);
+                    entity.setUpdatedBy("system");
+                });
         
         
     }
@@ -103,46 +100,62 @@ public class PlugableApplicationTaskDispatcher implements JavaDelegate {
         
         event.setEventType(ServiceInvocationEvent.EventType.SERVICE_INVOCATION);
         
-        ServiceTask serviceTask = execution.getBpmnModelInstance()
-                .getModelElementById(execution.getCurrentActivityId());
+        String signalCatchEventId = findSignalCatchEventId(execution, procDef);
+        if (signalCatchEventId != null) {
+            event.setExecutionId(signalCatchEventId);
+        }
+
+        return event;
+    }
+
+    private ProcessDefinition getProcessDefinition(DelegateExecution execution) {
+        if (execution instanceof ExecutionEntity) {
+            return ((ExecutionEntity) execution).getProcessDefinition();
+        }
+
+        return execution.getProcessEngine().getRepositoryService().createProcessDefinitionQuery()
+                .processDefinitionId(execution.getProcessDefinitionId()).singleResult();
+    }
+
+    private String findSignalCatchEventId(DelegateExecution execution, ProcessDefinition procDef) {
+        if (procDef instanceof ProcessDefinitionEntity) {
+            SignalCatchEventIndex signalCatchEventIndex = ((ProcessDefinitionEntity) procDef).getProperties()
+                    .get(SignalCatchEventIndex.PROPERTY_KEY);
+            if (signalCatchEventIndex != null) {
+                return signalCatchEventIndex.getSignalCatchEventId(execution.getCurrentActivityId());
+            }
+        }
+
+        return findSignalCatchEventId(execution.getBpmnModelInstance(), execution.getCurrentActivityId());
+    }
+
+    /**
+     * Walks the model for definitions parsed without a
+     * {@link SignalCatchEventIndex}.
+     */
+    static String findSignalCatchEventId(BpmnModelInstance bpmnModelInstance, String serviceTaskId) {
+        ServiceTask serviceTask = bpmnModelInstance.getModelElementById(serviceTaskId);
 
         List<EventBasedGateway> eventBaseGateways = serviceTask.getSucceedingNodes().filterByType(EventBasedGateway.class)
                 .list();
-        EventBasedGateway eventBaseGateway = null;
-        if(!eventBaseGateways.isEmpty()){
-            eventBaseGateway = eventBaseGateways.get(0);
+        if (eventBaseGateways.isEmpty()) {
+            return null;
         }
-        IntermediateCatchEvent intermediateCatchEvent = null;
-        if (eventBaseGateway != null) {
 
-            List<IntermediateCatchEvent> intermediateCatchEvents = eventBaseGateway.getSucceedingNodes()
-                    .filterByType(IntermediateCatchEvent.class).list();
+        List<IntermediateCatchEvent> intermediateCatchEvents = eventBaseGateways.get(0).getSucceedingNodes()
+                .filterByType(IntermediateCatchEvent.class).list();
 
-            for (IntermediateCatchEvent ice : intermediateCatchEvents) {
-                log.info("IntermediateCatchEvent:{} {}", ice.getId(), ice.getName());
+        for (IntermediateCatchEvent ice : intermediateCatchEvents) {
+            Collection<EventDefinition> eventDefinitions = ice.getEventDefinitions();
 
-                Collection<EventDefinition> eventDefinitions = ice.getEventDefinitions();
-
-                for (EventDefinition ed : eventDefinitions) {
-                    log.info("EventDefinition: {} {}", ed.getId(), ed.getElementType().getTypeName());
-                    if ("signalEventDefinition".equals(ed.getElementType().getTypeName())) {
-                        intermediateCatchEvent = ice;
-                        break;
-                    }
-                }
-                
-                if(intermediateCatchEvent != null){
-                    break;
+            for (EventDefinition ed : eventDefinitions) {
+                if ("signalEventDefinition".equals(ed.getElementType().getTypeName())) {
+                    return ice.getId();
                 }
             }
-
-        }
-        
-        if (intermediateCatchEvent != null) {
-            event.setExecutionId(intermediateCatchEvent.getId());
         }
 
-        return event;
+        return null;
     }
 
 }
@@ -1,9 +1,14 @@
 package com.webank.wecube.platform.workflow.delegate;
 
-import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
@@ -11,10 +16,15 @@ import javax.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import com.webank.wecube.platform.workflow.model.ServiceInvocationEvent;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 /**
  * 
  * @author gavin
@@ -24,20 +34,54 @@ import com.webank.wecube.platform.workflow.model.ServiceInvocationEvent;
 public class ServiceInvocationEventProcessor implements Runnable {
     private static final Logger log = LoggerFactory.getLogger(ServiceInvocationEventProcessor.class);
 
+    public static final String QUEUE_DEPTH_METRIC_NAME = "wecube.workflow.event.queue.depth";
+    public static final String WORKERS_METRIC_NAME = "wecube.workflow.event.workers";
+    public static final String PROCESSING_METRIC_NAME = "wecube.workflow.event.processing";
+
     private ExecutorService masterExecutor = Executors.newFixedThreadPool(1);
 
-    private ExecutorService slaveExecutor = Executors.newFixedThreadPool(3);
+    private ThreadPoolExecutor slaveExecutor;
+
+    @Value("${wecube.core.workflow.event-processor.min-workers:3}")
+    private int minWorkers = 3;
+
+    @Value("${wecube.core.workflow.event-processor.max-workers:20}")
+    private int maxWorkers = 20;
+
+    @Value("${wecube.core.workflow.event-processor.worker-keep-alive-millis:60000}")
+    private long workerKeepAliveMillis = 60000;
+
+    @Value("${wecube.core.workflow.event-processor.queue-capacity:100}")
+    private int queueCapacity = 100;
+
+    @Value("${wecube.core.workflow.event-processor.max-retry-times:3}")
+    private int maxRetryTimes = 3;
 
-    private int maxRetryTimes = 1;
+    @Value("${wecube.core.workflow.event-processor.retry-base-delay-millis:1000}")
+    private long retryBaseDelayMillis = 1000;
+
+    @Value("${wecube.core.workflow.event-processor.retry-max-delay-millis:60000}")
+    private long retryMaxDelayMillis = 60000;
 
     private boolean needStop;
 
     @Autowired
     private ServiceInvocationEventResolver serviceInvocationEventResolver;
 
+    @Autowired
+    private ServiceInvocationEventQueue serviceInvocationEventQueue;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
     @PostConstruct
     public void afterPropertiesSet() {
-        log.info("{} is ready", ServiceInvocationEventProcessor.class.getSimpleName());
+        slaveExecutor = newElasticExecutor(minWorkers, maxWorkers, queueCapacity, workerKeepAliveMillis,
+                "event-worker-");
+        registerGauges();
+
+        log.info("{} is ready with {} to {} workers", ServiceInvocationEventProcessor.class.getSimpleName(),
+                minWorkers, maxWorkers);
         start();
     }
 
@@ -69,77 +113,185 @@ public class ServiceInvocationEventProcessor implements Runnable {
     public void run() {
         log.info("{} start to work", ServiceInvocationEventProcessor.class.getSimpleName());
 
-        long startTime = System.currentTimeMillis();
         while (!isNeedStop()) {
             try {
-                ServiceInvocationEvent event = QueueHolder.pollServiceInvocationEvent(1000, TimeUnit.MILLISECONDS);
+                ServiceInvocationEvent event = serviceInvocationEventQueue.poll(1000, TimeUnit.MILLISECONDS);
 
                 if (event != null) {
                     processServiceInvocationEvent(event);
                 }
 
-                if ((System.currentTimeMillis() - startTime) > (1000 * 6)) {
-                    startTime = System.currentTimeMillis();
-                    ServiceInvocationEvent deferredEvent = QueueHolder.pollDeferredServiceInvocationEvent();
-                    if (deferredEvent != null) {
-                        log.info("process deferred event {}", deferredEvent);
-                        processServiceInvocationEvent(deferredEvent);
-                    }
-                }
-
             } catch (InterruptedException e) {
                 log.error("errors while running processor", e);
                 Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("errors while polling events", e);
             }
         }
     }
 
-    private void processServiceInvocationEvent(ServiceInvocationEvent event) throws InterruptedException {
+    /**
+     * Workers are added up to maxWorkers while none is idle, and only then
+     * are events queued; workers above minWorkers stop after being idle for
+     * workerKeepAliveMillis. With all workers busy and the queue full, the
+     * submitting thread runs the event itself, which stops the master from
+     * taking more events meanwhile.
+     */
+    static ThreadPoolExecutor newElasticExecutor(int minWorkers, int maxWorkers, int queueCapacity,
+            long keepAliveMillis, String threadNamePrefix) {
+        int max = Math.max(1, maxWorkers);
+        int min = Math.max(0, Math.min(minWorkers, max));
+        ElasticWorkerQueue queue = new ElasticWorkerQueue(Math.max(1, queueCapacity));
+        AtomicInteger threadNo = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(min, max, keepAliveMillis, TimeUnit.MILLISECONDS, queue,
+                r -> {
+                    Thread t = new Thread(r, threadNamePrefix + threadNo.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ElasticWorkerRejectionHandler());
+        queue.executor = executor;
+        return executor;
+    }
+
+    /**
+     * Exponential backoff with equal jitter: a random delay between half and
+     * all of min(retryMaxDelayMillis, retryBaseDelayMillis * 2^(retryTimes - 1)).
+     */
+    long calculateRetryDelayMillis(int retryTimes) {
+        int exponent = Math.max(0, Math.min(30, retryTimes - 1));
+        long delay = Math.min(retryMaxDelayMillis, retryBaseDelayMillis << exponent);
+        if (delay <= 1) {
+            return Math.max(0, delay);
+        }
+        long half = delay / 2;
+        return half + ThreadLocalRandom.current().nextLong(delay - half + 1);
+    }
+
+    private void processServiceInvocationEvent(ServiceInvocationEvent event) {
         try {
-            slaveExecutor
-                    .submit(new ServiceInvocationEventWorker(event, this.serviceInvocationEventResolver));
+            slaveExecutor.execute(new ServiceInvocationEventWorker(event, System.nanoTime()));
         } catch (Exception e) {
             log.error("errors while processing event", e);
-            event.increaseRetryTimes();
+            retryOrAbandon(event);
+        }
+    }
 
-            if (event.getRetryTimes() < maxRetryTimes) {
-                log.info("retry and put back to deffered queue,{}", event);
-                QueueHolder.putDeferredServiceInvocationEvent(event);
-            } else {
-                log.error("event was abandoned due to resolvation errors, details:{}", event);
-            }
+    private void retryOrAbandon(ServiceInvocationEvent event) {
+        event.increaseRetryTimes();
+
+        if (event.getRetryTimes() < maxRetryTimes) {
+            long delayMillis = calculateRetryDelayMillis(event.getRetryTimes());
+            log.info("retry in {} ms and put back to deffered queue,{}", delayMillis, event);
+            serviceInvocationEventQueue.defer(event, delayMillis);
+        } else {
+            log.error("event was abandoned due to resolvation errors, details:{}", event);
+            serviceInvocationEventQueue.ack(event);
         }
     }
 
-    private static class ServiceInvocationEventWorker implements Callable<Integer> {
+    private void registerGauges() {
+        if (meterRegistry == null) {
+            return;
+        }
 
-        public static final int EXECUTION_SUCC = 1;
+        Gauge.builder(QUEUE_DEPTH_METRIC_NAME, serviceInvocationEventQueue,
+                ServiceInvocationEventQueue::getBufferedCount).tag("queue", "pending").register(meterRegistry);
+        Gauge.builder(QUEUE_DEPTH_METRIC_NAME, slaveExecutor, e -> e.getQueue().size()).tag("queue", "workers")
+                .register(meterRegistry);
+        Gauge.builder(WORKERS_METRIC_NAME, slaveExecutor, ThreadPoolExecutor::getActiveCount).tag("state", "active")
+                .register(meterRegistry);
+        Gauge.builder(WORKERS_METRIC_NAME, slaveExecutor, ThreadPoolExecutor::getPoolSize).tag("state", "started")
+                .register(meterRegistry);
+    }
 
-        private ServiceInvocationEvent event;
+    private void recordProcessing(ServiceInvocationEvent event, String outcome, long waitNanos, long processNanos) {
+        if (meterRegistry == null) {
+            return;
+        }
 
-        private ServiceInvocationEventResolver resolver;
+        String eventType = event.getEventType() == null ? "unknown" : event.getEventType().name();
+        Timer.builder(PROCESSING_METRIC_NAME).tag("stage", "wait").tag("type", eventType).tag("outcome", outcome)
+                .register(meterRegistry).record(waitNanos, TimeUnit.NANOSECONDS);
+        Timer.builder(PROCESSING_METRIC_NAME).tag("stage", "resolve").tag("type", eventType).tag("outcome", outcome)
+                .register(meterRegistry).record(processNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private class ServiceInvocationEventWorker implements Runnable {
+
+        private final ServiceInvocationEvent event;
+
+        private final long submittedNanos;
 
-        public ServiceInvocationEventWorker(ServiceInvocationEvent event, ServiceInvocationEventResolver resolver) {
-            super();
+        public ServiceInvocationEventWorker(ServiceInvocationEvent event, long submittedNanos) {
             this.event = event;
-            this.resolver = resolver;
+            this.submittedNanos = submittedNanos;
         }
 
         @Override
-        public Integer call() throws Exception {
+        public void run() {
 
             log.debug("{} processing {}", Thread.currentThread().getName(), event);
 
+            long startNanos = System.nanoTime();
+            boolean resolved = false;
             try {
-                resolver.resolveServiceInvocationEvent(event);
+                serviceInvocationEventResolver.resolveServiceInvocationEvent(event);
+                resolved = true;
             } catch (Exception e) {
                 log.error("resolvation errors", e);
-//                throw e;
             }
+            recordProcessing(event, resolved ? "success" : "error", startNanos - submittedNanos,
+                    System.nanoTime() - startNanos);
+
+            try {
+                if (resolved) {
+                    serviceInvocationEventQueue.ack(event);
+                } else {
+                    retryOrAbandon(event);
+                }
+            } catch (Exception e) {
+                log.error("failed to acknowledge event {}", event.getEventId(), e);
+            }
+        }
+
+    }
+
+    static class ElasticWorkerQueue extends LinkedBlockingQueue<Runnable> {
+        private static final long serialVersionUID = 1L;
+
+        private transient ThreadPoolExecutor executor;
+
+        ElasticWorkerQueue(int capacity) {
+            super(capacity);
+        }
+
+        @Override
+        public boolean offer(Runnable r) {
+            // refusing makes the executor start another worker
+            if (executor != null && executor.getPoolSize() < executor.getMaximumPoolSize()
+                    && executor.getActiveCount() + size() >= executor.getPoolSize()) {
+                return false;
+            }
+            return super.offer(r);
+        }
 
-            return EXECUTION_SUCC;
+        boolean force(Runnable r) {
+            return super.offer(r);
         }
+    }
+
+    private static class ElasticWorkerRejectionHandler implements RejectedExecutionHandler {
+        @Override
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                throw new RejectedExecutionException("event workers are shut down");
+            }
 
+            if (!((ElasticWorkerQueue) executor.getQueue()).force(r)) {
+                r.run();
+            }
+        }
     }
 
 }
@@ -0,0 +1,43 @@
+package com.webank.wecube.platform.workflow.delegate;
+
+import java.util.concurrent.TimeUnit;
+
+import com.webank.wecube.platform.workflow.model.ServiceInvocationEvent;
+
+/**
+ * Queue of service invocation events between the process engine and
+ * {@link ServiceInvocationEventProcessor}.
+ * 
+ * <p>
+ * An event taken by {@link #poll(long, TimeUnit)} stays owned by the consumer
+ * until it is acknowledged or deferred; implementations may hand it out again
+ * if the consumer never does either.
+ * </p>
+ *
+ */
+public interface ServiceInvocationEventQueue {
+
+    void put(ServiceInvocationEvent event) throws InterruptedException;
+
+    /**
+     * Returns the next available event, or null if none becomes available
+     * within the timeout.
+     */
+    ServiceInvocationEvent poll(long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * The event has been handled and will not be delivered again.
+     */
+    void ack(ServiceInvocationEvent event);
+
+    /**
+     * The event is delivered again after the delay, with its current retry
+     * times.
+     */
+    void defer(ServiceInvocationEvent event, long delayMillis);
+
+    /**
+     * Number of events waiting in memory for a consumer.
+     */
+    int getBufferedCount();
+}
@@ -0,0 +1,292 @@
+package com.webank.wecube.platform.workflow.delegate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.webank.wecube.platform.workflow.entity.ServiceNodeStatusEntity;
+import com.webank.wecube.platform.workflow.model.TraceStatus;
+import com.webank.wecube.platform.workflow.repository.ServiceNodeStatusRepository;
+
+/**
+ * Writes the status of service nodes on behalf of the listeners and delegates
+ * called by the process engine.
+ *
+ * <p>
+ * By default every change is written at once, in the transaction of the
+ * engine command. With async-write-enabled a change is only recorded there;
+ * it is queued after the command has committed and dropped if it rolls back,
+ * and a single writer applies the queued changes in order, batch-size at a
+ * time in one transaction, every flush-interval-millis. Engine transactions
+ * then neither wait for these writes nor lock the status rows, at the cost of
+ * readers seeing a status up to one flush interval late, and of changes still
+ * queued being lost if the process dies.
+ * </p>
+ *
+ */
+@Component
+public class ServiceNodeStatusWriter {
+    private static final Logger log = LoggerFactory.getLogger(ServiceNodeStatusWriter.class);
+
+    @Autowired
+    private ServiceNodeStatusRepository serviceNodeStatusRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${wecube.core.workflow.node-status.async-write-enabled:false}")
+    private boolean asyncWriteEnabled = false;
+
+    @Value("${wecube.core.workflow.node-status.batch-size:200}")
+    private int batchSize = 200;
+
+    @Value("${wecube.core.workflow.node-status.queue-capacity:10000}")
+    private int queueCapacity = 10000;
+
+    @Value("${wecube.core.workflow.node-status.flush-interval-millis:100}")
+    private long flushIntervalMillis = 100;
+
+    private BlockingQueue<NodeStatusChange> pendingChanges;
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private ScheduledExecutorService flushExecutor;
+
+    @PostConstruct
+    public void init() {
+        pendingChanges = new LinkedBlockingQueue<>(Math.max(1, queueCapacity));
+        if (!asyncWriteEnabled) {
+            return;
+        }
+
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "node-status-writer");
+            t.setDaemon(true);
+            return t;
+        });
+        flushExecutor.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+        log.info("service node statuses are written asynchronously every {} ms", flushIntervalMillis);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (flushExecutor != null) {
+            flushExecutor.shutdown();
+        }
+        flushQuietly();
+    }
+
+    public void create(ServiceNodeStatusEntity entity) {
+        if (!asyncWriteEnabled) {
+            serviceNodeStatusRepository.save(entity);
+            return;
+        }
+
+        enqueueAfterCommit(new NodeStatusChange(entity.getProcInstanceBizKey(), entity.getNodeId(), entity, null, null));
+    }
+
+    /**
+     * Applies the updater to the status of a node, the one in expectedStatus
+     * if given.
+     *
+     * @return false if the status does not exist; changes written
+     *         asynchronously are only checked when written, and true is
+     *         returned for them
+     */
+    public boolean update(String procInstanceBizKey, String nodeId, TraceStatus expectedStatus,
+            Consumer<ServiceNodeStatusEntity> updater) {
+        if (!asyncWriteEnabled) {
+            ServiceNodeStatusEntity entity = expectedStatus == null
+                    ? serviceNodeStatusRepository.findOneByProcInstanceBizKeyAndNodeId(procInstanceBizKey, nodeId)
+                    : serviceNodeStatusRepository.findOneByProcInstanceBizKeyAndNodeIdAndStatus(procInstanceBizKey,
+                            nodeId, expectedStatus);
+            if (entity == null) {
+                return false;
+            }
+
+            updater.accept(entity);
+            serviceNodeStatusRepository.save(entity);
+            return true;
+        }
+
+        enqueueAfterCommit(new NodeStatusChange(procInstanceBizKey, nodeId, null, expectedStatus, updater));
+        return true;
+    }
+
+    /**
+     * Writes all queued changes.
+     *
+     * @return the number of changes written
+     */
+    public int flush() {
+        flushLock.lock();
+        try {
+            int written = 0;
+            List<NodeStatusChange> changes = new ArrayList<>();
+            while (pendingChanges.drainTo(changes, Math.max(1, batchSize)) > 0) {
+                write(changes);
+                written += changes.size();
+                changes.clear();
+            }
+            return written;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public int getPendingCount() {
+        return pendingChanges.size();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("failed to write service node statuses", e);
+        }
+    }
+
+    private void enqueueAfterCommit(NodeStatusChange change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    enqueue(change);
+                }
+            });
+        } else {
+            enqueue(change);
+        }
+    }
+
+    private void enqueue(NodeStatusChange change) {
+        try {
+            // waits for the writer when full rather than reordering changes
+            pendingChanges.put(change);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("lost status change of node {} of process instance {}", change.nodeId,
+                    change.procInstanceBizKey);
+        }
+    }
+
+    private void write(List<NodeStatusChange> changes) {
+        try {
+            new TransactionTemplate(transactionManager).execute(status -> {
+                applyChanges(changes);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.error("failed to write {} service node statuses at once, writing them one by one", changes.size(), e);
+            for (NodeStatusChange change : changes) {
+                try {
+                    new TransactionTemplate(transactionManager).execute(status -> {
+                        applyChanges(Collections.singletonList(change));
+                        return null;
+                    });
+                } catch (RuntimeException ex) {
+                    log.error("lost status change of node {} of process instance {}", change.nodeId,
+                            change.procInstanceBizKey, ex);
+                }
+            }
+        }
+    }
+
+    private void applyChanges(List<NodeStatusChange> changes) {
+        Set<String> procInstanceBizKeys = new HashSet<>();
+        for (NodeStatusChange change : changes) {
+            procInstanceBizKeys.add(change.procInstanceBizKey);
+        }
+
+        Map<String, List<ServiceNodeStatusEntity>> entitiesByNode = new HashMap<>();
+        for (ServiceNodeStatusEntity entity : serviceNodeStatusRepository
+                .findByProcInstanceBizKeyIn(procInstanceBizKeys)) {
+            entitiesByNode.computeIfAbsent(nodeKey(entity.getProcInstanceBizKey(), entity.getNodeId()),
+                    k -> new ArrayList<>()).add(entity);
+        }
+
+        Map<String, ServiceNodeStatusEntity> changedEntities = new LinkedHashMap<>();
+        for (NodeStatusChange change : changes) {
+            String nodeKey = nodeKey(change.procInstanceBizKey, change.nodeId);
+            if (change.createdEntity != null) {
+                entitiesByNode.computeIfAbsent(nodeKey, k -> new ArrayList<>()).add(change.createdEntity);
+                changedEntities.put(change.createdEntity.getId(), change.createdEntity);
+                continue;
+            }
+
+            ServiceNodeStatusEntity entity = findEntity(entitiesByNode.get(nodeKey), change.expectedStatus);
+            if (entity == null) {
+                log.warn("{} does not exist for procInstanceBizKey={},nodeId={},status={}",
+                        ServiceNodeStatusEntity.class.getSimpleName(), change.procInstanceBizKey, change.nodeId,
+                        change.expectedStatus);
+                continue;
+            }
+
+            change.updater.accept(entity);
+            changedEntities.put(entity.getId(), entity);
+        }
+
+        serviceNodeStatusRepository.saveAll(changedEntities.values());
+    }
+
+    private ServiceNodeStatusEntity findEntity(List<ServiceNodeStatusEntity> entities, TraceStatus expectedStatus) {
+        if (entities == null) {
+            return null;
+        }
+
+        ServiceNodeStatusEntity found = null;
+        for (ServiceNodeStatusEntity entity : entities) {
+            if (expectedStatus == null || expectedStatus == entity.getStatus()) {
+                found = entity;
+            }
+        }
+        return found;
+    }
+
+    private String nodeKey(String procInstanceBizKey, String nodeId) {
+        return procInstanceBizKey + ":" + nodeId;
+    }
+
+    private static class NodeStatusChange {
+        final String procInstanceBizKey;
+        final String nodeId;
+        final ServiceNodeStatusEntity createdEntity;
+        final TraceStatus expectedStatus;
+        final Consumer<ServiceNodeStatusEntity> updater;
+
+        NodeStatusChange(String procInstanceBizKey, String nodeId, ServiceNodeStatusEntity createdEntity,
+                TraceStatus expectedStatus, Consumer<ServiceNodeStatusEntity> updater) {
+            this.procInstanceBizKey = procInstanceBizKey;
+            this.nodeId = nodeId;
+            this.createdEntity = createdEntity;
+            this.expectedStatus = expectedStatus;
+            this.updater = updater;
+        }
+    }
+}
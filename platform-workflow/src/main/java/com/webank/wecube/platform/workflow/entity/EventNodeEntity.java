@@ -0,0 +1,37 @@
+package com.webank.wecube.platform.workflow.entity;
+
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+@Entity
+@Table(name = "ACT_RU_EVENT_NODE")
+public class EventNodeEntity {
+
+    @Id
+    @Column(name = "OWNER")
+    private String owner;
+
+    @Column(name = "HEARTBEAT_TIME")
+    private Date heartbeatTime;
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public Date getHeartbeatTime() {
+        return heartbeatTime;
+    }
+
+    public void setHeartbeatTime(Date heartbeatTime) {
+        this.heartbeatTime = heartbeatTime;
+    }
+
+}
@@ -0,0 +1,59 @@
+package com.webank.wecube.platform.workflow.entity;
+
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+@Entity
+@Table(name = "ACT_RU_EVENT_PARTITION")
+public class EventPartitionEntity {
+
+    @Id
+    @Column(name = "PARTITION_NO")
+    private Integer partitionNo;
+
+    @Column(name = "OWNER")
+    private String owner;
+
+    @Column(name = "EXPIRE_TIME")
+    private Date expireTime;
+
+    @Column(name = "UPDATED_TIME")
+    private Date updatedTime;
+
+    public Integer getPartitionNo() {
+        return partitionNo;
+    }
+
+    public void setPartitionNo(Integer partitionNo) {
+        this.partitionNo = partitionNo;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public Date getExpireTime() {
+        return expireTime;
+    }
+
+    public void setExpireTime(Date expireTime) {
+        this.expireTime = expireTime;
+    }
+
+    public Date getUpdatedTime() {
+        return updatedTime;
+    }
+
+    public void setUpdatedTime(Date updatedTime) {
+        this.updatedTime = updatedTime;
+    }
+
+}
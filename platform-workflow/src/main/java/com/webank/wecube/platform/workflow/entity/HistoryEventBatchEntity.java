@@ -0,0 +1,67 @@
+package com.webank.wecube.platform.workflow.entity;
+
+import java.util.Date;
+
+import javax.persistence.Basic;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+
+@Entity
+@Table(name = "ACT_RU_HISTORY_EVENT_BATCH")
+public class HistoryEventBatchEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "ID")
+    private Long id;
+
+    @Column(name = "EVENT_COUNT")
+    private int eventCount;
+
+    @Lob
+    @Basic(fetch = FetchType.LAZY)
+    @Column(name = "EVENT_DATA")
+    private byte[] eventData;
+
+    @Column(name = "CREATED_TIME")
+    private Date createdTime;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    public void setEventCount(int eventCount) {
+        this.eventCount = eventCount;
+    }
+
+    public byte[] getEventData() {
+        return eventData;
+    }
+
+    public void setEventData(byte[] eventData) {
+        this.eventData = eventData;
+    }
+
+    public Date getCreatedTime() {
+        return createdTime;
+    }
+
+    public void setCreatedTime(Date createdTime) {
+        this.createdTime = createdTime;
+    }
+
+}
@@ -0,0 +1,70 @@
+package com.webank.wecube.platform.workflow.entity;
+
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+@Entity
+@Table(name = "ACT_RU_ID_NODE_LEASE")
+public class IdNodeLeaseEntity {
+
+    @Id
+    @Column(name = "NODE_ID")
+    private Integer nodeId;
+
+    @Column(name = "OWNER")
+    private String owner;
+
+    @Column(name = "EXPIRE_TIME")
+    private Date expireTime;
+
+    @Column(name = "LAST_TIMESTAMP")
+    private Long lastTimestamp;
+
+    @Column(name = "UPDATED_TIME")
+    private Date updatedTime;
+
+    public Integer getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(Integer nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public Date getExpireTime() {
+        return expireTime;
+    }
+
+    public void setExpireTime(Date expireTime) {
+        this.expireTime = expireTime;
+    }
+
+    public Long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    public void setLastTimestamp(Long lastTimestamp) {
+        this.lastTimestamp = lastTimestamp;
+    }
+
+    public Date getUpdatedTime() {
+        return updatedTime;
+    }
+
+    public void setUpdatedTime(Date updatedTime) {
+        this.updatedTime = updatedTime;
+    }
+
+}
@@ -0,0 +1,319 @@
+package com.webank.wecube.platform.workflow.entity;
+
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import com.webank.wecube.platform.workflow.model.ServiceInvocationEvent;
+import com.webank.wecube.platform.workflow.model.ServiceInvocationEventImpl;
+
+@Entity
+@Table(name = "ACT_RU_SRV_INVOKE_EVENT")
+public class ServiceInvocationEventEntity {
+    public static final String STATUS_NEW = "NEW";
+    public static final String STATUS_CLAIMED = "CLAIMED";
+
+    @Id
+    @Column(name = "ID")
+    private String id;
+
+    @Column(name = "EVENT_TYPE")
+    @Enumerated(EnumType.STRING)
+    private ServiceInvocationEvent.EventType eventType;
+
+    @Column(name = "STATUS")
+    private String status;
+
+    @Column(name = "REQ_ID")
+    private String requestId;
+
+    @Column(name = "PROC_INST_ID")
+    private String instanceId;
+
+    @Column(name = "PROC_INST_KEY")
+    private String businessKey;
+
+    @Column(name = "PROC_DEF_ID")
+    private String definitionId;
+
+    @Column(name = "PROC_DEF_KEY")
+    private String definitionKey;
+
+    @Column(name = "PROC_DEF_VER")
+    private int definitionVersion;
+
+    @Column(name = "EXEC_ID")
+    private String executionId;
+
+    @Column(name = "EVENT_SRC_ID")
+    private String eventSourceId;
+
+    @Column(name = "EVENT_SRC_NAME")
+    private String eventSourceName;
+
+    @Column(name = "SRV_CODE")
+    private String serviceCode;
+
+    @Column(name = "CALLBACK_URL")
+    private String callbackUrl;
+
+    @Column(name = "DIRECTION")
+    private int direction;
+
+    @Column(name = "RESULT")
+    private int result;
+
+    @Column(name = "MSG")
+    private String msg;
+
+    @Column(name = "RETRY_TIMES")
+    private int retryTimes;
+
+    @Column(name = "PARTITION_NO")
+    private Integer partitionNo;
+
+    @Column(name = "OWNER")
+    private String owner;
+
+    @Column(name = "CLAIMED_TIME")
+    private Date claimedTime;
+
+    @Column(name = "AVAILABLE_TIME")
+    private Date availableTime;
+
+    @Column(name = "CREATED_TIME")
+    private Date createdTime;
+
+    public static ServiceInvocationEventEntity from(ServiceInvocationEvent event) {
+        ServiceInvocationEventEntity entity = new ServiceInvocationEventEntity();
+        entity.setId(event.getEventId());
+        entity.setEventType(event.getEventType());
+        entity.setRequestId(event.getRequestId());
+        entity.setInstanceId(event.getInstanceId());
+        entity.setBusinessKey(event.getBusinessKey());
+        entity.setDefinitionId(event.getDefinitionId());
+        entity.setDefinitionKey(event.getDefinitionKey());
+        entity.setDefinitionVersion(event.getDefinitionVersion());
+        entity.setExecutionId(event.getExecutionId());
+        entity.setEventSourceId(event.getEventSourceId());
+        entity.setEventSourceName(event.getEventSourceName());
+        entity.setServiceCode(event.getServiceCode());
+        entity.setCallbackUrl(event.getCallbackUrl());
+        entity.setDirection(event.getDirection());
+        entity.setResult(event.getResult());
+        entity.setMsg(event.getMsg());
+        entity.setRetryTimes(event.getRetryTimes());
+        return entity;
+    }
+
+    public ServiceInvocationEvent toServiceInvocationEvent() {
+        ServiceInvocationEventImpl event = new ServiceInvocationEventImpl();
+        event.setEventId(id);
+        event.setEventType(eventType);
+        event.setRequestId(requestId);
+        event.setInstanceId(instanceId);
+        event.setBusinessKey(businessKey);
+        event.setDefinitionId(definitionId);
+        event.setDefinitionKey(definitionKey);
+        event.setDefinitionVersion(definitionVersion);
+        event.setExecutionId(executionId);
+        event.setEventSourceId(eventSourceId);
+        event.setEventSourceName(eventSourceName);
+        event.setServiceCode(serviceCode);
+        event.setCallbackUrl(callbackUrl);
+        event.setDirection(direction);
+        event.setResult(result);
+        event.setMsg(msg);
+        event.setRetryTimes(retryTimes);
+        return event;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public ServiceInvocationEvent.EventType getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(ServiceInvocationEvent.EventType eventType) {
+        this.eventType = eventType;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public void setRequestId(String requestId) {
+        this.requestId = requestId;
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public void setInstanceId(String instanceId) {
+        this.instanceId = instanceId;
+    }
+
+    public String getBusinessKey() {
+        return businessKey;
+    }
+
+    public void setBusinessKey(String businessKey) {
+        this.businessKey = businessKey;
+    }
+
+    public String getDefinitionId() {
+        return definitionId;
+    }
+
+    public void setDefinitionId(String definitionId) {
+        this.definitionId = definitionId;
+    }
+
+    public String getDefinitionKey() {
+        return definitionKey;
+    }
+
+    public void setDefinitionKey(String definitionKey) {
+        this.definitionKey = definitionKey;
+    }
+
+    public int getDefinitionVersion() {
+        return definitionVersion;
+    }
+
+    public void setDefinitionVersion(int definitionVersion) {
+        this.definitionVersion = definitionVersion;
+    }
+
+    public String getExecutionId() {
+        return executionId;
+    }
+
+    public void setExecutionId(String executionId) {
+        this.executionId = executionId;
+    }
+
+    public String getEventSourceId() {
+        return eventSourceId;
+    }
+
+    public void setEventSourceId(String eventSourceId) {
+        this.eventSourceId = eventSourceId;
+    }
+
+    public String getEventSourceName() {
+        return eventSourceName;
+    }
+
+    public void setEventSourceName(String eventSourceName) {
+        this.eventSourceName = eventSourceName;
+    }
+
+    public String getServiceCode() {
+        return serviceCode;
+    }
+
+    public void setServiceCode(String serviceCode) {
+        this.serviceCode = serviceCode;
+    }
+
+    public String getCallbackUrl() {
+        return callbackUrl;
+    }
+
+    public void setCallbackUrl(String callbackUrl) {
+        this.callbackUrl = callbackUrl;
+    }
+
+    public int getDirection() {
+        return direction;
+    }
+
+    public void setDirection(int direction) {
+        this.direction = direction;
+    }
+
+    public int getResult() {
+        return result;
+    }
+
+    public void setResult(int result) {
+        this.result = result;
+    }
+
+    public String getMsg() {
+        return msg;
+    }
+
+    public void setMsg(String msg) {
+        this.msg = msg;
+    }
+
+    public int getRetryTimes() {
+        return retryTimes;
+    }
+
+    public void setRetryTimes(int retryTimes) {
+        this.retryTimes = retryTimes;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public Date getClaimedTime() {
+        return claimedTime;
+    }
+
+    public void setClaimedTime(Date claimedTime) {
+        this.claimedTime = claimedTime;
+    }
+
+    public Date getAvailableTime() {
+        return availableTime;
+    }
+
+    public void setAvailableTime(Date availableTime) {
+        this.availableTime = availableTime;
+    }
+
+    public Integer getPartitionNo() {
+        return partitionNo;
+    }
+
+    public void setPartitionNo(Integer partitionNo) {
+        this.partitionNo = partitionNo;
+    }
+
+    public Date getCreatedTime() {
+        return createdTime;
+    }
+
+    public void setCreatedTime(Date createdTime) {
+        this.createdTime = createdTime;
+    }
+}
@@ -0,0 +1,99 @@
+package com.webank.wecube.platform.workflow.history;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+import org.camunda.bpm.engine.impl.history.event.HistoricActivityInstanceEventEntity;
+import org.camunda.bpm.engine.impl.history.event.HistoricProcessInstanceEventEntity;
+import org.camunda.bpm.engine.impl.history.event.HistoricTaskInstanceEventEntity;
+import org.camunda.bpm.engine.impl.history.event.HistoricVariableUpdateEventEntity;
+import org.camunda.bpm.engine.impl.history.event.HistoryEvent;
+
+/**
+ * History levels chosen per process definition key, on top of the history
+ * level of the engine.
+ *
+ * <p>
+ * The levels follow those of the engine: activity keeps process, activity
+ * and task instances, audit adds variable instances, and full keeps every
+ * event. A level can only reduce what the engine produces; the update details
+ * of variables kept with audit are still written when the engine runs with
+ * full.
+ * </p>
+ *
+ */
+public class DefinitionHistoryLevels {
+
+    public enum Level {
+        NONE, ACTIVITY, AUDIT, FULL
+    }
+
+    private final Level defaultLevel;
+
+    private final Map<String, Level> levelsByDefinitionKey;
+
+    /**
+     * @param definitionLevels
+     *            comma separated pairs of process definition key and level,
+     *            like "procA:activity,procB:none"
+     */
+    public DefinitionHistoryLevels(String defaultLevel, String definitionLevels) {
+        this.defaultLevel = parseLevel(StringUtils.defaultIfBlank(defaultLevel, Level.FULL.name()));
+
+        Map<String, Level> levels = new HashMap<>();
+        if (StringUtils.isNotBlank(definitionLevels)) {
+            for (String pair : definitionLevels.split(",")) {
+                if (StringUtils.isBlank(pair)) {
+                    continue;
+                }
+
+                int separator = pair.lastIndexOf(':');
+                if (separator <= 0) {
+                    throw new IllegalArgumentException("Invalid history level of process definition: " + pair);
+                }
+                levels.put(pair.substring(0, separator).trim(), parseLevel(pair.substring(separator + 1)));
+            }
+        }
+        this.levelsByDefinitionKey = Collections.unmodifiableMap(levels);
+    }
+
+    public Level getLevel(String procDefKey) {
+        if (procDefKey == null) {
+            return defaultLevel;
+        }
+        Level level = levelsByDefinitionKey.get(procDefKey);
+        return level == null ? defaultLevel : level;
+    }
+
+    public boolean isAllFull() {
+        return defaultLevel == Level.FULL && !levelsByDefinitionKey.containsValue(Level.NONE)
+                && !levelsByDefinitionKey.containsValue(Level.ACTIVITY)
+                && !levelsByDefinitionKey.containsValue(Level.AUDIT);
+    }
+
+    public boolean isProduced(HistoryEvent event) {
+        return getLevel(event.getProcessDefinitionKey()).compareTo(requiredLevel(event)) >= 0;
+    }
+
+    private Level requiredLevel(HistoryEvent event) {
+        if (event instanceof HistoricProcessInstanceEventEntity || event instanceof HistoricActivityInstanceEventEntity
+                || event instanceof HistoricTaskInstanceEventEntity) {
+            return Level.ACTIVITY;
+        }
+        if (event instanceof HistoricVariableUpdateEventEntity) {
+            return Level.AUDIT;
+        }
+        return Level.FULL;
+    }
+
+    private static Level parseLevel(String level) {
+        try {
+            return Level.valueOf(level.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown history level: " + level);
+        }
+    }
+}
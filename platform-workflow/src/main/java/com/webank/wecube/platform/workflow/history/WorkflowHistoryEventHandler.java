@@ -0,0 +1,371 @@
+package com.webank.wecube.platform.workflow.history;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.history.event.HistoryEvent;
+import org.camunda.bpm.engine.impl.history.handler.DbHistoryEventHandler;
+import org.camunda.bpm.engine.impl.history.handler.HistoryEventHandler;
+import org.camunda.bpm.engine.impl.interceptor.CommandExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.webank.wecube.platform.workflow.delegate.EventPartitionManager;
+import com.webank.wecube.platform.workflow.entity.HistoryEventBatchEntity;
+import com.webank.wecube.platform.workflow.repository.HistoryEventBatchRepository;
+
+/**
+ * Writes the history events of the process engine into the act_hi tables.
+ *
+ * <p>
+ * Events are first filtered by the history level of their process definition,
+ * see {@link DefinitionHistoryLevels}. By default the remaining events are
+ * written at once, in the transaction of the engine command, as the engine
+ * does itself. With async-write-enabled they are collected per transaction
+ * instead and stored as one serialized batch row when it commits, and
+ * dropped if it rolls back, so that no committed event can be lost. A single
+ * flusher, the owner of event partition 0 when events are partitioned,
+ * writes the stored batches in the order of their ids every
+ * flush-interval-millis, and deletes each batch in the transaction writing
+ * it. History then lags the runtime by up to one flush interval.
+ * </p>
+ * <p>
+ * Batch ids are taken before their transactions commit, so a lower id may
+ * become visible after a higher one. A flush stops before a gap in the ids,
+ * as the missing batch may hold events the later ones depend on, such as the
+ * start of an activity whose end they update. The gap is passed once it has
+ * been open for gap-wait-millis, as by then its transaction has rolled back.
+ * </p>
+ *
+ */
+@Component
+public class WorkflowHistoryEventHandler implements HistoryEventHandler {
+    private static final Logger log = LoggerFactory.getLogger(WorkflowHistoryEventHandler.class);
+
+    @Autowired
+    private HistoryEventBatchRepository historyEventBatchRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired(required = false)
+    private EventPartitionManager eventPartitionManager;
+
+    @Value("${wecube.core.workflow.history.async-write-enabled:false}")
+    private boolean asyncWriteEnabled = false;
+
+    @Value("${wecube.core.workflow.history.default-level:full}")
+    private String defaultLevel = "full";
+
+    @Value("${wecube.core.workflow.history.definition-levels:}")
+    private String definitionLevels = "";
+
+    @Value("${wecube.core.workflow.history.flush-interval-millis:500}")
+    private long flushIntervalMillis = 500;
+
+    @Value("${wecube.core.workflow.history.flush-batch-size:100}")
+    private int flushBatchSize = 100;
+
+    @Value("${wecube.core.workflow.history.gap-wait-millis:5000}")
+    private long gapWaitMillis = 5000;
+
+    private final DbHistoryEventHandler dbHistoryEventHandler = new DbHistoryEventHandler();
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    // guarded by flushLock
+    private Long lastPassedId;
+
+    // id after a gap -> when the gap was first seen, guarded by flushLock
+    private final TreeMap<Long, Long> gapSeenTimes = new TreeMap<>();
+
+    private volatile ProcessEngineConfigurationImpl processEngineConfiguration;
+
+    private DefinitionHistoryLevels historyLevels;
+
+    private ScheduledExecutorService flushExecutor;
+
+    @PostConstruct
+    public void init() {
+        historyLevels = new DefinitionHistoryLevels(defaultLevel, definitionLevels);
+
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "history-event-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        // also runs in synchronous mode, to write what an earlier run left
+        flushExecutor.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+        log.info("history events are written {}, default history level {}, history levels of definitions [{}]",
+                asyncWriteEnabled ? "after commit" : "in the engine transaction", defaultLevel, definitionLevels);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (flushExecutor != null) {
+            flushExecutor.shutdownNow();
+        }
+    }
+
+    public void setProcessEngineConfiguration(ProcessEngineConfigurationImpl processEngineConfiguration) {
+        this.processEngineConfiguration = processEngineConfiguration;
+    }
+
+    @Override
+    public void handleEvent(HistoryEvent historyEvent) {
+        if (!historyLevels.isProduced(historyEvent)) {
+            return;
+        }
+
+        if (!asyncWriteEnabled || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            dbHistoryEventHandler.handleEvent(historyEvent);
+            return;
+        }
+
+        currentCollector().events.add(historyEvent);
+    }
+
+    @Override
+    public void handleEvents(List<HistoryEvent> historyEvents) {
+        for (HistoryEvent historyEvent : historyEvents) {
+            handleEvent(historyEvent);
+        }
+    }
+
+    /**
+     * Writes all stored batches of history events.
+     *
+     * @return the number of batches written
+     */
+    public int flush() {
+        CommandExecutor commandExecutor = processEngineConfiguration == null ? null
+                : processEngineConfiguration.getCommandExecutorTxRequired();
+        if (commandExecutor == null) {
+            return 0;
+        }
+
+        flushLock.lock();
+        try {
+            int written = 0;
+            long lastId = 0;
+            List<Long> ids;
+            while (!(ids = historyEventBatchRepository.findIdsAfter(lastId,
+                    PageRequest.of(0, Math.max(1, flushBatchSize)))).isEmpty()) {
+                List<Long> readyIds = takeReadyIds(ids);
+                if (!readyIds.isEmpty()) {
+                    written += writeBatches(readyIds);
+                    lastId = readyIds.get(readyIds.size() - 1);
+                }
+                if (readyIds.size() < ids.size()) {
+                    // the batch in the gap is still committing
+                    break;
+                }
+            }
+            return written;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public long getPendingBatchCount() {
+        return historyEventBatchRepository.count();
+    }
+
+    private void flushQuietly() {
+        if (eventPartitionManager != null && !eventPartitionManager.isOwned(0)) {
+            return;
+        }
+
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("failed to write history events", e);
+        }
+    }
+
+    /**
+     * Returns the leading ids up to the first gap which has not been open for
+     * gapWaitMillis yet. An id not above the last one passed is a batch which
+     * failed to be written before, and is always ready.
+     */
+    private List<Long> takeReadyIds(List<Long> ids) {
+        long now = System.currentTimeMillis();
+        List<Long> readyIds = new ArrayList<>();
+        Long previousId = lastPassedId;
+        boolean blocked = false;
+        for (Long id : ids) {
+            if (previousId != null && id > previousId + 1) {
+                // the later gaps start waiting too, so that they are not waited for one after another
+                Long seenTime = gapSeenTimes.putIfAbsent(id, now);
+                blocked = blocked || now - (seenTime == null ? now : seenTime) < gapWaitMillis;
+            }
+            if (!blocked) {
+                readyIds.add(id);
+                lastPassedId = lastPassedId == null ? id : Math.max(lastPassedId, id);
+            }
+            previousId = previousId == null ? id : Math.max(previousId, id);
+        }
+
+        if (lastPassedId != null) {
+            gapSeenTimes.headMap(lastPassedId, true).clear();
+        }
+        return readyIds;
+    }
+
+    private int writeBatches(List<Long> ids) {
+        try {
+            return new TransactionTemplate(transactionManager).execute(status -> {
+                int written = 0;
+                for (Long id : ids) {
+                    written += writeBatch(id);
+                }
+                return written;
+            });
+        } catch (RuntimeException e) {
+            log.error("failed to write {} history event batches at once, writing them one by one", ids.size(), e);
+            int written = 0;
+            for (Long id : ids) {
+                try {
+                    written += new TransactionTemplate(transactionManager).execute(status -> writeBatch(id));
+                } catch (RuntimeException ex) {
+                    // the batch stays stored and is written by the next flush
+                    log.error("failed to write history event batch {}", id, ex);
+                }
+            }
+            return written;
+        }
+    }
+
+    private int writeBatch(Long id) {
+        HistoryEventBatchEntity batch = historyEventBatchRepository.findById(id).orElse(null);
+        if (batch == null || historyEventBatchRepository.deleteOneById(id) != 1) {
+            // written by another flusher meanwhile
+            return 0;
+        }
+
+        writeEvents(deserialize(batch.getEventData()));
+        return 1;
+    }
+
+    /**
+     * Writes the events in as few engine commands as possible, starting a new
+     * one when an event of an entity already written in the current one comes,
+     * as the engine cannot insert and update the same entity in one command.
+     */
+    private void writeEvents(List<HistoryEvent> historyEvents) {
+        CommandExecutor commandExecutor = processEngineConfiguration.getCommandExecutorTxRequired();
+
+        List<HistoryEvent> run = new ArrayList<>();
+        Set<String> entityKeys = new HashSet<>();
+        for (HistoryEvent historyEvent : historyEvents) {
+            String entityKey = historyEvent.getId() == null ? null
+                    : historyEvent.getClass().getName() + ":" + historyEvent.getId();
+            if (entityKey != null && !entityKeys.add(entityKey)) {
+                writeRun(commandExecutor, run);
+                run = new ArrayList<>();
+                entityKeys.clear();
+                entityKeys.add(entityKey);
+            }
+            run.add(historyEvent);
+        }
+        writeRun(commandExecutor, run);
+    }
+
+    private void writeRun(CommandExecutor commandExecutor, List<HistoryEvent> run) {
+        if (run.isEmpty()) {
+            return;
+        }
+
+        commandExecutor.execute(commandContext -> {
+            dbHistoryEventHandler.handleEvents(run);
+            return null;
+        });
+    }
+
+    private HistoryEventCollector currentCollector() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof HistoryEventCollector
+                    && ((HistoryEventCollector) synchronization).getHandler() == this) {
+                return (HistoryEventCollector) synchronization;
+            }
+        }
+
+        HistoryEventCollector collector = new HistoryEventCollector();
+        TransactionSynchronizationManager.registerSynchronization(collector);
+        return collector;
+    }
+
+    private byte[] serialize(List<HistoryEvent> historyEvents) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(historyEvents);
+        }
+        return bytes.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<HistoryEvent> deserialize(byte[] eventData) {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(eventData))) {
+            return (List<HistoryEvent>) in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("Cannot read stored history events.", e);
+        }
+    }
+
+    private class HistoryEventCollector extends TransactionSynchronizationAdapter {
+        final List<HistoryEvent> events = new ArrayList<>();
+
+        WorkflowHistoryEventHandler getHandler() {
+            return WorkflowHistoryEventHandler.this;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            if (events.isEmpty()) {
+                return;
+            }
+
+            byte[] eventData;
+            try {
+                eventData = serialize(events);
+            } catch (IOException e) {
+                log.warn("cannot store {} history events, writing them in the engine transaction", events.size(), e);
+                writeEvents(events);
+                return;
+            }
+
+            HistoryEventBatchEntity batch = new HistoryEventBatchEntity();
+            batch.setEventCount(events.size());
+            batch.setEventData(eventData);
+            batch.setCreatedTime(new Date());
+            historyEventBatchRepository.save(batch);
+        }
+    }
+}
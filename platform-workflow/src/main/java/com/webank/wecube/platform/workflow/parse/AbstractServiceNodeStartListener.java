@@ -5,9 +5,9 @@ import java.util.Date;
 import org.camunda.bpm.engine.delegate.DelegateExecution;
 
 import com.webank.wecube.platform.workflow.WorkflowConstants;
+import com.webank.wecube.platform.workflow.delegate.ServiceNodeStatusWriter;
 import com.webank.wecube.platform.workflow.entity.ServiceNodeStatusEntity;
 import com.webank.wecube.platform.workflow.model.TraceStatus;
-import com.webank.wecube.platform.workflow.repository.ServiceNodeStatusRepository;
 
 /**
  * 
@@ -19,25 +19,20 @@ public abstract class AbstractServiceNodeStartListener extends AbstractServiceNo
         String nodeId = execution.getCurrentActivityId();
         String procInstanceBizKey = execution.getProcessBusinessKey();
 
-        ServiceNodeStatusRepository serviceNodeStatusRepository = SpringApplicationContextUtil
-                .getBean(ServiceNodeStatusRepository.class);
-
-        ServiceNodeStatusEntity entity = serviceNodeStatusRepository
-                .findOneByProcInstanceBizKeyAndNodeId(procInstanceBizKey, nodeId);
+        Date currTime = new Date();
+        boolean updated = SpringApplicationContextUtil.getBean(ServiceNodeStatusWriter.class)
+                .update(procInstanceBizKey, nodeId, null, entity -> {
+                    entity.setUpdatedBy(WorkflowConstants.DEFAULT_USER);
+                    entity.setUpdatedTime(currTime);
+                    entity.setStatus(TraceStatus.InProgress);
+                    entity.setStartTime(currTime);
+                });
 
-        if (entity == null) {
+        if (!updated) {
             getLogger().error("{} is null for procInstanceBizKey={},nodeId={}", ServiceNodeStatusEntity.class.getSimpleName(),
                     procInstanceBizKey, nodeId);
             throw new IllegalStateException("service node status entity doesnt exist");
         }
         
-        Date currTime = new Date();
-        entity.setUpdatedBy(WorkflowConstants.DEFAULT_USER);
-        entity.setUpdatedTime(currTime);
-        entity.setStatus(TraceStatus.InProgress);
-        entity.setStartTime(currTime);
-        
-        serviceNodeStatusRepository.save(entity);
-        
     }
 }
@@ -26,6 +26,7 @@ import org.camunda.bpm.engine.impl.core.model.CallableElement;
 import org.camunda.bpm.engine.impl.el.Expression;
 import org.camunda.bpm.engine.impl.el.UelExpressionCondition;
 import org.camunda.bpm.engine.impl.event.EventType;
+import org.camunda.bpm.engine.impl.persistence.entity.ProcessDefinitionEntity;
 import org.camunda.bpm.engine.impl.pvm.process.ActivityImpl;
 import org.camunda.bpm.engine.impl.pvm.process.ActivityStartBehavior;
 import org.camunda.bpm.engine.impl.pvm.process.ScopeImpl;
@@ -59,6 +60,18 @@ class CustomBpmnParse extends BpmnParse {
         logger.info("BpmnParse: {} created", CustomBpmnParse.class.getName());
     }
 
+    @Override
+    public ProcessDefinitionEntity parseProcess(Element processElement) {
+        ProcessDefinitionEntity processDefinition = super.parseProcess(processElement);
+        if (processDefinition != null) {
+            SignalCatchEventIndex signalCatchEventIndex = SignalCatchEventIndex.build(processElement);
+            processDefinition.getProperties().set(SignalCatchEventIndex.PROPERTY_KEY, signalCatchEventIndex);
+            logger.debug("indexed {} signal catch events,processKey={}", signalCatchEventIndex.size(),
+                    processDefinition.getKey());
+        }
+        return processDefinition;
+    }
+
     @Override
     protected void parseSignals() {
         super.parseSignals();
@@ -12,7 +12,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import com.webank.wecube.platform.workflow.WorkflowConstants;
-import com.webank.wecube.platform.workflow.delegate.QueueHolder;
+import com.webank.wecube.platform.workflow.delegate.ServiceInvocationEventQueue;
 import com.webank.wecube.platform.workflow.entity.ProcessInstanceStatusEntity;
 import com.webank.wecube.platform.workflow.model.ServiceInvocationEvent;
 import com.webank.wecube.platform.workflow.model.ServiceInvocationEventImpl;
@@ -75,7 +75,7 @@ public class ProcessInstanceEndListener implements ExecutionListener {
         event.setEventType(ServiceInvocationEvent.EventType.PROCESS_END_NOTIFICATION);
 
         try {
-            QueueHolder.putServiceInvocationEvent(event);
+            SpringApplicationContextUtil.getBean(ServiceInvocationEventQueue.class).put(event);
         } catch (Throwable e) {
             log.error("plugin invocation errors", e);
             throw e;
@@ -14,12 +14,12 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import com.webank.wecube.platform.workflow.commons.LocalIdGenerator;
+import com.webank.wecube.platform.workflow.delegate.ServiceNodeStatusWriter;
 import com.webank.wecube.platform.workflow.entity.ProcessInstanceStatusEntity;
 import com.webank.wecube.platform.workflow.entity.ServiceNodeStatusEntity;
 import com.webank.wecube.platform.workflow.model.NodeType;
 import com.webank.wecube.platform.workflow.model.TraceStatus;
 import com.webank.wecube.platform.workflow.repository.ProcessInstanceStatusRepository;
-import com.webank.wecube.platform.workflow.repository.ServiceNodeStatusRepository;
 
 /**
  * 
@@ -51,8 +51,8 @@ public class ProcessInstanceStartListener implements ExecutionListener {
         Date currTime = new Date();
         ProcessInstanceStatusRepository processInstanceStatusRepository = SpringApplicationContextUtil
                 .getBean(ProcessInstanceStatusRepository.class);
-        ServiceNodeStatusRepository serviceNodeStatusRepository = SpringApplicationContextUtil
-                .getBean(ServiceNodeStatusRepository.class);
+        ServiceNodeStatusWriter serviceNodeStatusWriter = SpringApplicationContextUtil
+                .getBean(ServiceNodeStatusWriter.class);
         
         ProcessInstanceStatusEntity instanceEntity = new ProcessInstanceStatusEntity();
         instanceEntity.setId(LocalIdGenerator.generateId());
@@ -82,7 +82,7 @@ public class ProcessInstanceStartListener implements ExecutionListener {
             entity.setStatus(TraceStatus.NotStarted);
             entity.setTryTimes(0);
 
-            serviceNodeStatusRepository.save(entity);
+            serviceNodeStatusWriter.create(entity);
         }
 
         for (SubProcess node : subProcesses) {
@@ -99,7 +99,7 @@ public class ProcessInstanceStartListener implements ExecutionListener {
             entity.setStatus(TraceStatus.NotStarted);
             entity.setTryTimes(0);
 
-            serviceNodeStatusRepository.save(entity);
+            serviceNodeStatusWriter.create(entity);
         }
     }
 
@@ -0,0 +1,112 @@
+package com.webank.wecube.platform.workflow.parse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.camunda.bpm.engine.impl.core.model.PropertyKey;
+import org.camunda.bpm.engine.impl.util.xml.Element;
+
+/**
+ * Maps each service task of a process definition to the signal catch event
+ * it waits for after the service has been invoked, that is the first
+ * intermediate catch event with a signal event definition behind the first
+ * event based gateway following the service task.
+ *
+ * <p>
+ * It is built once when the process is parsed and kept as a property of the
+ * parsed process definition, so it lives in the deployment cache of the
+ * engine and is rebuilt whenever the definition is parsed again.
+ * </p>
+ *
+ */
+public class SignalCatchEventIndex {
+
+    public static final PropertyKey<SignalCatchEventIndex> PROPERTY_KEY = new PropertyKey<>("signalCatchEventIndex");
+
+    private static final String TAG_SEQUENCE_FLOW = "sequenceFlow";
+    private static final String TAG_SERVICE_TASK = "serviceTask";
+    private static final String TAG_EVENT_BASED_GATEWAY = "eventBasedGateway";
+    private static final String TAG_INTERMEDIATE_CATCH_EVENT = "intermediateCatchEvent";
+    private static final String TAG_SIGNAL_EVENT_DEFINITION = "signalEventDefinition";
+
+    private final Map<String, String> signalCatchEventIds;
+
+    private SignalCatchEventIndex(Map<String, String> signalCatchEventIds) {
+        this.signalCatchEventIds = Collections.unmodifiableMap(signalCatchEventIds);
+    }
+
+    public static SignalCatchEventIndex build(Element processElement) {
+        Map<String, Element> flowElements = new HashMap<>();
+        Map<String, List<String>> outgoingTargets = new HashMap<>();
+        collectFlowElements(processElement, flowElements, outgoingTargets);
+
+        Map<String, String> signalCatchEventIds = new HashMap<>();
+        for (Element element : flowElements.values()) {
+            if (!TAG_SERVICE_TASK.equals(element.getTagName())) {
+                continue;
+            }
+
+            Element gateway = findFirstTarget(element, flowElements, outgoingTargets, TAG_EVENT_BASED_GATEWAY, false);
+            if (gateway == null) {
+                continue;
+            }
+
+            Element catchEvent = findFirstTarget(gateway, flowElements, outgoingTargets,
+                    TAG_INTERMEDIATE_CATCH_EVENT, true);
+            if (catchEvent != null) {
+                signalCatchEventIds.put(element.attribute("id"), catchEvent.attribute("id"));
+            }
+        }
+
+        return new SignalCatchEventIndex(signalCatchEventIds);
+    }
+
+    /**
+     * @return the id of the signal catch event, or null if the service task
+     *         is not followed by one
+     */
+    public String getSignalCatchEventId(String serviceTaskId) {
+        return signalCatchEventIds.get(serviceTaskId);
+    }
+
+    public int size() {
+        return signalCatchEventIds.size();
+    }
+
+    private static void collectFlowElements(Element parent, Map<String, Element> flowElements,
+            Map<String, List<String>> outgoingTargets) {
+        for (Element child : parent.elements()) {
+            if (TAG_SEQUENCE_FLOW.equals(child.getTagName())) {
+                outgoingTargets.computeIfAbsent(child.attribute("sourceRef"), k -> new ArrayList<>())
+                        .add(child.attribute("targetRef"));
+            } else if (child.attribute("id") != null) {
+                flowElements.put(child.attribute("id"), child);
+            }
+
+            collectFlowElements(child, flowElements, outgoingTargets);
+        }
+    }
+
+    private static Element findFirstTarget(Element source, Map<String, Element> flowElements,
+            Map<String, List<String>> outgoingTargets, String tagName, boolean withSignalEventDefinition) {
+        List<String> targetIds = outgoingTargets.get(source.attribute("id"));
+        if (targetIds == null) {
+            return null;
+        }
+
+        for (String targetId : targetIds) {
+            Element target = flowElements.get(targetId);
+            if (target == null || !tagName.equals(target.getTagName())) {
+                continue;
+            }
+
+            if (!withSignalEventDefinition || target.element(TAG_SIGNAL_EVENT_DEFINITION) != null) {
+                return target;
+            }
+        }
+        return null;
+    }
+}
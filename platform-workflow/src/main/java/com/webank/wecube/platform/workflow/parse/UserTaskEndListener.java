@@ -8,9 +8,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
-import com.webank.wecube.platform.workflow.entity.ServiceNodeStatusEntity;
+import com.webank.wecube.platform.workflow.delegate.ServiceNodeStatusWriter;
 import com.webank.wecube.platform.workflow.model.TraceStatus;
-import com.webank.wecube.platform.workflow.repository.ServiceNodeStatusRepository;
 
 /**
  * 
@@ -33,20 +32,16 @@ public class UserTaskEndListener implements ExecutionListener {
     }
 
     protected void logUserTaskEnd(DelegateExecution execution) {
-        ServiceNodeStatusRepository respository = SpringApplicationContextUtil
-                .getBean(ServiceNodeStatusRepository.class);
         Date currTime = new Date();
-        ServiceNodeStatusEntity entity = respository.findOneByProcInstanceBizKeyAndNodeIdAndStatus(
-                execution.getProcessBusinessKey(), execution.getCurrentActivityId(), TraceStatus.InProgress);
-
-        if (entity != null) {
-            entity.setUpdatedBy("system");
-            entity.setUpdatedTime(currTime);
-            entity.setEndTime(currTime);
-            entity.setStatus(TraceStatus.Completed);
-
-            respository.save(entity);
-        } else {
+        boolean updated = SpringApplicationContextUtil.getBean(ServiceNodeStatusWriter.class).update(
+                execution.getProcessBusinessKey(), execution.getCurrentActivityId(), TraceStatus.InProgress, entity -> {
+                    entity.setUpdatedBy("system");
+                    entity.setUpdatedTime(currTime);
+                    entity.setEndTime(currTime);
+                    entity.setStatus(TraceStatus.Completed);
+                });
+
+        if (!updated) {
             log.warn("cannot find user task status entity for processInstBizKey={},nodeId={}",
                     execution.getProcessBusinessKey(), execution.getCurrentActivityId());
         }
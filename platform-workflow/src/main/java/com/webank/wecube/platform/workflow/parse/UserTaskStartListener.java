@@ -10,10 +10,10 @@ import org.springframework.stereotype.Component;
 
 import com.webank.wecube.platform.workflow.WorkflowConstants;
 import com.webank.wecube.platform.workflow.commons.LocalIdGenerator;
+import com.webank.wecube.platform.workflow.delegate.ServiceNodeStatusWriter;
 import com.webank.wecube.platform.workflow.entity.ServiceNodeStatusEntity;
 import com.webank.wecube.platform.workflow.model.NodeType;
 import com.webank.wecube.platform.workflow.model.TraceStatus;
-import com.webank.wecube.platform.workflow.repository.ServiceNodeStatusRepository;
 
 /**
  * 
@@ -51,7 +51,7 @@ public class UserTaskStartListener implements ExecutionListener {
         entity.setStatus(TraceStatus.InProgress);
         entity.setTryTimes(0);
 
-        SpringApplicationContextUtil.getBean(ServiceNodeStatusRepository.class).save(entity);
+        SpringApplicationContextUtil.getBean(ServiceNodeStatusWriter.class).create(entity);
     }
 
 }
@@ -0,0 +1,37 @@
+package com.webank.wecube.platform.workflow.repository;
+
+import java.util.Date;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.webank.wecube.platform.workflow.entity.EventNodeEntity;
+
+public interface EventNodeRepository extends JpaRepository<EventNodeEntity, String> {
+
+    @Query("select count(e) from EventNodeEntity e where e.heartbeatTime >= :since")
+    long countAlive(@Param("since") Date since);
+
+    @Transactional
+    @Modifying
+    @Query(value = "insert into ACT_RU_EVENT_NODE (OWNER, HEARTBEAT_TIME) values (:owner, :now)", nativeQuery = true)
+    int create(@Param("owner") String owner, @Param("now") Date now);
+
+    @Transactional
+    @Modifying
+    @Query("update EventNodeEntity e set e.heartbeatTime = :now where e.owner = :owner")
+    int heartbeat(@Param("owner") String owner, @Param("now") Date now);
+
+    @Transactional
+    @Modifying
+    @Query("delete from EventNodeEntity e where e.heartbeatTime < :deadline")
+    int deleteDead(@Param("deadline") Date deadline);
+
+    @Transactional
+    @Modifying
+    @Query("delete from EventNodeEntity e where e.owner = :owner")
+    int deleteOneByOwner(@Param("owner") String owner);
+}
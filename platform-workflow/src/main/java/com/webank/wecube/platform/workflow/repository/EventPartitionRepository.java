@@ -0,0 +1,50 @@
+package com.webank.wecube.platform.workflow.repository;
+
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.webank.wecube.platform.workflow.entity.EventPartitionEntity;
+
+public interface EventPartitionRepository extends JpaRepository<EventPartitionEntity, Integer> {
+
+    @Query("select e.partitionNo from EventPartitionEntity e")
+    List<Integer> findAllPartitionNos();
+
+    @Query("select e.partitionNo from EventPartitionEntity e where e.owner = :owner order by e.partitionNo")
+    List<Integer> findPartitionNosOwnedBy(@Param("owner") String owner);
+
+    @Query("select e from EventPartitionEntity e where e.partitionNo < :partitionCount "
+            + " and (e.owner is null or e.expireTime < :now) order by e.partitionNo")
+    List<EventPartitionEntity> findAvailable(@Param("partitionCount") int partitionCount, @Param("now") Date now);
+
+    @Transactional
+    @Modifying
+    @Query(value = "insert into ACT_RU_EVENT_PARTITION (PARTITION_NO, OWNER, EXPIRE_TIME, UPDATED_TIME) "
+            + " values (:partitionNo, null, null, :now)", nativeQuery = true)
+    int create(@Param("partitionNo") int partitionNo, @Param("now") Date now);
+
+    @Transactional
+    @Modifying
+    @Query("update EventPartitionEntity e set e.owner = :owner, e.expireTime = :expireTime, e.updatedTime = :now "
+            + " where e.partitionNo = :partitionNo and (e.owner is null or e.expireTime < :now)")
+    int takeOver(@Param("partitionNo") int partitionNo, @Param("owner") String owner,
+            @Param("expireTime") Date expireTime, @Param("now") Date now);
+
+    @Transactional
+    @Modifying
+    @Query("update EventPartitionEntity e set e.expireTime = :expireTime, e.updatedTime = :now "
+            + " where e.owner = :owner")
+    int renewAll(@Param("owner") String owner, @Param("expireTime") Date expireTime, @Param("now") Date now);
+
+    @Transactional
+    @Modifying
+    @Query("update EventPartitionEntity e set e.owner = null, e.expireTime = null, e.updatedTime = :now "
+            + " where e.partitionNo = :partitionNo and e.owner = :owner")
+    int release(@Param("partitionNo") int partitionNo, @Param("owner") String owner, @Param("now") Date now);
+}
@@ -0,0 +1,23 @@
+package com.webank.wecube.platform.workflow.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.webank.wecube.platform.workflow.entity.HistoryEventBatchEntity;
+
+public interface HistoryEventBatchRepository extends JpaRepository<HistoryEventBatchEntity, Long> {
+
+    @Query("select e.id from HistoryEventBatchEntity e where e.id > :afterId order by e.id")
+    List<Long> findIdsAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("delete from HistoryEventBatchEntity e where e.id = :id")
+    int deleteOneById(@Param("id") Long id);
+}
@@ -0,0 +1,42 @@
+package com.webank.wecube.platform.workflow.repository;
+
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.webank.wecube.platform.workflow.entity.IdNodeLeaseEntity;
+
+public interface IdNodeLeaseRepository extends JpaRepository<IdNodeLeaseEntity, Integer> {
+
+    @Query("select e.nodeId from IdNodeLeaseEntity e")
+    List<Integer> findAllNodeIds();
+
+    @Query("select e.nodeId from IdNodeLeaseEntity e where e.expireTime < :now order by e.expireTime")
+    List<Integer> findExpiredNodeIds(@Param("now") Date now);
+
+    @Transactional
+    @Modifying
+    @Query(value = "insert into ACT_RU_ID_NODE_LEASE (NODE_ID, OWNER, EXPIRE_TIME, LAST_TIMESTAMP, UPDATED_TIME) "
+            + " values (:nodeId, :owner, :expireTime, 0, :now)", nativeQuery = true)
+    int create(@Param("nodeId") int nodeId, @Param("owner") String owner, @Param("expireTime") Date expireTime,
+            @Param("now") Date now);
+
+    @Transactional
+    @Modifying
+    @Query("update IdNodeLeaseEntity e set e.owner = :owner, e.expireTime = :expireTime, e.updatedTime = :now "
+            + " where e.nodeId = :nodeId and e.expireTime < :now")
+    int takeOver(@Param("nodeId") int nodeId, @Param("owner") String owner, @Param("expireTime") Date expireTime,
+            @Param("now") Date now);
+
+    @Transactional
+    @Modifying
+    @Query("update IdNodeLeaseEntity e set e.expireTime = :expireTime, e.lastTimestamp = :lastTimestamp, "
+            + " e.updatedTime = :now where e.nodeId = :nodeId and e.owner = :owner")
+    int renew(@Param("nodeId") int nodeId, @Param("owner") String owner, @Param("expireTime") Date expireTime,
+            @Param("lastTimestamp") long lastTimestamp, @Param("now") Date now);
+}
@@ -0,0 +1,63 @@
+package com.webank.wecube.platform.workflow.repository;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.webank.wecube.platform.workflow.entity.ServiceInvocationEventEntity;
+
+public interface ServiceInvocationEventRepository extends JpaRepository<ServiceInvocationEventEntity, String> {
+
+    @Query("select e.id from ServiceInvocationEventEntity e where e.status = 'NEW' and e.availableTime <= :now "
+            + " order by e.createdTime")
+    List<String> findAvailableIds(@Param("now") Date now, Pageable pageable);
+
+    @Query("select e.id from ServiceInvocationEventEntity e where e.status = 'NEW' and e.availableTime <= :now "
+            + " and e.partitionNo in :partitionNos order by e.createdTime")
+    List<String> findAvailableIdsInPartitions(@Param("now") Date now,
+            @Param("partitionNos") Collection<Integer> partitionNos, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("update ServiceInvocationEventEntity e set e.status = 'CLAIMED', e.owner = :owner, e.claimedTime = :now "
+            + " where e.id = :id and e.status = 'NEW'")
+    int claim(@Param("id") String id, @Param("owner") String owner, @Param("now") Date now);
+
+    @Transactional
+    @Modifying
+    @Query("update ServiceInvocationEventEntity e set e.status = 'CLAIMED', e.owner = :owner, e.claimedTime = :now "
+            + " where e.id = :id and e.status = 'NEW' and exists (select p.partitionNo from EventPartitionEntity p "
+            + " where p.partitionNo = e.partitionNo and p.owner = :owner and p.expireTime > :now)")
+    int claimInOwnedPartition(@Param("id") String id, @Param("owner") String owner, @Param("now") Date now);
+
+    @Transactional
+    @Modifying
+    @Query("update ServiceInvocationEventEntity e set e.claimedTime = :now "
+            + " where e.id in :ids and e.status = 'CLAIMED' and e.owner = :owner")
+    int renewClaims(@Param("ids") Collection<String> ids, @Param("owner") String owner, @Param("now") Date now);
+
+    @Transactional
+    @Modifying
+    @Query("update ServiceInvocationEventEntity e set e.status = 'NEW', e.owner = null, e.claimedTime = null, "
+            + " e.retryTimes = :retryTimes, e.availableTime = :availableTime where e.id = :id")
+    int release(@Param("id") String id, @Param("retryTimes") int retryTimes,
+            @Param("availableTime") Date availableTime);
+
+    @Transactional
+    @Modifying
+    @Query("update ServiceInvocationEventEntity e set e.status = 'NEW', e.owner = null, e.claimedTime = null "
+            + " where e.status = 'CLAIMED' and e.claimedTime < :deadline")
+    int releaseStaleClaims(@Param("deadline") Date deadline);
+
+    @Transactional
+    @Modifying
+    @Query("delete from ServiceInvocationEventEntity e where e.id = :id")
+    int deleteOneById(@Param("id") String id);
+}
@@ -1,5 +1,8 @@
 package com.webank.wecube.platform.workflow.repository;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import com.webank.wecube.platform.workflow.entity.ServiceNodeStatusEntity;
@@ -9,4 +12,6 @@ public interface ServiceNodeStatusRepository extends JpaRepository<ServiceNodeSt
     ServiceNodeStatusEntity findOneByProcInstanceBizKeyAndNodeId(String procInstanceBizKey, String nodeId);
     ServiceNodeStatusEntity findOneByProcInstanceIdAndNodeId(String procInstanceId, String nodeId);
     ServiceNodeStatusEntity findOneByProcInstanceBizKeyAndNodeIdAndStatus(String procInstanceBizKey, String nodeId, TraceStatus status);
+    List<ServiceNodeStatusEntity> findByProcInstanceId(String procInstanceId);
+    List<ServiceNodeStatusEntity> findByProcInstanceBizKeyIn(Collection<String> procInstanceBizKeys);
 }